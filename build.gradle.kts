@@ -24,9 +24,6 @@
     
     // Mockito
     testImplementation("org.mockito:mockito-core:3.12.4")
-    
-    // Gson
-    implementation("com.google.code.gson:gson:2.10.1")
 }
 
 tasks {
@@ -0,0 +1,58 @@
+package com.redaction.action;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.redaction.service.SensitiveDataService;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * git 历史审计动作
+ *
+ * 工作区脱敏不会影响已经提交的历史，该动作扫描本地 git 历史中所有版本的配置文件，
+ * 报告引入敏感信息的提交和路径，便于评估是否需要轮换凭据或改写历史。
+ *
+ * @see com.redaction.service.SensitiveDataService#auditGitHistory
+ * @version 1.0.0
+ */
+public class AuditGitHistoryAction extends AnAction {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (project == null) return;
+
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "正在审计 git 历史...", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    SensitiveDataService service = project.getService(SensitiveDataService.class);
+                    String summary = service.auditGitHistory(indicator);
+
+                    ApplicationManager.getApplication().invokeLater(() -> {
+                        Messages.showInfoMessage(project, summary, "git 历史审计完成");
+                    });
+                } catch (ProcessCanceledException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    ApplicationManager.getApplication().invokeLater(() -> {
+                        Messages.showErrorDialog(project,
+                            "审计 git 历史时发生错误：" + ex.getMessage(),
+                            "审计错误");
+                    });
+                }
+            }
+        });
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        e.getPresentation().setEnabledAndVisible(e.getProject() != null);
+    }
+}
@@ -0,0 +1,71 @@
+package com.redaction.action;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.fileChooser.FileChooser;
+import com.intellij.openapi.fileChooser.FileChooserDescriptor;
+import com.intellij.openapi.fileChooser.FileChooserDescriptorFactory;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.redaction.service.SensitiveDataService;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+
+/**
+ * 已知凭据审计动作
+ *
+ * 选择一份已轮换或已知泄露的凭据清单（明文或 sha256 摘要），
+ * 在项目文件和构建输出中查找这些凭据的出现位置。
+ *
+ * @see com.redaction.service.SensitiveDataService#auditKnownSecrets
+ * @version 1.0.0
+ */
+public class AuditKnownSecretsAction extends AnAction {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (project == null) return;
+
+        FileChooserDescriptor descriptor = FileChooserDescriptorFactory.createSingleFileNoJarsDescriptor()
+            .withTitle("选择凭据清单")
+            .withDescription("每行一条凭据明文，或 sha256:<摘要>[:<长度>]");
+        VirtualFile secretsFile = FileChooser.chooseFile(descriptor, project, null);
+        if (secretsFile == null) return;
+        Path secretsPath = secretsFile.toNioPath();
+
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "正在查找已知凭据...", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    SensitiveDataService service = project.getService(SensitiveDataService.class);
+                    String summary = service.auditKnownSecrets(secretsPath, indicator);
+
+                    ApplicationManager.getApplication().invokeLater(() -> {
+                        Messages.showInfoMessage(project, summary, "已知凭据审计完成");
+                    });
+                } catch (ProcessCanceledException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    ApplicationManager.getApplication().invokeLater(() -> {
+                        Messages.showErrorDialog(project,
+                            "查找已知凭据时发生错误：" + ex.getMessage(),
+                            "审计错误");
+                    });
+                }
+            }
+        });
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        e.getPresentation().setEnabledAndVisible(e.getProject() != null);
+    }
+}
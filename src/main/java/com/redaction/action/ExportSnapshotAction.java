@@ -0,0 +1,75 @@
+package com.redaction.action;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.fileChooser.FileSaverDialog;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.redaction.service.SensitiveDataService;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+
+/**
+ * 导出脱敏副本动作
+ *
+ * 将项目目录导出为脱敏后的副本（目录或 zip 文件），工作区中的文件保持不变，
+ * 适用于把项目发给外部人员而不需要先原地脱敏再回滚的场景。
+ *
+ * @see com.redaction.service.SensitiveDataService#exportSnapshot
+ * @version 1.0.0
+ */
+public class ExportSnapshotAction extends AnAction {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (project == null) return;
+
+        FileSaverDescriptor descriptor = new FileSaverDescriptor("导出脱敏副本",
+            "输入目录名导出为目录，或输入以 .zip 结尾的文件名导出为 zip");
+        FileSaverDialog dialog = FileChooserFactory.getInstance().createSaveFileDialog(descriptor, project);
+        VirtualFileWrapper wrapper = dialog.save(project.getName() + "-sanitized");
+        if (wrapper == null) return;
+        Path target = wrapper.getFile().toPath();
+
+        // 副本取自磁盘上的内容
+        FileDocumentManager.getInstance().saveAllDocuments();
+
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "正在导出脱敏副本...", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    SensitiveDataService service = project.getService(SensitiveDataService.class);
+                    String summary = service.exportSnapshot(target, indicator);
+
+                    ApplicationManager.getApplication().invokeLater(() -> {
+                        Messages.showInfoMessage(project, summary, "脱敏副本导出完成");
+                    });
+                } catch (ProcessCanceledException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    ApplicationManager.getApplication().invokeLater(() -> {
+                        Messages.showErrorDialog(project,
+                            "导出脱敏副本时发生错误：" + ex.getMessage(),
+                            "导出错误");
+                    });
+                }
+            }
+        });
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        e.getPresentation().setEnabledAndVisible(e.getProject() != null);
+    }
+}
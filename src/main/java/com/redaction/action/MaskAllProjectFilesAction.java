@@ -2,12 +2,14 @@
 
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.openapi.application.ApplicationManager;
+import com.redaction.service.MaskingReport;
 import com.redaction.service.SensitiveDataService;
 import org.jetbrains.annotations.NotNull;
 
@@ -28,7 +30,7 @@ public void actionPerformed(@NotNull AnActionEvent e) {
         );
 
         if (answer == Messages.YES) {
-            ProgressManager.getInstance().run(new Task.Backgroundable(project, "正在脱敏配置文件...", false) {
+            ProgressManager.getInstance().run(new Task.Backgroundable(project, "正在脱敏配置文件...", true) {
                 @Override
                 public void run(@NotNull ProgressIndicator indicator) {
                     try {
@@ -36,16 +38,19 @@ public void run(@NotNull ProgressIndicator indicator) {
                         indicator.setText("正在扫描配置文件...");
                         
                         SensitiveDataService service = project.getService(SensitiveDataService.class);
-                        service.maskAllProjectFiles();
+                        MaskingReport report = service.maskAllProjectFiles(indicator);
                         
                         indicator.setText("脱敏完成");
                         
                         ApplicationManager.getApplication().invokeLater(() -> {
                             Messages.showInfoMessage(project, 
                                 "项目配置文件脱敏完成！\n" +
+                                report.toSummary() + "\n" +
                                 "请检查版本控制系统中的更改，确认脱敏结果。", 
                                 "脱敏完成");
                         });
+                    } catch (ProcessCanceledException ex) {
+                        throw ex;
                     } catch (Exception ex) {
                         ApplicationManager.getApplication().invokeLater(() -> {
                             Messages.showErrorDialog(project,
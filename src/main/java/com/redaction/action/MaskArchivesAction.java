@@ -0,0 +1,77 @@
+package com.redaction.action;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.redaction.format.ArchiveMasker;
+import com.redaction.service.MaskingReport;
+import com.redaction.service.SensitiveDataService;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 归档文件脱敏动作
+ *
+ * 脱敏选中的 jar / war / ear / zip / tar / tar.gz 文件，以及选中目录（包括构建输出目录）下的全部归档文件。
+ * 归档中的配置类条目按格式处理，只重写有替换的条目，不解压到磁盘。
+ *
+ * @see com.redaction.service.SensitiveDataService#maskArchives
+ * @version 1.0.0
+ */
+public class MaskArchivesAction extends AnAction {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (project == null) return;
+
+        VirtualFile[] files = e.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+        if (files == null || files.length == 0) return;
+        List<VirtualFile> roots = Arrays.asList(files);
+
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "正在脱敏归档文件...", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    SensitiveDataService service = project.getService(SensitiveDataService.class);
+                    MaskingReport report = service.maskArchives(roots, indicator);
+
+                    ApplicationManager.getApplication().invokeLater(() -> {
+                        Messages.showInfoMessage(project,
+                            "归档文件脱敏完成！\n" +
+                            report.toSummary() + "\n" +
+                            "签名的 jar 重写后签名失效，请重新签名后再分发。",
+                            "脱敏完成");
+                    });
+                } catch (ProcessCanceledException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    ApplicationManager.getApplication().invokeLater(() -> {
+                        Messages.showErrorDialog(project,
+                            "处理归档文件时发生错误：" + ex.getMessage(),
+                            "脱敏错误");
+                    });
+                }
+            }
+        });
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        VirtualFile[] files = e.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+        boolean enabled = e.getProject() != null && files != null && files.length > 0
+            && Arrays.stream(files).allMatch(file -> file.isDirectory()
+                || ArchiveMasker.isArchive(file.getName().toLowerCase()));
+        e.getPresentation().setEnabledAndVisible(enabled);
+    }
+}
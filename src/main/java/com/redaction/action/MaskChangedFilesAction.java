@@ -0,0 +1,67 @@
+package com.redaction.action;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vcs.ProjectLevelVcsManager;
+import com.redaction.service.MaskingReport;
+import com.redaction.service.SensitiveDataService;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 变更文件脱敏动作
+ *
+ * 只脱敏版本控制中有变更的文件（已修改、新增、未纳入版本控制），
+ * 适用于提交或分享前只需处理本次改动的场景，不遍历整个项目。
+ *
+ * @see com.redaction.service.SensitiveDataService#maskChangedFiles
+ * @version 1.0.0
+ */
+public class MaskChangedFilesAction extends AnAction {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (project == null) return;
+
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "正在脱敏变更文件...", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    SensitiveDataService service = project.getService(SensitiveDataService.class);
+                    MaskingReport report = service.maskChangedFiles(indicator);
+
+                    ApplicationManager.getApplication().invokeLater(() -> {
+                        Messages.showInfoMessage(project,
+                            "变更文件脱敏完成！\n" +
+                            report.toSummary() + "\n" +
+                            "请检查版本控制系统中的更改，确认脱敏结果。",
+                            "脱敏完成");
+                    });
+                } catch (ProcessCanceledException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    ApplicationManager.getApplication().invokeLater(() -> {
+                        Messages.showErrorDialog(project,
+                            "处理文件时发生错误：" + ex.getMessage(),
+                            "脱敏错误");
+                    });
+                }
+            }
+        });
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        e.getPresentation().setEnabledAndVisible(
+            project != null && ProjectLevelVcsManager.getInstance(project).hasActiveVcss()
+        );
+    }
+}
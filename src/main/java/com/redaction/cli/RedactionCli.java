@@ -0,0 +1,263 @@
+package com.redaction.cli;
+
+import com.redaction.detect.CommitGate;
+import com.redaction.detect.KnownSecretIndex;
+import com.redaction.git.GitRepository;
+import com.redaction.git.HistoryAuditor;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 命令行入口
+ *
+ * 不依赖 IDE 运行，目前支持以下模式：
+ * - pre-commit：作为 git pre-commit hook 使用，检查暂存区中配置文件和源文件新增的行，
+ *   发现未脱敏的敏感信息时以非零状态退出，阻止提交
+ * - history-audit [仓库目录]：扫描本地 git 历史中所有版本的配置文件和源文件，
+ *   报告引入敏感信息的提交和路径
+ * - known-secrets &lt;凭据清单&gt; [目录]：在目录中查找清单列出的已知凭据，报告文件、行列和字节偏移
+ *
+ * 用法（.git/hooks/pre-commit）：
+ * <pre>
+ * java -cp sensitive-data-masker.jar com.redaction.cli.RedactionCli pre-commit
+ * </pre>
+ *
+ * @version 1.0.0
+ */
+public final class RedactionCli {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FINDINGS = 1;
+    static final int EXIT_ERROR = 2;
+
+    private RedactionCli() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            printUsage();
+            System.exit(EXIT_ERROR);
+        }
+        int exitCode;
+        try {
+            switch (args[0]) {
+                case "pre-commit":
+                    exitCode = preCommit();
+                    break;
+                case "history-audit":
+                    exitCode = historyAudit(Paths.get(args.length > 1 ? args[1] : "."));
+                    break;
+                case "known-secrets":
+                    if (args.length < 2) {
+                        printUsage();
+                        exitCode = EXIT_ERROR;
+                    } else {
+                        exitCode = knownSecrets(Paths.get(args[1]), Paths.get(args.length > 2 ? args[2] : "."));
+                    }
+                    break;
+                default:
+                    printUsage();
+                    exitCode = EXIT_ERROR;
+            }
+        } catch (IOException e) {
+            System.err.println("执行失败: " + e.getMessage());
+            exitCode = EXIT_ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exitCode = EXIT_ERROR;
+        }
+        System.exit(exitCode);
+    }
+
+    private static void printUsage() {
+        System.err.println("用法: RedactionCli <mode>");
+        System.err.println("  pre-commit              检查暂存区中新增的敏感信息（用于 git pre-commit hook）");
+        System.err.println("  history-audit [目录]    扫描本地 git 历史中的敏感信息");
+        System.err.println("  known-secrets <清单> [目录]  查找清单中列出的已知凭据");
+    }
+
+    /**
+     * 检查暂存区的变更
+     *
+     * 只读取 git diff --cached -U0 输出中新增的行，不读取完整文件，
+     * 检查耗时与本次提交的改动量成正比。
+     */
+    static int preCommit() throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        Process process = new ProcessBuilder(Arrays.asList(
+            "git", "-c", "core.quotePath=false", "diff", "--cached", "-U0",
+            "--no-color", "--no-ext-diff", "--diff-filter=ACMR"))
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+
+        List<CommitGate.Finding> findings = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            scanDiff(reader, findings);
+        }
+        int gitExit = process.waitFor();
+        if (gitExit != 0) {
+            System.err.println("git diff 执行失败，退出码: " + gitExit);
+            return EXIT_ERROR;
+        }
+
+        if (findings.isEmpty()) {
+            return EXIT_OK;
+        }
+        System.err.println("以下新增内容包含未脱敏的敏感信息：");
+        for (CommitGate.Finding finding : findings) {
+            System.err.println("  " + finding);
+        }
+        System.err.println("共 " + findings.size() + " 处，耗时 " + (System.currentTimeMillis() - start) + "ms。" +
+                           "请先脱敏，或使用 git commit --no-verify 跳过检查。");
+        return EXIT_FINDINGS;
+    }
+
+    /**
+     * 审计本地 git 历史
+     */
+    static int historyAudit(Path path) throws IOException, InterruptedException {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try (GitRepository repository = GitRepository.open(path)) {
+            if (repository == null) {
+                System.err.println("不是 git 仓库: " + path.toAbsolutePath());
+                return EXIT_ERROR;
+            }
+            HistoryAuditor.Result result = new HistoryAuditor(repository, executor, parallelism)
+                .audit(new HistoryAuditor.Monitor() {
+                    @Override
+                    public boolean isCanceled() {
+                        return Thread.currentThread().isInterrupted();
+                    }
+
+                    @Override
+                    public void progress(String text, double fraction) {
+                    }
+                });
+            System.out.print(result.toReport());
+            return result.getIntroductions().isEmpty() ? EXIT_OK : EXIT_FINDINGS;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 在目录中查找已知凭据，跳过 .git 目录
+     */
+    static int knownSecrets(Path secretsFile, Path root) throws IOException {
+        KnownSecretIndex index = KnownSecretIndex.load(secretsFile);
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(path -> !path.toString().contains(File.separator + ".git" + File.separator))
+                        .filter(Files::isRegularFile)
+                        .collect(Collectors.toList());
+        }
+        Queue<String> matches = new ConcurrentLinkedQueue<>();
+        files.parallelStream().forEach(file -> {
+            try {
+                index.scanFile(file, (entryLine, offset, length, line, column) ->
+                    matches.add(root.relativize(file) + ":" + line + ":" + column +
+                                " (偏移 " + offset + ", 长度 " + length + "): 清单第 " + entryLine + " 行"));
+            } catch (IOException e) {
+                System.err.println("读取文件失败: " + file + ": " + e.getMessage());
+            }
+        });
+        List<String> sorted = new ArrayList<>(matches);
+        Collections.sort(sorted);
+        sorted.forEach(System.out::println);
+        System.err.println("凭据指纹 " + index.size() + " 条，扫描文件 " + files.size() + " 个，命中 " + sorted.size() + " 处");
+        return sorted.isEmpty() ? EXIT_OK : EXIT_FINDINGS;
+    }
+
+    /**
+     * 解析统一差异格式，检查每个配置文件和源文件新增的行
+     */
+    static void scanDiff(BufferedReader reader, List<CommitGate.Finding> findings) throws IOException {
+        String path = null;
+        int lineNumber = 0;
+        // 当前块中尚未读取的旧行数和新行数，块内的行不按文件头解析
+        int oldRemaining = 0;
+        int newRemaining = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (oldRemaining > 0 || newRemaining > 0) {
+                if (line.startsWith("+")) {
+                    if (path != null) {
+                        CommitGate.scanLine(path, lineNumber, line, 1, line.length(), findings);
+                    }
+                    lineNumber++;
+                    newRemaining--;
+                } else if (line.startsWith("-")) {
+                    oldRemaining--;
+                }
+                continue;
+            }
+            if (line.startsWith("diff --git")) {
+                path = null;
+            } else if (line.startsWith("+++ ")) {
+                path = parseTargetPath(line.substring(4));
+                if (path != null && !CommitGate.isGatedFile(path)) {
+                    path = null;
+                }
+            } else if (line.startsWith("@@ ")) {
+                int[] hunk = parseHunkHeader(line);
+                oldRemaining = hunk[1];
+                lineNumber = hunk[2];
+                newRemaining = hunk[3];
+            }
+        }
+    }
+
+    /**
+     * 解析 "+++ b/path" 中的目标路径，删除的文件返回 null
+     */
+    private static String parseTargetPath(String target) {
+        if (target.startsWith("\"") && target.endsWith("\"") && target.length() >= 2) {
+            target = target.substring(1, target.length() - 1);
+        }
+        if (target.equals("/dev/null")) {
+            return null;
+        }
+        return target.startsWith("b/") ? target.substring(2) : target;
+    }
+
+    /**
+     * 解析 "@@ -a,b +c,d @@"，返回 {a, b, c, d}，省略的行数按 1 处理
+     */
+    private static int[] parseHunkHeader(String header) {
+        int[] values = {0, 1, 0, 1};
+        int i = header.indexOf('-');
+        for (int part = 0; part < 2 && i >= 0; part++) {
+            i++;
+            int start = 0;
+            while (i < header.length() && Character.isDigit(header.charAt(i))) {
+                start = start * 10 + (header.charAt(i++) - '0');
+            }
+            values[part * 2] = start;
+            if (i < header.length() && header.charAt(i) == ',') {
+                i++;
+                int count = 0;
+                while (i < header.length() && Character.isDigit(header.charAt(i))) {
+                    count = count * 10 + (header.charAt(i++) - '0');
+                }
+                values[part * 2 + 1] = count;
+            }
+            i = header.indexOf('+', i);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,169 @@
+package com.redaction.detect;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * 提交前敏感信息检查
+ *
+ * 只检查即将提交的配置文件和 JVM 源文件中新增或修改的行，已脱敏的值和 ${...} 占位符不算作泄露：
+ * - 配置文件默认使用 {@link DetectionEngine#CONFIG} 一次扫描全部规则和候选词检测器
+ * - 源文件只运行候选词检测器（硬编码的云厂商密钥、JWT、私钥、高熵字符串等），
+ *   键值形式的正则规则在代码中误报太多，不用于源文件
+ *
+ * IDE 提交检查和命令行 git hook 共用这里的逻辑。
+ *
+ * @version 1.0.0
+ */
+public final class CommitGate {
+
+    private CommitGate() {
+    }
+
+    /**
+     * 判断文件是否需要在提交前检查
+     */
+    public static boolean isGatedFile(@NotNull String path) {
+        return SensitiveRules.isConfigFileName(path) || SensitiveRules.isSourceFileName(path);
+    }
+
+    /**
+     * 计算每行的起始位置，数组最后一个元素为文本长度加一（便于求最后一行的结束位置）
+     */
+    @NotNull
+    public static int[] lineStarts(@NotNull CharSequence text) {
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        int[] starts = new int[count + 1];
+        int line = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                starts[line++] = i + 1;
+            }
+        }
+        starts[count] = text.length() + 1;
+        return starts;
+    }
+
+    /**
+     * 检查 [startLine, endLine) 范围内的行（行号从 0 开始）
+     */
+    public static void scanLines(@NotNull String path, @NotNull CharSequence text, @NotNull int[] lineStarts,
+                                 int startLine, int endLine, @NotNull List<Finding> findings) {
+        scanLines(DetectionEngine.CONFIG, path, text, lineStarts, startLine, endLine, findings);
+    }
+
+    /**
+     * 使用指定引擎检查 [startLine, endLine) 范围内的行（例如按项目设置调整了熵阈值的引擎）
+     */
+    public static void scanLines(@NotNull DetectionEngine engine, @NotNull String path, @NotNull CharSequence text,
+                                 @NotNull int[] lineStarts, int startLine, int endLine,
+                                 @NotNull List<Finding> findings) {
+        int lastLine = Math.min(endLine, lineStarts.length - 1);
+        for (int line = startLine; line < lastLine; line++) {
+            int start = lineStarts[line];
+            int end = Math.min(lineStarts[line + 1] - 1, text.length());
+            if (end > 0 && end > start && text.charAt(end - 1) == '\r') {
+                end--;
+            }
+            scanLine(engine, path, line + 1, text, start, end, findings);
+        }
+    }
+
+    /**
+     * 检查单行内容
+     *
+     * @param lineNumber 用于报告的行号（从 1 开始）
+     */
+    public static void scanLine(@NotNull String path, int lineNumber, @NotNull CharSequence text, int start, int end,
+                                @NotNull List<Finding> findings) {
+        scanLine(DetectionEngine.CONFIG, path, lineNumber, text, start, end, findings);
+    }
+
+    private static void scanLine(DetectionEngine engine, String path, int lineNumber, CharSequence text,
+                                 int start, int end, List<Finding> findings) {
+        if (start >= end) {
+            return;
+        }
+        DetectionEngine.FindingConsumer consumer = (rule, matchStart, matchEnd) -> {
+            if (!DetectionEngine.isMasked(text, matchStart, matchEnd)) {
+                findings.add(new Finding(path, lineNumber, matchStart - start + 1, rule,
+                    valueHash(text, matchStart, matchEnd)));
+            }
+            return true;
+        };
+        if (SensitiveRules.isSourceFileName(path)) {
+            engine.scanTokens(text, start, end, consumer);
+        } else {
+            engine.scan(text, start, end, consumer);
+        }
+    }
+
+    /**
+     * 命中值的 64 位 FNV-1a 哈希，用于判断不同版本中的命中是否为同一个值
+     */
+    private static long valueHash(CharSequence text, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * 检查发现的未脱敏敏感信息（不保存敏感值本身，只保存其哈希）
+     */
+    public static final class Finding {
+        private final String path;
+        private final int line;
+        private final int column;
+        private final String rule;
+        private final long valueHash;
+
+        public Finding(@NotNull String path, int line, int column, @NotNull String rule) {
+            this(path, line, column, rule, 0);
+        }
+
+        public Finding(@NotNull String path, int line, int column, @NotNull String rule, long valueHash) {
+            this.path = path;
+            this.line = line;
+            this.column = column;
+            this.rule = rule;
+            this.valueHash = valueHash;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+
+        public String getRule() {
+            return rule;
+        }
+
+        /**
+         * 命中值的哈希，值相同的命中哈希相同
+         */
+        public long getValueHash() {
+            return valueHash;
+        }
+
+        @Override
+        public String toString() {
+            return path + ":" + line + ":" + column + ": [" + rule + "]";
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.redaction.detect;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 已知格式凭据检测器
+ *
+ * 各云厂商和平台的凭据都有固定前缀（AWS 的 AKIA、阿里云的 LTAI、GitHub 的 ghp_ 等），
+ * 所有前缀放在一棵前缀树中，候选词的每个分段起点只沿树走一次，命中前缀后再交给该格式的校验函数
+ * 检查长度、字符集和结构。增加格式只增加树节点和一个校验函数，不增加对文本的扫描次数。
+ *
+ * 目前支持：
+ * - AWS 访问密钥 ID（AKIA / ASIA + 16 位大写字母或数字）
+ * - 阿里云 AccessKey ID（LTAI + 12~20 位字母或数字）
+ * - GitHub 令牌（ghp_ / gho_ / ghu_ / ghs_ / ghr_ + 36 位，github_pat_ + 82 位）
+ * - Slack 令牌（xoxb- / xoxp- / xoxa- / xoxr- / xoxs-）
+ * - JWT（三段 base64url，头部和载荷均以 eyJ 开头）
+ * - PEM 私钥块（-----BEGIN ... PRIVATE KEY----- 到对应的 END 行，整块作为一个命中）
+ *
+ * @version 1.0.0
+ */
+public final class CredentialFormatDetector implements TokenDetector {
+    public static final String RULE_AWS_ACCESS_KEY = "AWS_ACCESS_KEY";
+    public static final String RULE_ALIYUN_ACCESS_KEY = "ALIYUN_ACCESS_KEY";
+    public static final String RULE_GITHUB_TOKEN = "GITHUB_TOKEN";
+    public static final String RULE_SLACK_TOKEN = "SLACK_TOKEN";
+    public static final String RULE_JWT = "JWT";
+    public static final String RULE_PRIVATE_KEY = "PRIVATE_KEY";
+
+    private static final String PEM_BEGIN = "-----BEGIN ";
+    private static final String PEM_END = "-----END ";
+    private static final String PEM_DASHES = "-----";
+    private static final String PRIVATE_KEY = "PRIVATE KEY";
+    private static final int MAX_PEM_LABEL = 40;
+
+    /**
+     * 格式校验函数
+     */
+    private interface Validator {
+        /**
+         * @param start     凭据起始位置（前缀的第一个字符）
+         * @param prefixEnd 前缀结束位置
+         * @param limit     扫描区间的结束位置
+         * @return 校验通过时返回凭据的结束位置，否则返回 -1
+         */
+        int validate(CharSequence text, int start, int prefixEnd, int limit);
+    }
+
+    private static final class Format {
+        final String rule;
+        final Validator validator;
+
+        Format(String rule, Validator validator) {
+            this.rule = rule;
+            this.validator = validator;
+        }
+    }
+
+    // 前缀树：children[node * 128 + c] 为子节点编号（0 表示无），formats[node] 为在该节点结束的前缀对应的格式
+    private static final int[] CHILDREN;
+    private static final Format[] FORMATS;
+
+    static {
+        TrieBuilder builder = new TrieBuilder();
+        Format aws = new Format(RULE_AWS_ACCESS_KEY,
+            (t, s, p, l) -> fixedLength(t, p, l, 16, CredentialFormatDetector::isUpperAlnum));
+        builder.add("AKIA", aws);
+        builder.add("ASIA", aws);
+        builder.add("LTAI", new Format(RULE_ALIYUN_ACCESS_KEY, CredentialFormatDetector::validateAliyun));
+        Format github = new Format(RULE_GITHUB_TOKEN,
+            (t, s, p, l) -> fixedLength(t, p, l, 36, CredentialFormatDetector::isAlnum));
+        for (String prefix : new String[] {"ghp_", "gho_", "ghu_", "ghs_", "ghr_"}) {
+            builder.add(prefix, github);
+        }
+        builder.add("github_pat_", new Format(RULE_GITHUB_TOKEN,
+            (t, s, p, l) -> fixedLength(t, p, l, 82, c -> isAlnum(c) || c == '_')));
+        Format slack = new Format(RULE_SLACK_TOKEN, CredentialFormatDetector::validateSlack);
+        for (char kind : new char[] {'b', 'p', 'a', 'r', 's'}) {
+            builder.add("xox" + kind + "-", slack);
+        }
+        builder.add("eyJ", new Format(RULE_JWT, CredentialFormatDetector::validateJwt));
+        builder.add(PEM_BEGIN, new Format(RULE_PRIVATE_KEY, CredentialFormatDetector::validatePrivateKey));
+        CHILDREN = builder.children();
+        FORMATS = builder.formats.toArray(new Format[0]);
+    }
+
+    @Override
+    public int detect(@NotNull CharSequence text, int start, int end, int limit,
+                      @NotNull DetectionEngine.FindingConsumer consumer) {
+        for (int i = start; i < end; i++) {
+            // 只在分段起点（候选词开头或非字母数字之后）尝试匹配前缀
+            if (i > start && isAlnum(text.charAt(i - 1))) {
+                continue;
+            }
+            int node = 0;
+            for (int j = i; j < limit; j++) {
+                char c = text.charAt(j);
+                if (c >= 128 || (node = CHILDREN[node * 128 + c]) == 0) {
+                    break;
+                }
+                Format format = FORMATS[node];
+                if (format != null) {
+                    int matchEnd = format.validator.validate(text, i, j + 1, limit);
+                    if (matchEnd > 0) {
+                        consumer.onFinding(format.rule, i, matchEnd);
+                        return Math.max(end, matchEnd);
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    private interface CharClass {
+        boolean test(char c);
+    }
+
+    /**
+     * 前缀之后恰好 length 个指定字符，且其后不再紧跟字母或数字
+     */
+    private static int fixedLength(CharSequence text, int from, int limit, int length, CharClass allowed) {
+        int end = from + length;
+        if (end > limit) {
+            return -1;
+        }
+        for (int i = from; i < end; i++) {
+            if (!allowed.test(text.charAt(i))) {
+                return -1;
+            }
+        }
+        return end == limit || !isAlnum(text.charAt(end)) ? end : -1;
+    }
+
+    private static int validateAliyun(CharSequence text, int start, int from, int limit) {
+        int end = from;
+        while (end < limit && isAlnum(text.charAt(end))) {
+            end++;
+        }
+        int length = end - from;
+        if (length < 12 || length > 20) {
+            return -1;
+        }
+        // 随机部分同时包含字母和数字，排除 LTAIExample 之类的单词
+        return hasDigit(text, from, end) && hasLetter(text, from, end) ? end : -1;
+    }
+
+    /**
+     * xox?-<数字>-<数字或字母>...，第一段为至少 6 位的数字编号，总长度不少于 20
+     */
+    private static int validateSlack(CharSequence text, int start, int from, int limit) {
+        int digits = 0;
+        int end = from;
+        while (end < limit && text.charAt(end) >= '0' && text.charAt(end) <= '9') {
+            end++;
+            digits++;
+        }
+        if (digits < 6 || end >= limit || text.charAt(end) != '-') {
+            return -1;
+        }
+        while (end < limit && (isAlnum(text.charAt(end)) || text.charAt(end) == '-')) {
+            end++;
+        }
+        return end - start >= 20 ? end : -1;
+    }
+
+    /**
+     * 头部.载荷.签名，三段均为 base64url 字符，载荷同样以 eyJ（即 "{"）开头
+     */
+    private static int validateJwt(CharSequence text, int start, int from, int limit) {
+        int headerEnd = base64UrlRun(text, start, limit);
+        if (headerEnd - start < 10 || headerEnd >= limit || text.charAt(headerEnd) != '.') {
+            return -1;
+        }
+        int payloadStart = headerEnd + 1;
+        if (!regionMatches(text, payloadStart, limit, "eyJ")) {
+            return -1;
+        }
+        int payloadEnd = base64UrlRun(text, payloadStart, limit);
+        if (payloadEnd >= limit || text.charAt(payloadEnd) != '.') {
+            return -1;
+        }
+        int signatureEnd = base64UrlRun(text, payloadEnd + 1, limit);
+        return signatureEnd - payloadEnd - 1 >= 16 ? signatureEnd : -1;
+    }
+
+    /**
+     * -----BEGIN [类型 ]PRIVATE KEY----- ... -----END [类型 ]PRIVATE KEY-----
+     *
+     * 找到结束行时整块作为一个命中，扫描从块之后继续，块内的 base64 行不会再交给其他检测器；
+     * 扫描区间内没有结束行时（例如逐行检查）只报告开始行。
+     */
+    private static int validatePrivateKey(CharSequence text, int start, int from, int limit) {
+        int labelEnd = from;
+        while (labelEnd < limit && labelEnd - from <= MAX_PEM_LABEL
+               && ((text.charAt(labelEnd) >= 'A' && text.charAt(labelEnd) <= 'Z') || text.charAt(labelEnd) == ' ')) {
+            labelEnd++;
+        }
+        if (labelEnd - from < PRIVATE_KEY.length()
+            || !regionMatches(text, labelEnd - PRIVATE_KEY.length(), limit, PRIVATE_KEY)
+            || !regionMatches(text, labelEnd, limit, PEM_DASHES)) {
+            return -1;
+        }
+        int headerEnd = labelEnd + PEM_DASHES.length();
+        for (int i = headerEnd; i + PEM_END.length() <= limit; i++) {
+            if (text.charAt(i) == '-' && regionMatches(text, i, limit, PEM_END)) {
+                int endLabel = i + PEM_END.length();
+                while (endLabel < limit && text.charAt(endLabel) != '-' && text.charAt(endLabel) != '\n') {
+                    endLabel++;
+                }
+                return regionMatches(text, endLabel, limit, PEM_DASHES) ? endLabel + PEM_DASHES.length() : endLabel;
+            }
+        }
+        return headerEnd;
+    }
+
+    private static int base64UrlRun(CharSequence text, int from, int limit) {
+        int i = from;
+        while (i < limit && (isAlnum(text.charAt(i)) || text.charAt(i) == '-' || text.charAt(i) == '_')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean regionMatches(CharSequence text, int from, int limit, String target) {
+        if (from < 0 || from + target.length() > limit) {
+            return false;
+        }
+        for (int i = 0; i < target.length(); i++) {
+            if (text.charAt(from + i) != target.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasDigit(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasLetter(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAlnum(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isUpperAlnum(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * 构建前缀树，节点 0 为根
+     */
+    private static final class TrieBuilder {
+        private final List<int[]> nodes = new ArrayList<>();
+        final List<Format> formats = new ArrayList<>();
+
+        TrieBuilder() {
+            nodes.add(new int[128]);
+            formats.add(null);
+        }
+
+        void add(String prefix, Format format) {
+            int node = 0;
+            for (int i = 0; i < prefix.length(); i++) {
+                char c = prefix.charAt(i);
+                int child = nodes.get(node)[c];
+                if (child == 0) {
+                    child = nodes.size();
+                    nodes.add(new int[128]);
+                    formats.add(null);
+                    nodes.get(node)[c] = child;
+                }
+                node = child;
+            }
+            formats.set(node, format);
+        }
+
+        int[] children() {
+            int[] children = new int[nodes.size() * 128];
+            for (int i = 0; i < nodes.size(); i++) {
+                System.arraycopy(nodes.get(i), 0, children, i * 128, 128);
+            }
+            return children;
+        }
+    }
+}
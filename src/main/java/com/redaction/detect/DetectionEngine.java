@@ -0,0 +1,415 @@
+package com.redaction.detect;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 敏感信息组合检测引擎
+ *
+ * 将 {@link #SENSITIVE_PATTERNS} 中的全部规则合并为一个带命名分组的正则表达式，
+ * 对文本只做一次扫描即可得到所有规则的命中，取代逐条规则分别扫描的做法。
+ * 规则在类加载时编译一次，之后由脱敏服务、提交检查和命令行共享。
+ *
+ * 不依赖键名的检测（已知格式的凭据、个人信息、高熵字符串等）由 {@link TokenDetector} 完成：引擎对文本做一次候选词扫描，
+ * 每个候选词依次交给各检测器，增加检测器不会增加扫描次数。
+ *
+ * 检测只依赖 JDK，可以在 IDE 之外（例如 git hook）直接使用。
+ *
+ * @version 1.0.0
+ */
+public final class DetectionEngine {
+
+    /**
+     * 配置文件敏感信息匹配规则，键为规则类型
+     */
+    public static final Map<String, Pattern> SENSITIVE_PATTERNS;
+
+    /**
+     * 由 {@link #SENSITIVE_PATTERNS} 组合得到的默认引擎
+     */
+    public static final DetectionEngine CONFIG;
+
+    /**
+     * 单处命中的最大长度（字符），分块扫描时相邻窗口至少重叠这么多
+     *
+     * 最长的命中是 PEM 私钥块（4096 位 RSA 约 3300 字符），其余规则和检测器的命中都在一行之内
+     */
+    public static final int MAX_MATCH_LENGTH = 8 * 1024;
+
+    // 已脱敏的值或配置占位符，命中时不视为泄露
+    private static final List<String> MASKED_MARKERS = Arrays.asList("###", "${", "****");
+
+    static {
+        Map<String, Pattern> patterns = new HashMap<>();
+
+        // IP地址匹配模式（排除配置占位符和XML schema）
+        patterns.put("IP_ADDRESS",
+            Pattern.compile("\\b(?!\\$\\{)(?!\\b(?:import|package|xmlns|http)\\b)(?:\\d{1,3}\\.){3}\\d{1,3}\\b(?!\\})",
+            Pattern.CASE_INSENSITIVE));
+
+        // 数据库URL匹配模式
+        patterns.put("DB_URL",
+            Pattern.compile("(jdbc:[a-z]+://[^\\s/\\$\\{\\}]+)"));
+
+        // MySQL配置
+        patterns.put("MYSQL_CONFIG",
+            Pattern.compile("((?:spring[.])?mysql[.:].*?(?:url|host|port|username|user|password|passwd|database|db)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
+            Pattern.CASE_INSENSITIVE));
+
+        // Redis配置
+        patterns.put("REDIS_CONFIG",
+            Pattern.compile("((?:spring[.])?redis[.:].*?(?:url|host|port|password|auth)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
+            Pattern.CASE_INSENSITIVE));
+
+        // RabbitMQ配置
+        patterns.put("RABBITMQ_CONFIG",
+            Pattern.compile("((?:spring[.])?rabbitmq[.:].*?(?:url|host|port|username|user|password|passwd|virtual-host)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
+            Pattern.CASE_INSENSITIVE));
+
+        // MongoDB配置
+        patterns.put("MONGODB_CONFIG",
+            Pattern.compile("((?:spring[.]data[.])?(?:mongodb|mongo)[.:].*?(?:url|host|port|username|user|password|passwd|authSource|connection)\\s*[=:]\\s*[\"']?(?:mongodb://)?[^\\s,;\"']+[\"']?)",
+            Pattern.CASE_INSENSITIVE));
+
+        // HiKV配置
+        patterns.put("HIKV_CONFIG",
+            Pattern.compile("(hikv[.:].*?(?:url|host|port|username|user|password|passwd)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
+            Pattern.CASE_INSENSITIVE));
+
+        // TiDB配置
+        patterns.put("TIDB_CONFIG",
+            Pattern.compile("(tidb[.:].*?(?:url|host|port|username|user|password|passwd)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
+            Pattern.CASE_INSENSITIVE));
+
+        // HBase配置
+        patterns.put("HBASE_CONFIG",
+            Pattern.compile("(hbase[.:].*?(?:url|zookeeper|quorum|port|principal|keytab)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
+            Pattern.CASE_INSENSITIVE));
+
+        // Hive配置
+        patterns.put("HIVE_CONFIG",
+            Pattern.compile("(hive[.:].*?(?:url|host|port|username|user|password|passwd|principal|keytab)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
+            Pattern.CASE_INSENSITIVE));
+
+        // Couchbase配置
+        patterns.put("COUCHBASE_CONFIG",
+            Pattern.compile("((?:spring[.])?couchbase[.:].*?(?:url|host|port|username|user|password|passwd|bucket|server|master|name|cluster|nodes)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
+            Pattern.CASE_INSENSITIVE));
+
+        // Elasticsearch配置
+        patterns.put("ELASTICSEARCH_CONFIG",
+            Pattern.compile("((?:spring[.]data[.])?elasticsearch[.:].*?(?:url|host|port|username|user|password|passwd|cluster)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
+            Pattern.CASE_INSENSITIVE));
+
+        // 通用密码配置
+        patterns.put("PASSWORD",
+            Pattern.compile("(?i)(?<!spring[.]data[.]elasticsearch[.]|spring[.]data[.]mongodb[.]|spring[.]rabbitmq[.]|spring[.]redis[.]|mysql[.]|tidb[.]|hikv[.]|hbase[.]|hive[.]|couchbase[.])(password|passwd|pwd)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?"));
+
+        // 通用用户名配置
+        patterns.put("USERNAME",
+            Pattern.compile("(?i)(?<!spring[.]data[.]elasticsearch[.]|spring[.]data[.]mongodb[.]|spring[.]rabbitmq[.]|spring[.]redis[.]|mysql[.]|tidb[.]|hikv[.]|hbase[.]|hive[.]|couchbase[.])(username|user)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?"));
+
+        // 通用URL配置
+        patterns.put("URL",
+            Pattern.compile("(?i)(?<!spring[.]data[.]elasticsearch[.]|spring[.]data[.]mongodb[.]|spring[.]rabbitmq[.]|spring[.]redis[.]|mysql[.]|tidb[.]|hikv[.]|hbase[.]|hive[.]|couchbase[.])(url|host|endpoint)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?"));
+
+        // 通用端口配置
+        patterns.put("PORT",
+            Pattern.compile("(?i)(?<!spring[.]data[.]elasticsearch[.]|spring[.]data[.]mongodb[.]|spring[.]rabbitmq[.]|spring[.]redis[.]|mysql[.]|tidb[.]|hikv[.]|hbase[.]|hive[.]|couchbase[.])(port)\\s*[=:]\\s*[\"']?\\d+[\"']?"));
+
+        // RocketMQ配置
+        patterns.put("ROCKETMQ_CONFIG",
+            Pattern.compile("((?:spring[.])?(?:rocketmq|mq)[.:].*?(?:namesrvAddr|addr|host|port|producerGroup|consumerGroup|topic|accessKey|secretKey)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
+            Pattern.CASE_INSENSITIVE));
+
+        // Dubbo配置
+        patterns.put("DUBBO_CONFIG",
+            Pattern.compile("((?:spring[.])?dubbo[.:].*?(?:registry[.]address|address|url|host|port|username|user|password|passwd|group|version|timeout|protocol)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
+            Pattern.CASE_INSENSITIVE));
+
+        SENSITIVE_PATTERNS = Collections.unmodifiableMap(patterns);
+        CONFIG = new DetectionEngine(SENSITIVE_PATTERNS).withDetectors(defaultDetectors());
+    }
+
+    /**
+     * 检测结果回调
+     */
+    public interface FindingConsumer {
+        /**
+         * @param rule  命中的规则类型
+         * @param start 匹配起始位置（包含）
+         * @param end   匹配结束位置（不包含）
+         * @return 返回 false 时停止扫描
+         */
+        boolean onFinding(@NotNull String rule, int start, int end);
+    }
+
+    private final String[] rules;
+    private final String[] groupNames;
+    private final Pattern combined;
+    // Matcher 不是线程安全的，每个线程复用自己的实例，避免每次扫描都重新创建
+    private final ThreadLocal<Matcher> matchers;
+    private final TokenDetector[] detectors;
+    // 设置后掩码替换为一致化假名，只用于脱敏，不影响检测
+    private final Pseudonymizer pseudonymizer;
+    // 正则规则和关键字列表的描述，同一组已编译规则的引擎共享
+    private final String ruleDescription;
+
+    /**
+     * 使用默认参数的候选词检测器
+     *
+     * 已知格式的凭据和个人信息先于熵检测判断，命中时报告更具体的规则类型。
+     */
+    @NotNull
+    public static List<TokenDetector> defaultDetectors() {
+        return Arrays.asList(new CredentialFormatDetector(), new PiiDetector(), new EntropyDetector());
+    }
+
+    private DetectionEngine(DetectionEngine base, TokenDetector[] detectors, Pseudonymizer pseudonymizer) {
+        this.rules = base.rules;
+        this.groupNames = base.groupNames;
+        this.combined = base.combined;
+        this.matchers = base.matchers;
+        this.detectors = detectors;
+        this.pseudonymizer = pseudonymizer;
+        this.ruleDescription = base.ruleDescription;
+    }
+
+    /**
+     * 创建共享同一组已编译规则、但使用另一组候选词检测器的引擎（例如按用户设置调整阈值）
+     */
+    @NotNull
+    public DetectionEngine withDetectors(@NotNull List<TokenDetector> detectors) {
+        return new DetectionEngine(this, detectors.toArray(new TokenDetector[0]), pseudonymizer);
+    }
+
+    /**
+     * 创建脱敏时使用一致化假名的引擎
+     *
+     * @param pseudonymizer 假名映射表，为 null 时使用普通掩码
+     */
+    @NotNull
+    public DetectionEngine withPseudonymizer(@Nullable Pseudonymizer pseudonymizer) {
+        return new DetectionEngine(this, detectors, pseudonymizer);
+    }
+
+    /**
+     * 脱敏时使用的假名映射表，未启用时为 null
+     */
+    @Nullable
+    public Pseudonymizer getPseudonymizer() {
+        return pseudonymizer;
+    }
+
+    public DetectionEngine(@NotNull Map<String, Pattern> patterns) {
+        this.rules = patterns.keySet().toArray(new String[0]);
+        this.groupNames = new String[rules.length];
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < rules.length; i++) {
+            Pattern pattern = patterns.get(rules[i]);
+            if (i > 0) {
+                regex.append('|');
+            }
+            // 每条规则保留自己的大小写选项，放入以编号命名的分组中
+            boolean caseInsensitive = (pattern.flags() & Pattern.CASE_INSENSITIVE) != 0;
+            groupNames[i] = "r" + i;
+            regex.append("(?<").append(groupNames[i]).append('>')
+                 .append(caseInsensitive ? "(?i:" : "(?-i:")
+                 .append(pattern.pattern())
+                 .append("))");
+        }
+        this.combined = Pattern.compile(regex.toString());
+        this.matchers = ThreadLocal.withInitial(() -> combined.matcher(""));
+        this.detectors = new TokenDetector[0];
+        this.pseudonymizer = null;
+        this.ruleDescription = SensitiveRules.RULES_VERSION + "\n" + combined.pattern()
+            + "\n" + SensitiveRules.SENSITIVE_FIELD_KEYWORDS + "\n" + SensitiveRules.JSON_SENSITIVE_KEYS
+            + "\n" + SensitiveRules.DATA_COLUMN_KEYWORDS + "\n" + SensitiveRules.DATA_COLUMN_NAMES;
+    }
+
+    /**
+     * 引擎检测配置的指纹：规则版本、正则规则、关键字列表、启用的检测器及其阈值
+     *
+     * 指纹不同的引擎可能对同一内容得出不同的结论，增量扫描缓存据此判断以前的结论是否仍然有效。
+     * 假名映射表只影响替换内容，不计入指纹。
+     */
+    @NotNull
+    public String fingerprint() {
+        StringBuilder description = new StringBuilder(ruleDescription);
+        for (TokenDetector detector : detectors) {
+            description.append('\n').append(detector.configuration());
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(description.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 扫描文本区间，回调每个命中的规则
+     *
+     * 先用组合正则扫描一次，再做一次候选词扫描交给各检测器。
+     * 区间使用透明边界，行首、行尾的单词边界和后顾断言与整段扫描时一致。
+     */
+    public void scan(@NotNull CharSequence text, int from, int to, @NotNull FindingConsumer consumer) {
+        StoppableConsumer stoppable = new StoppableConsumer(consumer);
+        scanPatterns(text, from, to, stoppable);
+        if (!stoppable.stopped) {
+            scanTokens(text, from, to, stoppable);
+        }
+    }
+
+    private void scanPatterns(CharSequence text, int from, int to, StoppableConsumer consumer) {
+        Matcher matcher = matchers.get().reset(text);
+        matcher.useTransparentBounds(true).useAnchoringBounds(false).region(from, to);
+        try {
+            while (matcher.find()) {
+                int rule = matchedRule(matcher);
+                if (rule >= 0 && !consumer.onFinding(rules[rule], matcher.start(), matcher.end())) {
+                    return;
+                }
+            }
+        } finally {
+            // 不持有对扫描文本的引用
+            matcher.reset("");
+        }
+    }
+
+    /**
+     * 只运行候选词检测器，不运行正则规则
+     */
+    public void scanTokens(@NotNull CharSequence text, int from, int to, @NotNull FindingConsumer consumer) {
+        if (detectors.length == 0) {
+            return;
+        }
+        StoppableConsumer stoppable = consumer instanceof StoppableConsumer
+            ? (StoppableConsumer) consumer : new StoppableConsumer(consumer);
+        int i = from;
+        while (i < to && !stoppable.stopped) {
+            if (!isTokenChar(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < to && isTokenChar(text.charAt(i))) {
+                i++;
+            }
+            for (TokenDetector detector : detectors) {
+                int resume = detector.detect(text, start, i, to, stoppable);
+                if (resume >= 0) {
+                    i = Math.max(i, Math.min(resume, to));
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 判断文本中是否有未脱敏的候选词检测命中（用于检查键名不敏感的配置值）
+     */
+    public boolean containsTokenFinding(@NotNull CharSequence text) {
+        boolean[] found = {false};
+        scanTokens(text, 0, text.length(), (rule, start, end) -> {
+            if (isMasked(text, start, end)) {
+                return true;
+            }
+            found[0] = true;
+            return false;
+        });
+        return found[0];
+    }
+
+    /**
+     * 扫描文本区间，只回调未脱敏的命中（已替换为占位符或使用 ${...} 引用的值被忽略）
+     */
+    public void scanUnmasked(@NotNull CharSequence text, int from, int to, @NotNull FindingConsumer consumer) {
+        scan(text, from, to, (rule, start, end) -> isMasked(text, start, end) || consumer.onFinding(rule, start, end));
+    }
+
+    /**
+     * 判断文本中是否命中任意正则规则（不运行候选词检测器，用于检查键名）
+     */
+    public boolean containsAny(@NotNull CharSequence text) {
+        boolean[] found = {false};
+        scanPatterns(text, 0, text.length(), new StoppableConsumer((rule, start, end) -> {
+            found[0] = true;
+            return false;
+        }));
+        return found[0];
+    }
+
+    /**
+     * 判断命中的文本是否已经脱敏
+     */
+    public static boolean isMasked(@NotNull CharSequence text, int start, int end) {
+        for (String marker : MASKED_MARKERS) {
+            if (indexOf(text, marker, start, end) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isTokenChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+            || c == '+' || c == '/' || c == '_' || c == '-' || c == '.' || c == '@' || c == '~';
+    }
+
+    private int matchedRule(Matcher matcher) {
+        for (int i = 0; i < rules.length; i++) {
+            if (matcher.start(groupNames[i]) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 记录回调是否要求停止扫描
+     */
+    private static final class StoppableConsumer implements FindingConsumer {
+        private final FindingConsumer delegate;
+        boolean stopped;
+
+        StoppableConsumer(FindingConsumer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean onFinding(@NotNull String rule, int start, int end) {
+            if (stopped) {
+                return false;
+            }
+            stopped = !delegate.onFinding(rule, start, end);
+            return !stopped;
+        }
+    }
+
+    private static int indexOf(CharSequence text, String target, int from, int to) {
+        int last = to - target.length();
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < target.length(); j++) {
+                if (text.charAt(i + j) != target.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
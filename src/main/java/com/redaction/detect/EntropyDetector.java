@@ -0,0 +1,175 @@
+package com.redaction.detect;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 高熵字符串检测器
+ *
+ * 用于发现配置键名不带 password、secret 等关键字的随机令牌。候选词中连续的 base64 / 十六进制字符
+ * 达到最小长度时，以固定大小的窗口滑动计算香农熵，任一窗口超过阈值即视为命中。
+ * 窗口内的字符计数保存在 int 数组中，滑动时只更新进出窗口的两个字符，不创建子串。
+ *
+ * 阈值以 32 字符窗口为基准（32 个随机 base64 字符的熵约为 4.5，十六进制约为 3.6），
+ * 较短的候选词按可达到的最大熵 log2(长度) 等比例降低阈值。
+ *
+ * @version 1.0.0
+ */
+public final class EntropyDetector implements TokenDetector {
+    public static final String RULE_BASE64 = "HIGH_ENTROPY_BASE64";
+    public static final String RULE_HEX = "HIGH_ENTROPY_HEX";
+
+    public static final int DEFAULT_MIN_LENGTH = 20;
+    public static final double DEFAULT_BASE64_THRESHOLD = 4.2;
+    public static final double DEFAULT_HEX_THRESHOLD = 3.0;
+
+    private static final int WINDOW = 32;
+    private static final int MAX_WINDOW = 256;
+    private static final double LOG2_WINDOW = log2(WINDOW);
+    // C_LOG_C[c] = c * log2(c)
+    private static final double[] C_LOG_C = new double[MAX_WINDOW + 1];
+
+    static {
+        for (int c = 1; c <= MAX_WINDOW; c++) {
+            C_LOG_C[c] = c * log2(c);
+        }
+    }
+
+    private final int minLength;
+    private final double base64Threshold;
+    private final double hexThreshold;
+    // 每个线程复用自己的计数数组
+    private final ThreadLocal<int[]> histograms = ThreadLocal.withInitial(() -> new int[128]);
+
+    public EntropyDetector() {
+        this(DEFAULT_MIN_LENGTH, DEFAULT_BASE64_THRESHOLD, DEFAULT_HEX_THRESHOLD);
+    }
+
+    /**
+     * @param minLength       候选字符串的最小长度
+     * @param base64Threshold base64 字符串的熵阈值（以 32 字符窗口为基准）
+     * @param hexThreshold    十六进制字符串的熵阈值（以 32 字符窗口为基准）
+     */
+    public EntropyDetector(int minLength, double base64Threshold, double hexThreshold) {
+        this.minLength = Math.max(8, Math.min(minLength, MAX_WINDOW));
+        this.base64Threshold = base64Threshold;
+        this.hexThreshold = hexThreshold;
+    }
+
+    @NotNull
+    @Override
+    public String configuration() {
+        return getClass().getName() + "(" + minLength + "," + base64Threshold + "," + hexThreshold + ")";
+    }
+
+    @Override
+    public int detect(@NotNull CharSequence text, int start, int end, int limit,
+                      @NotNull DetectionEngine.FindingConsumer consumer) {
+        // 候选词中的 . @ ~ 把它分成多段，分别检查每段连续的 base64 字符
+        int i = start;
+        while (i < end) {
+            if (!isBase64Char(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int runStart = i;
+            while (i < end && isBase64Char(text.charAt(i))) {
+                i++;
+            }
+            if (i - runStart >= minLength) {
+                String rule = evaluate(text, runStart, i);
+                if (rule != null) {
+                    // base64 末尾的 = 填充一并计入
+                    int runEnd = i;
+                    while (runEnd < limit && runEnd - i < 2 && text.charAt(runEnd) == '=') {
+                        runEnd++;
+                    }
+                    consumer.onFinding(rule, runStart, runEnd);
+                    return Math.max(end, runEnd);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 计算区间的最大窗口熵并与阈值比较
+     *
+     * @return 命中的规则，未命中时返回 null
+     */
+    private String evaluate(CharSequence text, int start, int end) {
+        boolean hex = true;
+        boolean hasDigit = false;
+        boolean hasUpper = false;
+        boolean hasLower = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hasDigit = true;
+            } else if (c >= 'a' && c <= 'z') {
+                hasLower = true;
+                hex &= c <= 'f';
+            } else if (c >= 'A' && c <= 'Z') {
+                hasUpper = true;
+                hex &= c <= 'F';
+            } else {
+                hex = false;
+            }
+        }
+        // 纯数字交给其他检测器；随机 base64 几乎总是同时包含大小写字母和数字
+        if (!hasDigit || (!hasLower && !hasUpper)) {
+            return null;
+        }
+        if (!hex && !(hasUpper && hasLower)) {
+            return null;
+        }
+
+        int length = end - start;
+        int window = Math.min(length, Math.max(WINDOW, minLength));
+        double threshold = hex ? hexThreshold : base64Threshold;
+        if (window < WINDOW) {
+            threshold = threshold * log2(window) / LOG2_WINDOW;
+        }
+
+        int[] counts = histograms.get();
+        try {
+            double sum = 0;
+            for (int i = start; i < start + window; i++) {
+                char c = text.charAt(i);
+                sum -= C_LOG_C[counts[c]];
+                counts[c]++;
+                sum += C_LOG_C[counts[c]];
+            }
+            double logWindow = log2(window);
+            if (logWindow - sum / window >= threshold) {
+                return hex ? RULE_HEX : RULE_BASE64;
+            }
+            for (int i = start + window; i < end; i++) {
+                char out = text.charAt(i - window);
+                sum -= C_LOG_C[counts[out]];
+                counts[out]--;
+                sum += C_LOG_C[counts[out]];
+                char in = text.charAt(i);
+                sum -= C_LOG_C[counts[in]];
+                counts[in]++;
+                sum += C_LOG_C[counts[in]];
+                if (logWindow - sum / window >= threshold) {
+                    return hex ? RULE_HEX : RULE_BASE64;
+                }
+            }
+            return null;
+        } finally {
+            for (int i = start; i < end; i++) {
+                counts[text.charAt(i)] = 0;
+            }
+        }
+    }
+
+    private static boolean isBase64Char(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+            || c == '+' || c == '/' || c == '_' || c == '-';
+    }
+
+    private static double log2(double value) {
+        return Math.log(value) / Math.log(2);
+    }
+}
@@ -0,0 +1,398 @@
+package com.redaction.detect;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.CharBuffer;
+
+/**
+ * Java 源码词法扫描
+ *
+ * 一个只区分标识符、字符串（含文本块）、字符、数字、注释和运算符的轻量分词器，
+ * 不构建语法树，用于两个场景：
+ * - IDE 中的快速预检：{@link #hasCandidate} 只在词法层面判断文件是否可能包含敏感字面量，
+ *   没有候选的文件不再构建 PSI / UAST。Kotlin、Groovy、Scala 的字符串、注释和标识符与 Java 足够接近，共用同一分词器
+ * - 无 IDE 的批量处理：{@link #findSensitiveLiterals} 直接在词法单元流上找出对敏感名称赋值的字面量、
+ *   本身敏感的字面量和占位符中的敏感默认值；没有语法树区分字段、注解和参数，按值判断的规则作用于所有字符串字面量
+ *
+ * @version 1.0.0
+ */
+public final class JavaSourceScanner {
+
+    /**
+     * 词法单元类型
+     */
+    public enum TokenType {
+        IDENTIFIER, STRING, CHAR, NUMBER, COMMENT, OPERATOR
+    }
+
+    private static final String[] SENSITIVE_ANNOTATION_MARKERS = {"Sensitive", "Password", "Secret"};
+    private static final String[] SENSITIVE_COMMENT_MARKERS = {"sensitive", "password", "secret"};
+    private static final String[] CONNECTION_FACTORY_CLASSES = {"DriverManager", "MongoClients"};
+
+    private final CharSequence text;
+    private final int length;
+    private int position;
+
+    private TokenType type;
+    private int start;
+    private int end;
+    // 字符串内容（不含引号）的范围
+    private int valueStart;
+    private int valueEnd;
+
+    public JavaSourceScanner(@NotNull CharSequence text) {
+        this.text = text;
+        this.length = text.length();
+    }
+
+    /**
+     * 读取下一个词法单元
+     *
+     * @return 到达文本末尾时返回 false
+     */
+    public boolean next() {
+        int i = position;
+        while (i < length && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        if (i >= length) {
+            position = length;
+            return false;
+        }
+        start = i;
+        char c = text.charAt(i);
+        char next = i + 1 < length ? text.charAt(i + 1) : 0;
+
+        if (c == '/' && next == '/') {
+            type = TokenType.COMMENT;
+            i += 2;
+            while (i < length && text.charAt(i) != '\n') {
+                i++;
+            }
+        } else if (c == '/' && next == '*') {
+            type = TokenType.COMMENT;
+            int close = indexOf("*/", i + 2);
+            i = close >= 0 ? close + 2 : length;
+        } else if (c == '"' && next == '"' && i + 2 < length && text.charAt(i + 2) == '"') {
+            // 文本块
+            type = TokenType.STRING;
+            valueStart = i + 3;
+            i = valueStart;
+            while (i < length && !(text.charAt(i) == '"' && i + 2 < length
+                    && text.charAt(i + 1) == '"' && text.charAt(i + 2) == '"')) {
+                i += text.charAt(i) == '\\' ? 2 : 1;
+            }
+            valueEnd = Math.min(i, length);
+            i = Math.min(i + 3, length);
+        } else if (c == '"' || c == '\'') {
+            type = c == '"' ? TokenType.STRING : TokenType.CHAR;
+            valueStart = i + 1;
+            i = valueStart;
+            while (i < length && text.charAt(i) != c && text.charAt(i) != '\n') {
+                i += text.charAt(i) == '\\' ? 2 : 1;
+            }
+            valueEnd = Math.min(i, length);
+            if (i < length && text.charAt(i) == c) {
+                i++;
+            }
+        } else if (Character.isJavaIdentifierStart(c)) {
+            type = TokenType.IDENTIFIER;
+            i++;
+            while (i < length && Character.isJavaIdentifierPart(text.charAt(i))) {
+                i++;
+            }
+        } else if (c >= '0' && c <= '9') {
+            type = TokenType.NUMBER;
+            i++;
+            while (i < length && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '.'
+                    || text.charAt(i) == '_')) {
+                i++;
+            }
+        } else {
+            type = TokenType.OPERATOR;
+            i++;
+            // 复合赋值和比较运算符（==、!=、<=、+= 等）作为一个单元，单独的 = 才是赋值
+            if (next == '=' && "=!<>+-*/%&|^".indexOf(c) >= 0) {
+                i++;
+            }
+        }
+        end = i;
+        position = i;
+        return true;
+    }
+
+    public TokenType getType() {
+        return type;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * 字符串或字符字面量的内容（不含引号），不复制文本
+     */
+    @NotNull
+    public CharSequence getValue() {
+        return CharBuffer.wrap(text, valueStart, valueEnd);
+    }
+
+    private boolean isOperator(char c) {
+        return type == TokenType.OPERATOR && end - start == 1 && text.charAt(start) == c;
+    }
+
+    /**
+     * 判断文件是否可能包含需要脱敏的字面量
+     *
+     * 结果是 PSI 检查条件的超集：任一条件成立即返回 true，由 PSI 做精确判断。
+     * 条件为：赋值给敏感名称的字符串、本身敏感的字符串、带默认值的 ${...} 占位符、
+     * 名称含 Sensitive / Password / Secret 的标识符（注解）、含敏感字样的注释、连接工厂类的引用。
+     */
+    public static boolean hasCandidate(@NotNull CharSequence text, @NotNull DetectionEngine engine) {
+        JavaSourceScanner scanner = new JavaSourceScanner(text);
+        int identifierStart = -1;
+        int identifierEnd = -1;
+        boolean afterAssign = false;
+        while (scanner.next()) {
+            switch (scanner.type) {
+                case COMMENT:
+                    if (containsAny(text, scanner.start, scanner.end, SENSITIVE_COMMENT_MARKERS, true)) {
+                        return true;
+                    }
+                    continue;
+                case IDENTIFIER:
+                    // 注解名可能带包名，不只检查 @ 之后的第一个标识符
+                    if (containsAny(text, scanner.start, scanner.end, SENSITIVE_ANNOTATION_MARKERS, false)) {
+                        return true;
+                    }
+                    if (equalsAny(text, scanner.start, scanner.end, CONNECTION_FACTORY_CLASSES)) {
+                        return true;
+                    }
+                    break;
+                case STRING:
+                case CHAR:
+                    // Groovy、Scala 的单引号字符串也按字符串检查
+                    CharSequence value = scanner.getValue();
+                    // ${...} 也是已脱敏标记，带默认值的占位符要在此之前判断
+                    if (hasPlaceholderDefault(value)) {
+                        return true;
+                    }
+                    if (value.length() == 0 || DetectionEngine.isMasked(value, 0, value.length())) {
+                        break;
+                    }
+                    if (afterAssign && identifierStart >= 0 && !isExpression(value)
+                            && SensitiveRules.isSensitiveFieldName(lowerCase(text, identifierStart, identifierEnd))) {
+                        return true;
+                    }
+                    if (LiteralClassifier.classify(value) != null || engine.containsTokenFinding(value)) {
+                        return true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            afterAssign = scanner.isOperator('=');
+            if (scanner.type == TokenType.IDENTIFIER) {
+                identifierStart = scanner.start;
+                identifierEnd = scanner.end;
+            } else if (!afterAssign) {
+                identifierStart = -1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 接收需要替换的字面量内容
+     */
+    @FunctionalInterface
+    public interface LiteralConsumer {
+        /**
+         * @param start 替换起点（引号内）
+         * @param end   替换终点（引号内）
+         * @param mask  替换后的值（不含引号）
+         */
+        void onLiteral(int start, int end, @NotNull String mask);
+    }
+
+    /**
+     * 无 IDE 时在词法单元流上找出需要脱敏的字符串字面量，按出现顺序报告引号内的范围：
+     * - {@code 标识符 = "字面量"} 中标识符包含敏感关键字的字面量，按名称选择掩码
+     * - 本身是连接串、地址、域名（{@link LiteralClassifier}）或含候选词检测器命中的字面量，按值选择掩码
+     * - {@code ${key:默认值}} 中键名敏感或默认值本身敏感的默认值，只替换默认值
+     */
+    public static void findSensitiveLiterals(@NotNull CharSequence content, @NotNull DetectionEngine engine,
+                                             @NotNull LiteralConsumer consumer) {
+        JavaSourceScanner scanner = new JavaSourceScanner(content);
+        int identifierStart = -1;
+        int identifierEnd = -1;
+        boolean afterAssign = false;
+        while (scanner.next()) {
+            if (scanner.type == TokenType.COMMENT) {
+                continue;
+            }
+            if (scanner.type == TokenType.STRING && scanner.valueEnd > scanner.valueStart) {
+                CharSequence value = scanner.getValue();
+                if (hasPlaceholderDefault(value)) {
+                    findSensitiveDefaults(content, scanner.valueStart, scanner.valueEnd, engine, consumer);
+                } else if (!DetectionEngine.isMasked(value, 0, value.length())) {
+                    String name = afterAssign && identifierStart >= 0
+                            ? lowerCase(content, identifierStart, identifierEnd) : null;
+                    if (name != null && !isExpression(value) && SensitiveRules.isSensitiveFieldName(name)) {
+                        consumer.onLiteral(scanner.valueStart, scanner.valueEnd, maskForName(name));
+                    } else if (isSensitiveValue(value, engine)) {
+                        consumer.onLiteral(scanner.valueStart, scanner.valueEnd, LiteralClassifier.maskFor(value));
+                    }
+                }
+            }
+            afterAssign = scanner.isOperator('=');
+            if (scanner.type == TokenType.IDENTIFIER) {
+                identifierStart = scanner.start;
+                identifierEnd = scanner.end;
+            } else if (!afterAssign) {
+                identifierStart = -1;
+            }
+        }
+    }
+
+    /**
+     * 报告 [from, to) 中键名敏感或默认值本身敏感的 ${key:默认值} 默认值
+     */
+    private static void findSensitiveDefaults(CharSequence content, int from, int to, DetectionEngine engine,
+                                              LiteralConsumer consumer) {
+        for (int i = from; i + 1 < to; i++) {
+            if (content.charAt(i) != '$' || content.charAt(i + 1) != '{') {
+                continue;
+            }
+            int colon = -1;
+            int close = i + 2;
+            while (close < to && content.charAt(close) != '}') {
+                if (colon < 0 && content.charAt(close) == ':') {
+                    colon = close;
+                }
+                close++;
+            }
+            if (close >= to) {
+                return;
+            }
+            if (colon > 0 && colon + 1 < close) {
+                CharSequence defaultValue = CharBuffer.wrap(content, colon + 1, close);
+                if (!DetectionEngine.isMasked(defaultValue, 0, defaultValue.length())
+                        && (SensitiveRules.isSensitiveFieldName(lowerCase(content, i + 2, colon))
+                            || isSensitiveValue(defaultValue, engine))) {
+                    consumer.onLiteral(colon + 1, close, LiteralClassifier.maskFor(defaultValue));
+                }
+            }
+            i = close;
+        }
+    }
+
+    private static boolean isSensitiveValue(CharSequence value, DetectionEngine engine) {
+        return LiteralClassifier.classify(value) != null || engine.containsTokenFinding(value);
+    }
+
+    /**
+     * 按名称中的关键字选择掩码
+     */
+    @NotNull
+    static String maskForName(@NotNull String lowerCaseName) {
+        if (lowerCaseName.contains("url") || lowerCaseName.contains("uri") || lowerCaseName.contains("endpoint")) {
+            return "http://###MASKED###";
+        }
+        if (lowerCaseName.contains("host") || lowerCaseName.contains("address") || lowerCaseName.contains("server")) {
+            return "###.###.###.###";
+        }
+        if (lowerCaseName.contains("cluster") || lowerCaseName.contains("zookeeper")
+                || lowerCaseName.contains("namesrv")) {
+            return "###MASKED_CLUSTER###";
+        }
+        return LiteralClassifier.DEFAULT_MASK;
+    }
+
+    /**
+     * SpEL 表达式（例如 {@code @Cacheable(key = "#id")}、{@code @Cacheable(key = "'all'")}、{@code #{...}}）不是字面值
+     */
+    private static boolean isExpression(CharSequence value) {
+        if (value.length() == 0 || value.charAt(0) == '#' || value.charAt(0) == '\'') {
+            return true;
+        }
+        for (int i = 0; i + 1 < value.length(); i++) {
+            if (value.charAt(i) == '#' && value.charAt(i + 1) == '{') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasPlaceholderDefault(CharSequence value) {
+        for (int i = 0; i + 1 < value.length(); i++) {
+            if (value.charAt(i) == '$' && value.charAt(i + 1) == '{') {
+                for (int j = i + 2; j < value.length() && value.charAt(j) != '}'; j++) {
+                    if (value.charAt(j) == ':') {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private int indexOf(String target, int from) {
+        int last = length - target.length();
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < target.length(); j++) {
+                if (text.charAt(i + j) != target.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static boolean containsAny(CharSequence text, int from, int to, String[] markers, boolean ignoreCase) {
+        for (String marker : markers) {
+            int last = to - marker.length();
+            outer:
+            for (int i = from; i <= last; i++) {
+                for (int j = 0; j < marker.length(); j++) {
+                    char c = text.charAt(i + j);
+                    if ((ignoreCase ? Character.toLowerCase(c) : c) != marker.charAt(j)) {
+                        continue outer;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean equalsAny(CharSequence text, int from, int to, String[] candidates) {
+        outer:
+        for (String candidate : candidates) {
+            if (candidate.length() != to - from) {
+                continue;
+            }
+            for (int i = 0; i < candidate.length(); i++) {
+                if (text.charAt(from + i) != candidate.charAt(i)) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static String lowerCase(CharSequence text, int from, int to) {
+        char[] chars = new char[to - from];
+        for (int i = from; i < to; i++) {
+            chars[i - from] = Character.toLowerCase(text.charAt(i));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,177 @@
+package com.redaction.detect;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * 多关键字匹配自动机（Aho-Corasick）
+ *
+ * 将一组关键字编译为确定性有限自动机，对文本只做一次线性扫描即可找出所有关键字的出现位置，
+ * 取代对每个关键字分别调用 {@code String.contains} 的做法。匹配不区分 ASCII 大小写，
+ * 扫描过程中不创建子串。
+ *
+ * @version 1.0.0
+ */
+public final class KeywordAutomaton {
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final String[] keywords;
+    // 字符到字母表下标的映射，0 表示不在任何关键字中出现的字符
+    private final int[] alphabet = new int[128];
+    private final int alphabetSize;
+    // transitions[state * alphabetSize + symbol] -> 下一个状态
+    private final int[] transitions;
+    // 每个状态结束的关键字编号（已合并失败链上的输出）
+    private final int[][] outputs;
+
+    /**
+     * 匹配回调
+     */
+    public interface MatchConsumer {
+        /**
+         * @param keywordId 关键字编号，对应构造时传入的顺序
+         * @param start     匹配起始位置（包含）
+         * @param end       匹配结束位置（不包含）
+         * @return 返回 false 时停止扫描
+         */
+        boolean onMatch(int keywordId, int start, int end);
+    }
+
+    public KeywordAutomaton(@NotNull Collection<String> keywords) {
+        this.keywords = new String[keywords.size()];
+        int index = 0;
+        int symbols = 1;
+        for (String keyword : keywords) {
+            String lower = keyword.toLowerCase(Locale.ROOT);
+            this.keywords[index++] = lower;
+            for (int i = 0; i < lower.length(); i++) {
+                char c = lower.charAt(i);
+                if (c >= 128) {
+                    throw new IllegalArgumentException("只支持 ASCII 关键字: " + keyword);
+                }
+                if (alphabet[c] == 0) {
+                    alphabet[c] = symbols++;
+                }
+            }
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            alphabet[c] = alphabet[Character.toLowerCase(c)];
+        }
+        this.alphabetSize = symbols;
+
+        // 构建字典树
+        List<int[]> gotoTable = new ArrayList<>();
+        List<List<Integer>> outputLists = new ArrayList<>();
+        gotoTable.add(newRow(symbols));
+        outputLists.add(new ArrayList<>());
+        for (int id = 0; id < this.keywords.length; id++) {
+            int state = 0;
+            for (char c : this.keywords[id].toCharArray()) {
+                int symbol = alphabet[c];
+                if (gotoTable.get(state)[symbol] < 0) {
+                    gotoTable.get(state)[symbol] = gotoTable.size();
+                    gotoTable.add(newRow(symbols));
+                    outputLists.add(new ArrayList<>());
+                }
+                state = gotoTable.get(state)[symbol];
+            }
+            outputLists.get(state).add(id);
+        }
+
+        // 广度优先计算失败函数，并把转移表补全为确定性自动机
+        int stateCount = gotoTable.size();
+        int[] failure = new int[stateCount];
+        this.transitions = new int[stateCount * symbols];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < symbols; symbol++) {
+            int next = gotoTable.get(0)[symbol];
+            if (next < 0) {
+                transitions[symbol] = 0;
+            } else {
+                transitions[symbol] = next;
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputLists.get(state).addAll(outputLists.get(failure[state]));
+            for (int symbol = 0; symbol < symbols; symbol++) {
+                int next = gotoTable.get(state)[symbol];
+                if (next < 0) {
+                    transitions[state * symbols + symbol] = transitions[failure[state] * symbols + symbol];
+                } else {
+                    transitions[state * symbols + symbol] = next;
+                    failure[next] = transitions[failure[state] * symbols + symbol];
+                    queue.add(next);
+                }
+            }
+        }
+
+        this.outputs = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            List<Integer> list = outputLists.get(state);
+            outputs[state] = list.isEmpty() ? NO_OUTPUT : list.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private static int[] newRow(int symbols) {
+        int[] row = new int[symbols];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    /**
+     * 获取关键字编号对应的关键字（小写）
+     */
+    @NotNull
+    public String keyword(int keywordId) {
+        return keywords[keywordId];
+    }
+
+    public int size() {
+        return keywords.length;
+    }
+
+    /**
+     * 扫描文本区间内的所有关键字
+     */
+    public void scan(@NotNull CharSequence text, int from, int to, @NotNull MatchConsumer consumer) {
+        int state = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            state = transitions[state * alphabetSize + (c < 128 ? alphabet[c] : 0)];
+            int[] matched = outputs[state];
+            for (int id : matched) {
+                if (!consumer.onMatch(id, i + 1 - keywords[id].length(), i + 1)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 查找文本区间内第一个出现的关键字
+     *
+     * @return 关键字编号，没有匹配时返回 -1
+     */
+    public int findFirst(@NotNull CharSequence text, int from, int to) {
+        int state = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            state = transitions[state * alphabetSize + (c < 128 ? alphabet[c] : 0)];
+            if (outputs[state].length > 0) {
+                return outputs[state][0];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 判断文本中是否包含任意关键字
+     */
+    public boolean containsAny(@NotNull CharSequence text) {
+        return findFirst(text, 0, text.length()) >= 0;
+    }
+}
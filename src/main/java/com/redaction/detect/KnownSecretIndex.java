@@ -0,0 +1,361 @@
+package com.redaction.detect;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * 已知凭据指纹索引
+ *
+ * 从凭据清单加载已经轮换或已知泄露的凭据，只保留指纹，对文件做一次字节扫描即可找出任意凭据的出现位置。
+ * 清单每行一条，支持两种格式：
+ * - 明文：计算（长度、滚动哈希、SHA-256）后立即清零读取缓冲区，内存中不保留明文
+ * - {@code sha256:<十六进制摘要>[:<字节长度>]}：只能匹配完整的词（以空白、引号、= : , ; 和括号分隔）
+ *
+ * 明文条目按长度分组建立 Rabin-Karp 滚动哈希表，扫描时每种长度维护一个滚动窗口，
+ * 滚动哈希命中后再用 SHA-256 确认，耗时与清单条目数量无关，只与不同长度的种类数有关。
+ * 以 # 开头的行和空行被忽略。
+ *
+ * @version 1.0.0
+ */
+public final class KnownSecretIndex {
+    /**
+     * 短于该长度的明文条目会产生大量误报，加载时忽略
+     */
+    public static final int MIN_SECRET_LENGTH = 6;
+
+    private static final String HASH_PREFIX = "sha256:";
+    // 滚动哈希的底数（奇数，按 2^64 取模）
+    private static final long BASE = 0x100000001B3L;
+
+    /**
+     * 匹配回调
+     */
+    public interface MatchConsumer {
+        /**
+         * @param entryLine 命中的条目在清单中的行号，用于定位是哪一条凭据（不暴露凭据本身）
+         * @param offset    匹配在文件中的字节偏移量
+         * @param length    匹配的字节长度
+         * @param line      匹配所在的行号（从 1 开始）
+         * @param column    匹配在行内的字节列号（从 1 开始）
+         */
+        void onMatch(int entryLine, long offset, int length, int line, int column);
+    }
+
+    private final int[] lengths;
+    private final long[] powers;
+    private final LongSet[] rolling;
+    // 明文条目与哈希条目的 SHA-256 → 清单行号
+    private final Map<ByteBuffer, Integer> plainDigests;
+    private final Map<ByteBuffer, Integer> hashedDigests;
+    // 带长度的哈希条目只检查对应长度的词；不带长度时检查所有词
+    private final BitSet hashedLengths;
+    private final boolean hashedAnyLength;
+    private final int skippedEntries;
+
+    private KnownSecretIndex(Map<Integer, LongSet> rollingByLength, Map<ByteBuffer, Integer> plainDigests,
+                             Map<ByteBuffer, Integer> hashedDigests, BitSet hashedLengths, boolean hashedAnyLength,
+                             int skippedEntries) {
+        this.lengths = rollingByLength.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        this.powers = new long[lengths.length];
+        this.rolling = new LongSet[lengths.length];
+        for (int k = 0; k < lengths.length; k++) {
+            powers[k] = power(lengths[k]);
+            rolling[k] = rollingByLength.get(lengths[k]);
+        }
+        this.plainDigests = plainDigests;
+        this.hashedDigests = hashedDigests;
+        this.hashedLengths = hashedLengths;
+        this.hashedAnyLength = hashedAnyLength;
+        this.skippedEntries = skippedEntries;
+    }
+
+    /**
+     * 加载凭据清单
+     *
+     * 清单以字节形式读入一个缓冲区，逐行计算指纹，完成后缓冲区立即清零，不创建包含明文的字符串。
+     */
+    @NotNull
+    public static KnownSecretIndex load(@NotNull Path file) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        try {
+            Map<Integer, LongSet> rollingByLength = new HashMap<>();
+            Map<ByteBuffer, Integer> plainDigests = new HashMap<>();
+            Map<ByteBuffer, Integer> hashedDigests = new HashMap<>();
+            BitSet hashedLengths = new BitSet();
+            boolean hashedAnyLength = false;
+            int skipped = 0;
+            MessageDigest sha256 = newSha256();
+
+            int lineNumber = 0;
+            int start = 0;
+            while (start < content.length) {
+                int end = start;
+                while (end < content.length && content[end] != '\n') {
+                    end++;
+                }
+                lineNumber++;
+                int lineEnd = end > start && content[end - 1] == '\r' ? end - 1 : end;
+                int length = lineEnd - start;
+
+                if (length == 0 || content[start] == '#') {
+                    // 空行或注释
+                } else if (startsWith(content, start, lineEnd, HASH_PREFIX)) {
+                    int hexStart = start + HASH_PREFIX.length();
+                    byte[] digest = parseHex(content, hexStart, Math.min(lineEnd, hexStart + 64));
+                    if (digest == null) {
+                        skipped++;
+                    } else {
+                        hashedDigests.put(ByteBuffer.wrap(digest), lineNumber);
+                        int tokenLength = hexStart + 65 < lineEnd && content[hexStart + 64] == ':'
+                            ? parseInt(content, hexStart + 65, lineEnd) : -1;
+                        if (tokenLength > 0) {
+                            hashedLengths.set(tokenLength);
+                        } else {
+                            hashedAnyLength = true;
+                        }
+                    }
+                } else if (length < MIN_SECRET_LENGTH) {
+                    skipped++;
+                } else {
+                    long hash = 0;
+                    for (int i = start; i < lineEnd; i++) {
+                        hash = hash * BASE + (content[i] & 0xFF);
+                    }
+                    rollingByLength.computeIfAbsent(length, l -> new LongSet()).add(hash);
+                    sha256.update(content, start, length);
+                    plainDigests.put(ByteBuffer.wrap(sha256.digest()), lineNumber);
+                }
+                start = end + 1;
+            }
+            return new KnownSecretIndex(rollingByLength, plainDigests, hashedDigests, hashedLengths, hashedAnyLength, skipped);
+        } finally {
+            Arrays.fill(content, (byte) 0);
+        }
+    }
+
+    /**
+     * 有效条目数
+     */
+    public int size() {
+        return plainDigests.size() + hashedDigests.size();
+    }
+
+    /**
+     * 因过短或格式错误被忽略的条目数
+     */
+    public int getSkippedEntries() {
+        return skippedEntries;
+    }
+
+    /**
+     * 扫描文件
+     */
+    public void scanFile(@NotNull Path file, @NotNull MatchConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0 || size > Integer.MAX_VALUE) {
+                return;
+            }
+            scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), consumer);
+        }
+    }
+
+    /**
+     * 对内容做一次字节扫描，同时检查明文条目（任意位置）和哈希条目（完整的词）
+     */
+    public void scan(@NotNull ByteBuffer content, @NotNull MatchConsumer consumer) {
+        int limit = content.limit();
+        long[] hashes = new long[lengths.length];
+        boolean checkTokens = !hashedDigests.isEmpty();
+        MessageDigest sha256 = newSha256();
+        int line = 1;
+        int lineStart = 0;
+        int tokenStart = 0;
+
+        for (int i = 0; i < limit; i++) {
+            int value = content.get(i) & 0xFF;
+            for (int k = 0; k < lengths.length; k++) {
+                int length = lengths[k];
+                long hash = hashes[k] * BASE + value;
+                if (i >= length) {
+                    hash -= (content.get(i - length) & 0xFF) * powers[k];
+                }
+                hashes[k] = hash;
+                if (i + 1 >= length && rolling[k].contains(hash)) {
+                    int start = i + 1 - length;
+                    Integer entry = plainDigests.get(digest(sha256, content, start, length));
+                    if (entry != null) {
+                        consumer.onMatch(entry, start, length, line, start - lineStart + 1);
+                    }
+                }
+            }
+            if (checkTokens && isDelimiter(value)) {
+                checkToken(content, tokenStart, i, sha256, line, lineStart, consumer);
+                tokenStart = i + 1;
+            }
+            if (value == '\n') {
+                line++;
+                lineStart = i + 1;
+            }
+        }
+        if (checkTokens) {
+            checkToken(content, tokenStart, limit, sha256, line, lineStart, consumer);
+        }
+    }
+
+    private void checkToken(ByteBuffer content, int start, int end, MessageDigest sha256,
+                            int line, int lineStart, MatchConsumer consumer) {
+        int length = end - start;
+        if (length <= 0 || (!hashedAnyLength && !hashedLengths.get(length))) {
+            return;
+        }
+        Integer entry = hashedDigests.get(digest(sha256, content, start, length));
+        if (entry != null) {
+            consumer.onMatch(entry, start, length, line, start - lineStart + 1);
+        }
+    }
+
+    private static ByteBuffer digest(MessageDigest sha256, ByteBuffer content, int start, int length) {
+        ByteBuffer window = content.duplicate();
+        window.limit(start + length).position(start);
+        sha256.update(window);
+        return ByteBuffer.wrap(sha256.digest());
+    }
+
+    private static boolean isDelimiter(int b) {
+        switch (b) {
+            case ' ': case '\t': case '\r': case '\n':
+            case '"': case '\'': case '`':
+            case '=': case ':': case ',': case ';':
+            case '(': case ')': case '[': case ']': case '{': case '}': case '<': case '>':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static long power(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= BASE;
+        }
+        return result;
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean startsWith(byte[] content, int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase(content[start + i]) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] parseHex(byte[] content, int start, int end) {
+        if (end - start != 64) {
+            return null;
+        }
+        byte[] digest = new byte[32];
+        for (int i = 0; i < 32; i++) {
+            int high = Character.digit(content[start + i * 2], 16);
+            int low = Character.digit(content[start + i * 2 + 1], 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            digest[i] = (byte) ((high << 4) | low);
+        }
+        return digest;
+    }
+
+    private static int parseInt(byte[] content, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            if (content[i] < '0' || content[i] > '9') {
+                return -1;
+            }
+            value = value * 10 + (content[i] - '0');
+        }
+        return value;
+    }
+
+    /**
+     * 以开放寻址方式存放 long 的集合
+     */
+    private static final class LongSet {
+        private long[] keys = new long[16];
+        private boolean hasZero;
+        private int size;
+
+        void add(long key) {
+            if (key == 0) {
+                hasZero = true;
+                return;
+            }
+            if ((size + 1) * 2 > keys.length) {
+                long[] old = keys;
+                keys = new long[old.length * 2];
+                for (long k : old) {
+                    if (k != 0) {
+                        insert(keys, k);
+                    }
+                }
+            }
+            if (insert(keys, key)) {
+                size++;
+            }
+        }
+
+        boolean contains(long key) {
+            if (key == 0) {
+                return hasZero;
+            }
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != 0) {
+                if (keys[slot] == key) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        private static boolean insert(long[] keys, long key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != 0) {
+                if (keys[slot] == key) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            return true;
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
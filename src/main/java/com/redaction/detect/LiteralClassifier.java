@@ -0,0 +1,197 @@
+package com.redaction.detect;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 源码字符串字面量分类
+ *
+ * 直接检查字面量的值（而不是整条声明的源码文本）判断其类型并给出对应的掩码，
+ * 只做前缀比较和逐字符检查，不使用正则表达式。PSI、UAST 和无 IDE 的词法扫描共用这里的规则。
+ *
+ * @version 1.0.0
+ */
+public final class LiteralClassifier {
+
+    /**
+     * 字面量类型，按判断顺序排列
+     */
+    public enum Kind {
+        MONGODB_URI("mongodb://###MASKED_USER###:###MASKED_PASSWORD###@###MASKED_HOST###:###MASKED_PORT###/###MASKED_DB###"),
+        JDBC_URL("jdbc:mysql://###MASKED_HOST###:###MASKED_PORT###/###MASKED_DB###"),
+        HTTP_URL("http://###MASKED###"),
+        REDIS_URL("redis://###MASKED_HOST###:###MASKED_PORT###"),
+        ZOOKEEPER_URL("zookeeper://###MASKED_HOST###:###MASKED_PORT###"),
+        DUBBO_URL("dubbo://###MASKED_HOST###:###MASKED_PORT###"),
+        IP_ADDRESS("###.###.###.###:####"),
+        DOMAIN("###MASKED_DOMAIN###:####");
+
+        private final String mask;
+
+        Kind(String mask) {
+            this.mask = mask;
+        }
+
+        @NotNull
+        public String getMask() {
+            return mask;
+        }
+    }
+
+    /**
+     * 没有识别出类型时使用的默认掩码
+     */
+    public static final String DEFAULT_MASK = "###MASKED###";
+
+    /**
+     * 常见顶级域名和内网常用后缀；不收录与常见文件扩展名相同的国家域名（.sh、.py、.md、.rs 等）
+     */
+    private static final Set<String> TOP_LEVEL_DOMAINS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        "com", "net", "org", "edu", "gov", "biz",
+        "io", "co", "ai", "me", "cc", "tv", "dev", "app", "cloud", "tech", "xyz", "vip",
+        "cn", "hk", "tw", "jp", "kr", "sg", "uk", "de", "fr", "ru", "us", "eu", "ca", "au",
+        "local", "internal", "lan", "corp", "intranet"
+    )));
+    private static final int MAX_KNOWN_LABEL_LENGTH = 8;
+
+    /**
+     * 包名的常见首段：反向域名之外的 JDK 和语言标准库包
+     */
+    private static final Set<String> ROOT_PACKAGES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        "java", "javax", "jakarta", "kotlin", "kotlinx", "scala", "groovy", "android", "androidx"
+    )));
+
+    private LiteralClassifier() {
+    }
+
+    /**
+     * 判断字面量值的类型
+     *
+     * @return 类型，不是连接串、地址或域名时返回 null
+     */
+    public static Kind classify(@NotNull CharSequence value) {
+        if (startsWithIgnoreCase(value, "mongodb://") || startsWithIgnoreCase(value, "mongodb+srv://")) {
+            return Kind.MONGODB_URI;
+        }
+        if (startsWithIgnoreCase(value, "jdbc:")) {
+            return Kind.JDBC_URL;
+        }
+        if (startsWithIgnoreCase(value, "http://") || startsWithIgnoreCase(value, "https://")) {
+            return Kind.HTTP_URL;
+        }
+        if (startsWithIgnoreCase(value, "redis://") || startsWithIgnoreCase(value, "rediss://")) {
+            return Kind.REDIS_URL;
+        }
+        if (startsWithIgnoreCase(value, "zookeeper://")) {
+            return Kind.ZOOKEEPER_URL;
+        }
+        if (startsWithIgnoreCase(value, "dubbo://")) {
+            return Kind.DUBBO_URL;
+        }
+        if (SensitiveRules.containsIpAddress(value, 0, value.length())) {
+            return Kind.IP_ADDRESS;
+        }
+        if (containsDomain(value)) {
+            return Kind.DOMAIN;
+        }
+        return null;
+    }
+
+    /**
+     * 按字面量的值选择掩码
+     */
+    @NotNull
+    public static String maskFor(@NotNull CharSequence value) {
+        Kind kind = classify(value);
+        return kind != null ? kind.getMask() : DEFAULT_MASK;
+    }
+
+    /**
+     * 判断值中是否包含主机名：至少两段、最后一段为至少两个字母的点分名称，并且满足以下任一条件
+     * - 前面紧跟 {@code ://}，例如 {@code amqp://mq.internal}
+     * - 后面紧跟 {@code :端口}，例如 {@code db-master.prod:3306}
+     * - 最后一段是常见顶级域名，且第一段不是顶级域名或标准库包名（排除 com.example.app、java.io 这类包名）
+     *
+     * 包名（java.lang.String）、文件名（application.yml）和 classpath:application.properties 都不满足。
+     */
+    static boolean containsDomain(CharSequence value) {
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            if (!isLabelChar(value.charAt(i))) {
+                i++;
+                continue;
+            }
+            int runStart = i;
+            int firstLabelEnd = -1;
+            int labels = 0;
+            int lastLabelStart = i;
+            boolean lastLabelAlpha = true;
+            while (i < length && isLabelChar(value.charAt(i))) {
+                int labelStart = i;
+                boolean alpha = true;
+                while (i < length && isLabelChar(value.charAt(i))) {
+                    alpha &= Character.isLetter(value.charAt(i));
+                    i++;
+                }
+                if (labels++ == 0) {
+                    firstLabelEnd = i;
+                }
+                lastLabelStart = labelStart;
+                lastLabelAlpha = alpha;
+                if (i + 1 < length && value.charAt(i) == '.' && isLabelChar(value.charAt(i + 1))) {
+                    i++;
+                } else {
+                    break;
+                }
+            }
+            if (labels >= 2 && lastLabelAlpha && i - lastLabelStart >= 2) {
+                boolean scheme = runStart >= 3 && value.charAt(runStart - 1) == '/'
+                    && value.charAt(runStart - 2) == '/' && value.charAt(runStart - 3) == ':';
+                boolean port = i + 1 < length && value.charAt(i) == ':' && isDigit(value.charAt(i + 1));
+                if (scheme || port || (isLabel(value, lastLabelStart, i, TOP_LEVEL_DOMAINS)
+                                       && !isLabel(value, runStart, firstLabelEnd, TOP_LEVEL_DOMAINS)
+                                       && !isLabel(value, runStart, firstLabelEnd, ROOT_PACKAGES))) {
+                    return true;
+                }
+            }
+            i++;
+        }
+        return false;
+    }
+
+    private static boolean isLabel(CharSequence value, int from, int to, Set<String> labels) {
+        if (to - from > MAX_KNOWN_LABEL_LENGTH) {
+            return false;
+        }
+        StringBuilder label = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            label.append(Character.toLowerCase(value.charAt(i)));
+        }
+        return labels.contains(label.toString());
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLabelChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-';
+    }
+
+    private static boolean startsWithIgnoreCase(CharSequence value, String prefix) {
+        if (value.length() < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase(value.charAt(i)) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
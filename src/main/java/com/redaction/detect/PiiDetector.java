@@ -0,0 +1,428 @@
+package com.redaction.detect;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 个人信息检测器
+ *
+ * 识别候选词中的居民身份证号、银行卡号、手机号和电子邮箱。数字串先按长度分类，
+ * 再用校验位、号段表等规则确认，不使用正则表达式，也不创建任何对象：
+ * - 身份证号：18 位（最后一位可以是 X），校验 ISO 7064 MOD 11-2 校验码和出生日期
+ * - 银行卡号：13~19 位，符合卡组织的发卡行号段和长度并通过 Luhn 校验；订单号等编号同样可能通过校验，
+ *   因此还要求卡号形式的上下文：按 4 位一组用空格或 - 分隔，或同一行前面的键名含有 card / 卡号。
+ *   公开的测试卡号（4111111111111111 等）不报告
+ * - 手机号：11 位，前三位必须在运营商号段表中，允许带 86 国家码
+ * - 电子邮箱：用户名@域名，域名至少两段，顶级域名为至少两个字母；
+ *   git@github.com:org/repo.git 这类 SSH 远程地址和 ssh://git@host/ 中的用户名不是邮箱
+ *
+ * @version 1.0.0
+ */
+public final class PiiDetector implements TokenDetector {
+    public static final String RULE_ID_CARD = "ID_CARD";
+    public static final String RULE_BANK_CARD = "BANK_CARD";
+    public static final String RULE_MOBILE = "MOBILE";
+    public static final String RULE_EMAIL = "EMAIL";
+
+    // 身份证前 17 位的加权系数和校验码
+    private static final int[] ID_WEIGHTS = {7, 9, 10, 5, 8, 4, 2, 1, 6, 3, 7, 9, 10, 5, 8, 4, 2};
+    private static final char[] ID_CHECK_CODES = {'1', '0', 'X', '9', '8', '7', '6', '5', '4', '3', '2'};
+
+    // 手机号段表：MOBILE_PREFIXES[n] 表示 "1" + 两位数 n 开头的号段已分配
+    private static final boolean[] MOBILE_PREFIXES = new boolean[100];
+
+    // 卡组织文档和支付网关公开的测试卡号
+    private static final String[] TEST_CARD_NUMBERS = {
+        "4111111111111111", "4242424242424242", "4012888888881881", "4000056655665556", "4222222222222",
+        "5555555555554444", "5105105105105100", "5200828282828210", "2223003122003222",
+        "378282246310005", "371449635398431", "378734493671000",
+        "6011111111111117", "6011000990139424", "3530111333300000", "3566002020360505",
+        "30569309025904", "38520000023237", "6200000000000005"
+    };
+
+    // 卡号上下文只向前查看这么多字符
+    private static final int CARD_CONTEXT_WINDOW = 80;
+
+    static {
+        int[] prefixes = {
+            130, 131, 132, 133, 134, 135, 136, 137, 138, 139,
+            145, 146, 147, 148, 149,
+            150, 151, 152, 153, 155, 156, 157, 158, 159,
+            162, 165, 166, 167,
+            170, 171, 172, 173, 175, 176, 177, 178,
+            180, 181, 182, 183, 184, 185, 186, 187, 188, 189,
+            190, 191, 192, 193, 195, 196, 197, 198, 199
+        };
+        for (int prefix : prefixes) {
+            MOBILE_PREFIXES[prefix - 100] = true;
+        }
+    }
+
+    @Override
+    public int detect(@NotNull CharSequence text, int start, int end, int limit,
+                      @NotNull DetectionEngine.FindingConsumer consumer) {
+        int at = indexOf(text, '@', start, end);
+        if (at >= 0) {
+            int emailStart = emailStart(text, start, at);
+            int emailEnd = emailEnd(text, at + 1, end);
+            if (emailStart >= 0 && emailEnd >= 0 && !isSshRemote(text, emailStart, emailEnd, limit)) {
+                consumer.onFinding(RULE_EMAIL, emailStart, emailEnd);
+                return end;
+            }
+        }
+
+        int i = start;
+        while (i < end) {
+            if (!isDigit(text.charAt(i)) || (i > start && isAlnum(text.charAt(i - 1)))) {
+                i++;
+                continue;
+            }
+            int runStart = i;
+            while (i < end && isDigit(text.charAt(i))) {
+                i++;
+            }
+            int length = i - runStart;
+            // 按组分隔的卡号，组之间的空格会把卡号拆成多个候选词，向后查看完整的卡号
+            if (length == 4) {
+                int cardEnd = groupedCardEnd(text, runStart, limit);
+                if (cardEnd > 0) {
+                    consumer.onFinding(RULE_BANK_CARD, runStart, cardEnd);
+                    return Math.max(end, cardEnd);
+                }
+            }
+            // 身份证号最后一位可以是 X
+            if (length == 17 && i < end && (text.charAt(i) == 'X' || text.charAt(i) == 'x')
+                && isBoundary(text, i + 1, limit) && isIdCard(text, runStart)) {
+                consumer.onFinding(RULE_ID_CARD, runStart, i + 1);
+                return end;
+            }
+            if (!isBoundary(text, i, limit)) {
+                continue;
+            }
+            String rule = classifyDigits(text, runStart, length);
+            if (RULE_BANK_CARD.equals(rule) && !hasCardContext(text, runStart)) {
+                continue;
+            }
+            if (rule != null) {
+                // 带 86 国家码的手机号只报告号码部分
+                int matchStart = RULE_MOBILE.equals(rule) ? i - 11 : runStart;
+                consumer.onFinding(rule, matchStart, i);
+                return end;
+            }
+        }
+        return -1;
+    }
+
+    private static String classifyDigits(CharSequence text, int start, int length) {
+        if (length == 18 && isIdCard(text, start)) {
+            return RULE_ID_CARD;
+        }
+        if (length >= 13 && length <= 19 && isBankCard(text, start, start + length, length)) {
+            return RULE_BANK_CARD;
+        }
+        if (length == 11 && isMobile(text, start)) {
+            return RULE_MOBILE;
+        }
+        if (length == 13 && text.charAt(start) == '8' && text.charAt(start + 1) == '6' && isMobile(text, start + 2)) {
+            return RULE_MOBILE;
+        }
+        return null;
+    }
+
+    /**
+     * 校验 18 位身份证号：行政区划首位、出生日期和 ISO 7064 MOD 11-2 校验码
+     */
+    static boolean isIdCard(CharSequence text, int start) {
+        char region = text.charAt(start);
+        if (region < '1' || region > '8') {
+            return false;
+        }
+        int year = digits(text, start + 6, 4);
+        int month = digits(text, start + 10, 2);
+        int day = digits(text, start + 12, 2);
+        if (year < 1900 || year > 2099 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return false;
+        }
+        int sum = 0;
+        for (int i = 0; i < 17; i++) {
+            sum += (text.charAt(start + i) - '0') * ID_WEIGHTS[i];
+        }
+        char check = text.charAt(start + 17);
+        return Character.toUpperCase(check) == ID_CHECK_CODES[sum % 11];
+    }
+
+    /**
+     * 校验银行卡号：发卡行号段与长度、Luhn 校验，并排除公开的测试卡号
+     *
+     * [start, end) 中可以夹有分隔符，只计数字
+     *
+     * @param digitCount 区间中的数字个数
+     */
+    static boolean isBankCard(CharSequence text, int start, int end, int digitCount) {
+        // 号段只取前 4 位，卡号的第一组至少 4 位
+        int prefix = digits(text, start, 4);
+        if (!isIssuerRange(prefix, digitCount)) {
+            return false;
+        }
+        int sum = 0;
+        boolean doubled = false;
+        for (int i = end - 1; i >= start; i--) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                continue;
+            }
+            int digit = c - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return sum % 10 == 0 && !isTestCard(text, start, end, digitCount);
+    }
+
+    /**
+     * 按卡组织的发卡行号段和卡号长度判断
+     *
+     * @param prefix 卡号前 4 位
+     */
+    private static boolean isIssuerRange(int prefix, int length) {
+        int first = prefix / 1000;
+        int firstTwo = prefix / 100;
+        int firstThree = prefix / 10;
+        if (first == 4) {
+            // Visa
+            return length == 13 || length == 16 || length == 19;
+        }
+        if ((firstTwo >= 51 && firstTwo <= 55) || (prefix >= 2221 && prefix <= 2720)) {
+            // Mastercard
+            return length == 16;
+        }
+        if (firstTwo == 34 || firstTwo == 37) {
+            // American Express
+            return length == 15;
+        }
+        if (firstTwo == 62) {
+            // 银联
+            return length >= 16 && length <= 19;
+        }
+        if (prefix == 6011 || firstTwo == 65 || (firstThree >= 644 && firstThree <= 649)) {
+            // Discover
+            return length >= 16 && length <= 19;
+        }
+        if (prefix >= 3528 && prefix <= 3589) {
+            // JCB
+            return length >= 16 && length <= 19;
+        }
+        if (firstTwo == 36 || firstTwo == 38 || firstTwo == 39 || (firstThree >= 300 && firstThree <= 305)) {
+            // Diners Club
+            return length >= 14 && length <= 19;
+        }
+        return false;
+    }
+
+    private static boolean isTestCard(CharSequence text, int start, int end, int digitCount) {
+        outer:
+        for (String testCard : TEST_CARD_NUMBERS) {
+            if (testCard.length() != digitCount) {
+                continue;
+            }
+            int j = 0;
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                if (isDigit(c) && c != testCard.charAt(j++)) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 识别按组分隔的卡号：第一组 4 位，中间各组 4~6 位，最后一组 3~6 位，共 2~5 组，
+     * 分隔符统一为一个空格或一个 -，数字总数 13~19 位
+     *
+     * @param start 第一组的起点
+     * @return 卡号终点，不是分组卡号时返回 -1
+     */
+    private static int groupedCardEnd(CharSequence text, int start, int limit) {
+        // 前面紧接着“数字+分隔符”时，这一组只是更长数字序列的一部分
+        if (start >= 2 && isCardSeparator(text.charAt(start - 1)) && isDigit(text.charAt(start - 2))) {
+            return -1;
+        }
+        int separatorIndex = start + 4;
+        if (separatorIndex >= limit || !isCardSeparator(text.charAt(separatorIndex))) {
+            return -1;
+        }
+        char separator = text.charAt(separatorIndex);
+        int digitCount = 4;
+        int groups = 1;
+        int i = separatorIndex;
+        int lastGroupLength = 0;
+        while (i < limit && text.charAt(i) == separator && groups < 5) {
+            int groupStart = i + 1;
+            int j = groupStart;
+            while (j < limit && isDigit(text.charAt(j))) {
+                j++;
+            }
+            int groupLength = j - groupStart;
+            if (groupLength < 3 || groupLength > 6) {
+                break;
+            }
+            digitCount += groupLength;
+            groups++;
+            lastGroupLength = groupLength;
+            i = j;
+        }
+        if (groups < 2 || lastGroupLength < 3 || digitCount < 13 || digitCount > 19 || !isBoundary(text, i, limit)) {
+            return -1;
+        }
+        return isBankCard(text, start, i, digitCount) ? i : -1;
+    }
+
+    private static boolean isCardSeparator(char c) {
+        return c == ' ' || c == '-';
+    }
+
+    /**
+     * 连续的数字串只在同一行前面的键名或列名像卡号时报告（card_no、cardNumber、银行卡号等）
+     */
+    private static boolean hasCardContext(CharSequence text, int runStart) {
+        int from = Math.max(0, runStart - CARD_CONTEXT_WINDOW);
+        for (int i = runStart - 1; i >= from; i--) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                return false;
+            }
+            if (c == '卡') {
+                return true;
+            }
+            if ((c == 'd' || c == 'D') && i >= 3 && regionMatchesIgnoreCase(text, i - 3, "card")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionMatchesIgnoreCase(CharSequence text, int start, String lowerWord) {
+        for (int i = 0; i < lowerWord.length(); i++) {
+            if (Character.toLowerCase(text.charAt(start + i)) != lowerWord.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 判断 user@host 是否为 git 的 SSH 远程地址：git@github.com:org/repo.git 或 ssh://git@host/repo
+     */
+    private static boolean isSshRemote(CharSequence text, int emailStart, int emailEnd, int limit) {
+        if (emailEnd + 1 < limit && text.charAt(emailEnd) == ':' && !isDigit(text.charAt(emailEnd + 1))
+                && !Character.isWhitespace(text.charAt(emailEnd + 1))) {
+            return true;
+        }
+        return emailStart >= 3 && text.charAt(emailStart - 1) == '/' && text.charAt(emailStart - 2) == '/'
+                && text.charAt(emailStart - 3) == ':';
+    }
+
+    /**
+     * 校验 11 位手机号的号段
+     */
+    static boolean isMobile(CharSequence text, int start) {
+        return text.charAt(start) == '1' && MOBILE_PREFIXES[digits(text, start + 1, 2)];
+    }
+
+    /**
+     * 从 @ 向前找用户名的起点，用户名为 1~64 个字母、数字或 . _ + -，且不以 . 开头或结尾
+     *
+     * @return 起点，不是合法用户名时返回 -1
+     */
+    private static int emailStart(CharSequence text, int tokenStart, int at) {
+        int i = at;
+        while (i > tokenStart && isLocalChar(text.charAt(i - 1))) {
+            i--;
+        }
+        int length = at - i;
+        if (length < 1 || length > 64 || text.charAt(i) == '.' || text.charAt(at - 1) == '.') {
+            return -1;
+        }
+        return i;
+    }
+
+    /**
+     * 从 @ 之后找域名的终点，域名由字母、数字和 - 组成的若干段以 . 连接，最后一段为至少两个字母
+     *
+     * @return 终点，不是合法域名时返回 -1
+     */
+    private static int emailEnd(CharSequence text, int from, int tokenEnd) {
+        int i = from;
+        int labels = 0;
+        int lastLabelStart = from;
+        boolean lastLabelAlpha = false;
+        while (i < tokenEnd) {
+            int labelStart = i;
+            boolean alpha = true;
+            while (i < tokenEnd && (isAlnum(text.charAt(i)) || text.charAt(i) == '-')) {
+                alpha &= isLetter(text.charAt(i));
+                i++;
+            }
+            if (i == labelStart || text.charAt(labelStart) == '-' || text.charAt(i - 1) == '-') {
+                // 空段或以 - 开头结尾：域名在上一段结束
+                i = labelStart - 1;
+                break;
+            }
+            labels++;
+            lastLabelStart = labelStart;
+            lastLabelAlpha = alpha;
+            if (i + 1 < tokenEnd && text.charAt(i) == '.' && isAlnum(text.charAt(i + 1))) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        if (labels < 2 || !lastLabelAlpha || i - lastLabelStart < 2) {
+            return -1;
+        }
+        return i;
+    }
+
+    private static boolean isBoundary(CharSequence text, int index, int limit) {
+        return index >= limit || !isAlnum(text.charAt(index));
+    }
+
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static int indexOf(CharSequence text, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isLocalChar(char c) {
+        return isAlnum(c) || c == '.' || c == '_' || c == '+' || c == '-';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAlnum(char c) {
+        return isDigit(c) || isLetter(c);
+    }
+}
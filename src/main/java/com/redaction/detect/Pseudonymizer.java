@@ -0,0 +1,176 @@
+package com.redaction.detect;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一致化假名
+ *
+ * 把每个不同的敏感值映射为稳定的编号令牌（例如 ###HOST_7###），相同的值在所有文件中得到相同的令牌，
+ * 保留“哪些服务使用同一个数据库地址或同一个密码”这类关系。
+ *
+ * 映射表的键是值的 HMAC-SHA256 摘要（密钥保存在 IDE 的密码库中），表中不保存原值，
+ * 持久化后编号在多次运行之间保持不变。映射表基于 {@link ConcurrentHashMap}：
+ * 已有的值无锁读取，新值只锁定所在的哈希桶，并行处理的线程共享同一张表。
+ *
+ * @version 1.0.0
+ */
+public final class Pseudonymizer {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    // 摘要保留的字节数，128 位足以避免同一项目内的碰撞
+    private static final int DIGEST_BYTES = 16;
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+    // 类别:摘要 → 编号
+    private final ConcurrentHashMap<String, Integer> tokens = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+
+    /**
+     * @param key HMAC 密钥
+     */
+    public Pseudonymizer(@NotNull byte[] key) {
+        this.key = new SecretKeySpec(key, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * 获取值对应的令牌，第一次出现的值按类别分配下一个编号
+     *
+     * @param category 值的类别，例如 HOST、SECRET
+     * @param value    原值
+     */
+    @NotNull
+    public String tokenFor(@NotNull String category, @NotNull CharSequence value) {
+        String entry = category + ":" + digest(value);
+        Integer number = tokens.get(entry);
+        if (number == null) {
+            number = tokens.computeIfAbsent(entry,
+                key -> counters.computeIfAbsent(category, c -> new AtomicInteger()).incrementAndGet());
+        }
+        return "###" + category + "_" + number + "###";
+    }
+
+    /**
+     * 按原值和原掩码选择类别
+     *
+     * @param value 原值
+     * @param mask  格式处理器给出的掩码
+     */
+    @NotNull
+    public static String categoryOf(@NotNull CharSequence value, @NotNull String mask) {
+        if (mask.contains("CLUSTER")) {
+            return "CLUSTER";
+        }
+        LiteralClassifier.Kind kind = LiteralClassifier.classify(value);
+        if (kind == null) {
+            return "SECRET";
+        }
+        switch (kind) {
+            case MONGODB_URI:
+            case JDBC_URL:
+            case REDIS_URL:
+                return "DB";
+            case HTTP_URL:
+            case ZOOKEEPER_URL:
+            case DUBBO_URL:
+                return "URL";
+            default:
+                return indexOf(value, '@') >= 0 ? "EMAIL" : "HOST";
+        }
+    }
+
+    /**
+     * 从文件加载映射表，文件不存在时保持为空
+     */
+    public void load(@NotNull Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.lastIndexOf('\t');
+                int colon = line.indexOf(':');
+                if (tab <= 0 || colon <= 0 || colon > tab) {
+                    continue;
+                }
+                int number;
+                try {
+                    number = Integer.parseInt(line.substring(tab + 1));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                tokens.put(line.substring(0, tab), number);
+                counters.computeIfAbsent(line.substring(0, colon), c -> new AtomicInteger())
+                        .accumulateAndGet(number, Math::max);
+            }
+        }
+    }
+
+    /**
+     * 保存映射表，先写临时文件再替换
+     */
+    public void save(@NotNull Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Integer> entry : new TreeMap<>(tokens).entrySet()) {
+                writer.write(entry.getKey());
+                writer.write('\t');
+                writer.write(Integer.toString(entry.getValue()));
+                writer.newLine();
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 映射表中值的数量
+     */
+    public int size() {
+        return tokens.size();
+    }
+
+    private String digest(CharSequence value) {
+        Mac mac = macs.get();
+        byte[] digest = mac.doFinal(value.toString().getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, DIGEST_BYTES));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("无法初始化 " + ALGORITHM, e);
+        }
+    }
+
+    private static int indexOf(CharSequence value, char c) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
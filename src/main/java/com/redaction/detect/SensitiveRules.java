@@ -0,0 +1,199 @@
+package com.redaction.detect;
+
+import java.util.*;
+
+/**
+ * 敏感信息识别规则
+ *
+ * 集中定义敏感字段关键字，以及由关键字编译得到的匹配自动机，
+ * 供脱敏服务、文件索引等组件共享，避免各处重复维护关键字列表。
+ *
+ * @version 1.0.0
+ */
+public final class SensitiveRules {
+
+    /**
+     * 规则版本，检测规则或格式处理器的判断逻辑变化时递增，使增量扫描缓存中的结论失效
+     */
+    public static final int RULES_VERSION = 4;
+
+    /**
+     * 敏感字段名关键字（配置键、Java 字段名中出现即视为敏感）
+     */
+    public static final Set<String> SENSITIVE_FIELD_KEYWORDS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+        "password", "pwd", "passwd", "secret", "key", "token",
+        "username", "user", "private", "privacy", "credential",
+        "apikey", "api_key", "auth", "authentication",
+        "url", "uri", "endpoint", "address", "addr",
+        "cluster", "host", "server", "gateway", "proxy",
+        "nameserver", "namesrv", "broker", "registry",
+        "zookeeper", "redis", "mysql", "mongodb", "elasticsearch",
+        "kafka", "rabbitmq", "dubbo", "nacos"
+    )));
+
+    /**
+     * JSON 文件中的敏感字段名关键字
+     */
+    public static final Set<String> JSON_SENSITIVE_KEYS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+        "password", "pwd", "secret", "key", "token", "accessKey", "secretKey",
+        "appId", "appKey", "appSecret", "nameSpace", "env", "cluster", "refreshPath",
+        "host", "ip", "url", "uri", "endpoint", "address", "addr", "username", "user"
+    )));
+
+    /**
+     * 数据文件（SQL 导出、CSV）中敏感列名的关键字，列名中出现即视为敏感
+     */
+    public static final Set<String> DATA_COLUMN_KEYWORDS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+        "password", "passwd", "pwd", "secret", "token", "salt", "credential",
+        "apikey", "api_key", "access_key", "private_key",
+        "email", "phone", "mobile", "telephone", "wechat",
+        "idcard", "id_card", "id_number", "id_no", "ssn", "passport",
+        "address", "birthday", "birth_date", "date_of_birth",
+        "realname", "real_name", "fullname", "full_name", "first_name", "last_name", "surname",
+        "username", "user_name", "nickname", "card_no", "card_number", "bank_account", "iban"
+    )));
+
+    /**
+     * 只在列名完全相同时视为敏感的短列名（作为子串时误报太多，例如 ip 与 zip、tel 与 hotel）
+     */
+    public static final Set<String> DATA_COLUMN_NAMES = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+        "ip", "tel", "name", "mail", "dob", "addr", "host", "login_ip", "last_login_ip", "register_ip"
+    )));
+
+    /**
+     * 配置文件扩展名（JVM 源码不在此列，由 UAST / 词法分析单独处理）
+     */
+    public static final Set<String> CONFIG_FILE_EXTENSIONS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+        "properties", "yml", "yaml", "xml", "json", "conf", "cfg", "env", "ini"
+    )));
+
+    /**
+     * JVM 源文件扩展名（通过 UAST 处理，Gradle 脚本按 Groovy 处理）
+     */
+    public static final Set<String> SOURCE_FILE_EXTENSIONS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+        "java", "kt", "kts", "groovy", "gradle", "scala"
+    )));
+
+    /**
+     * 由 {@link #SENSITIVE_FIELD_KEYWORDS} 编译的关键字自动机
+     */
+    public static final KeywordAutomaton FIELD_KEYWORD_AUTOMATON = new KeywordAutomaton(SENSITIVE_FIELD_KEYWORDS);
+
+    /**
+     * 由 {@link #JSON_SENSITIVE_KEYS} 编译的关键字自动机
+     */
+    public static final KeywordAutomaton JSON_KEY_AUTOMATON = new KeywordAutomaton(JSON_SENSITIVE_KEYS);
+
+    /**
+     * 由 {@link #DATA_COLUMN_KEYWORDS} 编译的关键字自动机
+     */
+    public static final KeywordAutomaton DATA_COLUMN_AUTOMATON = new KeywordAutomaton(DATA_COLUMN_KEYWORDS);
+
+    private SensitiveRules() {
+    }
+
+    /**
+     * 判断字段名或配置键是否包含敏感关键字
+     */
+    public static boolean isSensitiveFieldName(CharSequence name) {
+        return FIELD_KEYWORD_AUTOMATON.containsAny(name);
+    }
+
+    /**
+     * 判断 JSON 字段名是否包含敏感关键字
+     */
+    public static boolean isSensitiveJsonKey(CharSequence key) {
+        return JSON_KEY_AUTOMATON.containsAny(key);
+    }
+
+    /**
+     * 判断数据文件的列名（CSV 表头、SQL 列名）是否敏感，不区分大小写
+     */
+    public static boolean isSensitiveColumnName(String name) {
+        String lowerCaseName = name.toLowerCase(Locale.ROOT);
+        return DATA_COLUMN_NAMES.contains(lowerCaseName) || DATA_COLUMN_AUTOMATON.containsAny(lowerCaseName);
+    }
+
+    /**
+     * 判断文件名或路径是否为配置文件
+     */
+    public static boolean isConfigFileName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0 || dot < fileName.lastIndexOf('/')) {
+            return false;
+        }
+        return CONFIG_FILE_EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 判断文件名或路径是否为 JVM 源文件
+     */
+    public static boolean isSourceFileName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0 || dot < fileName.lastIndexOf('/')) {
+            return false;
+        }
+        return SOURCE_FILE_EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 判断区间内是否包含形如 a.b.c.d 的 IPv4 地址（每段 1-3 位数字），不创建子串
+     */
+    public static boolean containsIpAddress(CharSequence text, int from, int to) {
+        return findIpAddress(text, from, to) >= 0;
+    }
+
+    /**
+     * 查找区间内第一个 IPv4 地址的起始位置
+     *
+     * @return 起始位置，没有找到时返回 -1
+     */
+    public static int findIpAddress(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (isDigit(text.charAt(i)) && (i == from || !isAddressChar(text.charAt(i - 1)))
+                    && matchIpAddress(text, i, to) > 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 尝试从指定位置匹配 IPv4 地址
+     *
+     * @return 匹配结束位置（不包含），不匹配时返回 -1
+     */
+    public static int matchIpAddress(CharSequence text, int start, int to) {
+        int i = start;
+        for (int group = 0; group < 4; group++) {
+            int digits = 0;
+            while (i < to && isDigit(text.charAt(i))) {
+                i++;
+                if (++digits > 3) {
+                    return -1;
+                }
+            }
+            if (digits == 0) {
+                return -1;
+            }
+            if (group < 3) {
+                if (i >= to || text.charAt(i) != '.') {
+                    return -1;
+                }
+                i++;
+            }
+        }
+        if (i < to && (isDigit(text.charAt(i)) || (text.charAt(i) == '.' && i + 1 < to && isDigit(text.charAt(i + 1))))) {
+            return -1;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAddressChar(char c) {
+        return isDigit(c) || c == '.' || Character.isLetter(c) || c == '_';
+    }
+}
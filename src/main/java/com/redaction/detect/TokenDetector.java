@@ -0,0 +1,35 @@
+package com.redaction.detect;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 候选词检测器
+ *
+ * {@link DetectionEngine} 对文本做一次扫描，把由字母、数字和 {@code + / _ - . @ ~} 组成的候选词
+ * 依次交给各检测器判断。检测器直接在原文本上按下标检查，不创建子串。
+ *
+ * @version 1.0.0
+ */
+public interface TokenDetector {
+
+    /**
+     * 检查候选词
+     *
+     * @param text     被扫描的文本
+     * @param start    候选词起始位置（包含）
+     * @param end      候选词结束位置（不包含）
+     * @param limit    扫描区间的结束位置，检测器可以向后查看但不能越过该位置
+     * @param consumer 命中时回调
+     * @return 命中时返回继续扫描的位置（不小于 end），未命中时返回 -1
+     */
+    int detect(@NotNull CharSequence text, int start, int end, int limit,
+               @NotNull DetectionEngine.FindingConsumer consumer);
+
+    /**
+     * 检测器及其参数的描述，参数不同的检测器必须返回不同的描述（用于判断扫描缓存是否仍然有效）
+     */
+    @NotNull
+    default String configuration() {
+        return getClass().getName();
+    }
+}
@@ -0,0 +1,202 @@
+package com.redaction.format;
+
+import com.redaction.detect.DetectionEngine;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 归档文件（jar / war / ear / zip / tar / tar.gz）的脱敏
+ *
+ * 不解压到磁盘，逐个条目交给对应的格式处理器，只重写有替换的条目：
+ * - ZIP 类归档按中央目录随机读取，候选条目在线程池中并行分析；未修改的条目连同本地文件头原样复制，
+ *   不解压也不重新压缩，只更新中央目录中的偏移量
+ * - tar 按顺序流式读取，未修改的条目原样复制；tar.gz 的 gzip 是一个整体的压缩流，只能解压后重新压缩，
+ *   条目之间也只能顺序处理
+ *
+ * 只处理能按 UTF-8 解码、解压后不超过 {@link #MAX_ENTRY_SIZE} 的文本条目，嵌套的归档（例如 fat jar 中的依赖）保持不变。
+ * 签名的 jar 重写后签名失效。
+ *
+ * @version 1.0.0
+ */
+public final class ArchiveMasker {
+
+    /**
+     * 单个条目解压后的大小上限，超过时不处理
+     */
+    static final int MAX_ENTRY_SIZE = 16 * 1024 * 1024;
+
+    private final DetectionEngine engine;
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    /**
+     * @param executor    并行分析 ZIP 条目使用的线程池
+     * @param parallelism 线程池的并行度，用于限制在途任务数量
+     */
+    public ArchiveMasker(@NotNull DetectionEngine engine, @NotNull ExecutorService executor, int parallelism) {
+        this.engine = engine;
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * 判断文件是否为支持的归档格式
+     *
+     * @param fileName 小写的文件名
+     */
+    public static boolean isArchive(@NotNull String fileName) {
+        return isZip(fileName) || isTar(fileName);
+    }
+
+    private static boolean isZip(String fileName) {
+        return fileName.endsWith(".jar") || fileName.endsWith(".war") || fileName.endsWith(".ear")
+                || fileName.endsWith(".zip");
+    }
+
+    private static boolean isTar(String fileName) {
+        return fileName.endsWith(".tar") || fileName.endsWith(".tar.gz") || fileName.endsWith(".tgz");
+    }
+
+    /**
+     * 脱敏归档文件，结果写入 target
+     *
+     * @param fileName 小写的文件名，用于判断归档格式
+     * @return 重写的结果；没有任何替换时不产生 target
+     */
+    @NotNull
+    public Result mask(@NotNull Path source, @NotNull Path target, @NotNull String fileName)
+            throws IOException, InterruptedException {
+        Result result = new Result();
+        try {
+            if (isZip(fileName)) {
+                new ZipRewriter(this).rewrite(source, target, result);
+            } else if (isTar(fileName)) {
+                new TarRewriter(this).rewrite(source, target, !fileName.endsWith(".tar"), result);
+            } else {
+                throw new IOException("不支持的归档格式: " + fileName);
+            }
+        } finally {
+            if (result.replacements == 0) {
+                Files.deleteIfExists(target);
+            }
+        }
+        return result;
+    }
+
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
+    int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * 判断条目是否需要分析：由某个格式处理器接受且不是嵌套的归档
+     *
+     * @param entryName 条目在归档中的路径
+     */
+    @Nullable
+    static FormatHandler handlerFor(@NotNull String entryName) {
+        String name = entryName.substring(entryName.lastIndexOf('/') + 1).toLowerCase();
+        if (name.isEmpty() || isArchive(name)) {
+            return null;
+        }
+        return FormatHandlers.find(name);
+    }
+
+    /**
+     * 用格式处理器分析一个条目的内容
+     *
+     * @return 脱敏后的内容，没有替换或不是 UTF-8 文本时返回 null
+     */
+    @Nullable
+    Masked maskEntry(@NotNull String entryName, @NotNull FormatHandler handler, @NotNull byte[] content) {
+        String text;
+        try {
+            text = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(content))
+                    .toString();
+        } catch (CharacterCodingException e) {
+            // 二进制或其他编码的内容，重写会破坏原有字节
+            return null;
+        }
+        String name = entryName.substring(entryName.lastIndexOf('/') + 1).toLowerCase();
+        TextEdits edits = new TextEdits();
+        handler.collectEdits(FormatRequest.headless(text, name, engine), PseudonymSink.wrap(engine, text, edits));
+        if (edits.isEmpty()) {
+            return null;
+        }
+        return new Masked(edits.apply(text).getBytes(StandardCharsets.UTF_8), edits.size());
+    }
+
+    /**
+     * 一个条目脱敏后的内容
+     */
+    static final class Masked {
+        final byte[] content;
+        final int replacements;
+
+        Masked(byte[] content, int replacements) {
+            this.content = content;
+            this.replacements = replacements;
+        }
+    }
+
+    /**
+     * 一个归档文件的处理结果
+     */
+    public static final class Result {
+        int entries;
+        int candidates;
+        int rewrittenEntries;
+        int replacements;
+        boolean signed;
+
+        /**
+         * 归档中的条目总数
+         */
+        public int getEntries() {
+            return entries;
+        }
+
+        /**
+         * 交给格式处理器分析的条目数
+         */
+        public int getCandidates() {
+            return candidates;
+        }
+
+        /**
+         * 有替换、被重写的条目数
+         */
+        public int getRewrittenEntries() {
+            return rewrittenEntries;
+        }
+
+        /**
+         * 替换的总数
+         */
+        public int getReplacements() {
+            return replacements;
+        }
+
+        /**
+         * 归档是否带有 jar 签名（重写后签名失效）
+         */
+        public boolean isSigned() {
+            return signed;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.redaction.format;
+
+import com.redaction.detect.DetectionEngine;
+import com.redaction.detect.LiteralClassifier;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 大文件分块脱敏
+ *
+ * 以固定大小的窗口流式读取文件，每个窗口处理完立即写出，内存占用只与窗口大小有关，与文件大小无关：
+ * - 每个窗口负责 [已写出位置, 窗口末尾 - 重叠区) 内开始的替换，未到文件末尾时尽量在行尾处截断；
+ *   重叠区不小于单处命中的最大长度，跨越截断位置的命中在本窗口内完整可见
+ * - 已写出的最后一段保留为下一个窗口的上下文（逐行处理的格式从完整行的行首开始），上下文内开始的命中已由上一个窗口处理，不再重复
+ * - 逐行处理的格式（{@link FormatHandler#isLineOriented()}）直接在窗口上运行该格式的处理器；
+ *   其他格式无法从文件中间开始解析，只运行候选词检测器，命中的片段替换为默认掩码
+ *
+ * 窗口之间不传递解析状态，INI 的 section、HOCON 的嵌套路径只在同一个窗口内有效。
+ *
+ * @version 1.0.0
+ */
+public final class ChunkedMasker {
+
+    private final DetectionEngine engine;
+    private final FormatHandler lineHandler;
+    private final String fileName;
+    private final int window;
+    private final int overlap;
+
+    /**
+     * @param engine   检测引擎
+     * @param handler  文件的格式处理器，不是逐行处理的格式时只运行候选词检测器
+     * @param fileName 小写的文件名
+     * @param window   每个窗口负责的字符数
+     */
+    public ChunkedMasker(@NotNull DetectionEngine engine, @Nullable FormatHandler handler,
+                         @NotNull String fileName, int window) {
+        this.engine = engine;
+        this.lineHandler = handler != null && handler.isLineOriented() ? handler : null;
+        this.fileName = fileName;
+        this.window = window;
+        this.overlap = DetectionEngine.MAX_MATCH_LENGTH;
+    }
+
+    /**
+     * 从 in 读取全部内容，脱敏后写入 out
+     *
+     * @return 替换的数量
+     */
+    public int mask(@NotNull Reader in, @NotNull Writer out) throws IOException {
+        char[] buffer = new char[window + 2 * overlap];
+        int length = 0;
+        // 缓冲区中已写出的位置，之前的内容只作为上下文
+        int written = 0;
+        boolean eof = false;
+        int replaced = 0;
+
+        while (true) {
+            while (!eof && length < buffer.length) {
+                int read = in.read(buffer, length, buffer.length - length);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    length += read;
+                }
+            }
+            if (written >= length) {
+                return replaced;
+            }
+
+            int limit = eof ? length : lineEnd(buffer, written, length - overlap);
+            List<Edit> edits = new ArrayList<>();
+            collect(CharBuffer.wrap(buffer, 0, length),
+                (start, end, replacement) -> edits.add(new Edit(start, end, replacement)));
+            edits.sort(Comparator.comparingInt(edit -> edit.start));
+
+            // 写出 [written, limit)，应用其中开始的替换；跨越 limit 的替换写到其终点为止
+            int position = written;
+            for (Edit edit : edits) {
+                if (edit.start < position || edit.start >= limit) {
+                    continue;
+                }
+                out.write(buffer, position, edit.start - position);
+                out.write(edit.replacement);
+                position = edit.end;
+                replaced++;
+            }
+            if (position < limit) {
+                out.write(buffer, position, limit - position);
+                position = limit;
+            }
+            if (eof && position >= length) {
+                return replaced;
+            }
+
+            // 保留最多 overlap 个已写出的字符作为下一个窗口的上下文；逐行处理的格式从其中第一个完整行的行首开始，
+            // 避免半行内容被当作键、section 或嵌套对象解析
+            int keep = Math.max(0, position - overlap);
+            if (lineHandler != null && keep > 0 && buffer[keep - 1] != '\n') {
+                keep = nextLineStart(buffer, keep, position);
+            }
+            System.arraycopy(buffer, keep, buffer, 0, length - keep);
+            length -= keep;
+            written = position - keep;
+        }
+    }
+
+    private void collect(CharSequence text, EditSink edits) {
+        EditSink sink = PseudonymSink.wrap(engine, text, edits);
+        if (lineHandler != null) {
+            lineHandler.collectEdits(FormatRequest.headless(text, fileName, engine), sink);
+            return;
+        }
+        engine.scanTokens(text, 0, text.length(), (rule, start, end) -> {
+            if (!DetectionEngine.isMasked(text, start, end)) {
+                sink.replace(start, end, LiteralClassifier.DEFAULT_MASK);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * 在 [from, to) 中查找第一个换行符之后的位置，没有换行符时返回 to
+     */
+    private static int nextLineStart(char[] buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * 在 [from, to) 中查找最后一个换行符之后的位置，没有换行符时返回 to
+     */
+    private static int lineEnd(char[] buffer, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (buffer[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * 窗口中 [start, end) 的一处替换
+     */
+    private static final class Edit {
+        final int start;
+        final int end;
+        final String replacement;
+
+        Edit(int start, int end, String replacement) {
+            this.start = start;
+            this.end = end;
+            this.replacement = replacement;
+        }
+    }
+}
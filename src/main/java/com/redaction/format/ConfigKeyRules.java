@@ -0,0 +1,78 @@
+package com.redaction.format;
+
+import com.redaction.detect.DetectionEngine;
+import com.redaction.detect.SensitiveRules;
+
+/**
+ * 配置键的敏感判断和掩码选择，键值类格式和源码中的占位符默认值共用
+ *
+ * @version 1.0.0
+ */
+final class ConfigKeyRules {
+
+    private ConfigKeyRules() {
+    }
+
+    /**
+     * 检查配置键是否为敏感信息
+     */
+    static boolean isSensitiveConfigKey(String key) {
+        key = key.toLowerCase();
+        
+        // 检查是否包含敏感关键词
+        if (SensitiveRules.isSensitiveFieldName(key)) {
+            return true;
+        }
+
+        // 检查是否匹配敏感模式（组合规则一次扫描）
+        return DetectionEngine.CONFIG.containsAny(key);
+    }
+
+    /**
+     * 根据配置键类型返回掩码后的值
+     */
+    static String getMaskedConfigValue(String key, String value) {
+        key = key.toLowerCase();
+        
+        // URL相关
+        if (key.contains("url") || key.contains("uri") || key.contains("endpoint")) {
+            if (value.toLowerCase().contains("jdbc:")) {
+                return "jdbc:mysql://###MASKED###:3306/###MASKED###";
+            } else if (value.toLowerCase().contains("mongodb://")) {
+                return "mongodb://###MASKED###:27017/###MASKED###";
+            } else if (value.toLowerCase().contains("redis://")) {
+                return "redis://###MASKED###:6379";
+            } else {
+                return "http://###MASKED###";
+            }
+        }
+        
+        // 主机地址相关
+        if (key.contains("host") || key.contains("address") || key.contains("ip")) {
+            return "###.###.###.###";
+        }
+        
+        // 端口相关
+        if (key.contains("port")) {
+            return "###MASKED###";
+        }
+        
+        // 集群相关
+        if (key.contains("cluster") || key.contains("zookeeper") || key.contains("namesrv")) {
+            return "###MASKED_CLUSTER###";
+        }
+        
+        // 密码相关
+        if (key.contains("password") || key.contains("secret") || key.contains("key")) {
+            return "###MASKED###";
+        }
+        
+        // 用户名相关
+        if (key.contains("username") || key.contains("user")) {
+            return "###MASKED###";
+        }
+        
+        // 默认掩码
+        return "###MASKED###";
+    }
+}
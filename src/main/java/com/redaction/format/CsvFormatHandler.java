@@ -0,0 +1,217 @@
+package com.redaction.format;
+
+import com.intellij.openapi.util.io.FileUtilRt;
+import com.redaction.detect.DetectionEngine;
+import com.redaction.detect.SensitiveRules;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV / TSV 数据文件处理器
+ *
+ * 第一行作为表头，列名敏感的列整列脱敏，其他列按值检测；每行是一条记录，
+ * 带引号的字段中可以包含分隔符、换行和 {@code ""} 转义。只替换字段内容，不改动引号和分隔符。
+ *
+ * @version 1.0.0
+ */
+public final class CsvFormatHandler implements RecordFormatHandler {
+
+    @Override
+    public boolean accepts(@NotNull String fileName) {
+        String extension = FileUtilRt.getExtension(fileName);
+        return extension.equals("csv") || extension.equals("tsv");
+    }
+
+    @NotNull
+    @Override
+    public RecordSplitter newSplitter(@NotNull String fileName) {
+        return new Splitter(fileName.endsWith(".tsv") ? '\t' : ',');
+    }
+
+    /**
+     * 按行切分，第一行非空行作为表头
+     */
+    private static final class Splitter implements RecordSplitter {
+        private final char delimiter;
+        private Columns columns;
+        private RecordContext context = RecordContext.NONE;
+
+        Splitter(char delimiter) {
+            this.delimiter = delimiter;
+        }
+
+        @Override
+        public int next(@NotNull CharSequence text, int from, boolean eof) {
+            int end = rowEnd(text, from);
+            if (end < 0) {
+                if (!eof) {
+                    return -1;
+                }
+                end = text.length();
+            }
+            if (columns != null) {
+                context = columns;
+            } else {
+                context = RecordContext.NONE;
+                if (!isBlank(text, from, end)) {
+                    columns = new Columns(delimiter, header(text, from, end, delimiter));
+                }
+            }
+            return end;
+        }
+
+        @NotNull
+        @Override
+        public RecordContext context() {
+            return context;
+        }
+    }
+
+    /**
+     * 表头之后的行：按列名和值脱敏
+     */
+    private static final class Columns implements RecordContext {
+        private final char delimiter;
+        private final String[] names;
+        private final boolean[] sensitive;
+
+        Columns(char delimiter, String[] names) {
+            this.delimiter = delimiter;
+            this.names = names;
+            this.sensitive = new boolean[names.length];
+            for (int i = 0; i < names.length; i++) {
+                sensitive[i] = SensitiveRules.isSensitiveColumnName(names[i]);
+            }
+        }
+
+        @Override
+        public void collectEdits(@NotNull CharSequence record, @NotNull DetectionEngine engine, @NotNull EditSink sink) {
+            int length = lineContentEnd(record);
+            int column = 0;
+            int i = 0;
+            while (i <= length) {
+                String name = column < names.length ? names[column] : null;
+                boolean sensitiveColumn = column < names.length && sensitive[column];
+                int next;
+                if (i < length && record.charAt(i) == '"') {
+                    int close = closingQuote(record, i + 1, length);
+                    RecordValues.maskString(record, i + 1, close, name, sensitiveColumn, engine, sink);
+                    next = indexOf(record, delimiter, close, length);
+                } else {
+                    int end = indexOf(record, delimiter, i, length);
+                    maskField(record, i, end, name, sensitiveColumn, engine, sink);
+                    next = end;
+                }
+                i = next + 1;
+                column++;
+            }
+        }
+
+        private static void maskField(CharSequence record, int start, int end, String name, boolean sensitiveColumn,
+                                      DetectionEngine engine, EditSink sink) {
+            // CSV 没有类型，只有敏感列中的数字按数字替换，其他列的数字（例如手机号）同样按值检测
+            if (sensitiveColumn && RecordValues.isNumber(record, start, end)) {
+                RecordValues.maskNumber(record, start, end, true, sink);
+            } else {
+                RecordValues.maskString(record, start, end, name, sensitiveColumn, engine, sink);
+            }
+        }
+    }
+
+    /**
+     * 查找从 from 开始的一行的结束位置（换行符之后），引号中的换行不结束一行
+     *
+     * @return 行结束位置，没有找到换行符时返回 -1
+     */
+    private static int rowEnd(CharSequence text, int from) {
+        boolean quoted = false;
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == '\n' && !quoted) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 解析表头行的列名，去掉引号、空白和 UTF-8 BOM
+     */
+    private static String[] header(CharSequence text, int from, int to, char delimiter) {
+        CharSequence row = text.subSequence(from, to);
+        int length = lineContentEnd(row);
+        List<String> names = new ArrayList<>();
+        int i = 0;
+        while (i <= length) {
+            int end;
+            String name;
+            if (i < length && row.charAt(i) == '"') {
+                int close = closingQuote(row, i + 1, length);
+                name = row.subSequence(i + 1, close).toString().replace("\"\"", "\"");
+                end = indexOf(row, delimiter, close, length);
+            } else {
+                end = indexOf(row, delimiter, i, length);
+                name = row.subSequence(i, end).toString();
+            }
+            names.add(name.replace("\uFEFF", "").trim());
+            i = end + 1;
+        }
+        return names.toArray(new String[0]);
+    }
+
+    /**
+     * 去掉行尾的 \r\n 或 \n
+     */
+    private static int lineContentEnd(CharSequence record) {
+        int end = record.length();
+        if (end > 0 && record.charAt(end - 1) == '\n') {
+            end--;
+        }
+        if (end > 0 && record.charAt(end - 1) == '\r') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * 从引号之后开始查找结束引号，跳过 "" 转义
+     *
+     * @return 结束引号的位置，没有闭合时返回 to
+     */
+    private static int closingQuote(CharSequence text, int from, int to) {
+        int i = from;
+        while (i < to) {
+            if (text.charAt(i) == '"') {
+                if (i + 1 < to && text.charAt(i + 1) == '"') {
+                    i += 2;
+                    continue;
+                }
+                return i;
+            }
+            i++;
+        }
+        return to;
+    }
+
+    private static int indexOf(CharSequence text, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private static boolean isBlank(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,19 @@
+package com.redaction.format;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 接收格式处理器报告的替换
+ *
+ * @version 1.0.0
+ */
+@FunctionalInterface
+public interface EditSink {
+
+    /**
+     * 把原文中 [start, end) 的内容替换为 replacement
+     *
+     * [start, end) 应当只包含敏感值本身，不包含键名、分隔符和引号，假名按这个范围内的原文计算
+     */
+    void replace(int start, int end, @NotNull String replacement);
+}
@@ -0,0 +1,51 @@
+package com.redaction.format;
+
+import com.intellij.openapi.extensions.ExtensionPointName;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 文件格式处理器扩展点
+ *
+ * 每种文件格式由一个处理器负责：判断是否接受某个文件，并在文档的不可变字符序列上
+ * 找出需要替换的范围，通过 {@link EditSink} 报告替换（偏移量为原文中的位置），由调用方统一写回。
+ * 处理器不应修改文档，也不应持有可变状态，同一实例会被多个文件并发调用。
+ *
+ * 第三方插件在 plugin.xml 中注册：
+ * <pre>
+ * &lt;extensions defaultExtensionNs="com.redaction.sensitive-data-redaction"&gt;
+ *     &lt;formatHandler implementation="com.example.TomlFormatHandler"/&gt;
+ * &lt;/extensions&gt;
+ * </pre>
+ *
+ * @version 1.0.0
+ */
+public interface FormatHandler {
+
+    ExtensionPointName<FormatHandler> EP_NAME =
+            ExtensionPointName.create("com.redaction.sensitive-data-redaction.formatHandler");
+
+    /**
+     * 判断是否处理该文件
+     *
+     * @param fileName 小写的文件名
+     */
+    boolean accepts(@NotNull String fileName);
+
+    /**
+     * 收集文件中需要替换的范围
+     *
+     * @param request 文件内容、检测引擎等处理上下文
+     * @param sink    接收替换的回调
+     */
+    void collectEdits(@NotNull FormatRequest request, @NotNull EditSink sink);
+
+    /**
+     * 每处替换是否只依赖所在的行
+     *
+     * 返回 true 时，超过大小上限的文件按行对齐的窗口分块交给处理器（见 {@link ChunkedMasker}），
+     * 否则大文件只运行候选词检测器
+     */
+    default boolean isLineOriented() {
+        return false;
+    }
+}
@@ -0,0 +1,61 @@
+package com.redaction.format;
+
+import com.intellij.openapi.application.ApplicationManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 按文件名选择格式处理器
+ *
+ * IDE 中使用 {@link FormatHandler#EP_NAME} 注册的处理器（内置处理器同样在 plugin.xml 中注册），
+ * 没有 IDE 的批量处理中使用内置处理器，两条路径支持相同的格式。
+ *
+ * @version 1.0.0
+ */
+public final class FormatHandlers {
+
+    private static final List<FormatHandler> BUILT_IN = Collections.unmodifiableList(Arrays.asList(
+        new SourceFormatHandler(),
+        new KeyValueFormatHandler(),
+        new XmlFormatHandler(),
+        new JsonFormatHandler(),
+        new SqlDumpFormatHandler(),
+        new CsvFormatHandler()
+    ));
+
+    private FormatHandlers() {
+    }
+
+    /**
+     * 查找第一个接受该文件的处理器
+     *
+     * @param fileName 文件名或路径
+     * @return 处理器，不支持的文件类型返回 null
+     */
+    @Nullable
+    public static FormatHandler find(@NotNull String fileName) {
+        String lowerCaseName = fileName.toLowerCase(Locale.ROOT);
+        for (FormatHandler handler : getHandlers()) {
+            if (handler.accepts(lowerCaseName)) {
+                return handler;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取当前可用的全部处理器
+     */
+    @NotNull
+    public static List<FormatHandler> getHandlers() {
+        if (ApplicationManager.getApplication() == null) {
+            return BUILT_IN;
+        }
+        return FormatHandler.EP_NAME.getExtensionList();
+    }
+}
@@ -0,0 +1,79 @@
+package com.redaction.format;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.redaction.detect.DetectionEngine;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * 一次格式处理的上下文
+ *
+ * IDE 中内容为 {@code Document.getImmutableCharSequence()}，不复制文档文本；
+ * 无 IDE 的批量处理中没有项目和虚拟文件，需要 PSI 的处理器应退化为纯文本处理。
+ *
+ * @version 1.0.0
+ */
+public final class FormatRequest {
+    private final CharSequence text;
+    private final String fileName;
+    private final DetectionEngine engine;
+    private final Project project;
+    private final VirtualFile file;
+
+    public FormatRequest(@NotNull CharSequence text, @NotNull String fileName, @NotNull DetectionEngine engine,
+                         @Nullable Project project, @Nullable VirtualFile file) {
+        this.text = text;
+        this.fileName = fileName;
+        this.engine = engine;
+        this.project = project;
+        this.file = file;
+    }
+
+    /**
+     * 创建无 IDE 环境下的处理上下文
+     */
+    @NotNull
+    public static FormatRequest headless(@NotNull CharSequence text, @NotNull String fileName,
+                                         @NotNull DetectionEngine engine) {
+        return new FormatRequest(text, fileName, engine, null, null);
+    }
+
+    @NotNull
+    public CharSequence getText() {
+        return text;
+    }
+
+    /**
+     * 小写的文件名
+     */
+    @NotNull
+    public String getFileName() {
+        return fileName;
+    }
+
+    @NotNull
+    public DetectionEngine getEngine() {
+        return engine;
+    }
+
+    @Nullable
+    public Project getProject() {
+        return project;
+    }
+
+    /**
+     * 获取文件的 PSI，只应在读操作中调用
+     *
+     * @return PSI 文件，无 IDE 环境或文件没有 PSI 时返回 null
+     */
+    @Nullable
+    public PsiFile getPsiFile() {
+        if (project == null || file == null) {
+            return null;
+        }
+        return PsiManager.getInstance(project).findFile(file);
+    }
+}
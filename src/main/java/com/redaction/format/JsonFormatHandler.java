@@ -0,0 +1,165 @@
+package com.redaction.format;
+
+import com.redaction.detect.DetectionEngine;
+import com.redaction.detect.SensitiveRules;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.CharBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.regex.Pattern;
+
+/**
+ * JSON 格式处理器
+ *
+ * 在原文上逐个读取 JSON 词法单元，跟踪对象的嵌套和当前字段名，只替换字符串值引号内的内容，
+ * 不重新序列化，原有的缩进、字段顺序和转义保持不变。格式不完整的文件同样按词法单元处理。
+ * - 字段名敏感，或值完整匹配敏感规则、包含检测器发现的敏感片段时，按字段名选择掩码
+ * - {@code dependencies} 对象中的字符串值（版本号）全部替换
+ * - 数组中的字符串、数字、布尔值和 null 保持不变
+ *
+ * @version 1.0.0
+ */
+public final class JsonFormatHandler implements FormatHandler {
+
+    @Override
+    public boolean accepts(@NotNull String fileName) {
+        return fileName.endsWith(".json");
+    }
+
+    @Override
+    public void collectEdits(@NotNull FormatRequest request, @NotNull EditSink sink) {
+        CharSequence text = request.getText();
+        DetectionEngine engine = request.getEngine();
+        int length = text.length();
+
+        // 每层容器：是否为对象、是否为 dependencies 对象
+        Deque<Frame> frames = new ArrayDeque<>();
+        String key = null;
+        boolean expectingKey = false;
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            Frame frame = frames.peek();
+            if (c == '"') {
+                int end = stringEnd(text, i + 1);
+                if (frame != null && frame.object && expectingKey) {
+                    key = text.subSequence(i + 1, end).toString();
+                } else if (frame != null && frame.object && key != null && end > i + 1) {
+                    CharSequence value = CharBuffer.wrap(text, i + 1, end);
+                    String masked = frame.dependencies ? "###MASKED###" : maskedValue(key, value, engine);
+                    if (masked != null) {
+                        sink.replace(i + 1, end, masked);
+                    }
+                }
+                i = Math.min(end + 1, length);
+                continue;
+            }
+            switch (c) {
+                case '{':
+                    frames.push(new Frame(true, frame != null && frame.object && "dependencies".equals(key)));
+                    expectingKey = true;
+                    key = null;
+                    break;
+                case '[':
+                    frames.push(new Frame(false, false));
+                    break;
+                case '}':
+                case ']':
+                    frames.poll();
+                    expectingKey = false;
+                    key = null;
+                    break;
+                case ':':
+                    expectingKey = false;
+                    break;
+                case ',':
+                    expectingKey = frame != null && frame.object;
+                    break;
+                case '/':
+                    // 允许 JSONC 注释
+                    if (i + 1 < length && text.charAt(i + 1) == '/') {
+                        while (i < length && text.charAt(i) != '\n') {
+                            i++;
+                        }
+                    } else if (i + 1 < length && text.charAt(i + 1) == '*') {
+                        i += 2;
+                        while (i + 1 < length && !(text.charAt(i) == '*' && text.charAt(i + 1) == '/')) {
+                            i++;
+                        }
+                        i++;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * 按字段名和值判断是否需要脱敏
+     *
+     * @return 掩码，不需要脱敏时返回 null
+     */
+    private static String maskedValue(String key, CharSequence value, DetectionEngine engine) {
+        if (DetectionEngine.isMasked(value, 0, value.length())) {
+            return null;
+        }
+
+        // 1. 检查字段名是否为敏感字段
+        boolean isSensitive = SensitiveRules.isSensitiveJsonKey(key);
+
+        // 2. 检查字段值是否匹配敏感模式
+        if (!isSensitive) {
+            for (Pattern pattern : DetectionEngine.SENSITIVE_PATTERNS.values()) {
+                if (pattern.matcher(value).matches()) {
+                    isSensitive = true;
+                    break;
+                }
+            }
+        }
+        if (!isSensitive && !engine.containsTokenFinding(value)) {
+            return null;
+        }
+
+        // 根据字段类型选择不同的掩码
+        String lowerKey = key.toLowerCase();
+        if (lowerKey.contains("password") || lowerKey.contains("secret") ||
+            lowerKey.contains("key") || lowerKey.contains("token")) {
+            return "###MASKED###";
+        } else if (lowerKey.contains("ip") || lowerKey.contains("host")) {
+            return "###.###.###.###";
+        } else if (lowerKey.contains("url") || lowerKey.contains("uri") ||
+                   lowerKey.contains("endpoint")) {
+            return "http://###MASKED###";
+        }
+        return "###MASKED###";
+    }
+
+    /**
+     * 从引号之后开始查找字符串的结束引号
+     *
+     * @return 结束引号的位置，没有闭合时返回文本末尾
+     */
+    private static int stringEnd(CharSequence text, int from) {
+        int i = from;
+        while (i < text.length() && text.charAt(i) != '"') {
+            i += text.charAt(i) == '\\' ? 2 : 1;
+        }
+        return Math.min(i, text.length());
+    }
+
+    /**
+     * 一层 JSON 容器
+     */
+    private static final class Frame {
+        final boolean object;
+        final boolean dependencies;
+
+        Frame(boolean object, boolean dependencies) {
+            this.object = object;
+            this.dependencies = dependencies;
+        }
+    }
+}
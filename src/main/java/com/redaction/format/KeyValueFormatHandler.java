@@ -0,0 +1,376 @@
+package com.redaction.format;
+
+import com.intellij.openapi.util.io.FileUtilRt;
+import com.redaction.detect.DetectionEngine;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.CharBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 行式键值配置格式处理器
+ *
+ * 逐行扫描 .properties、.yml / .yaml、.env、.ini / .cfg 和 HOCON（.conf）文件，直接在原文上定位值的位置，
+ * 不拆分行数组，只替换值本身，不改动键、分隔符、引号、缩进和行尾注释：
+ * - PROPERTIES：{@code key=value} 或 {@code key: value}，# 或 ! 开头为注释
+ * - YAML：{@code key: value}，允许 {@code - } 列表前缀，键只取当前层的名称，# 为注释，块标量和流式集合保持不变
+ * - ENV：{@code KEY=value}，允许 {@code export } 前缀，# 开头为注释
+ * - INI：{@code [section]} 下的 {@code key = value} 或 {@code key: value}，键按 {@code section.key} 判断，; 或 # 开头为注释
+ * - HOCON：{@code key = "value"}、{@code key: value}，{@code a { b = ... }} 嵌套时键按 {@code a.b} 判断，
+ *   # 或 // 开头为注释，{@code ${...}} 替换表达式保持不变
+ *
+ * 键敏感或值中检测到敏感片段时，值按键的类型替换为对应的掩码。
+ *
+ * @version 1.0.0
+ */
+public final class KeyValueFormatHandler implements FormatHandler {
+
+    /**
+     * 行式配置的方言
+     */
+    enum Dialect {
+        PROPERTIES, YAML, ENV, INI, HOCON;
+
+        /**
+         * 按扩展名选择方言
+         *
+         * @return 方言，不是行式键值配置时返回 null
+         */
+        static Dialect forExtension(@NotNull String extension) {
+            switch (extension) {
+                case "properties":
+                    return PROPERTIES;
+                case "yml":
+                case "yaml":
+                    return YAML;
+                case "env":
+                    return ENV;
+                case "ini":
+                case "cfg":
+                    return INI;
+                case "conf":
+                    return HOCON;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    @Override
+    public boolean accepts(@NotNull String fileName) {
+        return Dialect.forExtension(FileUtilRt.getExtension(fileName)) != null;
+    }
+
+    @Override
+    public boolean isLineOriented() {
+        return true;
+    }
+
+    @Override
+    public void collectEdits(@NotNull FormatRequest request, @NotNull EditSink sink) {
+        Dialect dialect = Dialect.forExtension(FileUtilRt.getExtension(request.getFileName()));
+        if (dialect != null) {
+            new Scanner(request.getText(), dialect, request.getEngine(), sink).run();
+        }
+    }
+
+    /**
+     * 单个文件的扫描状态
+     */
+    private static final class Scanner {
+        private final CharSequence text;
+        private final Dialect dialect;
+        private final DetectionEngine engine;
+        private final EditSink sink;
+
+        // INI 的当前 section 或 HOCON 的嵌套路径
+        private final Deque<String> path = new ArrayDeque<>();
+
+        Scanner(CharSequence text, Dialect dialect, DetectionEngine engine, EditSink sink) {
+            this.text = text;
+            this.dialect = dialect;
+            this.engine = engine;
+            this.sink = sink;
+        }
+
+        void run() {
+            int length = text.length();
+            int lineStart = 0;
+            while (lineStart < length) {
+                int lineEnd = lineStart;
+                while (lineEnd < length && text.charAt(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                processLine(lineStart, contentEnd);
+                lineStart = lineEnd + 1;
+            }
+        }
+
+        private void processLine(int start, int end) {
+            int i = skipSpaces(start, end);
+            if (i >= end || isComment(i, end)) {
+                return;
+            }
+
+            char first = text.charAt(i);
+            if (dialect == Dialect.INI && first == '[') {
+                int close = indexOf(']', i + 1, end);
+                path.clear();
+                path.addLast(trimmed(i + 1, close >= 0 ? close : end));
+                return;
+            }
+            if (dialect == Dialect.HOCON) {
+                // 行首的 } 结束上一层对象
+                while (i < end && text.charAt(i) == '}') {
+                    path.pollLast();
+                    i = skipSpaces(i + 1, end);
+                }
+                if (i >= end || isComment(i, end)) {
+                    return;
+                }
+            }
+            if (dialect == Dialect.ENV && startsWith(i, end, "export") && i + 6 < end
+                    && Character.isWhitespace(text.charAt(i + 6))) {
+                i = skipSpaces(i + 6, end);
+            }
+            if (dialect == Dialect.YAML && first == '-' && i + 1 < end && text.charAt(i + 1) == ' ') {
+                i = skipSpaces(i + 1, end);
+            }
+
+            // 键：HOCON 和 YAML 允许带引号的键
+            int keyStart = i;
+            int keyEnd;
+            char keyQuote = text.charAt(i);
+            if ((dialect == Dialect.HOCON || dialect == Dialect.YAML) && (keyQuote == '"' || keyQuote == '\'')) {
+                int close = indexOf(keyQuote, i + 1, end);
+                if (close < 0) {
+                    return;
+                }
+                keyStart = i + 1;
+                keyEnd = close;
+                i = close + 1;
+            } else {
+                while (i < end && !isSeparator(text.charAt(i)) && !Character.isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+                keyEnd = i;
+            }
+            if (keyEnd == keyStart) {
+                return;
+            }
+            i = skipSpaces(i, end);
+            if (i >= end) {
+                return;
+            }
+
+            String key = text.subSequence(keyStart, keyEnd).toString();
+            char separator = text.charAt(i);
+            if (dialect == Dialect.HOCON && separator == '{') {
+                enterObject(key, i, end);
+                return;
+            }
+            if (isSeparator(separator)) {
+                i = skipSpaces(i + 1, end);
+            } else if (dialect != Dialect.HOCON) {
+                return;
+            }
+            if (i >= end) {
+                return;
+            }
+            char c = text.charAt(i);
+            if (dialect == Dialect.HOCON) {
+                if (c == '{') {
+                    enterObject(key, i, end);
+                    return;
+                }
+                if (c == '[' || startsWith(i, end, "${") || startsWith(i, end, "\"\"\"")) {
+                    return;
+                }
+            } else if (dialect == Dialect.YAML && "|>{[&*!#".indexOf(c) >= 0) {
+                return;
+            }
+            processValue(key, i, end);
+        }
+
+        /**
+         * 处理从 from 开始的值，带引号时只替换引号内的内容
+         */
+        private void processValue(String key, int from, int end) {
+            int valueStart = from;
+            int valueEnd;
+            char quote = text.charAt(from);
+            if (quote == '"' || quote == '\'') {
+                valueStart = from + 1;
+                valueEnd = valueStart;
+                while (valueEnd < end && text.charAt(valueEnd) != quote) {
+                    valueEnd += text.charAt(valueEnd) == '\\' ? 2 : 1;
+                }
+                valueEnd = Math.min(valueEnd, end);
+            } else {
+                valueEnd = unquotedValueEnd(from, end);
+            }
+            if (valueEnd > valueStart) {
+                maskIfSensitive(key, valueStart, valueEnd);
+            }
+
+            // HOCON 允许同一行用逗号分隔多个键值
+            if (dialect == Dialect.HOCON) {
+                int next = skipSpaces(valueStart > from ? Math.min(valueEnd + 1, end) : valueEnd, end);
+                if (next < end && text.charAt(next) == ',') {
+                    processLine(next + 1, end);
+                }
+            }
+        }
+
+        private void maskIfSensitive(String key, int valueStart, int valueEnd) {
+            CharSequence value = CharBuffer.wrap(text, valueStart, valueEnd);
+            if (DetectionEngine.isMasked(value, 0, value.length())) {
+                return;
+            }
+            String fullKey = qualifiedKey(key);
+            if (!ConfigKeyRules.isSensitiveConfigKey(fullKey) && !engine.containsTokenFinding(value)) {
+                return;
+            }
+            sink.replace(valueStart, valueEnd, ConfigKeyRules.getMaskedConfigValue(key, value.toString()));
+        }
+
+        /**
+         * 未加引号的值在行尾注释、HOCON 的逗号或 } 之前结束，并去掉末尾空白；properties 没有行尾注释
+         */
+        private int unquotedValueEnd(int from, int end) {
+            int i = from;
+            while (i < end && dialect != Dialect.PROPERTIES) {
+                char c = text.charAt(i);
+                boolean afterSpace = Character.isWhitespace(text.charAt(i - 1));
+                if (dialect == Dialect.HOCON) {
+                    if (c == '#' || c == ',' || c == '}' || (c == '/' && i + 1 < end && text.charAt(i + 1) == '/')) {
+                        break;
+                    }
+                } else if (afterSpace && (c == '#' || (dialect == Dialect.INI && c == ';'))) {
+                    break;
+                }
+                i++;
+            }
+            if (dialect == Dialect.PROPERTIES) {
+                i = end;
+            }
+            while (i > from && Character.isWhitespace(text.charAt(i - 1))) {
+                i--;
+            }
+            return i;
+        }
+
+        /**
+         * 进入 HOCON 对象；同一行内闭合的对象（{@code a { b = 1 }}）按值处理
+         */
+        private void enterObject(String key, int brace, int end) {
+            int depth = path.size();
+            path.addLast(key);
+            int i = skipSpaces(brace + 1, end);
+            if (i < end && !isComment(i, end)) {
+                processLine(i, end);
+            }
+            // 按本行未闭合的 { 数量恢复嵌套路径
+            int open = depth + braceBalance(brace, end);
+            while (path.size() > Math.max(open, 0)) {
+                path.pollLast();
+            }
+        }
+
+        private int braceBalance(int from, int end) {
+            int balance = 0;
+            char quote = 0;
+            for (int i = from; i < end; i++) {
+                char c = text.charAt(i);
+                if (quote != 0) {
+                    if (c == '\\') {
+                        i++;
+                    } else if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '"') {
+                    quote = c;
+                } else if (c == '#' || (c == '/' && i + 1 < end && text.charAt(i + 1) == '/')) {
+                    break;
+                } else if (c == '{') {
+                    balance++;
+                } else if (c == '}') {
+                    balance--;
+                }
+            }
+            return balance;
+        }
+
+        private String qualifiedKey(String key) {
+            if (path.isEmpty()) {
+                return key;
+            }
+            return String.join(".", path) + "." + key;
+        }
+
+        private boolean isComment(int i, int end) {
+            char c = text.charAt(i);
+            if (c == '#') {
+                return true;
+            }
+            switch (dialect) {
+                case PROPERTIES:
+                    return c == '!';
+                case INI:
+                    return c == ';';
+                case HOCON:
+                    return startsWith(i, end, "//");
+                default:
+                    return false;
+            }
+        }
+
+        private boolean isSeparator(char c) {
+            switch (dialect) {
+                case YAML:
+                    return c == ':';
+                case ENV:
+                    return c == '=';
+                case HOCON:
+                    return c == '=' || c == ':' || c == '{';
+                default:
+                    return c == '=' || c == ':';
+            }
+        }
+
+        private int skipSpaces(int from, int end) {
+            int i = from;
+            while (i < end && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            return i;
+        }
+
+        private int indexOf(char c, int from, int end) {
+            for (int i = from; i < end; i++) {
+                if (text.charAt(i) == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean startsWith(int from, int end, String prefix) {
+            if (end - from < prefix.length()) {
+                return false;
+            }
+            for (int j = 0; j < prefix.length(); j++) {
+                if (text.charAt(from + j) != prefix.charAt(j)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String trimmed(int from, int to) {
+            return text.subSequence(from, to).toString().trim();
+        }
+    }
+}
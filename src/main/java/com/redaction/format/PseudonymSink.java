@@ -0,0 +1,48 @@
+package com.redaction.format;
+
+import com.redaction.detect.DetectionEngine;
+import com.redaction.detect.Pseudonymizer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 把格式处理器给出的掩码换成一致化假名
+ *
+ * 只处理带 ### 标记的掩码，保持类型的替换（例如敏感列中逐位置零的数字）原样传递。
+ * 格式处理器报告的范围只包含敏感值本身（不含键名、分隔符、引号和占位符的其余部分），
+ * 整个范围换成令牌，摘要也只覆盖值，同一个密码出现在不同的键下得到同一个令牌。
+ *
+ * @version 1.0.0
+ */
+public final class PseudonymSink implements EditSink {
+
+    private final CharSequence text;
+    private final EditSink delegate;
+    private final Pseudonymizer pseudonymizer;
+
+    private PseudonymSink(CharSequence text, EditSink delegate, Pseudonymizer pseudonymizer) {
+        this.text = text;
+        this.delegate = delegate;
+        this.pseudonymizer = pseudonymizer;
+    }
+
+    /**
+     * 引擎启用了假名时包装 sink，否则直接返回 sink
+     *
+     * @param text 替换位置所在的原文
+     */
+    @NotNull
+    public static EditSink wrap(@NotNull DetectionEngine engine, @NotNull CharSequence text, @NotNull EditSink sink) {
+        Pseudonymizer pseudonymizer = engine.getPseudonymizer();
+        return pseudonymizer == null ? sink : new PseudonymSink(text, sink, pseudonymizer);
+    }
+
+    @Override
+    public void replace(int start, int end, @NotNull String replacement) {
+        if (!replacement.contains("###") || end > text.length()) {
+            delegate.replace(start, end, replacement);
+            return;
+        }
+        CharSequence value = text.subSequence(start, end);
+        delegate.replace(start, end, pseudonymizer.tokenFor(Pseudonymizer.categoryOf(value, replacement), value));
+    }
+}
@@ -0,0 +1,31 @@
+package com.redaction.format;
+
+import com.redaction.detect.DetectionEngine;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 一条记录的处理方式
+ *
+ * 由 {@link RecordSplitter} 在读取记录时给出，携带处理记录所需的全部状态（例如 CSV 的表头、INSERT 的列名），
+ * 记录之间互不依赖，可以在多个线程上并发处理。实现必须是不可变的。
+ *
+ * @version 1.0.0
+ */
+@FunctionalInterface
+public interface RecordContext {
+
+    /**
+     * 不需要处理的结构性内容（表头、建表语句、注释）
+     */
+    RecordContext NONE = (record, engine, sink) -> {
+    };
+
+    /**
+     * 收集一条记录中需要替换的范围
+     *
+     * @param record 记录的内容，偏移量相对于记录起点
+     * @param engine 检测引擎
+     * @param sink   接收替换的回调
+     */
+    void collectEdits(@NotNull CharSequence record, @NotNull DetectionEngine engine, @NotNull EditSink sink);
+}
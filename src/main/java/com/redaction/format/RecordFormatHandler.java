@@ -0,0 +1,39 @@
+package com.redaction.format;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.CharBuffer;
+
+/**
+ * 由独立记录组成的数据格式（SQL 导出的 INSERT 元组、CSV 的行）
+ *
+ * 处理器只提供切分器，文件内容按记录交给切分器给出的 {@link RecordContext}：
+ * 文档中的文件按顺序逐条处理，超过大小上限的文件由 {@link RecordStreamMasker} 流式读取，
+ * 在记录边界分批后并行处理。
+ *
+ * @version 1.0.0
+ */
+public interface RecordFormatHandler extends FormatHandler {
+
+    /**
+     * 为一个文件新建切分器
+     *
+     * @param fileName 小写的文件名
+     */
+    @NotNull
+    RecordSplitter newSplitter(@NotNull String fileName);
+
+    @Override
+    default void collectEdits(@NotNull FormatRequest request, @NotNull EditSink sink) {
+        CharSequence text = request.getText();
+        RecordSplitter splitter = newSplitter(request.getFileName());
+        int position = 0;
+        while (position < text.length()) {
+            int end = splitter.next(text, position, true);
+            int offset = position;
+            splitter.context().collectEdits(CharBuffer.wrap(text, position, end), request.getEngine(),
+                (start, stop, replacement) -> sink.replace(offset + start, offset + stop, replacement));
+            position = end;
+        }
+    }
+}
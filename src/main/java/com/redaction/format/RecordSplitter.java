@@ -0,0 +1,33 @@
+package com.redaction.format;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 按顺序读取记录的切分器
+ *
+ * 由 {@link RecordFormatHandler#newSplitter(String)} 为每个文件新建，只在读取文件的线程中调用。
+ * 切分器只识别记录边界（需要跟踪引号等状态），检测和替换交给记录的 {@link RecordContext}，
+ * 因此切分本身足够快，耗时的检测可以按记录分批并行。
+ *
+ * @version 1.0.0
+ */
+public interface RecordSplitter {
+
+    /**
+     * 读取从 from 开始的一条记录
+     *
+     * 记录不完整时返回 -1 且不改变切分器的状态，调用方读入更多内容后从同一位置重新调用。
+     *
+     * @param text 已读入的内容
+     * @param from 记录起点
+     * @param eof  text 的末尾是否为文件末尾，为 true 时剩余内容总是作为一条记录返回
+     * @return 记录结束的位置（不包含），记录不完整时返回 -1
+     */
+    int next(@NotNull CharSequence text, int from, boolean eof);
+
+    /**
+     * 最近一次读取的记录的处理方式
+     */
+    @NotNull
+    RecordContext context();
+}
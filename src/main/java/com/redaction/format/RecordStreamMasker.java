@@ -0,0 +1,203 @@
+package com.redaction.format;
+
+import com.redaction.detect.DetectionEngine;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 数据文件的流式并行脱敏
+ *
+ * 读取线程只运行切分器识别记录边界，按记录把内容分成固定大小的批次提交到线程池，
+ * 每个批次中的记录按各自的 {@link RecordContext} 检测和替换；结果按提交顺序写出。
+ * 在途批次数量受并行度限制，内存占用只与批次大小和并行度有关，与文件大小无关
+ * （单条记录超过批次大小时缓冲区随之扩大）。
+ *
+ * @version 1.0.0
+ */
+public final class RecordStreamMasker {
+
+    /**
+     * 每个批次的字符数
+     */
+    static final int BATCH_SIZE = 256 * 1024;
+
+    private final DetectionEngine engine;
+    private final RecordFormatHandler handler;
+    private final String fileName;
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    /**
+     * @param fileName    小写的文件名
+     * @param executor    处理批次的线程池
+     * @param parallelism 线程池的并行度，用于限制在途批次数量
+     */
+    public RecordStreamMasker(@NotNull DetectionEngine engine, @NotNull RecordFormatHandler handler,
+                              @NotNull String fileName, @NotNull ExecutorService executor, int parallelism) {
+        this.engine = engine;
+        this.handler = handler;
+        this.fileName = fileName;
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * 从 in 读取全部内容，脱敏后按原顺序写入 out
+     *
+     * @return 替换的数量
+     */
+    public int mask(@NotNull Reader in, @NotNull Writer out) throws IOException, InterruptedException {
+        RecordSplitter splitter = handler.newSplitter(fileName);
+        Deque<Future<Batch>> pending = new ArrayDeque<>();
+        char[] buffer = new char[BATCH_SIZE * 2];
+        int length = 0;
+        // 当前批次在缓冲区中的起点，以及已切分出的最后一条记录的终点
+        int batchStart = 0;
+        int position = 0;
+        List<Record> records = new ArrayList<>();
+        boolean eof = false;
+        int replaced = 0;
+
+        try {
+            while (true) {
+                if (!eof) {
+                    int read = in.read(buffer, length, buffer.length - length);
+                    if (read < 0) {
+                        eof = true;
+                    } else {
+                        length += read;
+                    }
+                }
+
+                CharSequence text = CharBuffer.wrap(buffer, 0, length);
+                while (position < length) {
+                    int end = splitter.next(text, position, eof);
+                    if (end < 0) {
+                        break;
+                    }
+                    records.add(new Record(end - batchStart, splitter.context()));
+                    position = end;
+                    if (position - batchStart >= BATCH_SIZE) {
+                        replaced += submit(new String(buffer, batchStart, position - batchStart), records, pending, out);
+                        records = new ArrayList<>();
+                        batchStart = position;
+                    }
+                }
+                if (eof && position >= length) {
+                    break;
+                }
+
+                // 丢弃已提交的内容；缓冲区被一条未完成的记录占满时扩大
+                if (batchStart > 0) {
+                    System.arraycopy(buffer, batchStart, buffer, 0, length - batchStart);
+                    length -= batchStart;
+                    position -= batchStart;
+                    batchStart = 0;
+                } else if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+            if (position > batchStart) {
+                replaced += submit(new String(buffer, batchStart, position - batchStart), records, pending, out);
+            }
+            while (!pending.isEmpty()) {
+                replaced += writeNext(pending, out);
+            }
+            return replaced;
+        } finally {
+            for (Future<Batch> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * 提交一个批次，在途批次过多时先写出最早的批次
+     *
+     * @return 写出的批次中的替换数量
+     */
+    private int submit(String text, List<Record> records, Deque<Future<Batch>> pending, Writer out)
+            throws IOException, InterruptedException {
+        pending.addLast(executor.submit(() -> maskBatch(text, records)));
+        int replaced = 0;
+        while (pending.size() > parallelism * 2) {
+            replaced += writeNext(pending, out);
+        }
+        return replaced;
+    }
+
+    private int writeNext(Deque<Future<Batch>> pending, Writer out) throws IOException, InterruptedException {
+        Batch batch;
+        try {
+            batch = pending.removeFirst().get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+        out.write(batch.text);
+        return batch.replaced;
+    }
+
+    private Batch maskBatch(String text, List<Record> records) {
+        StringBuilder result = new StringBuilder(text.length());
+        int replaced = 0;
+        int start = 0;
+        for (Record record : records) {
+            CharSequence content = CharBuffer.wrap(text, start, record.end);
+            if (record.context == RecordContext.NONE) {
+                result.append(content);
+            } else {
+                TextEdits edits = new TextEdits();
+                record.context.collectEdits(content, engine, PseudonymSink.wrap(engine, content, edits));
+                result.append(edits.apply(content));
+                replaced += edits.size();
+            }
+            start = record.end;
+        }
+        return new Batch(result.toString(), replaced);
+    }
+
+    /**
+     * 批次中的一条记录，end 为相对于批次起点的终点
+     */
+    private static final class Record {
+        final int end;
+        final RecordContext context;
+
+        Record(int end, RecordContext context) {
+            this.end = end;
+            this.context = context;
+        }
+    }
+
+    /**
+     * 一个批次的处理结果
+     */
+    private static final class Batch {
+        final String text;
+        final int replaced;
+
+        Batch(String text, int replaced) {
+            this.text = text;
+            this.replaced = replaced;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.redaction.format;
+
+import com.redaction.detect.DetectionEngine;
+import com.redaction.detect.LiteralClassifier;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.CharBuffer;
+import java.util.regex.Pattern;
+
+/**
+ * 数据记录中单个值的脱敏，CSV 和 SQL 导出共用
+ *
+ * - 敏感列中的字符串整体替换为按列名选择的掩码，数字逐位替换为 0（保持长度和类型，导入时不会报错）
+ * - 其他列中的字符串完整匹配敏感规则时整体替换，否则只替换候选词检测器发现的片段
+ *
+ * @version 1.0.0
+ */
+final class RecordValues {
+
+    private RecordValues() {
+    }
+
+    /**
+     * 处理字符串值，[start, end) 为引号内的内容
+     */
+    static void maskString(@NotNull CharSequence record, int start, int end, @Nullable String column,
+                           boolean sensitiveColumn, @NotNull DetectionEngine engine, @NotNull EditSink sink) {
+        if (start >= end || DetectionEngine.isMasked(record, start, end)) {
+            return;
+        }
+        CharSequence value = CharBuffer.wrap(record, start, end);
+        if (sensitiveColumn || matchesSensitivePattern(value)) {
+            sink.replace(start, end, ConfigKeyRules.getMaskedConfigValue(column != null ? column : "", value.toString()));
+            return;
+        }
+        maskTokens(record, start, end, engine, sink);
+    }
+
+    /**
+     * 处理数字值，只有敏感列中的数字需要替换
+     */
+    static void maskNumber(@NotNull CharSequence record, int start, int end, boolean sensitiveColumn,
+                           @NotNull EditSink sink) {
+        if (!sensitiveColumn) {
+            return;
+        }
+        char[] zeros = new char[end - start];
+        for (int i = start; i < end; i++) {
+            char c = record.charAt(i);
+            zeros[i - start] = c >= '0' && c <= '9' ? '0' : c;
+        }
+        sink.replace(start, end, new String(zeros));
+    }
+
+    /**
+     * 只替换候选词检测器发现的片段
+     */
+    static void maskTokens(@NotNull CharSequence record, int start, int end, @NotNull DetectionEngine engine,
+                           @NotNull EditSink sink) {
+        engine.scanTokens(record, start, end, (rule, findingStart, findingEnd) -> {
+            if (!DetectionEngine.isMasked(record, findingStart, findingEnd)) {
+                sink.replace(findingStart, findingEnd, LiteralClassifier.DEFAULT_MASK);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * 判断 [start, end) 是否为数字（可带符号、小数部分和指数）
+     */
+    static boolean isNumber(@NotNull CharSequence record, int start, int end) {
+        int i = start;
+        if (i < end && (record.charAt(i) == '-' || record.charAt(i) == '+')) {
+            i++;
+        }
+        int digits = i;
+        i = skipDigits(record, i, end);
+        if (i < end && record.charAt(i) == '.') {
+            i = skipDigits(record, i + 1, end);
+        }
+        if (i - digits == 0 || (i - digits == 1 && record.charAt(digits) == '.')) {
+            return false;
+        }
+        if (i < end && (record.charAt(i) == 'e' || record.charAt(i) == 'E')) {
+            i++;
+            if (i < end && (record.charAt(i) == '-' || record.charAt(i) == '+')) {
+                i++;
+            }
+            int exponent = i;
+            i = skipDigits(record, i, end);
+            if (i == exponent) {
+                return false;
+            }
+        }
+        return i == end;
+    }
+
+    private static int skipDigits(CharSequence record, int from, int end) {
+        int i = from;
+        while (i < end && record.charAt(i) >= '0' && record.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean matchesSensitivePattern(CharSequence value) {
+        for (Pattern pattern : DetectionEngine.SENSITIVE_PATTERNS.values()) {
+            if (pattern.matcher(value).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,56 @@
+package com.redaction.format;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.psi.PsiFile;
+import com.redaction.detect.DetectionEngine;
+import com.redaction.detect.JavaSourceScanner;
+import com.redaction.detect.SensitiveRules;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.uast.UFile;
+import org.jetbrains.uast.UastContextKt;
+
+/**
+ * JVM 源文件（Java、Kotlin、Groovy、Scala）格式处理器
+ *
+ * IDE 中先做词法预检，有候选字面量时通过 UAST 一次遍历收集替换；
+ * 无 IDE 的批量处理（快照导出、归档、命令行）中没有 PSI，直接在词法单元流上替换字面量：
+ * 对敏感名称赋值的字面量，以及按字面量分类和候选词检测器判断为敏感的任意字符串字面量。
+ *
+ * @version 1.0.0
+ */
+public final class SourceFormatHandler implements FormatHandler {
+    private static final Logger LOG = Logger.getInstance(SourceFormatHandler.class);
+
+    @Override
+    public boolean accepts(@NotNull String fileName) {
+        return SensitiveRules.isSourceFileName(fileName);
+    }
+
+    @Override
+    public void collectEdits(@NotNull FormatRequest request, @NotNull EditSink sink) {
+        CharSequence text = request.getText();
+        DetectionEngine engine = request.getEngine();
+        if (request.getProject() == null) {
+            JavaSourceScanner.findSensitiveLiterals(text, engine, sink::replace);
+            return;
+        }
+
+        // 词法预检：没有任何候选字面量的文件不构建 PSI
+        if (!JavaSourceScanner.hasCandidate(text, engine)) {
+            LOG.debug("词法预检未发现候选，跳过UAST分析: " + request.getFileName());
+            return;
+        }
+
+        PsiFile psiFile = request.getPsiFile();
+        UFile uFile = psiFile != null ? UastContextKt.toUElement(psiFile, UFile.class) : null;
+        if (uFile == null) {
+            LOG.info("没有可用的UAST支持（未安装对应语言插件）: " + request.getFileName());
+            return;
+        }
+
+        LOG.info("开始处理源文件: " + psiFile.getName() + ", 包含类数量: " + uFile.getClasses().size());
+
+        // 一次遍历处理字段初始值、常量、注解属性、赋值和连接工厂方法的参数
+        uFile.accept(new UastLiteralCollector(engine, sink));
+    }
+}
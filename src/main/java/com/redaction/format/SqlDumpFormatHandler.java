@@ -0,0 +1,547 @@
+package com.redaction.format;
+
+import com.redaction.detect.DetectionEngine;
+import com.redaction.detect.SensitiveRules;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SQL 导出文件处理器
+ *
+ * 把 {@code INSERT INTO 表 [(列, ...)] VALUES (...), (...);} 中的每个值元组作为一条记录，
+ * 列名来自 INSERT 的列清单，没有列清单时（mysqldump 的默认格式）来自前面的 {@code CREATE TABLE}。
+ * 列名敏感的值整体脱敏，其他值按值检测；建表语句、注释和其他语句保持不变。
+ * 字符串支持 {@code ''} 和反斜杠转义，只替换引号内的内容。
+ *
+ * @version 1.0.0
+ */
+public final class SqlDumpFormatHandler implements RecordFormatHandler {
+
+    /**
+     * 建表语句中不是列定义的子句
+     */
+    private static final Set<String> TABLE_CONSTRAINT_KEYWORDS = new HashSet<>(Arrays.asList(
+        "primary", "key", "unique", "index", "constraint", "foreign", "fulltext", "spatial", "check", "like", "period"
+    ));
+
+    /**
+     * 建表语句的开头，之后是表名
+     */
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+        "create\\s+(?:(?:global\\s+|local\\s+)?temp(?:orary)?\\s+|unlogged\\s+)?table\\s+(?:if\\s+not\\s+exists\\s+)?",
+        Pattern.CASE_INSENSITIVE);
+
+    @Override
+    public boolean accepts(@NotNull String fileName) {
+        return fileName.endsWith(".sql");
+    }
+
+    @NotNull
+    @Override
+    public RecordSplitter newSplitter(@NotNull String fileName) {
+        return new Splitter();
+    }
+
+    /**
+     * 按语句切分，INSERT 语句再按值元组切分
+     */
+    private static final class Splitter implements RecordSplitter {
+        // 表名到列名的映射，来自已读取的建表语句
+        private final Map<String, List<String>> tableColumns = new HashMap<>();
+        // 当前 INSERT 语句的值元组的处理方式，不在 VALUES 中时为 null
+        private Tuples tuples;
+        private RecordContext context = RecordContext.NONE;
+
+        @Override
+        public int next(@NotNull CharSequence text, int from, boolean eof) {
+            int end = tuples != null ? nextTuple(text, from, eof) : nextStatement(text, from);
+            if (end < 0 && eof) {
+                context = RecordContext.NONE;
+                tuples = null;
+                return text.length();
+            }
+            return end;
+        }
+
+        @NotNull
+        @Override
+        public RecordContext context() {
+            return context;
+        }
+
+        /**
+         * 读取一个值元组和其后的 {@code ,} 或 {@code ;}
+         */
+        private int nextTuple(CharSequence text, int from, boolean eof) {
+            int i = skipSpaces(text, from);
+            if (i >= text.length()) {
+                return -1;
+            }
+            if (text.charAt(i) != '(') {
+                // ON DUPLICATE KEY UPDATE 等 VALUES 之后的子句按普通语句读取到分号
+                int end = statementEnd(text, i);
+                if (end < 0) {
+                    return -1;
+                }
+                context = RecordContext.NONE;
+                tuples = null;
+                return end;
+            }
+            int close = closingParen(text, i);
+            if (close < 0) {
+                return -1;
+            }
+            int j = skipSpaces(text, close + 1);
+            if (j >= text.length() && !eof) {
+                return -1;
+            }
+            context = tuples;
+            char c = j < text.length() ? text.charAt(j) : ';';
+            if (c == ',') {
+                return j + 1;
+            }
+            tuples = null;
+            // 元组之后不是分隔符时，剩余部分交给下一条记录按普通语句读取
+            return c == ';' ? Math.min(j + 1, text.length()) : close + 1;
+        }
+
+        /**
+         * 读取一条注释、一条完整语句，或 INSERT 语句中 VALUES 之前的部分
+         */
+        private int nextStatement(CharSequence text, int from) {
+            int i = skipSpaces(text, from);
+            if (i >= text.length()) {
+                return -1;
+            }
+            context = RecordContext.NONE;
+            int comment = commentEnd(text, i);
+            if (comment != 0) {
+                return comment;
+            }
+            if (startsWithWord(text, i, "insert") || startsWithWord(text, i, "replace")) {
+                int values = valuesKeywordEnd(text, i);
+                if (values == -1) {
+                    return -1;
+                }
+                if (values >= 0) {
+                    tuples = insertTuples(text, i, values);
+                    return values;
+                }
+                // INSERT ... SELECT 等没有 VALUES 的语句按普通语句处理
+            }
+            int end = statementEnd(text, i);
+            if (end < 0) {
+                return -1;
+            }
+            if (startsWithWord(text, i, "create")) {
+                readCreateTable(text.subSequence(i, end).toString());
+            }
+            return end;
+        }
+
+        /**
+         * 解析 INSERT 语句头部的表名和列清单
+         */
+        private Tuples insertTuples(CharSequence text, int start, int valuesEnd) {
+            String header = text.subSequence(start, valuesEnd).toString();
+            String lower = header.toLowerCase(Locale.ROOT);
+            int into = indexOfWord(lower, "into", 0);
+            int tableStart = into >= 0 ? skipSpaces(header, into + 4) : skipSpaces(header, lower.indexOf(' '));
+            int tableEnd = identifierEnd(header, tableStart);
+            String table = tableName(header.substring(tableStart, tableEnd));
+            int paren = skipSpaces(header, tableEnd);
+            List<String> columns;
+            if (paren < header.length() && header.charAt(paren) == '(') {
+                columns = splitTopLevel(header, paren + 1, closingParen(header, paren));
+                columns.replaceAll(SqlDumpFormatHandler::unquote);
+            } else {
+                columns = tableColumns.getOrDefault(table, new ArrayList<>());
+            }
+            return new Tuples(columns);
+        }
+
+        /**
+         * 记录 CREATE TABLE 语句中的列名
+         */
+        private void readCreateTable(String statement) {
+            Matcher matcher = CREATE_TABLE.matcher(statement);
+            int open = statement.indexOf('(');
+            if (!matcher.lookingAt() || open < matcher.end()) {
+                return;
+            }
+            String name = statement.substring(matcher.end(), open).trim();
+            List<String> columns = new ArrayList<>();
+            for (String definition : splitTopLevel(statement, open + 1, closingParen(statement, open))) {
+                int nameEnd = identifierEnd(definition, 0);
+                String column = definition.substring(0, nameEnd);
+                if (!column.isEmpty() && !TABLE_CONSTRAINT_KEYWORDS.contains(column.toLowerCase(Locale.ROOT))) {
+                    columns.add(unquote(column));
+                }
+            }
+            tableColumns.put(tableName(name), columns);
+        }
+    }
+
+    /**
+     * 一条 INSERT 语句的值元组：按列位置脱敏
+     */
+    private static final class Tuples implements RecordContext {
+        private final String[] names;
+        private final boolean[] sensitive;
+
+        Tuples(List<String> columns) {
+            this.names = columns.toArray(new String[0]);
+            this.sensitive = new boolean[names.length];
+            for (int i = 0; i < names.length; i++) {
+                sensitive[i] = SensitiveRules.isSensitiveColumnName(names[i]);
+            }
+        }
+
+        @Override
+        public void collectEdits(@NotNull CharSequence record, @NotNull DetectionEngine engine, @NotNull EditSink sink) {
+            int open = indexOf(record, '(', 0);
+            if (open < 0) {
+                return;
+            }
+            int close = closingParen(record, open);
+            int end = close >= 0 ? close : record.length();
+            int column = 0;
+            int i = open + 1;
+            while (i < end) {
+                int start = skipSpaces(record, i);
+                int valueEnd = valueEnd(record, start, end);
+                maskValue(record, start, trimEnd(record, start, valueEnd), column, engine, sink);
+                i = valueEnd + 1;
+                column++;
+            }
+        }
+
+        private void maskValue(CharSequence record, int start, int end, int column, DetectionEngine engine,
+                               EditSink sink) {
+            if (start >= end) {
+                return;
+            }
+            String name = column < names.length ? names[column] : null;
+            boolean sensitiveColumn = column < names.length && sensitive[column];
+            char quote = record.charAt(start);
+            if ((quote == '\'' || quote == '"') && end - start >= 2 && record.charAt(end - 1) == quote) {
+                RecordValues.maskString(record, start + 1, end - 1, name, sensitiveColumn, engine, sink);
+            } else if (RecordValues.isNumber(record, start, end)) {
+                RecordValues.maskNumber(record, start, end, sensitiveColumn, sink);
+            } else {
+                // 函数调用、带前缀的字符串（_binary'...'、N'...'）等表达式只处理其中的字符串，不破坏语法
+                int i = start;
+                while (i < end) {
+                    char c = record.charAt(i);
+                    if (c != '\'' && c != '"') {
+                        i++;
+                        continue;
+                    }
+                    int close = quoteEnd(record, i);
+                    int contentEnd = close < 0 ? end : close - 1;
+                    RecordValues.maskString(record, i + 1, contentEnd, name, sensitiveColumn, engine, sink);
+                    i = close < 0 ? end : close;
+                }
+            }
+        }
+    }
+
+    /**
+     * 查找值的结束位置（顶层的逗号或 end）
+     */
+    private static int valueEnd(CharSequence text, int from, int end) {
+        int depth = 0;
+        int i = from;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                int close = quoteEnd(text, i);
+                i = close < 0 ? end : close;
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                return i;
+            }
+            i++;
+        }
+        return end;
+    }
+
+    /**
+     * 查找与 open 处的左括号匹配的右括号，跳过引号中的内容
+     *
+     * @return 右括号的位置，内容不完整时返回 -1
+     */
+    private static int closingParen(CharSequence text, int open) {
+        int depth = 0;
+        int i = open;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                i = quoteEnd(text, i);
+                if (i < 0) {
+                    return -1;
+                }
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * 查找语句结束的分号之后的位置，跳过引号和注释中的分号
+     *
+     * @return 分号之后的位置，语句不完整时返回 -1
+     */
+    private static int statementEnd(CharSequence text, int from) {
+        int i = from;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                i = quoteEnd(text, i);
+                if (i < 0) {
+                    return -1;
+                }
+                continue;
+            }
+            int comment = commentEnd(text, i);
+            if (comment < 0) {
+                return -1;
+            }
+            if (comment > 0) {
+                i = comment;
+                continue;
+            }
+            if (c == ';') {
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * 查找 VALUES 关键字之后的位置
+     *
+     * @return VALUES 之后的位置；语句在 VALUES 之前结束时返回 -2；内容不完整时返回 -1
+     */
+    private static int valuesKeywordEnd(CharSequence text, int from) {
+        int i = from;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                i = quoteEnd(text, i);
+                if (i < 0) {
+                    return -1;
+                }
+                continue;
+            }
+            if (c == '(') {
+                // 列清单中可能有名为 value 的列
+                int close = closingParen(text, i);
+                if (close < 0) {
+                    return -1;
+                }
+                i = close + 1;
+                continue;
+            }
+            if (c == ';') {
+                return -2;
+            }
+            if (startsWithWord(text, i, "values")) {
+                return i + "values".length();
+            }
+            if (startsWithWord(text, i, "value")) {
+                return i + "value".length();
+            }
+            if (startsWithWord(text, i, "select")) {
+                return -2;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * 判断 from 处是否为注释
+     *
+     * @return 注释之后的位置；不是注释时返回 0；注释不完整时返回 -1
+     */
+    private static int commentEnd(CharSequence text, int from) {
+        char c = text.charAt(from);
+        char next = from + 1 < text.length() ? text.charAt(from + 1) : 0;
+        if ((c == '-' && next == '-') || c == '#') {
+            for (int i = from; i < text.length(); i++) {
+                if (text.charAt(i) == '\n') {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+        if (c == '/' && next == '*') {
+            for (int i = from + 2; i + 1 < text.length(); i++) {
+                if (text.charAt(i) == '*' && text.charAt(i + 1) == '/') {
+                    return i + 2;
+                }
+            }
+            return -1;
+        }
+        return 0;
+    }
+
+    /**
+     * 查找引号的结束位置，支持重复引号和反斜杠转义
+     *
+     * @return 结束引号之后的位置，没有闭合时返回 -1
+     */
+    private static int quoteEnd(CharSequence text, int open) {
+        char quote = text.charAt(open);
+        int i = open + 1;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '\\' && quote != '`') {
+                i += 2;
+                continue;
+            }
+            if (c == quote) {
+                if (i + 1 < text.length() && text.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * 按顶层逗号拆分 [from, to) 并去掉首尾空白
+     */
+    private static List<String> splitTopLevel(String text, int from, int to) {
+        List<String> parts = new ArrayList<>();
+        if (to < 0) {
+            return parts;
+        }
+        int i = from;
+        while (i < to) {
+            int end = valueEnd(text, i, to);
+            String part = text.substring(i, end).trim();
+            if (!part.isEmpty()) {
+                parts.add(part);
+            }
+            i = end + 1;
+        }
+        return parts;
+    }
+
+    /**
+     * 标识符（可带引号和 schema 前缀）的结束位置
+     */
+    private static int identifierEnd(String text, int from) {
+        int i = from;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '`' || c == '"' || c == '[') {
+                int close = text.indexOf(c == '[' ? ']' : c, i + 1);
+                i = close < 0 ? text.length() : close + 1;
+            } else if (Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '$') {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * 去掉 schema 前缀和引号，统一为小写
+     */
+    private static String tableName(String identifier) {
+        String name = unquote(identifier.trim());
+        int dot = name.lastIndexOf('.');
+        return unquote(dot >= 0 ? name.substring(dot + 1) : name).toLowerCase(Locale.ROOT);
+    }
+
+    private static String unquote(String identifier) {
+        if (identifier.length() >= 2) {
+            char first = identifier.charAt(0);
+            char last = identifier.charAt(identifier.length() - 1);
+            if ((first == '`' && last == '`') || (first == '"' && last == '"') || (first == '[' && last == ']')) {
+                return identifier.substring(1, identifier.length() - 1);
+            }
+        }
+        return identifier;
+    }
+
+    private static boolean startsWithWord(CharSequence text, int from, String word) {
+        int end = from + word.length();
+        if (end > text.length() || (from > 0 && isWordChar(text.charAt(from - 1)))) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(text.charAt(from + i)) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return end == text.length() || !isWordChar(text.charAt(end));
+    }
+
+    private static int indexOfWord(String lowerCaseText, String word, int from) {
+        for (int i = lowerCaseText.indexOf(word, from); i >= 0; i = lowerCaseText.indexOf(word, i + 1)) {
+            if (startsWithWord(lowerCaseText, i, word)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static int skipSpaces(CharSequence text, int from) {
+        int i = Math.max(from, 0);
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int trimEnd(CharSequence text, int from, int end) {
+        int i = end;
+        while (i > from && Character.isWhitespace(text.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    private static int indexOf(CharSequence text, char c, int from) {
+        for (int i = from; i < text.length(); i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,296 @@
+package com.redaction.format;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * tar / tar.gz 归档的条目级重写
+ *
+ * 顺序读取 512 字节的条目头，候选条目读入内存交给格式处理器，有替换时更新头中的大小和校验和后写出；
+ * 其他条目（包括 GNU 长文件名和 pax 扩展头）原样复制。
+ * 带 pax size 记录的条目不重写，因为 pax 头中的大小优先于 ustar 头。
+ *
+ * @version 1.0.0
+ */
+final class TarRewriter {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final int NAME_OFFSET = 0;
+    private static final int NAME_LENGTH = 100;
+    private static final int SIZE_OFFSET = 124;
+    private static final int SIZE_LENGTH = 12;
+    private static final int CHECKSUM_OFFSET = 148;
+    private static final int CHECKSUM_LENGTH = 8;
+    private static final int TYPE_OFFSET = 156;
+    private static final int MAGIC_OFFSET = 257;
+    private static final int PREFIX_OFFSET = 345;
+    private static final int PREFIX_LENGTH = 155;
+
+    private final ArchiveMasker masker;
+
+    TarRewriter(ArchiveMasker masker) {
+        this.masker = masker;
+    }
+
+    void rewrite(Path source, Path target, boolean gzip, ArchiveMasker.Result result) throws IOException {
+        try (InputStream in = open(source, gzip); OutputStream out = create(target, gzip)) {
+            byte[] header = new byte[BLOCK_SIZE];
+            byte[] buffer = new byte[64 * BLOCK_SIZE];
+            // 前一个 GNU 长文件名或 pax 扩展头给出的路径，只作用于紧随其后的条目
+            String longName = null;
+            boolean paxSize = false;
+
+            while (readBlock(in, header)) {
+                if (isZeroBlock(header)) {
+                    // 归档结束标记及其后的填充原样复制
+                    out.write(header);
+                    copy(in, out, Long.MAX_VALUE, buffer);
+                    break;
+                }
+                long size = parseNumber(header, SIZE_OFFSET, SIZE_LENGTH);
+                long padded = (size + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+                char type = (char) header[TYPE_OFFSET];
+
+                if (type == 'L' || type == 'x') {
+                    byte[] data = readFully(in, padded);
+                    out.write(header);
+                    out.write(data);
+                    if (type == 'L') {
+                        longName = cString(data, 0, (int) size);
+                    } else {
+                        String[] pax = parsePax(data, (int) size);
+                        longName = pax[0] != null ? pax[0] : longName;
+                        paxSize = pax[1] != null;
+                    }
+                    continue;
+                }
+
+                String name = longName != null ? longName : entryName(header);
+                boolean candidate = (type == '0' || type == '\0') && !paxSize && !name.endsWith("/")
+                        && size <= ArchiveMasker.MAX_ENTRY_SIZE;
+                longName = null;
+                paxSize = false;
+                result.entries++;
+
+                FormatHandler handler = candidate ? ArchiveMasker.handlerFor(name) : null;
+                if (handler == null) {
+                    out.write(header);
+                    copy(in, out, padded, buffer);
+                    continue;
+                }
+
+                result.candidates++;
+                byte[] data = readFully(in, padded);
+                ArchiveMasker.Masked masked = masker.maskEntry(name, handler, Arrays.copyOf(data, (int) size));
+                if (masked == null) {
+                    out.write(header);
+                    out.write(data);
+                    continue;
+                }
+                result.rewrittenEntries++;
+                result.replacements += masked.replacements;
+                writeOctal(header, SIZE_OFFSET, SIZE_LENGTH, masked.content.length);
+                updateChecksum(header);
+                out.write(header);
+                out.write(masked.content);
+                int remainder = masked.content.length % BLOCK_SIZE;
+                if (remainder != 0) {
+                    out.write(new byte[BLOCK_SIZE - remainder]);
+                }
+            }
+        }
+    }
+
+    private static InputStream open(Path source, boolean gzip) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(source), 64 * 1024);
+        return gzip ? new GZIPInputStream(in, 64 * 1024) : in;
+    }
+
+    private static OutputStream create(Path target, boolean gzip) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(target), 64 * 1024);
+        return gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+    }
+
+    /**
+     * 读取一个完整的块
+     *
+     * @return 到达文件末尾时返回 false
+     */
+    private static boolean readBlock(InputStream in, byte[] block) throws IOException {
+        int length = 0;
+        while (length < block.length) {
+            int read = in.read(block, length, block.length - length);
+            if (read < 0) {
+                if (length == 0) {
+                    return false;
+                }
+                throw new EOFException("归档文件被截断");
+            }
+            length += read;
+        }
+        return true;
+    }
+
+    private static byte[] readFully(InputStream in, long length) throws IOException {
+        byte[] data = new byte[Math.toIntExact(length)];
+        int offset = 0;
+        while (offset < data.length) {
+            int read = in.read(data, offset, data.length - offset);
+            if (read < 0) {
+                throw new EOFException("归档文件被截断");
+            }
+            offset += read;
+        }
+        return data;
+    }
+
+    /**
+     * 复制 length 个字节，length 为 Long.MAX_VALUE 时复制到流末尾
+     */
+    private static void copy(InputStream in, OutputStream out, long length, byte[] buffer) throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                if (length == Long.MAX_VALUE) {
+                    return;
+                }
+                throw new EOFException("归档文件被截断");
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * ustar 头中的路径：prefix 非空时为 prefix/name
+     */
+    private static String entryName(byte[] header) {
+        String name = cString(header, NAME_OFFSET, NAME_LENGTH);
+        boolean ustar = header[MAGIC_OFFSET] == 'u' && header[MAGIC_OFFSET + 1] == 's'
+                && header[MAGIC_OFFSET + 2] == 't' && header[MAGIC_OFFSET + 3] == 'a'
+                && header[MAGIC_OFFSET + 4] == 'r';
+        if (ustar) {
+            String prefix = cString(header, PREFIX_OFFSET, PREFIX_LENGTH);
+            if (!prefix.isEmpty()) {
+                return prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    private static String cString(byte[] data, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && data[end] != 0) {
+            end++;
+        }
+        return new String(data, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 解析八进制数字段，最高位为 1 时为 GNU 的 base-256 编码
+     */
+    private static long parseNumber(byte[] header, int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            long value = header[offset] & 0x7f;
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = (value << 8) | (header[i] & 0xff);
+            }
+            return value;
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = header[i];
+            if (b == 0 || b == ' ') {
+                if (value > 0) {
+                    break;
+                }
+                continue;
+            }
+            if (b < '0' || b > '7') {
+                throw new IOException("条目头损坏");
+            }
+            value = value * 8 + (b - '0');
+        }
+        return value;
+    }
+
+    private static void writeOctal(byte[] header, int offset, int length, long value) {
+        String octal = Long.toOctalString(value);
+        int digits = length - 1;
+        for (int i = 0; i < digits; i++) {
+            int index = octal.length() - digits + i;
+            header[offset + i] = index >= 0 ? (byte) octal.charAt(index) : (byte) '0';
+        }
+        header[offset + digits] = 0;
+    }
+
+    /**
+     * 重新计算校验和：计算时校验和字段按空格处理，写回 6 位八进制数、NUL 和空格
+     */
+    private static void updateChecksum(byte[] header) {
+        Arrays.fill(header, CHECKSUM_OFFSET, CHECKSUM_OFFSET + CHECKSUM_LENGTH, (byte) ' ');
+        long sum = 0;
+        for (byte b : header) {
+            sum += b & 0xff;
+        }
+        writeOctal(header, CHECKSUM_OFFSET, 7, sum);
+        header[CHECKSUM_OFFSET + 7] = ' ';
+    }
+
+    /**
+     * 解析 pax 扩展头中的 path 和 size 记录
+     *
+     * @return [path, size]，不存在的记录为 null
+     */
+    private static String[] parsePax(byte[] data, int size) {
+        String[] values = new String[2];
+        int position = 0;
+        while (position < size) {
+            int space = position;
+            while (space < size && data[space] != ' ') {
+                space++;
+            }
+            int length;
+            try {
+                length = Integer.parseInt(new String(data, position, space - position, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                break;
+            }
+            if (length <= 0 || position + length > size) {
+                break;
+            }
+            String record = new String(data, space + 1, position + length - space - 2, StandardCharsets.UTF_8);
+            int equals = record.indexOf('=');
+            if (equals > 0) {
+                String key = record.substring(0, equals);
+                if ("path".equals(key)) {
+                    values[0] = record.substring(equals + 1);
+                } else if ("size".equals(key)) {
+                    values[1] = record.substring(equals + 1);
+                }
+            }
+            position += length;
+        }
+        return values;
+    }
+}
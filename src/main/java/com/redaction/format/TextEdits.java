@@ -0,0 +1,107 @@
+package com.redaction.format;
+
+import com.intellij.openapi.editor.Document;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 一个文件的替换集合
+ *
+ * 收集格式处理器报告的替换，按起点排序后丢弃与前一处重叠的替换，
+ * 可以应用到字符串（无 IDE 的批量处理）或从后向前写回文档（避免位置偏移）。
+ * 收集完成后不再修改，可以在内容相同的文件之间共享。
+ *
+ * @version 1.0.0
+ */
+public final class TextEdits implements EditSink {
+
+    /**
+     * 原文中 [start, end) 的一处替换
+     */
+    private static final class Edit {
+        final int start;
+        final int end;
+        final String replacement;
+
+        Edit(int start, int end, String replacement) {
+            this.start = start;
+            this.end = end;
+            this.replacement = replacement;
+        }
+    }
+
+    private final List<Edit> edits = new ArrayList<>();
+
+    @Override
+    public void replace(int start, int end, @NotNull String replacement) {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("无效的替换范围: [" + start + ", " + end + ")");
+        }
+        edits.add(new Edit(start, end, replacement));
+    }
+
+    public boolean isEmpty() {
+        return edits.isEmpty();
+    }
+
+    public int size() {
+        return edits.size();
+    }
+
+    /**
+     * 把替换应用到原文
+     *
+     * @return 替换后的文本，没有替换时返回原文
+     */
+    @NotNull
+    public String apply(@NotNull CharSequence text) {
+        List<Edit> sorted = sorted();
+        if (sorted.isEmpty()) {
+            return text.toString();
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        int copied = 0;
+        for (Edit edit : sorted) {
+            result.append(text, copied, edit.start).append(edit.replacement);
+            copied = edit.end;
+        }
+        return result.append(text, copied, text.length()).toString();
+    }
+
+    /**
+     * 从后向前把替换写入文档，需要在写操作中调用
+     */
+    public void applyTo(@NotNull Document document) {
+        List<Edit> sorted = sorted();
+        for (int i = sorted.size() - 1; i >= 0; i--) {
+            Edit edit = sorted.get(i);
+            document.replaceString(edit.start, edit.end, edit.replacement);
+        }
+    }
+
+    /**
+     * 按起点顺序访问实际生效的替换（与前一处重叠的替换已丢弃）
+     */
+    public void forEach(@NotNull EditSink visitor) {
+        for (Edit edit : sorted()) {
+            visitor.replace(edit.start, edit.end, edit.replacement);
+        }
+    }
+
+    private List<Edit> sorted() {
+        List<Edit> sorted = new ArrayList<>(edits);
+        sorted.sort(Comparator.comparingInt((Edit edit) -> edit.start).thenComparingInt(edit -> edit.end));
+        List<Edit> result = new ArrayList<>(sorted.size());
+        int lastEnd = -1;
+        for (Edit edit : sorted) {
+            if (edit.start >= lastEnd) {
+                result.add(edit);
+                lastEnd = edit.end;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,374 @@
+package com.redaction.format;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiComment;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiWhiteSpace;
+import com.redaction.detect.DetectionEngine;
+import com.redaction.detect.LiteralClassifier;
+import com.redaction.detect.SensitiveRules;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.uast.*;
+import org.jetbrains.uast.visitor.AbstractUastVisitor;
+
+import java.util.*;
+
+/**
+ * JVM 源文件敏感字面量收集器
+ *
+ * 基于 UAST，Java、Kotlin、Groovy、Scala（安装了对应语言插件时）共用同一个访问器，
+ * 对每个文件只做一次遍历，在同一次遍历中处理所有可能出现敏感字面量的位置：
+ * - 字段初始值（包括 static final 常量、接口常量和 Kotlin 顶层 const val）
+ * - 注解属性：{@code @Value("${db.password:默认值}")} 中的默认值，以及其他注解中名称敏感的属性
+ * - 传给 {@code DriverManager.getConnection}、{@code MongoClients.create} 的字面量参数
+ * - 对敏感名称的赋值，例如 Gradle 脚本中的 {@code password = "..."}
+ *
+ * 判断直接基于字面量的值（{@link LiteralClassifier}、候选词检测器）和名称，不对声明的源码文本做正则匹配。
+ *
+ * @version 1.0.0
+ */
+final class UastLiteralCollector extends AbstractUastVisitor {
+    private static final Logger LOG = Logger.getInstance(UastLiteralCollector.class);
+
+    private static final String SPRING_VALUE = "org.springframework.beans.factory.annotation.Value";
+    // 连接工厂方法：类名 → 方法名
+    private static final Map<String, String> CONNECTION_FACTORIES = new HashMap<>();
+    private static final String[] SENSITIVE_MARKERS = {"sensitive", "password", "secret"};
+    // 字符串中的 $ 会被当作模板插值的语言
+    private static final Set<String> TEMPLATE_LANGUAGES = new HashSet<>(Arrays.asList("kotlin", "Groovy"));
+
+    static {
+        CONNECTION_FACTORIES.put("java.sql.DriverManager", "getConnection");
+        CONNECTION_FACTORIES.put("com.mongodb.client.MongoClients", "create");
+        CONNECTION_FACTORIES.put("com.mongodb.reactivestreams.client.MongoClients", "create");
+    }
+
+    private final DetectionEngine engine;
+    private final EditSink sink;
+    // 已登记替换的字面量起始位置，同一字面量可能同时满足多个条件
+    private final Set<Integer> replacedOffsets = new HashSet<>();
+
+    UastLiteralCollector(@NotNull DetectionEngine engine, @NotNull EditSink sink) {
+        this.engine = engine;
+        this.sink = sink;
+    }
+
+    @Override
+    public boolean visitClass(@NotNull UClass node) {
+        ProgressManager.checkCanceled();
+        return false;
+    }
+
+    @Override
+    public boolean visitField(@NotNull UField node) {
+        StringLiteral literal = StringLiteral.of(node.getUastInitializer());
+        if (literal != null && isSensitiveField(node, literal.value)) {
+            LOG.info("发现敏感字段: " + node.getName());
+            replace(literal, LiteralClassifier.maskFor(literal.value));
+        }
+        return false;
+    }
+
+    @Override
+    public boolean visitAnnotation(@NotNull UAnnotation node) {
+        boolean springValue = isSpringValue(node);
+        for (UNamedExpression attribute : node.getAttributeValues()) {
+            StringLiteral literal = StringLiteral.of(attribute.getExpression());
+            if (literal == null) {
+                continue;
+            }
+            if (springValue) {
+                maskPlaceholderDefaults(literal);
+            } else if (isSensitiveName(attributeName(attribute)) && !isExpression(literal.value)) {
+                // 其他注解只看属性名，@ComponentScan("com.example.app") 之类的包名、类名不按值判断
+                replace(literal, LiteralClassifier.maskFor(literal.value));
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean visitCallExpression(@NotNull UCallExpression node) {
+        String methodName = node.getMethodName();
+        if (methodName != null && CONNECTION_FACTORIES.containsValue(methodName) && isConnectionFactory(node, methodName)) {
+            for (UExpression argument : node.getValueArguments()) {
+                StringLiteral literal = StringLiteral.of(argument);
+                if (literal != null) {
+                    replace(literal, LiteralClassifier.maskFor(literal.value));
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean visitBinaryExpression(@NotNull UBinaryExpression node) {
+        if (node.getOperator() == UastBinaryOperator.ASSIGN) {
+            StringLiteral literal = StringLiteral.of(node.getRightOperand());
+            if (literal != null && !literal.value.isEmpty() && !isExpression(literal.value)
+                    && !DetectionEngine.isMasked(literal.value, 0, literal.value.length())
+                    && isSensitiveName(referenceName(node.getLeftOperand()))) {
+                // 只看赋值目标的名称，Gradle 脚本中的 group = "com.example"、mainClassName = "a.b.Main" 保持原样
+                replace(literal, LiteralClassifier.maskFor(literal.value));
+            }
+        }
+        return false;
+    }
+
+    private boolean isSensitiveField(UField field, String value) {
+        if (isSensitiveValue(value) || isSensitiveName(field.getName())) {
+            return true;
+        }
+
+        // 检查字段注解
+        for (UAnnotation annotation : field.getUAnnotations()) {
+            String annotationName = annotation.getQualifiedName();
+            if (annotationName != null && (
+                annotationName.contains("Sensitive") ||
+                annotationName.contains("Password") ||
+                annotationName.contains("Secret")
+            )) {
+                return true;
+            }
+        }
+
+        // 检查字段自己的注释和紧挨着的注释
+        for (UComment comment : field.getComments()) {
+            if (containsSensitiveMarker(comment.getText())) {
+                return true;
+            }
+        }
+        PsiElement source = field.getSourcePsi();
+        for (PsiElement sibling = source != null ? source.getPrevSibling() : null; sibling != null;
+             sibling = sibling.getPrevSibling()) {
+            if (sibling instanceof PsiComment) {
+                if (containsSensitiveMarker(sibling.getText())) {
+                    return true;
+                }
+            } else if (!(sibling instanceof PsiWhiteSpace)) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按值判断：连接串、地址、域名，以及候选词检测器（已知格式的凭据、个人信息、高熵字符串）
+     */
+    private boolean isSensitiveValue(String value) {
+        if (value.isEmpty() || DetectionEngine.isMasked(value, 0, value.length())) {
+            return false;
+        }
+        return LiteralClassifier.classify(value) != null || engine.containsTokenFinding(value);
+    }
+
+    private static boolean isSensitiveName(String name) {
+        return name != null && SensitiveRules.isSensitiveFieldName(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 对 ${key:默认值} 形式的占位符，键名敏感或默认值本身敏感时只替换默认值
+     *
+     * 字面量的源码与值逐字相同（没有转义和拼接）时分别报告每个默认值的范围；
+     * 否则无法对应到源码位置，整个字面量替换为只把默认值换成掩码后的值。
+     */
+    private void maskPlaceholderDefaults(StringLiteral literal) {
+        String value = literal.value;
+        List<int[]> defaults = new ArrayList<>();
+        List<String> masks = new ArrayList<>();
+        int start = value.indexOf("${");
+        while (start >= 0) {
+            int end = value.indexOf('}', start + 2);
+            if (end < 0) {
+                break;
+            }
+            int colon = value.indexOf(':', start + 2);
+            if (colon > 0 && colon < end - 1) {
+                String key = value.substring(start + 2, colon);
+                String defaultValue = value.substring(colon + 1, end);
+                if (!DetectionEngine.isMasked(defaultValue, 0, defaultValue.length())
+                        && (ConfigKeyRules.isSensitiveConfigKey(key) || isSensitiveValue(defaultValue))) {
+                    defaults.add(new int[] {colon + 1, end});
+                    masks.add(LiteralClassifier.maskFor(defaultValue));
+                }
+            }
+            start = value.indexOf("${", end + 1);
+        }
+        if (defaults.isEmpty() || !replacedOffsets.add(literal.range.getStartOffset())) {
+            return;
+        }
+        if (literal.isVerbatim()) {
+            int valueOffset = literal.range.getStartOffset() + 1;
+            for (int i = 0; i < defaults.size(); i++) {
+                sink.replace(valueOffset + defaults.get(i)[0], valueOffset + defaults.get(i)[1],
+                    escape(literal, masks.get(i)));
+            }
+            return;
+        }
+        StringBuilder masked = new StringBuilder(value.length());
+        int copied = 0;
+        for (int i = 0; i < defaults.size(); i++) {
+            masked.append(value, copied, defaults.get(i)[0]).append(masks.get(i));
+            copied = defaults.get(i)[1];
+        }
+        masked.append(value, copied, value.length());
+        sink.replace(literal.range.getStartOffset() + 1, literal.range.getEndOffset() - 1,
+            escape(literal, masked.toString()));
+    }
+
+    private static boolean isSpringValue(UAnnotation annotation) {
+        String name = annotation.getQualifiedName();
+        // 未解析时（例如依赖尚未下载）按简单类名判断
+        return SPRING_VALUE.equals(name) || "Value".equals(name);
+    }
+
+    private static boolean isConnectionFactory(UCallExpression call, String methodName) {
+        PsiMethod method = call.resolve();
+        if (method != null) {
+            PsiClass containingClass = method.getContainingClass();
+            String className = containingClass != null ? containingClass.getQualifiedName() : null;
+            return className != null && methodName.equals(CONNECTION_FACTORIES.get(className));
+        }
+        String receiverName = referenceName(call.getReceiver());
+        if (receiverName == null) {
+            return false;
+        }
+        for (Map.Entry<String, String> entry : CONNECTION_FACTORIES.entrySet()) {
+            if (entry.getValue().equals(methodName) && entry.getKey().endsWith("." + receiverName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 取引用表达式的名称（a、a.b 取最后一段），不是引用时返回 null
+     */
+    private static String referenceName(UExpression expression) {
+        if (expression instanceof UQualifiedReferenceExpression) {
+            expression = ((UQualifiedReferenceExpression) expression).getSelector();
+        }
+        if (expression instanceof USimpleNameReferenceExpression) {
+            return ((USimpleNameReferenceExpression) expression).getIdentifier();
+        }
+        return null;
+    }
+
+    private static String attributeName(UNamedExpression attribute) {
+        String name = attribute.getName();
+        return name != null ? name : "value";
+    }
+
+    /**
+     * 占位符和 SpEL 表达式（${...}、#{...}、#id、'all' 这样带引号的 SpEL 字符串）不是字面值
+     */
+    private static boolean isExpression(String value) {
+        return value.isEmpty() || value.startsWith("#") || value.startsWith("'")
+            || value.contains("${") || value.contains("#{");
+    }
+
+    private static boolean containsSensitiveMarker(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (String marker : SENSITIVE_MARKERS) {
+            if (lower.contains(marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 替换引号内的部分，报告的范围只包含值本身
+     */
+    private void replace(StringLiteral literal, String maskedValue) {
+        if (replacedOffsets.add(literal.range.getStartOffset())) {
+            sink.replace(literal.range.getStartOffset() + 1, literal.range.getEndOffset() - 1,
+                escape(literal, maskedValue));
+        }
+    }
+
+    private static String escape(StringLiteral literal, String value) {
+        String escaped = StringUtil.escapeStringCharacters(value);
+        if (TEMPLATE_LANGUAGES.contains(literal.language)) {
+            escaped = escaped.replace("$", "\\$");
+        }
+        return escaped;
+    }
+
+    /**
+     * 源码中的字符串字面量：值、包含引号的源码范围和所属语言
+     */
+    private static final class StringLiteral {
+        final String value;
+        final TextRange range;
+        final String language;
+        // 包含引号的源码
+        final String source;
+
+        private StringLiteral(String value, TextRange range, String language, String source) {
+            this.value = value;
+            this.range = range;
+            this.language = language;
+            this.source = source;
+        }
+
+        /**
+         * 引号内的源码与值逐字相同，值中的位置可以直接换算为源码位置
+         */
+        boolean isVerbatim() {
+            return source.length() == value.length() + 2 && source.regionMatches(1, value, 0, value.length());
+        }
+
+        /**
+         * 识别字符串字面量，允许外层有括号；Kotlin 等语言中不含插值的字符串模板由多个字面量片段组成，
+         * 拼接后视为一个字面量。包含插值或不带引号的表达式返回 null。
+         */
+        static StringLiteral of(UExpression expression) {
+            while (expression instanceof UParenthesizedExpression) {
+                expression = ((UParenthesizedExpression) expression).getExpression();
+            }
+            String value;
+            if (expression instanceof ULiteralExpression) {
+                value = UastLiteralUtils.getValueIfStringLiteral(expression);
+            } else if (expression instanceof UPolyadicExpression
+                    && ((UPolyadicExpression) expression).getOperator() == UastBinaryOperator.PLUS) {
+                StringBuilder builder = new StringBuilder();
+                for (UExpression operand : ((UPolyadicExpression) expression).getOperands()) {
+                    String part = operand instanceof ULiteralExpression
+                            ? UastLiteralUtils.getValueIfStringLiteral(operand) : null;
+                    if (part == null) {
+                        return null;
+                    }
+                    builder.append(part);
+                }
+                value = builder.toString();
+            } else {
+                return null;
+            }
+            PsiElement source = quotedSource(expression.getSourcePsi());
+            if (value == null || source == null) {
+                return null;
+            }
+            return new StringLiteral(value, source.getTextRange(), source.getLanguage().getID(), source.getText());
+        }
+
+        /**
+         * 找到包含引号的源码元素（Kotlin 字面量片段的源码不含引号，需要向上一到两层）
+         */
+        private static PsiElement quotedSource(PsiElement element) {
+            for (int depth = 0; element != null && depth < 3; depth++, element = element.getParent()) {
+                String text = element.getText();
+                if (text != null && text.length() >= 2 && (text.charAt(0) == '"' || text.charAt(0) == '\'')
+                        && text.charAt(text.length() - 1) == text.charAt(0)) {
+                    return element;
+                }
+            }
+            return null;
+        }
+    }
+}
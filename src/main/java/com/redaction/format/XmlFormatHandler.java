@@ -0,0 +1,296 @@
+package com.redaction.format;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.redaction.detect.DetectionEngine;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * XML 格式处理器
+ *
+ * 依次查找 value 属性中 http(s) 地址的 IP 和域名，以及各类敏感规则的匹配，
+ * 标签内部（属性名、元素名）的匹配保持不变；先找到的替换优先，之后与其重叠的匹配不再替换。
+ * 键=值 形式的规则只报告值的范围，键名和引号保持原样。
+ * 所有规则都在原文上匹配，不生成中间字符串。
+ *
+ * @version 1.0.0
+ */
+public final class XmlFormatHandler implements FormatHandler {
+    private static final Logger LOG = Logger.getInstance(XmlFormatHandler.class);
+
+    private static final Pattern IP_PATTERN = Pattern.compile(
+        "(value\\s*=\\s*\"Http[s]?://)(\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})(:\\d+|/|\")", Pattern.CASE_INSENSITIVE);
+    private static final Pattern DOMAIN_PATTERN = Pattern.compile(
+        "(value\\s*=\\s*\"Http[s]?://)([-a-zA-Z0-9.]+\\.[a-zA-Z]{2,}(?:\\.[a-zA-Z]{2,})*)([:/]|\")", Pattern.CASE_INSENSITIVE);
+
+    // 键=值 形式的规则匹配中值的位置，值在下一个标签之前结束
+    private static final Pattern ASSIGNED_VALUE = Pattern.compile("[=:]\\s*[\"']?([^\\s,;\"'<]+)");
+    private static final Pattern CONNECTION_VALUE = Pattern.compile("[=:]\\s*[\"']?([^\"'<]*)");
+    private static final Pattern PORT_VALUE = Pattern.compile("[=:]\\s*[\"']?(\\d+)");
+
+    @Override
+    public boolean accepts(@NotNull String fileName) {
+        return fileName.endsWith(".xml");
+    }
+
+    @Override
+    public void collectEdits(@NotNull FormatRequest request, @NotNull EditSink sink) {
+        CharSequence text = request.getText();
+        LOG.info("开始处理 XML 内容");
+
+        // 首先检查是否是 .idea 目录下的配置文件
+        if (contains(text, "<?xml") && contains(text, "version=") && contains(text, ".idea")) {
+            LOG.info("检测到 .idea 目录下的 XML 配置文件，跳过处理");
+            return;
+        }
+
+        // 已替换的范围：起点 → 终点
+        TreeMap<Integer, Integer> replaced = new TreeMap<>();
+
+        // 处理XML中的IP地址
+        Matcher ipMatcher = IP_PATTERN.matcher(text);
+        while (ipMatcher.find()) {
+            LOG.debug("找到IP地址匹配: " + ipMatcher.group());
+            replace(sink, replaced, ipMatcher.start(2), ipMatcher.end(2), "***.***.***.***");
+        }
+
+        // 处理XML中的域名
+        Matcher domainMatcher = DOMAIN_PATTERN.matcher(text);
+        while (domainMatcher.find()) {
+            LOG.debug("找到域名匹配: " + domainMatcher.group());
+            replace(sink, replaced, domainMatcher.start(2), domainMatcher.end(2), "***.***.***");
+        }
+
+        // 处理XML中的其他敏感信息
+        for (Map.Entry<String, Pattern> entry : DetectionEngine.SENSITIVE_PATTERNS.entrySet()) {
+            String type = entry.getKey();
+            if (type.equals("IP_ADDRESS")) {
+                continue;
+            }
+
+            Matcher matcher = entry.getValue().matcher(text);
+            while (matcher.find()) {
+                LOG.debug("找到敏感信息匹配: " + type + " - " + matcher.group());
+                if (!isInXmlTag(text, matcher.start())) {
+                    String match = matcher.group().toLowerCase();
+                    String mask = getMask(type, match);
+                    if (mask == null) {
+                        continue;
+                    }
+                    if (!isAssignmentRule(type)) {
+                        replace(sink, replaced, matcher.start(), matcher.end(), mask);
+                        continue;
+                    }
+                    // 键=值 形式的规则只替换值本身，键名、分隔符和引号保持不变
+                    Pattern valuePattern = type.equals("PORT") ? PORT_VALUE
+                        : type.equals("MONGODB_CONFIG") && match.contains("connection") ? CONNECTION_VALUE
+                        : ASSIGNED_VALUE;
+                    Matcher value = valuePattern.matcher(text).region(matcher.start(), matcher.end());
+                    if (value.find() && value.end(1) > value.start(1)) {
+                        replace(sink, replaced, value.start(1), value.end(1), mask);
+                    }
+                }
+            }
+        }
+
+        LOG.info("XML 内容处理完成");
+    }
+
+    /**
+     * 登记不与已有替换重叠的替换
+     */
+    private static void replace(EditSink sink, TreeMap<Integer, Integer> replaced, int start, int end,
+                                String replacement) {
+        Map.Entry<Integer, Integer> before = replaced.floorEntry(start);
+        if (before != null && before.getValue() > start) {
+            return;
+        }
+        Integer after = replaced.ceilingKey(start);
+        if (after != null && after < end) {
+            return;
+        }
+        replaced.put(start, end);
+        sink.replace(start, end, replacement);
+    }
+
+    /**
+     * 检查位置是否在XML标签内
+     */
+    private static boolean isInXmlTag(CharSequence content, int position) {
+        for (int i = Math.min(position, content.length() - 1); i >= 0; i--) {
+            char c = content.charAt(i);
+            if (c == '<') {
+                return true;
+            }
+            if (c == '>') {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(CharSequence text, String target) {
+        int last = text.length() - target.length();
+        outer:
+        for (int i = 0; i <= last; i++) {
+            for (int j = 0; j < target.length(); j++) {
+                if (text.charAt(i + j) != target.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 规则匹配的是 键=值 / 键: 值（只替换值），而不是值本身
+     */
+    private static boolean isAssignmentRule(String type) {
+        return type.endsWith("_CONFIG") || type.equals("PASSWORD") || type.equals("USERNAME")
+            || type.equals("URL") || type.equals("PORT");
+    }
+
+    /**
+     * 按规则类型和匹配中的键名选择掩码
+     *
+     * @param match 小写的匹配文本
+     * @return 掩码，保持原值时返回 null
+     */
+    private static String getMask(String type, String match) {
+        switch (type) {
+            case "IP_ADDRESS":
+                return "###.###.###.###";
+            case "DB_URL":
+                return "jdbc:mysql://###MASKED###:3306/###MASKED###";
+            case "MYSQL_CONFIG":
+            case "TIDB_CONFIG":
+                if (match.contains("password") || match.contains("passwd")) {
+                    return "###MASKED###";
+                } else if (match.contains("username") || match.contains("user")) {
+                    return "###MASKED###";
+                } else if (match.contains("host")) {
+                    return "###.###.###.###";
+                } else if (match.contains("port")) {
+                    return "###MASKED###";
+                } else {
+                    return "jdbc:mysql://###MASKED###:3306/###MASKED###";
+                }
+            case "REDIS_CONFIG":
+                if (match.contains("password") || match.contains("auth")) {
+                    return "###MASKED###";
+                } else if (match.contains("host")) {
+                    return "###.###.###.###";
+                } else if (match.contains("port")) {
+                    return "###MASKED###";
+                } else {
+                    return "redis://###MASKED###:6379";
+                }
+            case "RABBITMQ_CONFIG":
+                if (match.contains("password") || match.contains("passwd")) {
+                    return "###MASKED###";
+                } else if (match.contains("username") || match.contains("user")) {
+                    return "###MASKED###";
+                } else if (match.contains("host")) {
+                    return "###.###.###.###";
+                } else if (match.contains("port")) {
+                    return "###MASKED###";
+                } else {
+                    return "amqp://###MASKED###:5672";
+                }
+            case "MONGODB_CONFIG":
+                if (match.contains("password") || match.contains("passwd")) {
+                    return "###MASKED###";
+                } else if (match.contains("username") || match.contains("user")) {
+                    return "###MASKED###";
+                } else if (match.contains("connection")) {
+                    // 对整个连接字符串进行脱敏
+                    return "mongodb://###MASKED###:27017/###MASKED###?readPreference=secondaryPreferred";
+                } else if (match.contains("host")) {
+                    return "###.###.###.###";
+                } else if (match.contains("port")) {
+                    return "###MASKED###";
+                } else {
+                    return "mongodb://###MASKED###:27017";
+                }
+            case "HIKV_CONFIG":
+            case "HBASE_CONFIG":
+            case "HIVE_CONFIG":
+            case "COUCHBASE_CONFIG":
+                if (match.contains("password") || match.contains("passwd")) {
+                    return "###MASKED###";
+                } else if (match.contains("username") || match.contains("user")) {
+                    return "###MASKED###";
+                } else if (match.contains("principal") || match.contains("keytab")) {
+                    return "###MASKED###";
+                } else if (match.contains("host") || match.contains("quorum")) {
+                    return "###.###.###.###";
+                } else if (match.contains("port")) {
+                    return "###MASKED###";
+                } else {
+                    return "###MASKED###:2181";
+                }
+            case "ELASTICSEARCH_CONFIG":
+                if (match.contains("password") || match.contains("passwd")) {
+                    return "###MASKED###";
+                } else if (match.contains("username") || match.contains("user")) {
+                    return "###MASKED###";
+                } else if (match.contains("host")) {
+                    return "###.###.###.###";
+                } else if (match.contains("port")) {
+                    return "###MASKED###";
+                } else {
+                    return "http://###MASKED###:9200";
+                }
+            case "PASSWORD":
+                return "###MASKED###";
+            case "USERNAME":
+                return "###MASKED###";
+            case "URL":
+                return "###MASKED###";
+            case "PORT":
+                return "###MASKED###";
+            case "ROCKETMQ_CONFIG":
+                if (match.contains("namesrvaddr") || match.contains("addr") || 
+                    match.contains("host")) {
+                    return "###.###.###.###:9876";
+                } else if (match.contains("accesskey") || match.contains("secretkey")) {
+                    return "###MASKED###";
+                } else if (match.contains("producergroup") || match.contains("consumergroup")) {
+                    return "###MASKED###";
+                } else if (match.contains("topic")) {
+                    return "###MASKED###";
+                } else {
+                    return "###MASKED###";
+                }
+            case "DUBBO_CONFIG":
+                if (match.contains("address") || match.contains("url") || 
+                    match.contains("host")) {
+                    if (match.contains("nacos")) {
+                        return "nacos://###MASKED###";
+                    } else if (match.contains("zookeeper")) {
+                        return "zookeeper://###MASKED###:2181";
+                    } else {
+                        return "###MASKED###";
+                    }
+                } else if (match.contains("password") || match.contains("passwd")) {
+                    return "###MASKED###";
+                } else if (match.contains("username") || match.contains("user")) {
+                    return "###MASKED###";
+                } else if (match.contains("group") || match.contains("version")) {
+                    return "###MASKED###";
+                } else if (match.contains("port")) {
+                    // 保持端口号原样
+                    return null;
+                } else {
+                    return "###MASKED###";
+                }
+            default:
+                return "###MASKED###";
+        }
+    }
+}
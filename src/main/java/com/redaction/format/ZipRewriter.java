@@ -0,0 +1,387 @@
+package com.redaction.format;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * ZIP 类归档（jar / war / ear / zip）的条目级重写
+ *
+ * 读取中央目录后，候选条目按本地文件头定位压缩数据，在线程池中并行解压和分析；
+ * 有替换时按原文件中条目的顺序写出新归档：未修改的条目连同本地文件头和数据描述符按字节复制，
+ * 修改过的条目用原压缩方式重新写入，中央目录按原顺序复制并更新偏移量、CRC 和大小。
+ * 不支持 ZIP64 和加密条目。
+ *
+ * @version 1.0.0
+ */
+final class ZipRewriter {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+    private static final int FLAG_ENCRYPTED = 1;
+    private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+    private static final int FLAG_UTF8 = 1 << 11;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+
+    private final ArchiveMasker masker;
+
+    ZipRewriter(ArchiveMasker masker) {
+        this.masker = masker;
+    }
+
+    /**
+     * 中央目录中的一个条目
+     */
+    private static final class Entry {
+        final int index;
+        final String name;
+        // 中央目录记录的原始字节
+        final ByteBuffer record;
+        final int flags;
+        final int method;
+        final long compressedSize;
+        final long size;
+        final long localOffset;
+        long end;
+
+        Entry(int index, String name, ByteBuffer record, long base) {
+            this.index = index;
+            this.name = name;
+            this.record = record;
+            this.flags = record.getShort(8) & 0xffff;
+            this.method = record.getShort(10) & 0xffff;
+            this.compressedSize = record.getInt(20) & 0xffffffffL;
+            this.size = record.getInt(24) & 0xffffffffL;
+            this.localOffset = base + (record.getInt(42) & 0xffffffffL);
+        }
+    }
+
+    /**
+     * 重写后的条目
+     */
+    private static final class Rewritten {
+        final int index;
+        final byte[] data;
+        final int method;
+        final long crc;
+        final long size;
+        final int replacements;
+
+        Rewritten(int index, byte[] data, int method, long crc, long size, int replacements) {
+            this.index = index;
+            this.data = data;
+            this.method = method;
+            this.crc = crc;
+            this.size = size;
+            this.replacements = replacements;
+        }
+    }
+
+    void rewrite(Path source, Path target, ArchiveMasker.Result result) throws IOException, InterruptedException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            ByteBuffer end = readEndOfCentralDirectory(in);
+            long centralDirectorySize = end.getInt(12) & 0xffffffffL;
+            // 带启动脚本的可执行 jar 中，偏移量相对于 ZIP 数据的起点而不是文件起点
+            long base = in.size() - end.capacity() - centralDirectorySize - (end.getInt(16) & 0xffffffffL);
+            if (base < 0) {
+                throw new IOException("中央目录偏移量无效");
+            }
+            long centralDirectoryOffset = base + (end.getInt(16) & 0xffffffffL);
+            List<Entry> entries = readCentralDirectory(in, centralDirectoryOffset, centralDirectorySize, base);
+            result.entries = entries.size();
+
+            Map<Integer, Rewritten> rewritten = analyze(in, entries, result);
+            if (rewritten.isEmpty()) {
+                return;
+            }
+            write(in, target, end, entries, centralDirectoryOffset, base, rewritten);
+        }
+    }
+
+    /**
+     * 并行分析候选条目，在途任务数量受并行度限制
+     */
+    private Map<Integer, Rewritten> analyze(FileChannel in, List<Entry> entries, ArchiveMasker.Result result)
+            throws IOException, InterruptedException {
+        Map<Integer, Rewritten> rewritten = new HashMap<>();
+        List<Future<Rewritten>> pending = new ArrayList<>();
+        try {
+            for (Entry entry : entries) {
+                if (entry.name.startsWith("META-INF/") && entry.name.toUpperCase().endsWith(".SF")) {
+                    result.signed = true;
+                }
+                FormatHandler handler = ArchiveMasker.handlerFor(entry.name);
+                if (handler == null || entry.name.endsWith("/") || (entry.flags & FLAG_ENCRYPTED) != 0
+                        || (entry.method != METHOD_STORED && entry.method != METHOD_DEFLATED)
+                        || entry.size > ArchiveMasker.MAX_ENTRY_SIZE) {
+                    continue;
+                }
+                result.candidates++;
+                pending.add(masker.getExecutor().submit(() -> analyzeEntry(in, entry, handler)));
+                if (pending.size() >= masker.getParallelism() * 2) {
+                    collect(pending, rewritten, result);
+                }
+            }
+            collect(pending, rewritten, result);
+        } finally {
+            for (Future<Rewritten> future : pending) {
+                future.cancel(true);
+            }
+        }
+        return rewritten;
+    }
+
+    private void collect(List<Future<Rewritten>> pending, Map<Integer, Rewritten> rewritten,
+                         ArchiveMasker.Result result) throws IOException, InterruptedException {
+        for (Future<Rewritten> future : pending) {
+            Rewritten entry;
+            try {
+                entry = future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            }
+            if (entry != null) {
+                rewritten.put(entry.index, entry);
+                result.rewrittenEntries++;
+                result.replacements += entry.replacements;
+            }
+        }
+        pending.clear();
+    }
+
+    private Rewritten analyzeEntry(FileChannel in, Entry entry, FormatHandler handler) throws IOException {
+        ByteBuffer header = read(in, entry.localOffset, LOCAL_HEADER_SIZE);
+        if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new IOException("本地文件头损坏: " + entry.name);
+        }
+        long dataOffset = entry.localOffset + LOCAL_HEADER_SIZE
+                + (header.getShort(26) & 0xffff) + (header.getShort(28) & 0xffff);
+        byte[] data = read(in, dataOffset, (int) entry.compressedSize).array();
+        byte[] content = entry.method == METHOD_DEFLATED ? inflate(data, (int) entry.size, entry.name) : data;
+
+        ArchiveMasker.Masked masked = masker.maskEntry(entry.name, handler, content);
+        if (masked == null) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(masked.content);
+        byte[] stored = entry.method == METHOD_DEFLATED ? deflate(masked.content) : masked.content;
+        return new Rewritten(entry.index, stored, entry.method, crc.getValue(), masked.content.length,
+                masked.replacements);
+    }
+
+    /**
+     * 按原文件中的顺序写出条目，再写出更新后的中央目录
+     */
+    private void write(FileChannel in, Path target, ByteBuffer end, List<Entry> entries, long centralDirectoryOffset,
+                       long base, Map<Integer, Rewritten> rewrittenEntries) throws IOException {
+        List<Entry> byOffset = new ArrayList<>(entries);
+        byOffset.sort(Comparator.comparingLong(entry -> entry.localOffset));
+        for (int i = 0; i < byOffset.size(); i++) {
+            byOffset.get(i).end = i + 1 < byOffset.size() ? byOffset.get(i + 1).localOffset : centralDirectoryOffset;
+        }
+
+        long[] newOffsets = new long[entries.size()];
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            // 第一个条目之前的内容（例如可执行 jar 的启动脚本）原样保留，写出的偏移量沿用原来的起点
+            long first = byOffset.isEmpty() ? centralDirectoryOffset : byOffset.get(0).localOffset;
+            transfer(in, 0, first, out);
+
+            for (Entry entry : byOffset) {
+                newOffsets[entry.index] = out.position();
+                Rewritten rewritten = rewrittenEntries.get(entry.index);
+                if (rewritten == null) {
+                    transfer(in, entry.localOffset, entry.end - entry.localOffset, out);
+                    continue;
+                }
+                ByteBuffer header = read(in, entry.localOffset, LOCAL_HEADER_SIZE);
+                int extraLengths = (header.getShort(26) & 0xffff) + (header.getShort(28) & 0xffff);
+                ByteBuffer nameAndExtra = read(in, entry.localOffset + LOCAL_HEADER_SIZE, extraLengths);
+                // 大小已知，不再使用数据描述符
+                header.putShort(6, (short) (entry.flags & ~FLAG_DATA_DESCRIPTOR));
+                header.putShort(8, (short) rewritten.method);
+                header.putInt(14, (int) rewritten.crc);
+                header.putInt(18, rewritten.data.length);
+                header.putInt(22, (int) rewritten.size);
+                writeFully(out, header);
+                writeFully(out, nameAndExtra);
+                writeFully(out, ByteBuffer.wrap(rewritten.data));
+            }
+
+            long newCentralDirectoryOffset = out.position();
+            for (Entry entry : entries) {
+                ByteBuffer record = entry.record.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+                record.clear();
+                Rewritten rewritten = rewrittenEntries.get(entry.index);
+                if (rewritten != null) {
+                    record.putShort(8, (short) (entry.flags & ~FLAG_DATA_DESCRIPTOR));
+                    record.putShort(10, (short) rewritten.method);
+                    record.putInt(16, (int) rewritten.crc);
+                    record.putInt(20, rewritten.data.length);
+                    record.putInt(24, (int) rewritten.size);
+                }
+                record.putInt(42, (int) (newOffsets[entry.index] - base));
+                writeFully(out, record);
+            }
+            long newCentralDirectorySize = out.position() - newCentralDirectoryOffset;
+            if (newCentralDirectoryOffset - base > 0xffffffffL) {
+                throw new IOException("重写后的归档需要 ZIP64");
+            }
+
+            end.clear();
+            end.putInt(12, (int) newCentralDirectorySize);
+            end.putInt(16, (int) (newCentralDirectoryOffset - base));
+            writeFully(out, end);
+        }
+    }
+
+    /**
+     * 从文件末尾查找中央目录结束记录（包含注释）
+     */
+    private static ByteBuffer readEndOfCentralDirectory(FileChannel in) throws IOException {
+        long fileSize = in.size();
+        int tailSize = (int) Math.min(fileSize, END_OF_CENTRAL_DIRECTORY_SIZE + 0xffff);
+        ByteBuffer tail = read(in, fileSize - tailSize, tailSize);
+        for (int i = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) != END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                continue;
+            }
+            int commentLength = tail.getShort(i + 20) & 0xffff;
+            if (i + END_OF_CENTRAL_DIRECTORY_SIZE + commentLength != tailSize) {
+                continue;
+            }
+            if ((tail.getShort(i + 10) & 0xffff) == 0xffff || tail.getInt(i + 16) == -1
+                    || (i >= 20 && tail.getInt(i - 20) == ZIP64_LOCATOR_SIGNATURE)) {
+                throw new IOException("不支持 ZIP64 归档");
+            }
+            ByteBuffer end = ByteBuffer.allocate(tailSize - i).order(ByteOrder.LITTLE_ENDIAN);
+            end.put(tail.array(), i, tailSize - i);
+            end.clear();
+            return end;
+        }
+        throw new IOException("不是有效的 ZIP 归档");
+    }
+
+    private static List<Entry> readCentralDirectory(FileChannel in, long offset, long size, long base)
+            throws IOException {
+        ByteBuffer directory = read(in, offset, (int) size);
+        List<Entry> entries = new ArrayList<>();
+        int position = 0;
+        while (position + CENTRAL_HEADER_SIZE <= size && directory.getInt(position) == CENTRAL_HEADER_SIGNATURE) {
+            int nameLength = directory.getShort(position + 28) & 0xffff;
+            int extraLength = directory.getShort(position + 30) & 0xffff;
+            int commentLength = directory.getShort(position + 32) & 0xffff;
+            int length = CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+            ByteBuffer record = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+            record.put(directory.array(), position, length);
+            record.clear();
+            int flags = record.getShort(8) & 0xffff;
+            Charset charset = (flags & FLAG_UTF8) != 0 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1;
+            String name = new String(directory.array(), position + CENTRAL_HEADER_SIZE, nameLength, charset);
+            entries.add(new Entry(entries.size(), name, record, base));
+            position += length;
+        }
+        return entries;
+    }
+
+    private static byte[] inflate(byte[] data, int size, String name) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data);
+            byte[] content = new byte[size];
+            int length = 0;
+            while (length < size && !inflater.finished()) {
+                int read = inflater.inflate(content, length, size - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += read;
+            }
+            if (length != size) {
+                throw new IOException("条目解压后的大小与中央目录不符: " + name);
+            }
+            return content;
+        } catch (DataFormatException e) {
+            throw new IOException("条目数据损坏: " + name, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] deflate(byte[] content) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, content.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static ByteBuffer read(FileChannel in, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("归档文件被截断");
+            }
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    private static void transfer(FileChannel in, long position, long length, FileChannel out) throws IOException {
+        long done = 0;
+        while (done < length) {
+            long transferred = in.transferTo(position + done, length - done, out);
+            if (transferred <= 0) {
+                throw new IOException("归档文件被截断");
+            }
+            done += transferred;
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.redaction.git;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 本地 git 仓库的只读访问
+ *
+ * 直接读取 .git 目录中的引用、松散对象和 pack 文件，不依赖 git 命令或网络，
+ * 也不需要检出任何版本。对象按需读取，增量对象的基础对象放在有限大小的缓存中。
+ *
+ * @version 1.0.0
+ */
+public final class GitRepository implements Closeable {
+    static final int OBJ_COMMIT = 1;
+    static final int OBJ_TREE = 2;
+    static final int OBJ_BLOB = 3;
+    static final int OBJ_TAG = 4;
+    static final int OBJ_OFS_DELTA = 6;
+    static final int OBJ_REF_DELTA = 7;
+
+    private static final long DELTA_BASE_CACHE_BYTES = 32L * 1024 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path gitDir;
+    private final Path objectsDir;
+    private final List<PackFile> packs = new ArrayList<>();
+    private final DeltaBaseCache deltaBaseCache = new DeltaBaseCache(DELTA_BASE_CACHE_BYTES);
+
+    private GitRepository(Path gitDir) throws IOException {
+        this.gitDir = gitDir;
+        this.objectsDir = gitDir.resolve("objects");
+        Path packDir = objectsDir.resolve("pack");
+        if (Files.isDirectory(packDir)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(packDir, "*.idx")) {
+                for (Path idxPath : stream) {
+                    String name = idxPath.getFileName().toString();
+                    Path packPath = packDir.resolve(name.substring(0, name.length() - 4) + ".pack");
+                    if (Files.isRegularFile(packPath)) {
+                        packs.add(new PackFile(idxPath, packPath, this));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 打开仓库
+     *
+     * @param path 工作区目录或 .git 目录，工作区中的 .git 也可以是指向实际目录的 gitdir 文件
+     * @return 路径下没有 git 仓库时返回 null
+     */
+    @Nullable
+    public static GitRepository open(@NotNull Path path) throws IOException {
+        Path gitDir = resolveGitDir(path);
+        return gitDir != null ? new GitRepository(gitDir) : null;
+    }
+
+    @Nullable
+    private static Path resolveGitDir(Path path) throws IOException {
+        if (Files.isDirectory(path.resolve("objects")) && Files.isRegularFile(path.resolve("HEAD"))) {
+            return path;
+        }
+        Path dotGit = path.resolve(".git");
+        if (Files.isDirectory(dotGit)) {
+            return dotGit;
+        }
+        if (Files.isRegularFile(dotGit)) {
+            String content = new String(Files.readAllBytes(dotGit), StandardCharsets.UTF_8).trim();
+            if (content.startsWith("gitdir:")) {
+                Path target = path.resolve(content.substring("gitdir:".length()).trim()).normalize();
+                // 工作树目录下的 commondir 指向共享的对象库
+                Path commonDir = target.resolve("commondir");
+                if (Files.isRegularFile(commonDir)) {
+                    String common = new String(Files.readAllBytes(commonDir), StandardCharsets.UTF_8).trim();
+                    return target.resolve(common).normalize();
+                }
+                return target;
+            }
+        }
+        return null;
+    }
+
+    @NotNull
+    public Path getGitDir() {
+        return gitDir;
+    }
+
+    /**
+     * 读取所有引用（分支、标签、HEAD 等）指向的对象 ID
+     */
+    @NotNull
+    List<byte[]> readRefTips() throws IOException {
+        Set<String> tips = new LinkedHashSet<>();
+        Path packedRefs = gitDir.resolve("packed-refs");
+        if (Files.isRegularFile(packedRefs)) {
+            for (String line : Files.readAllLines(packedRefs, StandardCharsets.UTF_8)) {
+                if (line.startsWith("#") || line.isEmpty()) {
+                    continue;
+                }
+                // "^<id>" 为上一行标签剥离后的对象
+                String id = line.startsWith("^") ? line.substring(1) : line.substring(0, Math.min(40, line.length()));
+                if (isHexId(id)) {
+                    tips.add(id);
+                }
+            }
+        }
+        Path refsDir = gitDir.resolve("refs");
+        if (Files.isDirectory(refsDir)) {
+            try (Stream<Path> files = Files.walk(refsDir)) {
+                for (Path ref : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                    String id = readRef(ref);
+                    if (id != null) {
+                        tips.add(id);
+                    }
+                }
+            }
+        }
+        String head = readRef(gitDir.resolve("HEAD"));
+        if (head != null) {
+            tips.add(head);
+        }
+
+        List<byte[]> result = new ArrayList<>(tips.size());
+        for (String tip : tips) {
+            result.add(fromHex(tip));
+        }
+        return result;
+    }
+
+    @Nullable
+    private String readRef(Path ref) throws IOException {
+        if (!Files.isRegularFile(ref)) {
+            return null;
+        }
+        String content = new String(Files.readAllBytes(ref), StandardCharsets.UTF_8).trim();
+        // 符号引用（ref: refs/heads/...）指向的分支已在遍历 refs 目录时收集
+        return isHexId(content) ? content : null;
+    }
+
+    /**
+     * 读取对象
+     *
+     * @param maxSize 对象大小上限，超过时返回的对象不包含内容（{@link GitObject#data} 为 null）
+     * @return 对象不存在时返回 null（例如浅克隆中缺失的历史）
+     */
+    @Nullable
+    GitObject read(byte[] id, long maxSize) throws IOException {
+        for (PackFile pack : packs) {
+            long offset = pack.findOffset(id);
+            if (offset >= 0) {
+                return pack.load(offset, maxSize);
+            }
+        }
+        return readLoose(id, maxSize);
+    }
+
+    /**
+     * 读取增量对象的基础对象，结果放入缓存供同一增量链上的其他对象复用
+     */
+    GitObject loadDeltaBase(PackFile pack, long offset) throws IOException {
+        GitObject cached = deltaBaseCache.get(pack, offset);
+        if (cached != null) {
+            return cached;
+        }
+        GitObject base = pack.load(offset, Long.MAX_VALUE);
+        deltaBaseCache.put(pack, offset, base);
+        return base;
+    }
+
+    @Nullable
+    private GitObject readLoose(byte[] id, long maxSize) throws IOException {
+        String hex = toHex(id);
+        Path file = objectsDir.resolve(hex.substring(0, 2)).resolve(hex.substring(2));
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (InputStream in = new InflaterInputStream(Files.newInputStream(file))) {
+            // 头部格式："<type> <size>\0"
+            StringBuilder header = new StringBuilder();
+            int c;
+            while ((c = in.read()) > 0) {
+                header.append((char) c);
+            }
+            int space = header.indexOf(" ");
+            if (c != 0 || space < 0) {
+                throw new IOException("松散对象头部无效: " + file);
+            }
+            int type = typeOf(header.substring(0, space));
+            long size = Long.parseLong(header.substring(space + 1));
+            if (size > maxSize) {
+                return new GitObject(type, size, null);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) size);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return new GitObject(type, size, out.toByteArray());
+        }
+    }
+
+    private static int typeOf(String name) throws IOException {
+        switch (name) {
+            case "commit":
+                return OBJ_COMMIT;
+            case "tree":
+                return OBJ_TREE;
+            case "blob":
+                return OBJ_BLOB;
+            case "tag":
+                return OBJ_TAG;
+            default:
+                throw new IOException("未知的对象类型: " + name);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (PackFile pack : packs) {
+            pack.close();
+        }
+        packs.clear();
+    }
+
+    static boolean isHexId(String value) {
+        if (value.length() != 40) {
+            return false;
+        }
+        for (int i = 0; i < 40; i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @NotNull
+    public static String toHex(byte[] id) {
+        return toHex(id, 0);
+    }
+
+    @NotNull
+    static String toHex(byte[] buffer, int offset) {
+        char[] chars = new char[40];
+        for (int i = 0; i < 20; i++) {
+            int b = buffer[offset + i] & 0xFF;
+            chars[i * 2] = HEX[b >> 4];
+            chars[i * 2 + 1] = HEX[b & 0xF];
+        }
+        return new String(chars);
+    }
+
+    @NotNull
+    static byte[] fromHex(CharSequence hex) {
+        byte[] id = new byte[20];
+        for (int i = 0; i < 20; i++) {
+            id[i] = (byte) ((Character.digit(hex.charAt(i * 2), 16) << 4) | Character.digit(hex.charAt(i * 2 + 1), 16));
+        }
+        return id;
+    }
+
+    /**
+     * git 对象
+     */
+    static final class GitObject {
+        final int type;
+        final long size;
+        // 超过读取上限时为 null
+        final byte[] data;
+
+        GitObject(int type, long size, byte[] data) {
+            this.type = type;
+            this.size = size;
+            this.data = data;
+        }
+    }
+
+    /**
+     * 增量基础对象缓存，按总字节数淘汰最久未使用的对象
+     */
+    private static final class DeltaBaseCache {
+        private final long maxBytes;
+        private final LinkedHashMap<Key, GitObject> entries = new LinkedHashMap<>(256, 0.75f, true);
+        private long bytes;
+
+        DeltaBaseCache(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized GitObject get(PackFile pack, long offset) {
+            return entries.get(new Key(pack, offset));
+        }
+
+        synchronized void put(PackFile pack, long offset, GitObject object) {
+            if (object.data == null || object.data.length > maxBytes / 4) {
+                return;
+            }
+            GitObject previous = entries.put(new Key(pack, offset), object);
+            if (previous != null) {
+                bytes -= previous.data.length;
+            }
+            bytes += object.data.length;
+            Iterator<GitObject> iterator = entries.values().iterator();
+            while (bytes > maxBytes && iterator.hasNext()) {
+                bytes -= iterator.next().data.length;
+                iterator.remove();
+            }
+        }
+
+        private static final class Key {
+            final PackFile pack;
+            final long offset;
+
+            Key(PackFile pack, long offset) {
+                this.pack = pack;
+                this.offset = offset;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (!(o instanceof Key)) {
+                    return false;
+                }
+                Key other = (Key) o;
+                return pack == other.pack && offset == other.offset;
+            }
+
+            @Override
+            public int hashCode() {
+                return System.identityHashCode(pack) * 31 + Long.hashCode(offset);
+            }
+        }
+    }
+}
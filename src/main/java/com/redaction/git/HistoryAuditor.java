@@ -0,0 +1,502 @@
+package com.redaction.git;
+
+import com.redaction.detect.CommitGate;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * git 历史敏感信息审计
+ *
+ * 从所有引用出发收集可达的提交，按拓扑顺序（父提交总在子提交之前）遍历每个提交的目录树：
+ * - 已经遍历过的树对象直接跳过，未修改的子目录不会被重复展开
+ * - 每个配置文件和源文件 blob 只在第一次出现时记录引入它的提交和路径，并提交给线程池扫描
+ * - 同一路径中规则和值（按哈希比较）都相同的命中只归属于最早出现的提交，
+ *   之后修改该文件其他内容的提交不会重复报告它
+ *
+ * blob 按需从 pack 中读取，不检出任何版本；在途的扫描任务数量有上限，内存占用与历史长度无关。
+ *
+ * @version 1.0.0
+ */
+public final class HistoryAuditor {
+    /**
+     * 超过该大小的 blob 不扫描
+     */
+    public static final long MAX_BLOB_SIZE = 5L * 1024 * 1024;
+
+    // 用于判断二进制内容的前缀长度
+    private static final int BINARY_PROBE = 8000;
+
+    /**
+     * 审计进度回调
+     */
+    public interface Monitor {
+        boolean isCanceled();
+
+        void progress(@NotNull String text, double fraction);
+    }
+
+    private final GitRepository repository;
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    /**
+     * @param executor    扫描 blob 使用的线程池
+     * @param parallelism 线程池的并行度，用于限制在途任务数量
+     */
+    public HistoryAuditor(@NotNull GitRepository repository, @NotNull ExecutorService executor, int parallelism) {
+        this.repository = repository;
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * 执行审计
+     */
+    @NotNull
+    public Result audit(@NotNull Monitor monitor) throws IOException, InterruptedException {
+        Result result = new Result();
+        monitor.progress("正在收集提交...", 0);
+        List<Commit> commits = collectCommits(monitor, result);
+        result.commits = commits.size();
+
+        ObjectIdSet visitedTrees = new ObjectIdSet(commits.size() * 4);
+        ObjectIdSet seenBlobs = new ObjectIdSet(commits.size() * 2);
+        Semaphore inFlight = new Semaphore(parallelism * 4);
+        int permits = parallelism * 4;
+
+        try {
+            for (int i = 0; i < commits.size() && !monitor.isCanceled(); i++) {
+                Commit commit = commits.get(i);
+                monitor.progress("正在遍历提交 " + commit.hex().substring(0, 8), (double) i / commits.size());
+                walkTree(commit, i, visitedTrees, seenBlobs, inFlight, result, monitor);
+            }
+        } finally {
+            // 等待所有在途的扫描任务结束
+            inFlight.acquire(permits);
+            inFlight.release(permits);
+        }
+        result.trees = visitedTrees.size();
+        result.canceled = monitor.isCanceled();
+        return result;
+    }
+
+    /**
+     * 从所有引用出发收集可达的提交，按拓扑顺序排序（父提交在前）
+     */
+    private List<Commit> collectCommits(Monitor monitor, Result result) throws IOException {
+        ObjectIdSet visited = new ObjectIdSet();
+        Deque<byte[]> pending = new ArrayDeque<>(repository.readRefTips());
+        List<Commit> commits = new ArrayList<>();
+        while (!pending.isEmpty() && !monitor.isCanceled()) {
+            byte[] id = pending.pop();
+            if (!visited.add(id)) {
+                continue;
+            }
+            GitRepository.GitObject object = repository.read(id, Long.MAX_VALUE);
+            if (object == null) {
+                // 浅克隆中缺失的历史
+                result.missingObjects.incrementAndGet();
+                continue;
+            }
+            if (object.type == GitRepository.OBJ_TAG) {
+                byte[] target = headerId(object.data, "object ");
+                if (target != null) {
+                    pending.push(target);
+                }
+                continue;
+            }
+            if (object.type != GitRepository.OBJ_COMMIT) {
+                continue;
+            }
+            Commit commit = parseCommit(id, object.data);
+            commits.add(commit);
+            for (byte[] parent : commit.parents) {
+                pending.push(parent);
+            }
+        }
+        return topologicalOrder(commits);
+    }
+
+    /**
+     * 深度优先后序遍历，保证每个提交排在它的所有父提交之后
+     *
+     * 不依赖提交时间，时间相同或被改写过的历史也能得到正确的引入提交。
+     */
+    private static List<Commit> topologicalOrder(List<Commit> commits) {
+        Map<ByteBuffer, Commit> byId = new HashMap<>(commits.size() * 2);
+        for (Commit commit : commits) {
+            byId.put(ByteBuffer.wrap(commit.id), commit);
+        }
+        ObjectIdSet emitted = new ObjectIdSet(commits.size());
+        List<Commit> ordered = new ArrayList<>(commits.size());
+        Deque<Commit> stack = new ArrayDeque<>();
+        for (Commit root : commits) {
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Commit commit = stack.peek();
+                if (emitted.contains(commit.id)) {
+                    stack.pop();
+                    continue;
+                }
+                boolean pushed = false;
+                // 倒序压栈，第一个父提交最先处理
+                for (int i = commit.parents.size() - 1; i >= 0; i--) {
+                    Commit parent = byId.get(ByteBuffer.wrap(commit.parents.get(i)));
+                    if (parent != null && !emitted.contains(parent.id)) {
+                        stack.push(parent);
+                        pushed = true;
+                    }
+                }
+                if (!pushed) {
+                    stack.pop();
+                    emitted.add(commit.id);
+                    ordered.add(commit);
+                }
+            }
+        }
+        return ordered;
+    }
+
+    private void walkTree(Commit commit, int commitIndex, ObjectIdSet visitedTrees, ObjectIdSet seenBlobs,
+                          Semaphore inFlight, Result result, Monitor monitor)
+            throws IOException, InterruptedException {
+        Deque<Object[]> pending = new ArrayDeque<>();
+        pending.push(new Object[]{commit.tree, ""});
+        while (!pending.isEmpty() && !monitor.isCanceled()) {
+            Object[] entry = pending.pop();
+            byte[] treeId = (byte[]) entry[0];
+            String prefix = (String) entry[1];
+            if (!visitedTrees.add(treeId)) {
+                continue;
+            }
+            GitRepository.GitObject tree = repository.read(treeId, Long.MAX_VALUE);
+            if (tree == null || tree.type != GitRepository.OBJ_TREE) {
+                result.missingObjects.incrementAndGet();
+                continue;
+            }
+
+            // 条目格式："<mode> <name>\0<20 字节 ID>"
+            byte[] data = tree.data;
+            int i = 0;
+            while (i < data.length) {
+                int space = indexOf(data, (byte) ' ', i);
+                int nul = indexOf(data, (byte) 0, space + 1);
+                if (space < 0 || nul < 0 || nul + 21 > data.length) {
+                    break;
+                }
+                String mode = new String(data, i, space - i, StandardCharsets.US_ASCII);
+                String path = prefix + new String(data, space + 1, nul - space - 1, StandardCharsets.UTF_8);
+                int idOffset = nul + 1;
+                i = idOffset + 20;
+
+                if (mode.equals("40000")) {
+                    pending.push(new Object[]{Arrays.copyOfRange(data, idOffset, idOffset + 20), path + "/"});
+                } else if (mode.startsWith("100") && CommitGate.isGatedFile(path)
+                        && seenBlobs.add(data, idOffset)) {
+                    byte[] blobId = Arrays.copyOfRange(data, idOffset, idOffset + 20);
+                    inFlight.acquire();
+                    try {
+                        executor.execute(() -> {
+                            try {
+                                scanBlob(blobId, commit, commitIndex, path, result);
+                            } finally {
+                                inFlight.release();
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        inFlight.release();
+                        throw e;
+                    }
+                }
+                // 子模块（160000）和符号链接（120000）不扫描
+            }
+        }
+    }
+
+    private void scanBlob(byte[] blobId, Commit commit, int commitIndex, String path, Result result) {
+        try {
+            GitRepository.GitObject blob = repository.read(blobId, MAX_BLOB_SIZE);
+            if (blob == null) {
+                result.missingObjects.incrementAndGet();
+                return;
+            }
+            if (blob.data == null || isBinary(blob.data)) {
+                result.skippedBlobs.incrementAndGet();
+                return;
+            }
+            result.scannedBlobs.incrementAndGet();
+            String text = new String(blob.data, StandardCharsets.UTF_8);
+            int[] lineStarts = CommitGate.lineStarts(text);
+            List<CommitGate.Finding> findings = new ArrayList<>();
+            CommitGate.scanLines(path, text, lineStarts, 0, lineStarts.length - 1, findings);
+            if (findings.isEmpty()) {
+                return;
+            }
+            String blobHex = GitRepository.toHex(blobId);
+            String commitHex = commit.hex();
+            for (CommitGate.Finding finding : findings) {
+                // 扫描任务并行完成，保留拓扑顺序最早的一次
+                result.firstSightings.merge(new SightingKey(path, finding),
+                    new Sighting(blobHex, commitHex, commitIndex, finding),
+                    (existing, candidate) -> candidate.commitIndex < existing.commitIndex ? candidate : existing);
+            }
+        } catch (IOException | RuntimeException e) {
+            result.unreadableObjects.incrementAndGet();
+        }
+    }
+
+    private static Commit parseCommit(byte[] id, byte[] data) {
+        Commit commit = new Commit(id);
+        int i = 0;
+        while (i < data.length && data[i] != '\n') {
+            int end = indexOf(data, (byte) '\n', i);
+            if (end < 0) {
+                end = data.length;
+            }
+            if (startsWith(data, i, "tree ")) {
+                commit.tree = GitRepository.fromHex(new String(data, i + 5, 40, StandardCharsets.US_ASCII));
+            } else if (startsWith(data, i, "parent ")) {
+                commit.parents.add(GitRepository.fromHex(new String(data, i + 7, 40, StandardCharsets.US_ASCII)));
+            }
+            i = end + 1;
+        }
+        return commit;
+    }
+
+    private static byte[] headerId(byte[] data, String field) {
+        int i = 0;
+        while (i < data.length && data[i] != '\n') {
+            int end = indexOf(data, (byte) '\n', i);
+            if (startsWith(data, i, field) && i + field.length() + 40 <= data.length) {
+                return GitRepository.fromHex(new String(data, i + field.length(), 40, StandardCharsets.US_ASCII));
+            }
+            if (end < 0) {
+                break;
+            }
+            i = end + 1;
+        }
+        return null;
+    }
+
+    private static boolean isBinary(byte[] data) {
+        int limit = Math.min(data.length, BINARY_PROBE);
+        for (int i = 0; i < limit; i++) {
+            if (data[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, String prefix) {
+        if (offset + prefix.length() > data.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (data[offset + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] data, byte value, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Commit {
+        final byte[] id;
+        final List<byte[]> parents = new ArrayList<>(1);
+        byte[] tree;
+
+        Commit(byte[] id) {
+            this.id = id;
+        }
+
+        String hex() {
+            return GitRepository.toHex(id);
+        }
+    }
+
+    /**
+     * 命中的去重键：路径、规则和值的哈希
+     */
+    private static final class SightingKey {
+        final String path;
+        final String rule;
+        final long valueHash;
+
+        SightingKey(String path, CommitGate.Finding finding) {
+            this.path = path;
+            this.rule = finding.getRule();
+            this.valueHash = finding.getValueHash();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SightingKey)) {
+                return false;
+            }
+            SightingKey other = (SightingKey) o;
+            return valueHash == other.valueHash && path.equals(other.path) && rule.equals(other.rule);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, rule, valueHash);
+        }
+    }
+
+    /**
+     * 一处命中最早出现的提交和 blob
+     */
+    private static final class Sighting {
+        final String blobId;
+        final String commitId;
+        final int commitIndex;
+        final CommitGate.Finding finding;
+
+        Sighting(String blobId, String commitId, int commitIndex, CommitGate.Finding finding) {
+            this.blobId = blobId;
+            this.commitId = commitId;
+            this.commitIndex = commitIndex;
+            this.finding = finding;
+        }
+    }
+
+    /**
+     * 首次引入敏感信息的提交和路径，只包含该提交新引入的命中
+     */
+    public static final class Introduction {
+        private final String blobId;
+        private final String commitId;
+        private final int commitIndex;
+        private final String path;
+        private final List<CommitGate.Finding> findings;
+
+        Introduction(String blobId, String commitId, int commitIndex, String path, List<CommitGate.Finding> findings) {
+            this.blobId = blobId;
+            this.commitId = commitId;
+            this.commitIndex = commitIndex;
+            this.path = path;
+            this.findings = findings;
+        }
+
+        public String getBlobId() {
+            return blobId;
+        }
+
+        public String getCommitId() {
+            return commitId;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public List<CommitGate.Finding> getFindings() {
+            return findings;
+        }
+    }
+
+    /**
+     * 审计结果
+     */
+    public static final class Result {
+        // 每处命中（路径、规则、值）最早出现的位置
+        private final ConcurrentMap<SightingKey, Sighting> firstSightings = new ConcurrentHashMap<>();
+        private final AtomicInteger scannedBlobs = new AtomicInteger();
+        private final AtomicInteger skippedBlobs = new AtomicInteger();
+        private final AtomicInteger missingObjects = new AtomicInteger();
+        private final AtomicInteger unreadableObjects = new AtomicInteger();
+        private int commits;
+        private int trees;
+        private boolean canceled;
+
+        /**
+         * 按引入提交的先后排序的结果
+         */
+        @NotNull
+        public List<Introduction> getIntroductions() {
+            // 按引入的提交和 blob 分组
+            Map<String, Introduction> grouped = new HashMap<>();
+            for (Sighting sighting : firstSightings.values()) {
+                grouped.computeIfAbsent(sighting.commitId + ' ' + sighting.blobId,
+                    key -> new Introduction(sighting.blobId, sighting.commitId, sighting.commitIndex,
+                        sighting.finding.getPath(), new ArrayList<>()))
+                    .findings.add(sighting.finding);
+            }
+            List<Introduction> sorted = new ArrayList<>(grouped.values());
+            for (Introduction introduction : sorted) {
+                introduction.findings.sort(Comparator.comparingInt(CommitGate.Finding::getLine)
+                    .thenComparingInt(CommitGate.Finding::getColumn));
+            }
+            sorted.sort(Comparator.comparingInt((Introduction intro) -> intro.commitIndex).thenComparing(intro -> intro.path));
+            return sorted;
+        }
+
+        public int getFindingCount() {
+            return firstSightings.size();
+        }
+
+        public int getCommits() {
+            return commits;
+        }
+
+        public int getScannedBlobs() {
+            return scannedBlobs.get();
+        }
+
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        /**
+         * 生成用于展示的摘要
+         */
+        @NotNull
+        public String toSummary() {
+            return toSummary(getIntroductions());
+        }
+
+        private String toSummary(List<Introduction> introductions) {
+            return "提交: " + commits + "，目录树: " + trees + "\n" +
+                   "扫描 blob: " + scannedBlobs.get() + "，跳过（二进制或过大）: " + skippedBlobs.get() + "\n" +
+                   "缺失对象: " + missingObjects.get() + "，读取失败: " + unreadableObjects.get() + "\n" +
+                   "引入敏感信息的 blob: " + introductions.size() + "（敏感项 " + getFindingCount() + " 处）" +
+                   (canceled ? "\n（审计已取消，结果不完整）" : "");
+        }
+
+        /**
+         * 生成完整报告，每处发现一行："<提交> <路径>:<行>:<列>: [规则]"
+         */
+        @NotNull
+        public String toReport() {
+            List<Introduction> introductions = getIntroductions();
+            StringBuilder report = new StringBuilder(toSummary(introductions)).append("\n\n");
+            for (Introduction introduction : introductions) {
+                for (CommitGate.Finding finding : introduction.findings) {
+                    report.append(introduction.commitId).append(' ').append(finding).append('\n');
+                }
+            }
+            return report.toString();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.redaction.git;
+
+/**
+ * 对象 ID 集合
+ *
+ * 以开放寻址方式把 20 字节的对象 ID 直接存放在 long 数组中，每个 ID 占 3 个 long，
+ * 不为每个 ID 创建对象，百万级的对象也只占用几十 MB 内存。非线程安全。
+ *
+ * @version 1.0.0
+ */
+final class ObjectIdSet {
+    private static final int SLOT_LONGS = 3;
+    // 第三个 long 的高位标记槽位已被占用
+    private static final long PRESENT = 1L << 32;
+
+    private long[] table;
+    private int mask;
+    private int size;
+
+    ObjectIdSet() {
+        this(1024);
+    }
+
+    ObjectIdSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        table = new long[capacity * SLOT_LONGS];
+        mask = capacity - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 添加对象 ID
+     *
+     * @return 集合中原来没有该 ID 时返回 true
+     */
+    boolean add(byte[] id) {
+        return add(id, 0);
+    }
+
+    boolean add(byte[] buffer, int offset) {
+        long w0 = readLong(buffer, offset);
+        long w1 = readLong(buffer, offset + 8);
+        long w2 = (readInt(buffer, offset + 16) & 0xFFFFFFFFL) | PRESENT;
+        if (insert(table, mask, w0, w1, w2)) {
+            if (++size * 2 > mask + 1) {
+                resize();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    boolean contains(byte[] id) {
+        long w0 = readLong(id, 0);
+        long w1 = readLong(id, 8);
+        long w2 = (readInt(id, 16) & 0xFFFFFFFFL) | PRESENT;
+        int slot = (int) w0 & mask;
+        while (true) {
+            int base = slot * SLOT_LONGS;
+            if (table[base + 2] == 0) {
+                return false;
+            }
+            if (table[base] == w0 && table[base + 1] == w1 && table[base + 2] == w2) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static boolean insert(long[] table, int mask, long w0, long w1, long w2) {
+        // 对象 ID 本身是哈希值，直接取低位作为槽位
+        int slot = (int) w0 & mask;
+        while (true) {
+            int base = slot * SLOT_LONGS;
+            if (table[base + 2] == 0) {
+                table[base] = w0;
+                table[base + 1] = w1;
+                table[base + 2] = w2;
+                return true;
+            }
+            if (table[base] == w0 && table[base + 1] == w1 && table[base + 2] == w2) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void resize() {
+        int capacity = (mask + 1) << 1;
+        long[] newTable = new long[capacity * SLOT_LONGS];
+        int newMask = capacity - 1;
+        for (int base = 0; base < table.length; base += SLOT_LONGS) {
+            if (table[base + 2] != 0) {
+                insert(newTable, newMask, table[base], table[base + 1], table[base + 2]);
+            }
+        }
+        table = newTable;
+        mask = newMask;
+    }
+
+    private static long readLong(byte[] b, int offset) {
+        return ((long) readInt(b, offset) << 32) | (readInt(b, offset + 4) & 0xFFFFFFFFL);
+    }
+
+    private static int readInt(byte[] b, int offset) {
+        return ((b[offset] & 0xFF) << 24) | ((b[offset + 1] & 0xFF) << 16)
+             | ((b[offset + 2] & 0xFF) << 8) | (b[offset + 3] & 0xFF);
+    }
+}
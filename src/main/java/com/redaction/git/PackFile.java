@@ -0,0 +1,301 @@
+package com.redaction.git;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 单个 pack 文件及其 v2 索引
+ *
+ * 索引文件以内存映射方式读取，按对象 ID 二分查找偏移量；pack 文件通过位置读取访问，
+ * 多个线程可以同时读取不同对象。支持 OFS_DELTA 和 REF_DELTA 两种增量对象。
+ *
+ * @version 1.0.0
+ */
+final class PackFile implements Closeable {
+    private static final int IDX_MAGIC = 0xFF744F63;
+    private static final int HEADER_PROBE = 32;
+
+    private final Path packPath;
+    private final FileChannel pack;
+    private final MappedByteBuffer idx;
+    private final GitRepository repository;
+    private final int[] fanout = new int[256];
+    private final int count;
+    private final int namesOffset;
+    private final int offsetsOffset;
+    private final int bigOffsetsOffset;
+
+    PackFile(Path idxPath, Path packPath, GitRepository repository) throws IOException {
+        this.packPath = packPath;
+        this.repository = repository;
+        try (FileChannel idxChannel = FileChannel.open(idxPath, StandardOpenOption.READ)) {
+            this.idx = idxChannel.map(FileChannel.MapMode.READ_ONLY, 0, idxChannel.size());
+        }
+        if (idx.getInt(0) != IDX_MAGIC || idx.getInt(4) != 2) {
+            throw new IOException("不支持的 pack 索引格式: " + idxPath);
+        }
+        for (int i = 0; i < 256; i++) {
+            fanout[i] = idx.getInt(8 + i * 4);
+        }
+        this.count = fanout[255];
+        this.namesOffset = 8 + 256 * 4;
+        int crcOffset = namesOffset + count * 20;
+        this.offsetsOffset = crcOffset + count * 4;
+        this.bigOffsetsOffset = offsetsOffset + count * 4;
+        this.pack = FileChannel.open(packPath, StandardOpenOption.READ);
+    }
+
+    int getObjectCount() {
+        return count;
+    }
+
+    /**
+     * 查找对象在 pack 中的偏移量
+     *
+     * @return 偏移量，对象不在此 pack 中时返回 -1
+     */
+    long findOffset(byte[] id) {
+        int first = id[0] & 0xFF;
+        int low = first == 0 ? 0 : fanout[first - 1];
+        int high = fanout[first];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareName(mid, id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid;
+            } else {
+                return offsetAt(mid);
+            }
+        }
+        return -1;
+    }
+
+    private int compareName(int index, byte[] id) {
+        int base = namesOffset + index * 20;
+        for (int i = 0; i < 20; i++) {
+            int a = idx.get(base + i) & 0xFF;
+            int b = id[i] & 0xFF;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return 0;
+    }
+
+    private long offsetAt(int index) {
+        int value = idx.getInt(offsetsOffset + index * 4);
+        if ((value & 0x80000000) == 0) {
+            return value;
+        }
+        return idx.getLong(bigOffsetsOffset + (value & 0x7FFFFFFF) * 8);
+    }
+
+    /**
+     * 读取指定偏移量处的对象，必要时应用增量
+     *
+     * @param maxSize 对象大小上限，超过时返回的对象不包含内容
+     */
+    GitRepository.GitObject load(long offset, long maxSize) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_PROBE);
+        readFully(header, offset);
+        header.flip();
+
+        int c = header.get() & 0xFF;
+        int type = (c >> 4) & 0x7;
+        long size = c & 0x0F;
+        int shift = 4;
+        while ((c & 0x80) != 0) {
+            c = header.get() & 0xFF;
+            size |= (long) (c & 0x7F) << shift;
+            shift += 7;
+        }
+
+        switch (type) {
+            case GitRepository.OBJ_COMMIT:
+            case GitRepository.OBJ_TREE:
+            case GitRepository.OBJ_BLOB:
+            case GitRepository.OBJ_TAG:
+                if (size > maxSize) {
+                    return new GitRepository.GitObject(type, size, null);
+                }
+                return new GitRepository.GitObject(type, size, inflate(offset + header.position(), size));
+            case GitRepository.OBJ_OFS_DELTA: {
+                c = header.get() & 0xFF;
+                long distance = c & 0x7F;
+                while ((c & 0x80) != 0) {
+                    c = header.get() & 0xFF;
+                    distance = ((distance + 1) << 7) | (c & 0x7F);
+                }
+                byte[] delta = inflate(offset + header.position(), size);
+                GitRepository.GitObject base = repository.loadDeltaBase(this, offset - distance);
+                return applyDelta(base, delta, maxSize);
+            }
+            case GitRepository.OBJ_REF_DELTA: {
+                byte[] baseId = new byte[20];
+                header.get(baseId);
+                byte[] delta = inflate(offset + header.position(), size);
+                GitRepository.GitObject base = repository.read(baseId, Long.MAX_VALUE);
+                if (base == null) {
+                    throw new IOException("缺少增量基础对象: " + GitRepository.toHex(baseId));
+                }
+                return applyDelta(base, delta, maxSize);
+            }
+            default:
+                throw new IOException("未知的 pack 对象类型 " + type + ": " + packPath + "@" + offset);
+        }
+    }
+
+    /**
+     * 按 git 增量格式（复制 / 插入指令）由基础对象重建目标对象
+     */
+    private static GitRepository.GitObject applyDelta(GitRepository.GitObject base, byte[] delta, long maxSize)
+            throws IOException {
+        int[] pos = {0};
+        long baseSize = readDeltaSize(delta, pos);
+        long resultSize = readDeltaSize(delta, pos);
+        if (resultSize > maxSize) {
+            return new GitRepository.GitObject(base.type, resultSize, null);
+        }
+        byte[] source = base.data;
+        if (source == null || baseSize != source.length) {
+            throw new IOException("增量基础对象大小不匹配");
+        }
+        byte[] result = new byte[(int) resultSize];
+        int out = 0;
+        int i = pos[0];
+        while (i < delta.length) {
+            int cmd = delta[i++] & 0xFF;
+            if ((cmd & 0x80) != 0) {
+                int copyOffset = 0;
+                int copySize = 0;
+                for (int bit = 0; bit < 4; bit++) {
+                    if ((cmd & (1 << bit)) != 0) {
+                        copyOffset |= (delta[i++] & 0xFF) << (bit * 8);
+                    }
+                }
+                for (int bit = 0; bit < 3; bit++) {
+                    if ((cmd & (0x10 << bit)) != 0) {
+                        copySize |= (delta[i++] & 0xFF) << (bit * 8);
+                    }
+                }
+                if (copySize == 0) {
+                    copySize = 0x10000;
+                }
+                System.arraycopy(source, copyOffset, result, out, copySize);
+                out += copySize;
+            } else if (cmd != 0) {
+                System.arraycopy(delta, i, result, out, cmd);
+                i += cmd;
+                out += cmd;
+            } else {
+                throw new IOException("无效的增量指令");
+            }
+        }
+        if (out != result.length) {
+            throw new IOException("增量结果大小不匹配");
+        }
+        return new GitRepository.GitObject(base.type, resultSize, result);
+    }
+
+    private static long readDeltaSize(byte[] delta, int[] pos) {
+        long value = 0;
+        int shift = 0;
+        int c;
+        do {
+            c = delta[pos[0]++] & 0xFF;
+            value |= (long) (c & 0x7F) << shift;
+            shift += 7;
+        } while ((c & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * 从指定位置开始解压，得到恰好 size 字节的内容
+     */
+    private byte[] inflate(long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IOException("对象过大: " + size);
+        }
+        byte[] result = new byte[(int) size];
+        Inflater inflater = new Inflater();
+        try (InputStream in = new ChannelInputStream(pack, position)) {
+            byte[] input = new byte[8192];
+            int produced = 0;
+            while (produced < result.length) {
+                if (inflater.needsInput()) {
+                    int read = in.read(input);
+                    if (read < 0) {
+                        throw new EOFException("pack 数据不完整: " + packPath);
+                    }
+                    inflater.setInput(input, 0, read);
+                }
+                int n = inflater.inflate(result, produced, result.length - produced);
+                produced += n;
+                if (n == 0 && (inflater.finished() || inflater.needsDictionary())) {
+                    break;
+                }
+            }
+            if (produced != result.length) {
+                throw new IOException("解压后大小不匹配: " + packPath);
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new IOException("pack 数据损坏: " + packPath, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = pack.read(buffer, position + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        pack.close();
+    }
+
+    /**
+     * 基于位置读取的输入流，不改变通道的当前位置，可在多线程间共享通道
+     */
+    private static final class ChannelInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+
+        ChannelInputStream(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = channel.read(ByteBuffer.wrap(b, off, len), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.redaction.index;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.redaction.detect.DetectionEngine;
+import com.redaction.detect.KeywordAutomaton;
+import com.redaction.detect.SensitiveRules;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * 敏感配置键索引
+ *
+ * 在 IDE 建立索引时扫描配置文件，记录每个文件中命中敏感关键字的配置键和字符串字面量，
+ * 以及连接串协议、IP 地址等字面量特征。索引由 IDE 增量维护，
+ * 整个项目的脱敏、统计等操作只需查询索引即可定位含有敏感信息的文件，无需读取全部文件内容。
+ *
+ * 索引键：
+ * - 敏感关键字本身（如 password、host）：配置键或引号内的字面量中出现该关键字
+ * - {@code @} 前缀的字面量特征（如 @jdbc、@ip）：行内出现连接串协议或 IP 地址
+ * - {@code @token}：行内有默认参数的候选词检测器（已知格式的凭据、个人信息、高熵字符串）的命中，
+ *   这类值不依赖键名，出现在 value= 之类的普通键下也需要处理
+ *
+ * @version 1.0.0
+ */
+public final class SensitiveKeyIndex extends ScalarIndexExtension<String> {
+    public static final ID<String, Void> NAME = ID.create("com.redaction.SensitiveKeyIndex");
+
+    private static final int VERSION = 3;
+
+    public static final String LITERAL_KEY_PREFIX = "@";
+    public static final String IP_ADDRESS_KEY = LITERAL_KEY_PREFIX + "ip";
+    public static final String TOKEN_KEY = LITERAL_KEY_PREFIX + "token";
+
+    /**
+     * 被索引的配置文件扩展名（Java 源码由 PSI / 词法分析单独处理）
+     */
+    public static final Set<String> INDEXED_EXTENSIONS = SensitiveRules.CONFIG_FILE_EXTENSIONS;
+
+    // 连接串协议特征，出现在行内任意位置即记录
+    private static final List<String> SCHEME_MARKERS = Arrays.asList(
+        "jdbc:", "mongodb://", "redis://", "http://", "https://", "zookeeper://", "dubbo://", "amqp://", "nacos://"
+    );
+
+    private static final KeywordAutomaton VOCABULARY;
+    private static final String[] INDEX_KEYS;
+    private static final boolean[] SCHEME_KEYWORD;
+
+    static {
+        Map<String, Boolean> vocabulary = new LinkedHashMap<>();
+        for (String keyword : SensitiveRules.SENSITIVE_FIELD_KEYWORDS) {
+            vocabulary.put(keyword.toLowerCase(Locale.ROOT), false);
+        }
+        for (String keyword : SensitiveRules.JSON_SENSITIVE_KEYS) {
+            vocabulary.putIfAbsent(keyword.toLowerCase(Locale.ROOT), false);
+        }
+        // JSON 中的 dependencies 对象会整体脱敏版本号
+        vocabulary.putIfAbsent("dependencies", false);
+        for (String marker : SCHEME_MARKERS) {
+            vocabulary.put(marker, true);
+        }
+
+        VOCABULARY = new KeywordAutomaton(vocabulary.keySet());
+        INDEX_KEYS = new String[VOCABULARY.size()];
+        SCHEME_KEYWORD = new boolean[VOCABULARY.size()];
+        int id = 0;
+        for (Map.Entry<String, Boolean> entry : vocabulary.entrySet()) {
+            SCHEME_KEYWORD[id] = entry.getValue();
+            INDEX_KEYS[id] = entry.getValue() ? LITERAL_KEY_PREFIX + schemeName(entry.getKey()) : entry.getKey();
+            id++;
+        }
+    }
+
+    @NotNull
+    @Override
+    public ID<String, Void> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, Void, FileContent> getIndexer() {
+        return inputData -> collectKeys(inputData.getContentAsText());
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return SensitiveKeyIndex::isIndexed;
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * 判断文件是否会被该索引收录
+     */
+    public static boolean isIndexed(@NotNull VirtualFile file) {
+        String extension = file.getExtension();
+        return extension != null && INDEXED_EXTENSIONS.contains(extension.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 查询作用域内命中任意敏感索引键的文件，需在读操作且索引就绪时调用
+     */
+    @NotNull
+    public static Set<VirtualFile> getFilesWithHits(@NotNull GlobalSearchScope scope) {
+        FileBasedIndex index = FileBasedIndex.getInstance();
+        Set<VirtualFile> files = new HashSet<>();
+        for (String key : INDEX_KEYS) {
+            files.addAll(index.getContainingFiles(NAME, key, scope));
+        }
+        files.addAll(index.getContainingFiles(NAME, IP_ADDRESS_KEY, scope));
+        files.addAll(index.getContainingFiles(NAME, TOKEN_KEY, scope));
+        return files;
+    }
+
+    /**
+     * 查询单个文件命中的敏感索引键，需在读操作且索引就绪时调用
+     */
+    @NotNull
+    public static Set<String> getHits(@NotNull Project project, @NotNull VirtualFile file) {
+        return FileBasedIndex.getInstance().getFileData(NAME, file, project).keySet();
+    }
+
+    /**
+     * 逐行扫描文本，收集命中的索引键
+     *
+     * 关键字只在配置键（第一个 = 或 : 之前）或引号内的字面量中出现时记录，
+     * 连接串协议、IP 地址和候选词检测器的命中在行内任意位置出现即记录。
+     */
+    @NotNull
+    static Map<String, Void> collectKeys(@NotNull CharSequence text) {
+        Map<String, Void> keys = new HashMap<>();
+        int length = text.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && text.charAt(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            if (!isCommentLine(text, lineStart, lineEnd)) {
+                collectLineKeys(text, lineStart, lineEnd, keys);
+            }
+            lineStart = lineEnd + 1;
+        }
+        return keys;
+    }
+
+    private static void collectLineKeys(CharSequence text, int lineStart, int lineEnd, Map<String, Void> keys) {
+        int separator = lineEnd;
+        for (int i = lineStart; i < lineEnd; i++) {
+            char c = text.charAt(i);
+            if (c == '=' || c == ':') {
+                separator = i;
+                break;
+            }
+        }
+        int keySeparator = separator;
+        VOCABULARY.scan(text, lineStart, lineEnd, (id, start, end) -> {
+            if (SCHEME_KEYWORD[id] || start < keySeparator || isInsideQuotes(text, lineStart, start)) {
+                keys.put(INDEX_KEYS[id], null);
+            }
+            return true;
+        });
+        if (SensitiveRules.containsIpAddress(text, lineStart, lineEnd)) {
+            keys.put(IP_ADDRESS_KEY, null);
+        }
+        if (!keys.containsKey(TOKEN_KEY) && containsTokenFinding(text, lineStart, lineEnd)) {
+            keys.put(TOKEN_KEY, null);
+        }
+    }
+
+    /**
+     * 用默认参数的候选词检测器检查一行，已脱敏的命中不计
+     *
+     * 设置中的熵阈值比默认值宽松时，索引可能漏掉文件，此时调用方不应使用索引过滤
+     */
+    private static boolean containsTokenFinding(CharSequence text, int lineStart, int lineEnd) {
+        boolean[] found = {false};
+        DetectionEngine.CONFIG.scanTokens(text, lineStart, lineEnd, (rule, start, end) -> {
+            if (DetectionEngine.isMasked(text, start, end)) {
+                return true;
+            }
+            found[0] = true;
+            return false;
+        });
+        return found[0];
+    }
+
+    private static boolean isCommentLine(CharSequence text, int lineStart, int lineEnd) {
+        int i = lineStart;
+        while (i < lineEnd && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        if (i >= lineEnd) {
+            return true;
+        }
+        char c = text.charAt(i);
+        return c == '#' || (c == '/' && i + 1 < lineEnd && text.charAt(i + 1) == '/');
+    }
+
+    private static boolean isInsideQuotes(CharSequence text, int lineStart, int position) {
+        char open = 0;
+        for (int i = lineStart; i < position; i++) {
+            char c = text.charAt(i);
+            if (open == 0 && (c == '"' || c == '\'')) {
+                open = c;
+            } else if (c == open) {
+                open = 0;
+            }
+        }
+        return open != 0;
+    }
+
+    private static String schemeName(String marker) {
+        int end = marker.indexOf(':');
+        return end > 0 ? marker.substring(0, end) : marker;
+    }
+}
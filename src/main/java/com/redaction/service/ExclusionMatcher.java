@@ -0,0 +1,379 @@
+package com.redaction.service;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 编译后的文件排除规则匹配器
+ *
+ * 规则来源：
+ * - 内置默认规则（构建输出、依赖目录、二进制文件、锁文件等）
+ * - 各级目录下的 .gitignore
+ * - 内容根目录下的 .redactionignore（语法与 .gitignore 相同）
+ *
+ * 规则按 .gitignore 语义编译为：文件名集合、扩展名表、按路径段组织的前缀树，
+ * 只有带通配符的少数规则才回退为正则表达式。目录的判断结果会被缓存，
+ * 一旦目录被排除，其整个子树都不会再被列举或匹配。
+ *
+ * 与 git 相同，最后命中的规则决定结果：依次应用内置默认规则、由外到内的各级 .gitignore、
+ * 最后是 .redactionignore，因此 .redactionignore 中的 !bin/ 可以重新包含默认排除的目录。
+ *
+ * @version 1.0.0
+ */
+public final class ExclusionMatcher {
+    private static final Logger LOG = Logger.getInstance(ExclusionMatcher.class);
+
+    public static final String REDACTION_IGNORE_FILE = ".redactionignore";
+    private static final String GIT_IGNORE_FILE = ".gitignore";
+
+    // 内置默认规则，与 .gitignore 语法相同
+    private static final List<String> DEFAULT_RULES = Arrays.asList(
+        "target/", "build/", ".git/", ".idea/", "node_modules/", "dist/", "out/", "bin/", "vendor/",
+        "**/webapp/assets/plugins/",
+        "*.class", "*.jar", "*.war", "*.zip", "*.tar", "*.gz",
+        "*.jpg", "*.jpeg", "*.png", "*.gif", "*.ico", "*.svg",
+        "*.ttf", "*.woff", "*.woff2", "*.eot",
+        "package-lock.json", "yarn.lock", "composer.lock", "Gemfile.lock"
+    );
+
+    private final RuleSet defaultRules;
+    private final Set<VirtualFile> roots;
+    private final Map<VirtualFile, Optional<RuleSet>> gitIgnoreRules = new ConcurrentHashMap<>();
+    private final Map<VirtualFile, Optional<RuleSet>> redactionIgnoreRules = new ConcurrentHashMap<>();
+    private final Map<VirtualFile, Boolean> directoryVerdicts = new ConcurrentHashMap<>();
+
+    private ExclusionMatcher(@NotNull Collection<VirtualFile> roots) {
+        this.defaultRules = RuleSet.compile(DEFAULT_RULES);
+        this.roots = new HashSet<>(roots);
+    }
+
+    /**
+     * 为项目创建匹配器，项目的内容根目录作为 .redactionignore 的查找位置
+     */
+    @NotNull
+    public static ExclusionMatcher create(@NotNull Project project) {
+        return new ExclusionMatcher(Arrays.asList(ProjectRootManager.getInstance(project).getContentRoots()));
+    }
+
+    /**
+     * 为任意目录创建匹配器（例如不在项目内容根下的目录）
+     */
+    @NotNull
+    public static ExclusionMatcher create(@NotNull VirtualFile root) {
+        return new ExclusionMatcher(Collections.singletonList(root));
+    }
+
+    /**
+     * 判断目录是否被排除，父目录被排除时子目录一律被排除
+     */
+    public boolean isExcludedDirectory(@NotNull VirtualFile dir) {
+        Boolean verdict = directoryVerdicts.get(dir);
+        if (verdict != null) {
+            return verdict;
+        }
+        VirtualFile parent = dir.getParent();
+        boolean excluded = (parent != null && isExcludedDirectory(parent)) || matches(dir, true);
+        directoryVerdicts.put(dir, excluded);
+        return excluded;
+    }
+
+    /**
+     * 判断文件或目录是否被排除
+     */
+    public boolean isExcluded(@NotNull VirtualFile file) {
+        if (file.isDirectory()) {
+            return isExcludedDirectory(file);
+        }
+        VirtualFile parent = file.getParent();
+        return (parent != null && isExcludedDirectory(parent)) || matches(file, false);
+    }
+
+    private boolean matches(@NotNull VirtualFile file, boolean isDirectory) {
+        String name = file.getName();
+        boolean excluded = false;
+        // 自下而上查找带有规则的祖先目录，路径相对于规则文件所在目录
+        List<RuleSet> levels = new ArrayList<>();
+        List<String> levelPaths = new ArrayList<>();
+        RuleSet rootRules = null;
+        String rootPath = null;
+        StringBuilder relativePath = new StringBuilder(name);
+        for (VirtualFile ancestor = file.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            if (!excluded && defaultRules.verdict(name, relativePath, isDirectory) != null) {
+                excluded = true;
+            }
+            RuleSet rules = getRuleSet(gitIgnoreRules, ancestor, GIT_IGNORE_FILE);
+            if (rules != null) {
+                levels.add(rules);
+                levelPaths.add(relativePath.toString());
+            }
+            if (roots.contains(ancestor)) {
+                rootRules = getRuleSet(redactionIgnoreRules, ancestor, REDACTION_IGNORE_FILE);
+                rootPath = relativePath.toString();
+                break;
+            }
+            relativePath.insert(0, '/').insert(0, ancestor.getName());
+        }
+
+        // 由外到内应用，后命中的规则覆盖先前的结果
+        for (int i = levels.size() - 1; i >= 0; i--) {
+            Boolean verdict = levels.get(i).verdict(name, levelPaths.get(i), isDirectory);
+            if (verdict != null) {
+                excluded = verdict;
+            }
+        }
+        if (rootRules != null) {
+            Boolean verdict = rootRules.verdict(name, rootPath, isDirectory);
+            if (verdict != null) {
+                excluded = verdict;
+            }
+        }
+        return excluded;
+    }
+
+    @Nullable
+    private static RuleSet getRuleSet(@NotNull Map<VirtualFile, Optional<RuleSet>> cache, @NotNull VirtualFile dir,
+                                      @NotNull String fileName) {
+        return cache.computeIfAbsent(dir, d -> {
+            List<String> lines = new ArrayList<>();
+            readRules(d.findChild(fileName), lines);
+            return lines.isEmpty() ? Optional.empty() : Optional.of(RuleSet.compile(lines));
+        }).orElse(null);
+    }
+
+    private static void readRules(@Nullable VirtualFile ignoreFile, @NotNull List<String> lines) {
+        if (ignoreFile == null || ignoreFile.isDirectory()) {
+            return;
+        }
+        try {
+            String content = VfsUtilCore.loadText(ignoreFile);
+            lines.addAll(Arrays.asList(content.split("\r?\n")));
+        } catch (IOException e) {
+            LOG.warn("读取排除规则文件失败: " + ignoreFile.getPath(), e);
+        }
+    }
+
+    /**
+     * 一个规则文件编译后的规则集合
+     *
+     * 每条规则记录其在文件中的序号，同一文件内最后命中的规则决定结果
+     */
+    private static final class RuleSet {
+        // 不含斜杠的字面量规则：匹配任意层级的文件名 → 规则序号
+        private final Map<String, Integer> names = new HashMap<>();
+        private final Map<String, Integer> directoryNames = new HashMap<>();
+        // *.ext 规则
+        private final Map<String, Integer> extensions = new HashMap<>();
+        // 含斜杠的字面量规则：相对于规则文件所在目录的路径前缀树
+        private final TrieNode anchored = new TrieNode();
+        // 含通配符的规则
+        private final List<GlobRule> globs = new ArrayList<>();
+        // 取反规则（!pattern），在其后没有再被排除规则命中时重新包含
+        private final List<GlobRule> negations = new ArrayList<>();
+        private int ruleCount;
+
+        static RuleSet compile(@NotNull List<String> lines) {
+            RuleSet rules = new RuleSet();
+            for (String raw : lines) {
+                rules.add(raw);
+            }
+            return rules;
+        }
+
+        private void add(String raw) {
+            String line = raw.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                return;
+            }
+            boolean negated = line.startsWith("!");
+            if (negated) {
+                line = line.substring(1);
+            }
+            boolean directoryOnly = line.endsWith("/");
+            if (directoryOnly) {
+                line = line.substring(0, line.length() - 1);
+            }
+            boolean anchoredRule = line.indexOf('/') >= 0;
+            if (line.startsWith("/")) {
+                line = line.substring(1);
+            }
+            if (line.isEmpty()) {
+                return;
+            }
+            String pattern = line.toLowerCase(Locale.ROOT);
+            int index = ruleCount++;
+            if (negated) {
+                negations.add(new GlobRule(pattern, anchoredRule, directoryOnly, index));
+                return;
+            }
+
+            boolean wildcard = hasWildcard(pattern);
+            if (!anchoredRule && !wildcard) {
+                (directoryOnly ? directoryNames : names).put(pattern, index);
+            } else if (!anchoredRule && !directoryOnly && pattern.startsWith("*.") && !hasWildcard(pattern.substring(2))) {
+                extensions.put(pattern.substring(2), index);
+            } else if (anchoredRule && !wildcard) {
+                anchored.insert(pattern.split("/"), directoryOnly, index);
+            } else {
+                globs.add(new GlobRule(pattern, anchoredRule, directoryOnly, index));
+            }
+        }
+
+        /**
+         * 按最后命中的规则判断
+         *
+         * @return true 表示排除，false 表示被取反规则重新包含，null 表示没有规则命中
+         */
+        @Nullable
+        Boolean verdict(@NotNull String name, @NotNull CharSequence relativePath, boolean isDirectory) {
+            String lowerName = name.toLowerCase(Locale.ROOT);
+            String lowerPath = relativePath.toString().toLowerCase(Locale.ROOT);
+            int excludedBy = Math.max(lastNameMatch(lowerName, isDirectory), lastPathMatch(lowerPath, isDirectory));
+            int includedBy = -1;
+            for (GlobRule negation : negations) {
+                if (negation.index > includedBy
+                        && negation.matches(negation.anchored ? lowerPath : lowerName, isDirectory)) {
+                    includedBy = negation.index;
+                }
+            }
+            if (excludedBy < 0 && includedBy < 0) {
+                return null;
+            }
+            return excludedBy > includedBy;
+        }
+
+        private int lastNameMatch(String lowerName, boolean isDirectory) {
+            int last = names.getOrDefault(lowerName, -1);
+            if (isDirectory) {
+                last = Math.max(last, directoryNames.getOrDefault(lowerName, -1));
+            }
+            if (!isDirectory && !extensions.isEmpty()) {
+                for (int i = lowerName.indexOf('.'); i >= 0; i = lowerName.indexOf('.', i + 1)) {
+                    last = Math.max(last, extensions.getOrDefault(lowerName.substring(i + 1), -1));
+                }
+            }
+            for (GlobRule glob : globs) {
+                if (!glob.anchored && glob.index > last && glob.matches(lowerName, isDirectory)) {
+                    last = glob.index;
+                }
+            }
+            return last;
+        }
+
+        private int lastPathMatch(String lowerPath, boolean isDirectory) {
+            int last = anchored.lastMatch(lowerPath, isDirectory);
+            for (GlobRule glob : globs) {
+                if (glob.anchored && glob.index > last && glob.matches(lowerPath, isDirectory)) {
+                    last = glob.index;
+                }
+            }
+            return last;
+        }
+
+        private static boolean hasWildcard(String pattern) {
+            return pattern.indexOf('*') >= 0 || pattern.indexOf('?') >= 0 || pattern.indexOf('[') >= 0;
+        }
+    }
+
+    /**
+     * 路径段前缀树节点
+     */
+    private static final class TrieNode {
+        private final Map<String, TrieNode> children = new HashMap<>();
+        // 终止于该节点的最后一条规则的序号，分别记录匹配文件和目录的规则与只匹配目录的规则
+        private int fileRule = -1;
+        private int directoryRule = -1;
+
+        void insert(String[] segments, boolean directoryOnly, int index) {
+            TrieNode node = this;
+            for (String segment : segments) {
+                if (!segment.isEmpty()) {
+                    node = node.children.computeIfAbsent(segment, s -> new TrieNode());
+                }
+            }
+            if (directoryOnly) {
+                node.directoryRule = index;
+            } else {
+                node.fileRule = index;
+            }
+        }
+
+        int lastMatch(String path, boolean isDirectory) {
+            TrieNode node = this;
+            int start = 0;
+            while (node != null && start <= path.length()) {
+                int end = path.indexOf('/', start);
+                if (end < 0) {
+                    end = path.length();
+                }
+                node = node.children.get(path.substring(start, end));
+                start = end + 1;
+            }
+            if (node == null) {
+                return -1;
+            }
+            return isDirectory ? Math.max(node.fileRule, node.directoryRule) : node.fileRule;
+        }
+    }
+
+    /**
+     * 带通配符的规则，编译为正则表达式
+     */
+    private static final class GlobRule {
+        final boolean anchored;
+        final boolean directoryOnly;
+        final int index;
+        final Pattern pattern;
+
+        GlobRule(String glob, boolean anchored, boolean directoryOnly, int index) {
+            this.anchored = anchored;
+            this.directoryOnly = directoryOnly;
+            this.index = index;
+            this.pattern = Pattern.compile(toRegex(glob));
+        }
+
+        boolean matches(String target, boolean isDirectory) {
+            return (isDirectory || !directoryOnly) && pattern.matcher(target).matches();
+        }
+
+        private static String toRegex(String glob) {
+            StringBuilder regex = new StringBuilder();
+            for (int i = 0; i < glob.length(); i++) {
+                char c = glob.charAt(i);
+                if (c == '*') {
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        // "**/" 匹配零个或多个目录
+                        boolean slash = i + 2 < glob.length() && glob.charAt(i + 2) == '/';
+                        regex.append(slash ? "(?:.*/)?" : ".*");
+                        i += slash ? 2 : 1;
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                } else if (c == '?') {
+                    regex.append("[^/]");
+                } else if (c == '[') {
+                    int close = glob.indexOf(']', i);
+                    if (close < 0) {
+                        regex.append("\\[");
+                    } else {
+                        regex.append(glob, i, close + 1);
+                        i = close;
+                    }
+                } else {
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                }
+            }
+            return regex.toString();
+        }
+    }
+}
@@ -0,0 +1,586 @@
+package com.redaction.service;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.io.ByteBufferUtil;
+import com.redaction.format.TextEdits;
+import org.jetbrains.annotations.NotNull;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * 可恢复脱敏的本地加密保险库
+ *
+ * 原地脱敏时把每处替换前的原值保存下来，之后可以一次性恢复。由两个文件组成：
+ * - vault.dat：只追加的数据文件，每个原值单独用 AES-GCM 加密（随机 nonce，文件路径作为附加认证数据），
+ *   密钥保存在 IDE 的密码库中
+ * - vault.idx：紧凑的二进制索引，文件头和路径表（每个路径的记录区间）之后是按（路径, 偏移量）排序的定长记录；
+ *   打开时内存映射并只解析路径表，记录在查询时才从映射中读取，原值在恢复时才按记录中的位置从数据文件读取和解密
+ *
+ * 记录中的偏移量和长度是掩码在脱敏后文件中的位置，同时保存掩码的 CRC32，
+ * 恢复前校验该位置的内容仍是当时写入的掩码，文件在脱敏后被修改过的位置不会被错误覆盖。
+ * 同一文件再次脱敏或部分恢复时，其余记录的偏移量按替换的长度变化平移。
+ *
+ * 记录分两步：{@link #prepare} 在后台线程中加密原值并写入数据文件，{@link #commit} 只在内存中登记记录，
+ * 可以在写命令中调用。恢复时通过 {@link #openReader} 只打开一次数据文件，逐条按位置读取。
+ *
+ * @version 1.0.0
+ */
+final class MaskVault {
+    private static final Logger LOG = Logger.getInstance(MaskVault.class);
+
+    private static final int MAGIC = 0x52564c54;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 24;
+    private static final String INDEX_FILE_NAME = "vault.idx";
+    private static final String DATA_FILE_NAME = "vault.dat";
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    /**
+     * 一处可恢复的替换
+     */
+    static final class Entry {
+        final String path;
+        // 掩码在脱敏后文件中的位置
+        final int offset;
+        final int length;
+        final int maskCrc;
+        // 加密后的原值在数据文件中的位置
+        final long dataOffset;
+        final int dataLength;
+
+        Entry(String path, int offset, int length, int maskCrc, long dataOffset, int dataLength) {
+            this.path = path;
+            this.offset = offset;
+            this.length = length;
+            this.maskCrc = maskCrc;
+            this.dataOffset = dataOffset;
+            this.dataLength = dataLength;
+        }
+
+        Entry shifted(int delta) {
+            return new Entry(path, offset + delta, length, maskCrc, dataOffset, dataLength);
+        }
+    }
+
+    /**
+     * 原值已写入数据文件、尚未登记的一次脱敏
+     */
+    static final class Recording {
+        final String path;
+        final List<Entry> added;
+        // 每处替换：{原文终点, 长度变化}
+        final List<int[]> changes;
+        // 写入时数据文件的版本，之后被压缩或删除时记录中的位置失效
+        final int generation;
+
+        Recording(String path, List<Entry> added, List<int[]> changes, int generation) {
+            this.path = path;
+            this.added = added;
+            this.changes = changes;
+            this.generation = generation;
+        }
+    }
+
+    private static final class Replacement {
+        final int start;
+        final int end;
+        final String replacement;
+
+        Replacement(int start, int end, String replacement) {
+            this.start = start;
+            this.end = end;
+            this.replacement = replacement;
+        }
+    }
+
+    private final Path indexFile;
+    private final Path dataFile;
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+    // 数据文件的追加、压缩和删除互斥；与 this 同时持有时先取 this
+    private final Object dataLock = new Object();
+    private volatile int generation;
+
+    // 内存映射的索引文件，没有索引文件时为 null
+    private ByteBuffer index;
+    private int recordsStart;
+    // 索引文件中的路径 → {第一条记录, 记录数}
+    private final Map<String, int[]> indexedPaths = new TreeMap<>();
+    // 打开之后有变化的文件的全部记录，优先于索引文件中的记录；空列表表示已全部删除
+    private final Map<String, List<Entry>> changed = new HashMap<>();
+    private boolean dirty;
+
+    private MaskVault(Path dir, byte[] key) {
+        this.indexFile = dir.resolve(INDEX_FILE_NAME);
+        this.dataFile = dir.resolve(DATA_FILE_NAME);
+        this.key = new SecretKeySpec(key, "AES");
+    }
+
+    /**
+     * 打开保险库，索引文件不存在时为空
+     *
+     * @param dir 保险库所在目录
+     * @param key AES 密钥（32 字节）
+     */
+    @NotNull
+    static MaskVault open(@NotNull Path dir, @NotNull byte[] key) throws IOException {
+        MaskVault vault = new MaskVault(dir, key);
+        vault.loadIndex();
+        return vault;
+    }
+
+    /**
+     * 加密一个文件本次脱敏的全部原值并写入数据文件，需要在替换写入文档之前、读写操作之外调用
+     *
+     * @param path  文件路径
+     * @param text  脱敏前的文本
+     * @param edits 本次的替换
+     * @return 待登记的记录，替换写入文档时交给 {@link #commit}
+     */
+    @NotNull
+    Recording prepare(@NotNull String path, @NotNull CharSequence text, @NotNull TextEdits edits)
+            throws IOException {
+        List<Replacement> replacements = collect(edits);
+        byte[] aad = path.getBytes(StandardCharsets.UTF_8);
+        List<byte[]> encrypted = new ArrayList<>(replacements.size());
+        for (Replacement edit : replacements) {
+            encrypted.add(encrypt(text.subSequence(edit.start, edit.end).toString(), aad));
+        }
+
+        List<int[]> changes = new ArrayList<>(replacements.size());
+        List<Entry> added = new ArrayList<>(replacements.size());
+        synchronized (dataLock) {
+            Files.createDirectories(dataFile.getParent());
+            try (FileChannel data = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                long position = data.size();
+                int delta = 0;
+                for (int i = 0; i < replacements.size(); i++) {
+                    Replacement edit = replacements.get(i);
+                    ByteBuffer buffer = ByteBuffer.wrap(encrypted.get(i));
+                    int dataLength = buffer.remaining();
+                    while (buffer.hasRemaining()) {
+                        data.write(buffer, position + buffer.position());
+                    }
+                    added.add(new Entry(path, edit.start + delta, edit.replacement.length(), crc(edit.replacement),
+                            position, dataLength));
+                    int change = edit.replacement.length() - (edit.end - edit.start);
+                    changes.add(new int[]{edit.end, change});
+                    position += dataLength;
+                    delta += change;
+                }
+                data.force(false);
+            }
+            return new Recording(path, added, changes, generation);
+        }
+    }
+
+    /**
+     * 登记 {@link #prepare} 写入的记录，只修改内存中的索引
+     *
+     * @throws IOException 准备之后数据文件已被压缩，原值需要重新写入
+     */
+    synchronized void commit(@NotNull Recording recording) throws IOException {
+        if (recording.generation != generation) {
+            throw new IOException("保险库数据文件已重写，原值需要重新保存: " + recording.path);
+        }
+        // 已有记录位于本次替换之后的部分按长度变化平移
+        List<Entry> merged = shifted(entries(recording.path), recording.changes);
+        merged.addAll(recording.added);
+        merged.sort(Comparator.comparingInt(entry -> entry.offset));
+        changed.put(recording.path, merged);
+        dirty = true;
+    }
+
+    /**
+     * 所有带有记录的文件路径
+     */
+    @NotNull
+    synchronized Set<String> getPaths() {
+        Set<String> paths = new TreeSet<>(indexedPaths.keySet());
+        for (Map.Entry<String, List<Entry>> file : changed.entrySet()) {
+            if (file.getValue().isEmpty()) {
+                paths.remove(file.getKey());
+            } else {
+                paths.add(file.getKey());
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * 一个文件的全部记录，按偏移量排序
+     */
+    @NotNull
+    synchronized List<Entry> getEntries(@NotNull String path) {
+        return new ArrayList<>(entries(path));
+    }
+
+    /**
+     * 判断文本中记录的位置是否仍是当时写入的掩码
+     */
+    static boolean matches(@NotNull Entry entry, @NotNull CharSequence text) {
+        return entry.offset + entry.length <= text.length()
+                && crc(text.subSequence(entry.offset, entry.offset + entry.length).toString()) == entry.maskCrc;
+    }
+
+    /**
+     * 打开数据文件用于读取原值，一次恢复中的所有记录共用同一个通道
+     */
+    @NotNull
+    OriginalReader openReader() throws IOException {
+        synchronized (dataLock) {
+            return new OriginalReader(FileChannel.open(dataFile, StandardOpenOption.READ), generation);
+        }
+    }
+
+    /**
+     * 读取并解密原值，用完后关闭
+     */
+    final class OriginalReader implements Closeable {
+        private final FileChannel data;
+        // 打开时数据文件的版本，之后被压缩或删除时通道仍指向旧文件
+        private final int generation;
+
+        private OriginalReader(FileChannel data, int generation) {
+            this.data = data;
+            this.generation = generation;
+        }
+
+        /**
+         * 读取并解密一条记录的原值
+         *
+         * @throws IOException 打开之后数据文件已被重写，记录中的位置不再对应这个通道
+         */
+        @NotNull
+        String read(@NotNull Entry entry) throws IOException {
+            if (generation != MaskVault.this.generation) {
+                throw new IOException("保险库数据文件已重写，需要重新读取: " + entry.path);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(entry.dataLength);
+            while (buffer.hasRemaining()) {
+                if (data.read(buffer, entry.dataOffset + buffer.position()) < 0) {
+                    throw new IOException("保险库数据文件被截断");
+                }
+            }
+            return decrypt(buffer.array(), entry.path.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() throws IOException {
+            data.close();
+        }
+    }
+
+    /**
+     * 删除一个文件中已恢复的记录，其余记录按恢复造成的长度变化平移
+     *
+     * @param path     文件路径
+     * @param restored 已写回文档的恢复替换（掩码的位置 → 原值）
+     */
+    synchronized void remove(@NotNull String path, @NotNull TextEdits restored) {
+        List<int[]> changes = new ArrayList<>(restored.size());
+        Set<Integer> restoredOffsets = new HashSet<>();
+        restored.forEach((start, end, replacement) -> {
+            changes.add(new int[]{end, replacement.length() - (end - start)});
+            restoredOffsets.add(start);
+        });
+        List<Entry> remaining = new ArrayList<>();
+        for (Entry entry : entries(path)) {
+            if (!restoredOffsets.contains(entry.offset)) {
+                remaining.add(entry);
+            }
+        }
+        changed.put(path, shifted(remaining, changes));
+        dirty = true;
+    }
+
+    /**
+     * 把索引写回磁盘；所有记录都已恢复时删除保险库文件，否则压缩数据文件，去掉已恢复和未登记的原值
+     */
+    synchronized void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        synchronized (dataLock) {
+            Map<String, List<Entry>> all = new TreeMap<>();
+            for (String path : getPaths()) {
+                all.put(path, entries(path));
+            }
+            if (all.isEmpty()) {
+                releaseIndex();
+                changed.clear();
+                Files.deleteIfExists(indexFile);
+                Files.deleteIfExists(dataFile);
+                generation++;
+                dirty = false;
+                return;
+            }
+            Files.createDirectories(indexFile.getParent());
+            compactData(all);
+
+            List<String> paths = new ArrayList<>(all.keySet());
+            byte[][] encodedPaths = new byte[paths.size()][];
+            int size = HEADER_SIZE;
+            int count = 0;
+            for (int i = 0; i < paths.size(); i++) {
+                encodedPaths[i] = paths.get(i).getBytes(StandardCharsets.UTF_8);
+                size += 12 + encodedPaths[i].length;
+                count += all.get(paths.get(i)).size();
+            }
+            size += count * RECORD_SIZE;
+
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(paths.size()).putInt(count);
+            int first = 0;
+            for (int i = 0; i < paths.size(); i++) {
+                int records = all.get(paths.get(i)).size();
+                buffer.putInt(encodedPaths[i].length).put(encodedPaths[i]).putInt(first).putInt(records);
+                first += records;
+            }
+            for (List<Entry> list : all.values()) {
+                for (Entry entry : list) {
+                    buffer.putInt(entry.offset).putInt(entry.length).putInt(entry.maskCrc)
+                          .putLong(entry.dataOffset).putInt(entry.dataLength);
+                }
+            }
+            buffer.flip();
+
+            Path temp = indexFile.resolveSibling(INDEX_FILE_NAME + ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(false);
+            }
+            // 替换前解除旧索引的映射（Windows 上不能替换仍被映射的文件），期间记录全部保存在内存中
+            changed.clear();
+            changed.putAll(all);
+            releaseIndex();
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            loadIndex();
+            changed.clear();
+            dirty = false;
+        }
+    }
+
+    /**
+     * 记录总数
+     */
+    synchronized int size() {
+        int count = 0;
+        for (Map.Entry<String, int[]> file : indexedPaths.entrySet()) {
+            if (!changed.containsKey(file.getKey())) {
+                count += file.getValue()[1];
+            }
+        }
+        for (List<Entry> list : changed.values()) {
+            count += list.size();
+        }
+        return count;
+    }
+
+    /**
+     * 内存映射索引文件，只解析文件头和路径表
+     */
+    private void loadIndex() throws IOException {
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.remaining() < HEADER_SIZE || mapped.getInt() != MAGIC || mapped.getInt() != VERSION) {
+                throw new IOException("保险库索引格式无效: " + indexFile);
+            }
+            int pathCount = mapped.getInt();
+            int count = mapped.getInt();
+            Map<String, int[]> paths = new TreeMap<>();
+            for (int i = 0; i < pathCount; i++) {
+                byte[] path = new byte[mapped.getInt()];
+                mapped.get(path);
+                int first = mapped.getInt();
+                int records = mapped.getInt();
+                if (first < 0 || records < 0 || first + records > count) {
+                    throw new IOException("保险库索引损坏: " + indexFile);
+                }
+                paths.put(new String(path, StandardCharsets.UTF_8), new int[]{first, records});
+            }
+            if (mapped.position() + (long) count * RECORD_SIZE > mapped.limit()) {
+                throw new IOException("保险库索引被截断: " + indexFile);
+            }
+            index = mapped;
+            recordsStart = mapped.position();
+            indexedPaths.putAll(paths);
+        } catch (RuntimeException e) {
+            throw new IOException("保险库索引损坏: " + indexFile, e);
+        }
+        LOG.info("已映射保险库索引: " + size() + " 处替换");
+    }
+
+    /**
+     * 解除索引文件的映射
+     */
+    private void releaseIndex() {
+        if (index != null) {
+            ByteBufferUtil.cleanBuffer(index);
+            index = null;
+        }
+        indexedPaths.clear();
+    }
+
+    /**
+     * 一个文件的当前记录：有变化时取内存中的记录，否则从映射的索引中读取
+     */
+    private List<Entry> entries(String path) {
+        List<Entry> list = changed.get(path);
+        if (list != null) {
+            return list;
+        }
+        int[] range = indexedPaths.get(path);
+        if (range == null) {
+            return new ArrayList<>();
+        }
+        list = new ArrayList<>(range[1]);
+        for (int i = range[0]; i < range[0] + range[1]; i++) {
+            int at = recordsStart + i * RECORD_SIZE;
+            list.add(new Entry(path, index.getInt(at), index.getInt(at + 4), index.getInt(at + 8),
+                    index.getLong(at + 12), index.getInt(at + 20)));
+        }
+        return list;
+    }
+
+    /**
+     * 记录按位于其之前的替换的长度变化平移
+     *
+     * @param changes 每处替换：{替换前的终点, 长度变化}
+     */
+    private static List<Entry> shifted(List<Entry> entries, List<int[]> changes) {
+        List<Entry> result = new ArrayList<>(entries.size() + changes.size());
+        for (Entry entry : entries) {
+            int shift = 0;
+            for (int[] change : changes) {
+                if (change[0] <= entry.offset) {
+                    shift += change[1];
+                }
+            }
+            result.add(shift == 0 ? entry : entry.shifted(shift));
+        }
+        return result;
+    }
+
+    /**
+     * 只保留仍被索引引用的原值，重写数据文件并更新记录中的位置
+     */
+    private void compactData(Map<String, List<Entry>> all) throws IOException {
+        if (!Files.exists(dataFile)) {
+            return;
+        }
+        long referenced = 0;
+        for (List<Entry> list : all.values()) {
+            for (Entry entry : list) {
+                referenced += entry.dataLength;
+            }
+        }
+        if (referenced == Files.size(dataFile)) {
+            return;
+        }
+        Path temp = dataFile.resolveSibling(DATA_FILE_NAME + ".tmp");
+        Map<String, List<Entry>> moved = new LinkedHashMap<>();
+        try (FileChannel in = FileChannel.open(dataFile, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            for (Map.Entry<String, List<Entry>> file : all.entrySet()) {
+                List<Entry> list = new ArrayList<>(file.getValue().size());
+                for (Entry entry : file.getValue()) {
+                    long copied = 0;
+                    while (copied < entry.dataLength) {
+                        long transferred = in.transferTo(entry.dataOffset + copied, entry.dataLength - copied, out);
+                        if (transferred <= 0) {
+                            throw new IOException("保险库数据文件被截断");
+                        }
+                        copied += transferred;
+                    }
+                    list.add(new Entry(entry.path, entry.offset, entry.length, entry.maskCrc, position,
+                            entry.dataLength));
+                    position += entry.dataLength;
+                }
+                moved.put(file.getKey(), list);
+            }
+            out.force(false);
+        }
+        Files.move(temp, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        generation++;
+        all.putAll(moved);
+        // 数据文件已替换，内存中的记录同时改用新位置
+        changed.putAll(moved);
+    }
+
+    private byte[] encrypt(String original, byte[] aad) throws IOException {
+        try {
+            byte[] nonce = new byte[NONCE_LENGTH];
+            random.nextBytes(nonce);
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce));
+            cipher.updateAAD(aad);
+            byte[] encrypted = cipher.doFinal(original.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.allocate(NONCE_LENGTH + encrypted.length).put(nonce).put(encrypted).array();
+        } catch (GeneralSecurityException e) {
+            throw new IOException("加密原值失败", e);
+        }
+    }
+
+    private String decrypt(byte[] data, byte[] aad) throws IOException {
+        try {
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, data, 0, NONCE_LENGTH));
+            cipher.updateAAD(aad);
+            byte[] original = cipher.doFinal(data, NONCE_LENGTH, data.length - NONCE_LENGTH);
+            return new String(original, StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            // 密钥不匹配或数据被篡改
+            throw new IOException("解密原值失败", e);
+        }
+    }
+
+    private static List<Replacement> collect(TextEdits edits) {
+        List<Replacement> result = new ArrayList<>(edits.size());
+        edits.forEach((start, end, replacement) -> result.add(new Replacement(start, end, replacement)));
+        return result;
+    }
+
+    private static int crc(String value) {
+        CRC32 crc = new CRC32();
+        crc.update(value.getBytes(StandardCharsets.UTF_8));
+        return (int) crc.getValue();
+    }
+}
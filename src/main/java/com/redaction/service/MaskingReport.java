@@ -0,0 +1,152 @@
+package com.redaction.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单次批量脱敏的运行报告
+ *
+ * 统计本次运行扫描、跳过、脱敏的文件数量，以及内容去重的命中情况。
+ * 内容完全相同的文件（例如各微服务模块中复制的 application.yml）只分析一次，
+ * 去重比例 = 参与分析的文件数 / 实际分析的不同内容数。
+ * 每个格式处理器的分析次数和耗时分别统计，便于比较各格式的开销。
+ *
+ * @version 1.0.0
+ */
+public final class MaskingReport {
+    private final AtomicInteger scannedFiles = new AtomicInteger();
+    private final AtomicInteger unchangedFiles = new AtomicInteger();
+    private final AtomicInteger maskedFiles = new AtomicInteger();
+    private final AtomicInteger chunkedFiles = new AtomicInteger();
+    private final AtomicInteger archiveFiles = new AtomicInteger();
+    private final AtomicInteger archiveEntries = new AtomicInteger();
+    private final AtomicInteger findings = new AtomicInteger();
+    private final AtomicInteger uniqueContents = new AtomicInteger();
+    private final AtomicInteger duplicateContents = new AtomicInteger();
+    // 格式处理器名称 → [分析次数, 累计耗时（纳秒）]
+    private final Map<String, LongAdder[]> handlerTimes = new ConcurrentHashMap<>();
+
+    void fileScanned() {
+        scannedFiles.incrementAndGet();
+    }
+
+    void fileUnchanged() {
+        unchangedFiles.incrementAndGet();
+    }
+
+    void fileMasked(int fileFindings) {
+        maskedFiles.incrementAndGet();
+        findings.addAndGet(fileFindings);
+    }
+
+    void fileChunked() {
+        chunkedFiles.incrementAndGet();
+    }
+
+    void archiveProcessed(int rewrittenEntries) {
+        archiveFiles.incrementAndGet();
+        archiveEntries.addAndGet(rewrittenEntries);
+    }
+
+    void contentAnalyzed() {
+        uniqueContents.incrementAndGet();
+    }
+
+    void contentReused() {
+        duplicateContents.incrementAndGet();
+    }
+
+    void handlerFinished(String handler, long elapsedNanos) {
+        LongAdder[] counters = handlerTimes.computeIfAbsent(handler, key -> new LongAdder[]{new LongAdder(), new LongAdder()});
+        counters[0].increment();
+        counters[1].add(elapsedNanos);
+    }
+
+    public int getScannedFiles() {
+        return scannedFiles.get();
+    }
+
+    public int getUnchangedFiles() {
+        return unchangedFiles.get();
+    }
+
+    public int getMaskedFiles() {
+        return maskedFiles.get();
+    }
+
+    /**
+     * 超过大小上限、分块流式处理的文件数
+     */
+    public int getChunkedFiles() {
+        return chunkedFiles.get();
+    }
+
+    /**
+     * 按条目处理的归档文件数
+     */
+    public int getArchiveFiles() {
+        return archiveFiles.get();
+    }
+
+    /**
+     * 归档中被重写的条目数
+     */
+    public int getArchiveEntries() {
+        return archiveEntries.get();
+    }
+
+    public int getFindings() {
+        return findings.get();
+    }
+
+    public int getUniqueContents() {
+        return uniqueContents.get();
+    }
+
+    public int getDuplicateContents() {
+        return duplicateContents.get();
+    }
+
+    /**
+     * 获取去重比例，没有分析任何内容时为 1.0
+     */
+    public double getDeduplicationRatio() {
+        int unique = uniqueContents.get();
+        if (unique == 0) {
+            return 1.0;
+        }
+        return (double) (unique + duplicateContents.get()) / unique;
+    }
+
+    /**
+     * 生成用于展示的报告摘要
+     */
+    public String toSummary() {
+        return "扫描文件: " + getScannedFiles() + "\n" +
+               "未变化跳过: " + getUnchangedFiles() + "\n" +
+               "脱敏文件: " + getMaskedFiles() + "（敏感项 " + getFindings() + " 处）\n" +
+               "分块处理大文件: " + getChunkedFiles() + "\n" +
+               "归档文件: " + getArchiveFiles() + "（重写条目 " + getArchiveEntries() + " 个）\n" +
+               "内容去重: " + (getUniqueContents() + getDuplicateContents()) + " 个文件 / " +
+               getUniqueContents() + " 份不同内容，去重比例 " +
+               String.format("%.2f", getDeduplicationRatio()) + "x" +
+               getHandlerSummary();
+    }
+
+    /**
+     * 各格式处理器的分析次数和累计耗时，按名称排序
+     */
+    private String getHandlerSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<String, LongAdder[]> entry : new TreeMap<>(handlerTimes).entrySet()) {
+            LongAdder[] counters = entry.getValue();
+            summary.append("\n格式处理 ").append(entry.getKey()).append(": ")
+                   .append(counters[0].sum()).append(" 次，")
+                   .append(counters[1].sum() / 1_000_000).append(" ms");
+        }
+        return summary.toString();
+    }
+}
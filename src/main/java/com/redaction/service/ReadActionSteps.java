@@ -0,0 +1,90 @@
+package com.redaction.service;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.NonBlockingReadAction;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 可让步的读操作工具类
+ *
+ * 将耗时较长的扫描拆分为多个短小的非阻塞读操作（NonBlockingReadAction）。
+ * 当有写操作等待时，当前读操作会被取消并在写操作完成后自动重启，
+ * 因此每一步只能在结束前一次性提交自己的结果，调用方持有的状态即为检查点。
+ *
+ * @version 1.0.0
+ */
+final class ReadActionSteps {
+
+    private ReadActionSteps() {
+    }
+
+    /**
+     * 重复执行扫描步骤，直到步骤返回 true
+     *
+     * 每一步在独立的非阻塞读操作中运行，步骤内部应定期调用
+     * {@link com.intellij.openapi.progress.ProgressManager#checkCanceled()}，
+     * 并且只在确认不会再被取消后修改检查点状态。
+     *
+     * @param project   当前项目，项目关闭后读操作自动失效
+     * @param indicator 后台任务的进度指示器
+     * @param step      单个扫描步骤，全部完成时返回 true
+     */
+    static void runUntilDone(@NotNull Project project,
+                             @NotNull ProgressIndicator indicator,
+                             @NotNull BooleanSupplier step) {
+        runUntilDone(project, indicator, false, step);
+    }
+
+    /**
+     * 重复执行依赖索引的扫描步骤，每一步都会等待索引就绪（smart mode）后再运行
+     */
+    static void runUntilDoneInSmartMode(@NotNull Project project,
+                                        @NotNull ProgressIndicator indicator,
+                                        @NotNull BooleanSupplier step) {
+        runUntilDone(project, indicator, true, step);
+    }
+
+    private static void runUntilDone(@NotNull Project project,
+                                     @NotNull ProgressIndicator indicator,
+                                     boolean smartMode,
+                                     @NotNull BooleanSupplier step) {
+        boolean done = false;
+        while (!done) {
+            indicator.checkCanceled();
+            done = compute(project, indicator, smartMode, step::getAsBoolean);
+        }
+    }
+
+    /**
+     * 在一次可重启的非阻塞读操作中计算结果
+     *
+     * 在 EDT 上无法同步等待非阻塞读操作，此时退化为普通读操作。
+     */
+    static <T> T compute(@NotNull Project project,
+                         @NotNull ProgressIndicator indicator,
+                         @NotNull Supplier<T> computation) {
+        return compute(project, indicator, false, computation);
+    }
+
+    private static <T> T compute(@NotNull Project project,
+                                 @NotNull ProgressIndicator indicator,
+                                 boolean smartMode,
+                                 @NotNull Supplier<T> computation) {
+        if (ApplicationManager.getApplication().isDispatchThread()) {
+            return ReadAction.compute(computation::get);
+        }
+        NonBlockingReadAction<T> action = ReadAction.nonBlocking(computation::get)
+                .expireWhen(project::isDisposed)
+                .wrapProgress(indicator);
+        if (smartMode) {
+            action = action.inSmartMode(project);
+        }
+        return action.executeSynchronously();
+    }
+}
@@ -0,0 +1,287 @@
+package com.redaction.service;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 增量扫描缓存
+ *
+ * 以文件路径为键，记录上次扫描时文件的时间戳、长度、内容哈希、扫描结论和发现的敏感项数量。
+ * 缓存持久化在 IDE 系统目录下（按项目区分），重启 IDE 后仍然有效。
+ *
+ * 判断文件是否变化时先比较时间戳和长度，不一致时再比较内容哈希，
+ * 因此 git checkout 等只改变时间戳的操作不会导致重新分析。
+ *
+ * 文件头记录得出这些结论的检测引擎指纹（规则版本、启用的检测器及其阈值），
+ * 规则升级或设置变化后指纹不同，整个缓存作废，所有文件重新扫描。
+ *
+ * @version 1.0.0
+ */
+final class ScanCache {
+    private static final Logger LOG = Logger.getInstance(ScanCache.class);
+
+    private static final int FORMAT_VERSION = 2;
+    private static final String CACHE_FILE_NAME = "scan-cache.bin";
+
+    /**
+     * 扫描结论
+     */
+    enum Verdict {
+        /** 未发现敏感信息 */
+        CLEAN,
+        /** 发现的敏感信息已脱敏，记录的是脱敏后内容的哈希 */
+        MASKED
+    }
+
+    private final Path cacheFile;
+    private final String fingerprint;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty = false;
+
+    private ScanCache(@NotNull Path cacheFile, @NotNull String fingerprint) {
+        this.cacheFile = cacheFile;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * 加载项目的扫描缓存，缓存文件不存在、格式不兼容或由其他检测配置得出时返回空缓存
+     *
+     * @param fingerprint 当前检测引擎的指纹
+     */
+    @NotNull
+    static ScanCache load(@NotNull Project project, @NotNull String fingerprint) {
+        ScanCache cache = new ScanCache(getCacheDir(project).resolve(CACHE_FILE_NAME), fingerprint);
+        cache.read();
+        return cache;
+    }
+
+    /**
+     * 缓存中的结论所对应的检测引擎指纹
+     */
+    @NotNull
+    String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * 获取项目在 IDE 系统目录下的缓存目录
+     */
+    @NotNull
+    static Path getCacheDir(@NotNull Project project) {
+        return Paths.get(PathManager.getSystemPath(), "redaction", project.getLocationHash());
+    }
+
+    /**
+     * 判断文件自上次扫描后是否未发生变化（上次扫描结论仍然有效）
+     */
+    boolean isUnchanged(@NotNull VirtualFile file) {
+        Entry entry = entries.get(file.getPath());
+        if (entry == null || FileDocumentManager.getInstance().isFileModified(file)) {
+            return false;
+        }
+        if (entry.timeStamp == file.getTimeStamp() && entry.length == file.getLength()) {
+            return true;
+        }
+        if (entry.length != file.getLength()) {
+            return false;
+        }
+        String hash = hashContent(file);
+        if (hash == null || !hash.equals(entry.contentHash)) {
+            return false;
+        }
+        // 内容未变化，只更新时间戳
+        entries.put(file.getPath(), new Entry(file.getTimeStamp(), entry.length, hash, entry.verdict, entry.findings));
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * 记录文件当前内容的扫描结论
+     */
+    void record(@NotNull VirtualFile file, @NotNull Verdict verdict, int findings) {
+        String hash = hashContent(file);
+        if (hash == null) {
+            return;
+        }
+        entries.put(file.getPath(), new Entry(file.getTimeStamp(), file.getLength(), hash, verdict, findings));
+        dirty = true;
+    }
+
+    /**
+     * 获取文件上次记录的扫描结果
+     */
+    @Nullable
+    Entry get(@NotNull VirtualFile file) {
+        return entries.get(file.getPath());
+    }
+
+    /**
+     * 将缓存写回磁盘，先写临时文件再替换，避免中途失败损坏缓存
+     */
+    void save() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            Path tempFile = cacheFile.resolveSibling(CACHE_FILE_NAME + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(fingerprint);
+                Map<String, Entry> snapshot = Map.copyOf(entries);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> e : snapshot.entrySet()) {
+                    Entry entry = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeLong(entry.timeStamp);
+                    out.writeLong(entry.length);
+                    out.writeUTF(entry.contentHash);
+                    out.writeByte(entry.verdict.ordinal());
+                    out.writeInt(entry.findings);
+                }
+            }
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOG.info("扫描缓存已保存: " + cacheFile + ", 条目数: " + entries.size());
+        } catch (IOException e) {
+            dirty = true;
+            LOG.warn("保存扫描缓存失败: " + cacheFile, e);
+        }
+    }
+
+    private void read() {
+        if (!Files.isRegularFile(cacheFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                LOG.info("扫描缓存版本不兼容，忽略: " + cacheFile);
+                return;
+            }
+            if (!fingerprint.equals(in.readUTF())) {
+                // 规则或检测设置已变化，以前的结论不再可信
+                LOG.info("检测规则或设置已变化，扫描缓存作废: " + cacheFile);
+                dirty = true;
+                return;
+            }
+            int size = in.readInt();
+            Verdict[] verdicts = Verdict.values();
+            for (int i = 0; i < size; i++) {
+                String path = in.readUTF();
+                long timeStamp = in.readLong();
+                long length = in.readLong();
+                String contentHash = in.readUTF();
+                Verdict verdict = verdicts[in.readByte()];
+                int findings = in.readInt();
+                entries.put(path, new Entry(timeStamp, length, contentHash, verdict, findings));
+            }
+            LOG.info("已加载扫描缓存: " + cacheFile + ", 条目数: " + entries.size());
+        } catch (IOException | RuntimeException e) {
+            entries.clear();
+            LOG.warn("读取扫描缓存失败，将重新扫描: " + cacheFile, e);
+        }
+    }
+
+    /**
+     * 计算文件磁盘内容的哈希
+     */
+    @Nullable
+    static String hashContent(@NotNull VirtualFile file) {
+        // 分块读取，超大文件也不会整个载入内存
+        try (InputStream in = file.getInputStream()) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+            return toHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            LOG.warn("读取文件内容失败: " + file.getPath(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 计算内容的 SHA-256 哈希（十六进制）
+     */
+    @NotNull
+    static String hash(@NotNull byte[] content) {
+        try {
+            return toHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 计算文本的 SHA-256 哈希（十六进制），按 UTF-16 编码分块更新摘要，不复制整个文本
+     *
+     * 与 {@link #hash(byte[])} 的结果不可比较，只用于文本之间的比较
+     */
+    @NotNull
+    static String hash(@NotNull CharSequence content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int filled = 0;
+            for (int i = 0; i < content.length(); i++) {
+                char c = content.charAt(i);
+                buffer[filled++] = (byte) (c >> 8);
+                buffer[filled++] = (byte) c;
+                if (filled == buffer.length) {
+                    digest.update(buffer, 0, filled);
+                    filled = 0;
+                }
+            }
+            digest.update(buffer, 0, filled);
+            return toHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] digest) {
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 单个文件的缓存条目
+     */
+    static final class Entry {
+        final long timeStamp;
+        final long length;
+        final String contentHash;
+        final Verdict verdict;
+        final int findings;
+
+        Entry(long timeStamp, long length, String contentHash, Verdict verdict, int findings) {
+            this.timeStamp = timeStamp;
+            this.length = length;
+            this.contentHash = contentHash;
+            this.verdict = verdict;
+            this.findings = findings;
+        }
+    }
+}
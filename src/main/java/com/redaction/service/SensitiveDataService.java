@@ -1,14 +1,23 @@
 package com.redaction.service;
 
+import com.intellij.credentialStore.CredentialAttributes;
+import com.intellij.credentialStore.CredentialAttributesKt;
+import com.intellij.ide.passwordSafe.PasswordSafe;
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.components.Service;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.vfs.VFileProperty;
 import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
@@ -16,33 +25,68 @@
 import com.intellij.util.concurrency.AppExecutorUtil;
 import com.intellij.openapi.application.ModalityState;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.psi.*;
+import com.intellij.psi.search.FilenameIndex;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScopesCore;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.CompilerModuleExtension;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vcs.FilePath;
+import com.intellij.openapi.vcs.ProjectLevelVcsManager;
+import com.intellij.openapi.vcs.VcsRoot;
+import com.intellij.openapi.vcs.changes.Change;
+import com.intellij.openapi.vcs.changes.ChangeListManager;
+import com.intellij.openapi.util.io.FileUtilRt;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
-import com.intellij.psi.util.PsiTreeUtil;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonParser;
+import java.io.FilterReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
 import java.lang.reflect.*;
 import com.intellij.openapi.util.TextRange;
+import com.redaction.detect.DetectionEngine;
+import com.redaction.detect.EntropyDetector;
+import com.redaction.detect.KnownSecretIndex;
+import com.redaction.detect.Pseudonymizer;
+import com.redaction.detect.SensitiveRules;
+import com.redaction.format.ArchiveMasker;
+import com.redaction.format.ChunkedMasker;
+import com.redaction.format.FormatHandler;
+import com.redaction.format.FormatHandlers;
+import com.redaction.format.FormatRequest;
+import com.redaction.format.PseudonymSink;
+import com.redaction.format.RecordFormatHandler;
+import com.redaction.format.RecordStreamMasker;
+import com.redaction.format.TextEdits;
+import com.redaction.git.GitRepository;
+import com.redaction.git.HistoryAuditor;
+import com.redaction.index.SensitiveKeyIndex;
+import com.redaction.settings.RedactionSettings;
 
 /**
  * 敏感数据处理服务类
@@ -64,152 +108,39 @@
  * @version 1.0.0
  */
 @Service(Service.Level.PROJECT)
-public final class SensitiveDataService {
+public final class SensitiveDataService implements Disposable {
     private static final Logger LOG = Logger.getInstance(SensitiveDataService.class);
 
     private static final int REGEX_TIMEOUT_MS = 500; // 正则表达式匹配超时时间（毫秒）
-    private static final int MAX_CONTENT_LENGTH = 100000; // 最大处理内容长度
-    private static final int MAX_FILE_SIZE = 5 * 1024 * 1024; // 降低到5MB
+    private static final int MAX_CONTENT_LENGTH = 100000; // 大文件分块处理时每个窗口的字符数
+    private static final int MAX_FILE_SIZE = 5 * 1024 * 1024; // 超过5MB的文件不载入文档，分块流式处理
     private static final int BATCH_SIZE = 500; // 降低批处理大小
     private static final int MAX_FILES_PER_BATCH = 20; // 每批最多处理的文件数
-    private static final int PROCESSING_DELAY = 100; // 文件处理间隔（毫秒）
+    private static final int MAX_ENTRIES_PER_READ_STEP = 200; // 每个读操作步骤最多检查的目录项数
     private static final ExecutorService EXECUTOR = AppExecutorUtil.createBoundedApplicationPoolExecutor("SensitiveDataService", 2);
     
-    private static final Map<String, Pattern> SENSITIVE_PATTERNS = new HashMap<>();
-    private static final Map<String, Pattern> JAVA_SENSITIVE_PATTERNS = new HashMap<>();
-    
     private final Project project;
     private final PsiFileFactory psiFileFactory;
     private final JavaPsiFacade javaPsiFacade;
 
-    private static final Set<String> SENSITIVE_FIELD_KEYWORDS = new HashSet<>(Arrays.asList(
-        "password", "pwd", "passwd", "secret", "key", "token",
-        "username", "user", "private", "privacy", "credential",
-        "apikey", "api_key", "auth", "authentication",
-        "url", "uri", "endpoint", "address", "addr",
-        "cluster", "host", "server", "gateway", "proxy",
-        "nameserver", "namesrv", "broker", "registry",
-        "zookeeper", "redis", "mysql", "mongodb", "elasticsearch",
-        "kafka", "rabbitmq", "dubbo", "nacos"
-    ));
-    
-    static {
-        try {
-            // IP地址匹配模式（排除配置占位符和XML schema）
-            SENSITIVE_PATTERNS.put("IP_ADDRESS", 
-                Pattern.compile("\\b(?!\\$\\{)(?!\\b(?:import|package|xmlns|http)\\b)(?:\\d{1,3}\\.){3}\\d{1,3}\\b(?!\\})", 
-                Pattern.CASE_INSENSITIVE));
-            
-            // 数据库URL匹配模式
-            SENSITIVE_PATTERNS.put("DB_URL", 
-                Pattern.compile("(jdbc:[a-z]+://[^\\s/\\$\\{\\}]+)"));
-            
-            // MySQL配置
-            SENSITIVE_PATTERNS.put("MYSQL_CONFIG",
-                Pattern.compile("((?:spring[.])?mysql[.:].*?(?:url|host|port|username|user|password|passwd|database|db)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
-                Pattern.CASE_INSENSITIVE));
-            
-            // Redis配置
-            SENSITIVE_PATTERNS.put("REDIS_CONFIG",
-                Pattern.compile("((?:spring[.])?redis[.:].*?(?:url|host|port|password|auth)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
-                Pattern.CASE_INSENSITIVE));
-            
-            // RabbitMQ配置
-            SENSITIVE_PATTERNS.put("RABBITMQ_CONFIG",
-                Pattern.compile("((?:spring[.])?rabbitmq[.:].*?(?:url|host|port|username|user|password|passwd|virtual-host)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
-                Pattern.CASE_INSENSITIVE));
-            
-            // MongoDB配置
-            SENSITIVE_PATTERNS.put("MONGODB_CONFIG",
-                Pattern.compile("((?:spring[.]data[.])?(?:mongodb|mongo)[.:].*?(?:url|host|port|username|user|password|passwd|authSource|connection)\\s*[=:]\\s*[\"']?(?:mongodb://)?[^\\s,;\"']+[\"']?)",
-                Pattern.CASE_INSENSITIVE));
-            
-            // HiKV配置
-            SENSITIVE_PATTERNS.put("HIKV_CONFIG",
-                Pattern.compile("(hikv[.:].*?(?:url|host|port|username|user|password|passwd)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
-                Pattern.CASE_INSENSITIVE));
-            
-            // TiDB配置
-            SENSITIVE_PATTERNS.put("TIDB_CONFIG",
-                Pattern.compile("(tidb[.:].*?(?:url|host|port|username|user|password|passwd)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
-                Pattern.CASE_INSENSITIVE));
-            
-            // HBase配置
-            SENSITIVE_PATTERNS.put("HBASE_CONFIG",
-                Pattern.compile("(hbase[.:].*?(?:url|zookeeper|quorum|port|principal|keytab)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
-                Pattern.CASE_INSENSITIVE));
-            
-            // Hive配置
-            SENSITIVE_PATTERNS.put("HIVE_CONFIG",
-                Pattern.compile("(hive[.:].*?(?:url|host|port|username|user|password|passwd|principal|keytab)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
-                Pattern.CASE_INSENSITIVE));
-            
-            // Couchbase配置
-            SENSITIVE_PATTERNS.put("COUCHBASE_CONFIG",
-                Pattern.compile("((?:spring[.])?couchbase[.:].*?(?:url|host|port|username|user|password|passwd|bucket|server|master|name|cluster|nodes)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
-                Pattern.CASE_INSENSITIVE));
-            
-            // Elasticsearch配置
-            SENSITIVE_PATTERNS.put("ELASTICSEARCH_CONFIG",
-                Pattern.compile("((?:spring[.]data[.])?elasticsearch[.:].*?(?:url|host|port|username|user|password|passwd|cluster)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
-                Pattern.CASE_INSENSITIVE));
-            
-            // 通用密码配置
-            SENSITIVE_PATTERNS.put("PASSWORD",
-                Pattern.compile("(?i)(?<!spring[.]data[.]elasticsearch[.]|spring[.]data[.]mongodb[.]|spring[.]rabbitmq[.]|spring[.]redis[.]|mysql[.]|tidb[.]|hikv[.]|hbase[.]|hive[.]|couchbase[.])(password|passwd|pwd)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?"));
-            
-            // 通用用户名配置
-            SENSITIVE_PATTERNS.put("USERNAME",
-                Pattern.compile("(?i)(?<!spring[.]data[.]elasticsearch[.]|spring[.]data[.]mongodb[.]|spring[.]rabbitmq[.]|spring[.]redis[.]|mysql[.]|tidb[.]|hikv[.]|hbase[.]|hive[.]|couchbase[.])(username|user)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?"));
-            
-            // 通用URL配置
-            SENSITIVE_PATTERNS.put("URL",
-                Pattern.compile("(?i)(?<!spring[.]data[.]elasticsearch[.]|spring[.]data[.]mongodb[.]|spring[.]rabbitmq[.]|spring[.]redis[.]|mysql[.]|tidb[.]|hikv[.]|hbase[.]|hive[.]|couchbase[.])(url|host|endpoint)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?"));
-            
-            // 通用端口配置
-            SENSITIVE_PATTERNS.put("PORT",
-                Pattern.compile("(?i)(?<!spring[.]data[.]elasticsearch[.]|spring[.]data[.]mongodb[.]|spring[.]rabbitmq[.]|spring[.]redis[.]|mysql[.]|tidb[.]|hikv[.]|hbase[.]|hive[.]|couchbase[.])(port)\\s*[=:]\\s*[\"']?\\d+[\"']?"));
-            
-            // RocketMQ配置
-            SENSITIVE_PATTERNS.put("ROCKETMQ_CONFIG",
-                Pattern.compile("((?:spring[.])?(?:rocketmq|mq)[.:].*?(?:namesrvAddr|addr|host|port|producerGroup|consumerGroup|topic|accessKey|secretKey)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
-                Pattern.CASE_INSENSITIVE));
-            
-            // Dubbo配置
-            SENSITIVE_PATTERNS.put("DUBBO_CONFIG",
-                Pattern.compile("((?:spring[.])?dubbo[.:].*?(?:registry[.]address|address|url|host|port|username|user|password|passwd|group|version|timeout|protocol)\\s*[=:]\\s*[\"']?[^\\s,;\"']+[\"']?)",
-                Pattern.CASE_INSENSITIVE));
-            
-            // Java类中的敏感信息匹配模式
-            JAVA_SENSITIVE_PATTERNS.put("JAVA_STRING_SENSITIVE",
-                Pattern.compile("(?:private|public|protected|static)?\\s*(?:final)?\\s*String\\s+(?:url|username|password|driverClass|connec|dataBase|collectionName)\\s*=\\s*\"[^\"]+\"", 
-                Pattern.CASE_INSENSITIVE));
-            
-            JAVA_SENSITIVE_PATTERNS.put("JAVA_MONGODB_URI",
-                Pattern.compile("(?:private|public|protected|static)?\\s*(?:final)?\\s*String\\s+\\w+\\s*=\\s*\"mongodb://[^\"]+\"", 
-                Pattern.CASE_INSENSITIVE));
-                
-            JAVA_SENSITIVE_PATTERNS.put("JAVA_JDBC_URL",
-                Pattern.compile("(?:private|public|protected|static)?\\s*(?:final)?\\s*String\\s+\\w+\\s*=\\s*\"jdbc:[^\"]+\"", 
-                Pattern.CASE_INSENSITIVE));
-                
-            JAVA_SENSITIVE_PATTERNS.put("JAVA_URL_PATTERN",
-                Pattern.compile("(?:private|public|protected|static)?\\s*(?:final)?\\s*String\\s+\\w+\\s*=\\s*\"(?:http[s]?|redis|zookeeper|dubbo)://[^\"]+\"", 
-                Pattern.CASE_INSENSITIVE));
-                
-            JAVA_SENSITIVE_PATTERNS.put("JAVA_IP_PORT",
-                Pattern.compile("(?:private|public|protected|static)?\\s*(?:final)?\\s*String\\s+\\w+\\s*=\\s*\"[^\"]*\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}(?::\\d+)?[^\"]*\"", 
-                Pattern.CASE_INSENSITIVE));
-                
-            JAVA_SENSITIVE_PATTERNS.put("JAVA_DOMAIN_PORT",
-                Pattern.compile("(?:private|public|protected|static)?\\s*(?:final)?\\s*String\\s+\\w+\\s*=\\s*\"[^\"]*[a-zA-Z0-9-]+\\.[a-zA-Z0-9-.]+(?::\\d+)?[^\"]*\"", 
-                Pattern.CASE_INSENSITIVE));
-        } catch (Exception e) {
-            // 忽略初始化异常
-        }
-    }
+    // 通过文件索引按扩展名查找的文件类型
+    private static final List<String> CONFIG_FILE_EXTENSIONS = Arrays.asList(
+        "properties", "yml", "yaml", "xml", "json", "conf", "cfg", "env", "ini", "sql", "csv", "tsv",
+        "java", "kt", "kts", "groovy", "gradle", "scala"
+    );
+
+    // 文件名中带有这些特征的文件也视为配置文件
+    private static final String[] CONFIG_FILE_NAME_MARKERS = {"application.", "config.", "settings."};
+
+    // 内容根下常见的构建输出目录（Maven / Gradle / IntelliJ）
+    private static final String[] BUILD_OUTPUT_DIRS = {"target", "build", "out"};
+    private static final long MAX_AUDIT_FILE_SIZE = 64L * 1024 * 1024; // 已知凭据审计中单个文件的大小上限
 
     private volatile boolean isProcessing = false;
+    private volatile ExclusionMatcher exclusionMatcher;
+    private volatile ScanCache scanCache;
+    private volatile Pseudonymizer pseudonymizer;
+    private volatile MaskVault maskVault;
 
     /**
      * 构造函数
@@ -229,38 +160,604 @@ public void maskAllProjectFiles() {
             @Override
             public void run(@NotNull ProgressIndicator indicator) {
                 try {
-                    indicator.setIndeterminate(false);
-                    indicator.setText("Scanning project files...");
-                    
-                    List<VirtualFile> configFiles = new ArrayList<>();
-                    ReadAction.run(() -> collectConfigFiles(project.getBaseDir(), configFiles, indicator));
-                    
-                    if (configFiles.isEmpty()) {
+                    MaskingReport report = maskAllProjectFiles(indicator);
+                    LOG.info("项目文件脱敏完成\n" + report.toSummary());
+                } catch (ProcessCanceledException e) {
+                    throw e;
+                } catch (Exception e) {
+                    // 记录错误但继续处理
+                    LOG.warn("脱敏项目文件失败", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 在当前后台任务中处理所有项目文件
+     *
+     * @param indicator 后台任务的进度指示器
+     * @return 本次运行的报告
+     */
+    public MaskingReport maskAllProjectFiles(@NotNull ProgressIndicator indicator) {
+        MaskingRun run = new MaskingRun(getMaskingEngine());
+        try {
+            indicator.setIndeterminate(false);
+            indicator.setText("Scanning project files...");
+
+            List<VirtualFile> configFiles = collectConfigFiles(GlobalSearchScope.projectScope(project), indicator);
+            processFiles(configFiles, run, indicator);
+        } finally {
+            saveScanCacheLater();
+        }
+        return run.report;
+    }
+
+    /**
+     * 只处理版本控制中有变更的文件（已修改、新增和未纳入版本控制的文件）
+     *
+     * 文件集合直接取自 VCS 变更列表，不遍历项目目录树，
+     * 耗时只与变更集的大小有关，与仓库大小无关。
+     *
+     * @param indicator 后台任务的进度指示器
+     * @return 本次运行的报告
+     */
+    public MaskingReport maskChangedFiles(@NotNull ProgressIndicator indicator) {
+        MaskingRun run = new MaskingRun(getMaskingEngine());
+        try {
+            indicator.setIndeterminate(false);
+            indicator.setText("Collecting changed files...");
+
+            List<VirtualFile> changedFiles = ReadActionSteps.compute(project, indicator, () -> {
+                ChangeListManager changeListManager = ChangeListManager.getInstance(project);
+                Set<VirtualFile> files = new LinkedHashSet<>();
+                for (Change change : changeListManager.getAllChanges()) {
+                    // 删除的文件没有变更后的版本
+                    VirtualFile file = change.getVirtualFile();
+                    if (file != null) {
+                        files.add(file);
+                    }
+                }
+                for (FilePath path : changeListManager.getUnversionedFilesPaths()) {
+                    VirtualFile file = path.getVirtualFile();
+                    if (file != null) {
+                        files.add(file);
+                    }
+                }
+
+                exclusionMatcher = ExclusionMatcher.create(project);
+                List<VirtualFile> matched = new ArrayList<>();
+                for (VirtualFile file : files) {
+                    ProgressManager.checkCanceled();
+                    if (file.isValid() && isSensitiveFile(file)) {
+                        matched.add(file);
+                    }
+                }
+                return matched;
+            });
+
+            LOG.info("版本控制变更中待处理文件: " + changedFiles.size());
+            processFiles(changedFiles, run, indicator);
+        } finally {
+            saveScanCacheLater();
+        }
+        return run.report;
+    }
+
+    /**
+     * 脱敏选中的归档文件，以及选中目录下的全部归档文件
+     *
+     * 归档文件不参与项目扫描；这里由用户显式选择，因此 target、build 等构建输出目录中的归档同样处理。
+     *
+     * @param roots     选中的文件和目录
+     * @param indicator 后台任务的进度指示器
+     * @return 本次运行的报告
+     */
+    public MaskingReport maskArchives(@NotNull List<VirtualFile> roots, @NotNull ProgressIndicator indicator) {
+        MaskingRun run = new MaskingRun(getMaskingEngine());
+        try {
+            indicator.setIndeterminate(false);
+            indicator.setText("Collecting archives...");
+
+            List<VirtualFile> archives = ReadActionSteps.compute(project, indicator, () -> {
+                Set<VirtualFile> found = new LinkedHashSet<>();
+                for (VirtualFile root : roots) {
+                    VfsUtilCore.iterateChildrenRecursively(root,
+                        file -> !file.isDirectory() || !".git".equals(file.getName()),
+                        file -> {
+                            ProgressManager.checkCanceled();
+                            if (!file.isDirectory() && ArchiveMasker.isArchive(file.getName().toLowerCase())) {
+                                found.add(file);
+                            }
+                            return true;
+                        });
+                }
+                return new ArrayList<>(found);
+            });
+
+            LOG.info("待处理归档文件: " + archives.size());
+            processFiles(archives, run, indicator);
+        } finally {
+            saveScanCacheLater();
+        }
+        return run.report;
+    }
+
+    /**
+     * 在有界线程池中并行处理文件，每个文件的读操作都可被写操作打断并重启
+     *
+     * 各文件的分析相互独立，替换照常排队到主线程写回；在途文件数不超过并行度的两倍，
+     * 工作线程在调用方的进度指示器下运行，取消会传递到每个文件。
+     */
+    private void processFiles(List<VirtualFile> files, MaskingRun run, ProgressIndicator indicator) {
+        int totalFiles = files.size();
+        AtomicInteger processedFiles = new AtomicInteger();
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("RedactionMasking", parallelism);
+        Deque<Future<?>> pending = new ArrayDeque<>();
+        try {
+            for (VirtualFile file : files) {
+                if (indicator.isCanceled()) {
+                    break;
+                }
+                pending.addLast(executor.submit(() -> ProgressManager.getInstance().runProcess(() -> {
+                    try {
+                        processFile(file, run);
+                    } catch (ProcessCanceledException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        LOG.error("处理文件失败: " + file.getPath(), e);
+                    }
+                    int current = processedFiles.incrementAndGet();
+                    indicator.setFraction((double) current / totalFiles);
+                    indicator.setText2("处理文件 " + current + "/" + totalFiles + ": " + file.getName());
+                }, indicator)));
+                while (pending.size() > parallelism * 2) {
+                    awaitFile(pending.removeFirst());
+                }
+            }
+            while (!pending.isEmpty()) {
+                awaitFile(pending.removeFirst());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException(e);
+        } finally {
+            for (Future<?> future : pending) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitFile(Future<?> future) throws InterruptedException {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 审计项目中各 git 仓库的本地历史
+     *
+     * 直接读取 .git 对象库，报告历史中引入未脱敏敏感信息的提交和路径。
+     * 完整报告写入 IDE 系统目录下的 history-audit.txt。
+     *
+     * @param indicator 后台任务的进度指示器
+     * @return 审计摘要
+     */
+    public String auditGitHistory(@NotNull ProgressIndicator indicator) throws IOException {
+        Set<Path> roots = new LinkedHashSet<>();
+        for (VcsRoot root : ProjectLevelVcsManager.getInstance(project).getAllVcsRoots()) {
+            VirtualFile path = root.getPath();
+            if (path.isInLocalFileSystem()) {
+                roots.add(Paths.get(path.getPath()));
+            }
+        }
+        if (roots.isEmpty() && project.getBasePath() != null) {
+            roots.add(Paths.get(project.getBasePath()));
+        }
+
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("RedactionHistoryAudit", parallelism);
+        StringBuilder summary = new StringBuilder();
+        StringBuilder report = new StringBuilder();
+        try {
+            for (Path root : roots) {
+                try (GitRepository repository = GitRepository.open(root)) {
+                    if (repository == null) {
+                        continue;
+                    }
+                    indicator.setText("审计 git 历史: " + root);
+                    HistoryAuditor.Result result = new HistoryAuditor(repository, executor, parallelism)
+                        .audit(new HistoryAuditor.Monitor() {
+                            @Override
+                            public boolean isCanceled() {
+                                return indicator.isCanceled();
+                            }
+
+                            @Override
+                            public void progress(@NotNull String text, double fraction) {
+                                indicator.setText2(text);
+                                indicator.setFraction(fraction);
+                            }
+                        });
+                    LOG.info("git 历史审计完成: " + root + "\n" + result.toSummary());
+                    summary.append(root).append('\n').append(result.toSummary()).append("\n\n");
+                    report.append("# ").append(root).append('\n').append(result.toReport()).append('\n');
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException(e);
+        } finally {
+            executor.shutdown();
+        }
+        indicator.checkCanceled();
+
+        if (summary.length() == 0) {
+            return "项目中没有找到 git 仓库";
+        }
+        Path reportFile = ScanCache.getCacheDir(project).resolve("history-audit.txt");
+        Files.createDirectories(reportFile.getParent());
+        Files.write(reportFile, report.toString().getBytes(StandardCharsets.UTF_8));
+        return summary + "完整报告: " + reportFile;
+    }
+
+    /**
+     * 在项目文件和构建输出中查找已知凭据
+     *
+     * 复用配置文件的发现逻辑（不按敏感键索引过滤），并加入各模块的编译输出目录以及
+     * 内容根下的 target / build / out 目录。每个文件只做一次字节扫描，文件之间并行处理。
+     * 完整报告写入 IDE 系统目录下的 known-secret-audit.txt，报告中只包含位置和清单行号，不包含凭据本身。
+     *
+     * @param secretsFile 凭据清单，格式见 {@link KnownSecretIndex}
+     * @param indicator   后台任务的进度指示器
+     * @return 审计摘要
+     */
+    public String auditKnownSecrets(@NotNull Path secretsFile, @NotNull ProgressIndicator indicator) throws IOException {
+        indicator.setIndeterminate(false);
+        indicator.setText("正在加载凭据清单...");
+        KnownSecretIndex index = KnownSecretIndex.load(secretsFile);
+        LOG.info("已加载凭据指纹: " + index.size() + ", 忽略: " + index.getSkippedEntries());
+
+        indicator.setText("正在收集文件...");
+        Set<Path> files = new LinkedHashSet<>();
+        for (VirtualFile file : collectConfigFiles(GlobalSearchScope.projectScope(project), indicator, false)) {
+            if (file.isInLocalFileSystem()) {
+                files.add(file.toNioPath());
+            }
+        }
+        for (Path outputDir : ReadActionSteps.compute(project, indicator, this::collectBuildOutputDirs)) {
+            try (Stream<Path> walk = Files.walk(outputDir)) {
+                walk.filter(path -> {
+                    try {
+                        return Files.isRegularFile(path) && Files.size(path) <= MAX_AUDIT_FILE_SIZE;
+                    } catch (IOException e) {
+                        return false;
+                    }
+                }).forEach(files::add);
+            }
+            indicator.checkCanceled();
+        }
+
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("RedactionKnownSecretAudit", parallelism);
+        Queue<String> matches = new ConcurrentLinkedQueue<>();
+        AtomicInteger scanned = new AtomicInteger();
+        int total = files.size();
+        List<Future<?>> futures = new ArrayList<>(total);
+        try {
+            for (Path file : files) {
+                futures.add(executor.submit(() -> {
+                    if (indicator.isCanceled()) {
                         return;
                     }
+                    try {
+                        index.scanFile(file, (entryLine, offset, length, line, column) ->
+                            matches.add(file + ":" + line + ":" + column +
+                                        " (偏移 " + offset + ", 长度 " + length + "): 清单第 " + entryLine + " 行"));
+                    } catch (IOException e) {
+                        LOG.warn("读取文件失败: " + file, e);
+                    }
+                    int done = scanned.incrementAndGet();
+                    indicator.setFraction((double) done / total);
+                    indicator.setText2(file.getFileName().toString());
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        indicator.checkCanceled();
+
+        List<String> sorted = new ArrayList<>(matches);
+        Collections.sort(sorted);
+        Path reportFile = ScanCache.getCacheDir(project).resolve("known-secret-audit.txt");
+        Files.createDirectories(reportFile.getParent());
+        Files.write(reportFile, sorted, StandardCharsets.UTF_8);
+
+        String summary = "凭据指纹: " + index.size() + "（忽略 " + index.getSkippedEntries() + " 条）\n" +
+                         "扫描文件: " + scanned.get() + "\n" +
+                         "命中: " + sorted.size() + " 处\n" +
+                         "完整报告: " + reportFile;
+        LOG.info("已知凭据审计完成\n" + summary);
+        return summary;
+    }
 
-                    int totalFiles = configFiles.size();
-                    AtomicInteger processedFiles = new AtomicInteger(0);
-                    
-                    // 使用线程池并行处理文件
-                    AppExecutorUtil.getAppExecutorService().submit(() -> {
-                        for (VirtualFile file : configFiles) {
-                            if (indicator.isCanceled()) {
-                                break;
+    /**
+     * 把保险库中记录的原值恢复到文件中
+     *
+     * 先在读操作中逐个文件核对掩码是否仍在记录的位置（CRC 一致），再在一个写命令中批量写回所有文档并保存；
+     * 分析之后文档又被修改的文件整体跳过。已恢复的记录从保险库中删除，内容已变化的位置保留在保险库中，
+     * 其偏移量按同一文件中已恢复的原值与掩码的长度差平移。
+     *
+     * @param indicator 后台任务的进度指示器
+     * @return 恢复摘要
+     */
+    public String restoreFromVault(@NotNull ProgressIndicator indicator) throws IOException {
+        MaskVault vault = getMaskVault();
+        if (vault.size() == 0) {
+            return "保险库中没有可恢复的内容";
+        }
+        indicator.setIndeterminate(false);
+        indicator.setText("正在核对保险库记录...");
+
+        List<VaultRestore> restores = new ArrayList<>();
+        int skipped = 0;
+        List<String> paths = new ArrayList<>(vault.getPaths());
+        // 数据文件只打开一次，所有记录共用
+        try (MaskVault.OriginalReader originals = vault.openReader()) {
+            for (int i = 0; i < paths.size(); i++) {
+                indicator.checkCanceled();
+                indicator.setFraction((double) i / paths.size());
+                String path = paths.get(i);
+                List<MaskVault.Entry> entries = vault.getEntries(path);
+                VaultRestore restore = ReadActionSteps.compute(project, indicator, () -> {
+                    VirtualFile file = LocalFileSystem.getInstance().findFileByPath(path);
+                    Document document = file == null ? null : FileDocumentManager.getInstance().getDocument(file);
+                    if (document == null) {
+                        return null;
+                    }
+                    CharSequence text = document.getImmutableCharSequence();
+                    List<MaskVault.Entry> matched = new ArrayList<>(entries.size());
+                    for (MaskVault.Entry entry : entries) {
+                        if (MaskVault.matches(entry, text)) {
+                            matched.add(entry);
+                        }
+                    }
+                    return new VaultRestore(path, document, document.getModificationStamp(), matched);
+                });
+                if (restore == null) {
+                    LOG.warn("保险库中的文件不存在或无法打开: " + path);
+                    skipped += entries.size();
+                    continue;
+                }
+                skipped += entries.size() - restore.entries.size();
+                if (restore.entries.isEmpty()) {
+                    continue;
+                }
+                // 解密放在读操作之外
+                for (MaskVault.Entry entry : restore.entries) {
+                    restore.edits.replace(entry.offset, entry.offset + entry.length, originals.read(entry));
+                }
+                restores.add(restore);
+            }
+        }
+
+        indicator.setText("正在恢复原值...");
+        List<VaultRestore> applied = new ArrayList<>();
+        ApplicationManager.getApplication().invokeAndWait(() ->
+            WriteCommandAction.runWriteCommandAction(project, () -> {
+                for (VaultRestore restore : restores) {
+                    if (restore.document.getModificationStamp() != restore.modificationStamp) {
+                        LOG.warn("文档在核对后被修改，跳过恢复: " + restore.path);
+                        continue;
+                    }
+                    restore.edits.applyTo(restore.document);
+                    FileDocumentManager.getInstance().saveDocument(restore.document);
+                    applied.add(restore);
+                }
+            }), ModalityState.defaultModalityState());
+
+        // 删除已恢复的记录，同一文件中保留的记录按恢复前后的长度变化平移
+        int restored = 0;
+        for (VaultRestore restore : applied) {
+            vault.remove(restore.path, restore.edits);
+            restored += restore.entries.size();
+        }
+        skipped += restores.stream().mapToInt(restore -> restore.entries.size()).sum() - restored;
+        vault.save();
+
+        String summary = "恢复文件: " + applied.size() + "\n"
+                + "恢复敏感项: " + restored + " 处\n"
+                + "跳过（内容已变化）: " + skipped + " 处";
+        LOG.info("保险库恢复完成\n" + summary);
+        return summary;
+    }
+
+    /**
+     * 一个文件的恢复计划：核对时的修改时间戳、掩码仍在原位的记录和对应的替换
+     */
+    private static class VaultRestore {
+        final String path;
+        final Document document;
+        final long modificationStamp;
+        final List<MaskVault.Entry> entries;
+        final TextEdits edits = new TextEdits();
+
+        VaultRestore(String path, Document document, long modificationStamp, List<MaskVault.Entry> entries) {
+            this.path = path;
+            this.document = document;
+            this.modificationStamp = modificationStamp;
+            this.entries = entries;
+        }
+    }
+
+    /**
+     * 导出项目目录的脱敏副本，工作区中的文件保持不变
+     *
+     * 构建输出、.git 等被排除的目录不导出；其他文件中需要脱敏的按格式处理，
+     * 被 .gitignore 排除但有格式处理器的文件（例如本地的 .env）同样脱敏后导出，其余文件原样复制。
+     * 导出前应先保存编辑器中的修改，副本取自磁盘上的内容。
+     *
+     * @param target    目标目录，或以 .zip 结尾的文件
+     * @param indicator 后台任务的进度指示器
+     * @return 导出摘要
+     */
+    public String exportSnapshot(@NotNull Path target, @NotNull ProgressIndicator indicator) throws IOException {
+        indicator.setIndeterminate(false);
+        indicator.setText("正在收集文件...");
+        VirtualFile root = ReadActionSteps.compute(project, indicator, () -> ProjectUtil.guessProjectDir(project));
+        if (root == null || !root.isInLocalFileSystem()) {
+            throw new IOException("无法确定项目目录");
+        }
+        Path rootPath = root.toNioPath().toAbsolutePath().normalize();
+        Path targetPath = target.toAbsolutePath().normalize();
+        if (targetPath.startsWith(rootPath)) {
+            throw new IOException("导出位置不能位于项目目录中: " + targetPath);
+        }
+        boolean zip = targetPath.getFileName().toString().toLowerCase().endsWith(".zip");
+        if (zip ? Files.exists(targetPath) : Files.isDirectory(targetPath) && hasChildren(targetPath)) {
+            throw new IOException("导出位置已存在: " + targetPath);
+        }
+
+        List<SnapshotExporter.Source> files = collectSnapshotFiles(root, rootPath, indicator);
+        LOG.info("待导出文件: " + files.size());
+
+        indicator.setText("正在导出脱敏副本...");
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("RedactionSnapshot", parallelism);
+        ExecutorService innerExecutor = AppExecutorUtil.createBoundedApplicationPoolExecutor("RedactionSnapshotStream", parallelism);
+        SnapshotExporter exporter = new SnapshotExporter(getMaskingEngine(), executor, innerExecutor, parallelism,
+                MAX_FILE_SIZE, MAX_CONTENT_LENGTH);
+        try {
+            if (zip) {
+                exporter.exportToZip(files, targetPath, indicator);
+            } else {
+                exporter.exportToDirectory(files, targetPath, indicator);
+            }
+        } finally {
+            executor.shutdownNow();
+            innerExecutor.shutdownNow();
+        }
+
+        String summary = exporter.toSummary(targetPath);
+        LOG.info("脱敏副本导出完成\n" + summary);
+        return summary;
+    }
+
+    private static boolean hasChildren(Path dir) throws IOException {
+        try (Stream<Path> children = Files.list(dir)) {
+            return children.findAny().isPresent();
+        }
+    }
+
+    /**
+     * 逐级遍历项目目录，收集需要导出的文件及其处理方式
+     *
+     * 与 {@link #walkConfigFiles} 相同，遍历拆分为多个短小的读操作步骤，待访问目录队列即为检查点。
+     */
+    private List<SnapshotExporter.Source> collectSnapshotFiles(VirtualFile root, Path rootPath,
+                                                               ProgressIndicator indicator) {
+        ExclusionMatcher matcher = ReadActionSteps.compute(project, indicator, () -> ExclusionMatcher.create(project));
+        exclusionMatcher = matcher;
+        List<SnapshotExporter.Source> files = new ArrayList<>();
+        Deque<VirtualFile> pendingDirs = new ArrayDeque<>();
+        pendingDirs.add(root);
+
+        ReadActionSteps.runUntilDone(project, indicator, () -> {
+            int visitedEntries = 0;
+            while (!pendingDirs.isEmpty() && visitedEntries < MAX_ENTRIES_PER_READ_STEP) {
+                VirtualFile dir = pendingDirs.peekFirst();
+                List<VirtualFile> subDirs = new ArrayList<>();
+                List<SnapshotExporter.Source> matchedFiles = new ArrayList<>();
+
+                if (dir.isValid()) {
+                    VirtualFile[] children = dir.getChildren();
+                    for (VirtualFile child : children) {
+                        ProgressManager.checkCanceled();
+                        if (child.is(VFileProperty.SYMLINK) && child.isDirectory()) {
+                            // 不跟随目录链接，避免循环和导出项目之外的内容
+                            continue;
+                        }
+                        if (child.isDirectory()) {
+                            if (!matcher.isExcludedDirectory(child)) {
+                                subDirs.add(child);
                             }
-                            
-                            indicator.setText("Processing: " + file.getName());
-                            indicator.setFraction((double) processedFiles.get() / totalFiles);
-                            
-                            processFile(file);
-                            processedFiles.incrementAndGet();
+                            continue;
                         }
-                    });
-                } catch (Exception e) {
-                    // 记录错误但继续处理
+                        String name = child.getName().toLowerCase();
+                        SnapshotExporter.Kind kind;
+                        if (ArchiveMasker.isArchive(name)) {
+                            kind = SnapshotExporter.Kind.ARCHIVE;
+                        } else if (isSensitiveFile(child)
+                                || (matcher.isExcluded(child) && FormatHandlers.find(name) != null)) {
+                            kind = SnapshotExporter.Kind.MASK;
+                        } else {
+                            kind = SnapshotExporter.Kind.COPY;
+                        }
+                        Path path = child.toNioPath();
+                        String relativePath = FileUtilRt.toSystemIndependentName(rootPath.relativize(path).toString());
+                        matchedFiles.add(new SnapshotExporter.Source(path, relativePath, kind, child.getCharset()));
+                    }
+                    visitedEntries += children.length;
                 }
+
+                pendingDirs.pollFirst();
+                for (int i = subDirs.size() - 1; i >= 0; i--) {
+                    pendingDirs.addFirst(subDirs.get(i));
+                }
+                files.addAll(matchedFiles);
             }
+            return pendingDirs.isEmpty();
         });
+
+        return files;
+    }
+
+    /**
+     * 收集各模块的编译输出目录，以及内容根下常见的构建输出目录
+     */
+    private List<Path> collectBuildOutputDirs() {
+        Set<Path> dirs = new LinkedHashSet<>();
+        for (Module module : ModuleManager.getInstance(project).getModules()) {
+            CompilerModuleExtension extension = CompilerModuleExtension.getInstance(module);
+            if (extension != null) {
+                for (String url : new String[]{extension.getCompilerOutputUrl(), extension.getCompilerOutputUrlForTests()}) {
+                    if (url != null) {
+                        dirs.add(Paths.get(VfsUtilCore.urlToPath(url)));
+                    }
+                }
+            }
+            for (VirtualFile root : ModuleRootManager.getInstance(module).getContentRoots()) {
+                for (String name : BUILD_OUTPUT_DIRS) {
+                    dirs.add(Paths.get(root.getPath(), name));
+                }
+            }
+        }
+        // 去掉不存在的目录和嵌套在其他输出目录中的目录
+        List<Path> result = new ArrayList<>();
+        for (Path dir : dirs) {
+            if (Files.isDirectory(dir) && dirs.stream().noneMatch(other -> other != dir && dir.startsWith(other))) {
+                result.add(dir);
+            }
+        }
+        return result;
     }
 
     /**
@@ -279,14 +776,14 @@ public void run(@NotNull ProgressIndicator indicator) {
                     indicator.setIndeterminate(false);
                     indicator.setText("Scanning directory: " + directory.getName());
                     
-                    List<VirtualFile> configFiles = new ArrayList<>();
-                    ReadAction.run(() -> collectConfigFiles(directory, configFiles, indicator));
+                    List<VirtualFile> configFiles = collectConfigFiles(directory, indicator);
                     
                     if (configFiles.isEmpty()) {
                         return;
                     }
 
                     // 对文件进行分批处理
+                    MaskingRun run = new MaskingRun(getMaskingEngine());
                     List<List<VirtualFile>> batches = splitIntoBatches(configFiles, MAX_FILES_PER_BATCH);
                     int totalBatches = batches.size();
                     AtomicInteger processedBatches = new AtomicInteger(0);
@@ -300,54 +797,28 @@ public void run(@NotNull ProgressIndicator indicator) {
                         indicator.setFraction((double) processedBatches.get() / totalBatches);
 
                         // 处理当前批次
-                        processBatch(batch, indicator);
-                        
-                        // 批次间延迟，让出CPU
-                        Thread.sleep(PROCESSING_DELAY);
+                        processBatch(batch, run, indicator);
                         processedBatches.incrementAndGet();
                     }
+                    LOG.info("目录文件脱敏完成: " + directory.getPath() + "\n" + run.report.toSummary());
+                } catch (ProcessCanceledException e) {
+                    throw e;
                 } catch (Exception e) {
                     // 记录错误但继续处理
+                    LOG.warn("脱敏目录文件失败: " + directory.getPath(), e);
                 } finally {
                     isProcessing = false;
+                    saveScanCacheLater();
                 }
             }
         });
     }
 
-    private void processBatch(List<VirtualFile> files, ProgressIndicator indicator) {
+    private void processBatch(List<VirtualFile> files, MaskingRun run, ProgressIndicator indicator) {
         if (files.isEmpty()) {
             return;
         }
-
-        AtomicInteger processedCount = new AtomicInteger(0);
-        int totalFiles = files.size();
-
-        for (VirtualFile file : files) {
-            if (indicator.isCanceled()) {
-                break;
-            }
-
-            try {
-                // 处理文件
-                processFile(file);
-                
-                // 更新进度
-                int current = processedCount.incrementAndGet();
-                indicator.setFraction((double) current / totalFiles);
-                indicator.setText2("处理文件 " + current + "/" + totalFiles + ": " + file.getName());
-                
-                // 添加处理延迟，避免UI冻结
-                try {
-                    Thread.sleep(PROCESSING_DELAY);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            } catch (Exception e) {
-                LOG.error("Error processing file: " + file.getPath(), e);
-            }
-        }
+        processFiles(files, run, indicator);
     }
 
     private <T> List<List<T>> splitIntoBatches(List<T> items, int batchSize) {
@@ -362,312 +833,477 @@ private <T> List<List<T>> splitIntoBatches(List<T> items, int batchSize) {
      * 处理单个文件
      */
     public void processFile(VirtualFile file) {
-        if (file == null || !file.exists() || file.isDirectory() || file.getLength() > MAX_FILE_SIZE) {
+        processFile(file, new MaskingRun(getMaskingEngine()));
+    }
+
+    private void processFile(VirtualFile file, MaskingRun run) {
+        if (file == null || !file.exists() || file.isDirectory()) {
             LOG.info("跳过文件处理: " + (file != null ? file.getPath() : "null") + 
                     ", 原因: " + (file == null ? "文件为空" : 
-                    (!file.exists() ? "文件不存在" : 
-                    (file.isDirectory() ? "是目录" : 
-                    "文件过大 " + file.getLength() + " > " + MAX_FILE_SIZE))));
+                    (!file.exists() ? "文件不存在" : "是目录")));
             return;
         }
 
-        String fileName = file.getName().toLowerCase();
-        LOG.info("开始处理文件: " + file.getPath());
+        // 文件自上次扫描后未变化时直接复用上次的结论
+        run.report.fileScanned();
+        if (getScanCache().isUnchanged(file)) {
+            run.report.fileUnchanged();
+            LOG.info("文件自上次扫描后未变化，跳过: " + file.getPath());
+            return;
+        }
 
-        // 根据文件类型选择不同的处理方式
-        if (fileName.endsWith(".java")) {
-            // 处理 Java 文件
-            processJavaFile(file);
-        } else if (fileName.endsWith(".properties") || 
-                   fileName.endsWith(".yml") || 
-                   fileName.endsWith(".yaml") ||
-                   fileName.endsWith(".xml") ||
-                   fileName.endsWith(".json")) {
-            // 处理配置文件
-            processConfigFile(file);
-        } else {
+        boolean reversible = RedactionSettings.getInstance(project).isReversibleMaskingEnabled();
+        if (ArchiveMasker.isArchive(file.getName().toLowerCase())) {
+            if (reversible) {
+                LOG.warn("可恢复脱敏模式下不处理归档文件: " + file.getPath());
+                return;
+            }
+            processArchive(file, run);
+            return;
+        }
+        FormatHandler handler = FormatHandlers.find(file.getName());
+        if (handler == null) {
             LOG.info("跳过不支持的文件类型: " + file.getPath());
+            return;
+        }
+        LOG.info("开始处理文件: " + file.getPath());
+        if (file.getLength() > MAX_FILE_SIZE) {
+            // 流式处理的替换不经过文档，无法记录到保险库
+            if (reversible) {
+                LOG.warn("可恢复脱敏模式下不处理超过大小上限的文件: " + file.getPath());
+                return;
+            }
+            processLargeFile(file, handler, run);
+        } else {
+            processDocument(file, handler, run);
         }
     }
 
     /**
-     * 处理 Java 文件
+     * 用格式处理器处理文件
+     *
+     * 在可重启的读操作中由处理器在文档的不可变字符序列上收集替换，写操作等待时让出并重新收集；
+     * 内容完全相同的文件在同一次运行中只分析一次。可恢复模式下原值在当前线程中写入保险库，
+     * 替换在主线程中从后向前写回文档。
      */
-    private void processJavaFile(VirtualFile file) {
-        // 在主线程中收集需要替换的内容
-        List<FieldReplacement> replacements = new ArrayList<>();
-        ReadAction.run(() -> {
+    private void processDocument(VirtualFile file, FormatHandler handler, MaskingRun run) {
+        DetectionEngine engine = run.engine;
+        DocumentEdits result = ReadActionSteps.compute(project, currentIndicator(), () -> {
             try {
-                PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
-                if (!(psiFile instanceof PsiJavaFile)) {
-                    LOG.warn("文件不是Java文件: " + file.getPath());
-                    return;
-                }
-
-                PsiJavaFile javaFile = (PsiJavaFile) psiFile;
                 Document document = FileDocumentManager.getInstance().getDocument(file);
                 if (document == null) {
                     LOG.error("无法获取文档对象: " + file.getPath());
-                    return;
+                    return null;
                 }
 
-                LOG.info("开始处理Java类: " + javaFile.getName() + ", 包含类数量: " + javaFile.getClasses().length);
-
-                // 获取所有类
-                for (PsiClass psiClass : javaFile.getClasses()) {
-                    processPsiClass(psiClass, replacements);
+                CharSequence text = document.getImmutableCharSequence();
+                String contentKey = handler.getClass().getName() + ":" + ScanCache.hash(text);
+                TextEdits edits = run.editsByContent.get(contentKey);
+                if (edits != null) {
+                    return new DocumentEdits(document, text, document.getModificationStamp(), edits, true);
                 }
+
+                String fileName = file.getName().toLowerCase();
+                edits = new TextEdits();
+                long started = System.nanoTime();
+                handler.collectEdits(new FormatRequest(text, fileName, engine, project, file),
+                        PseudonymSink.wrap(engine, text, edits));
+                run.report.handlerFinished(handler.getClass().getSimpleName(), System.nanoTime() - started);
+                run.editsByContent.putIfAbsent(contentKey, edits);
+                return new DocumentEdits(document, text, document.getModificationStamp(), edits, false);
+            } catch (ProcessCanceledException e) {
+                throw e;
             } catch (Exception e) {
-                LOG.error("处理Java文件失败: " + file.getPath(), e);
+                LOG.error("处理文件失败: " + file.getPath(), e);
+                return null;
             }
         });
 
-        // 如果有需要替换的内容，在主线程中执行写操作
-        if (!replacements.isEmpty()) {
-            LOG.info("找到需要替换的敏感字段数量: " + replacements.size() + ", 文件: " + file.getPath());
-            ApplicationManager.getApplication().invokeLater(() -> {
-                WriteCommandAction.runWriteCommandAction(project, () -> {
-                    try {
-                        Document document = FileDocumentManager.getInstance().getDocument(file);
-                        if (document != null) {
-                            // 从后向前替换，避免位置偏移
-                            replacements.sort((a, b) -> b.startOffset - a.startOffset);
-                            for (FieldReplacement replacement : replacements) {
-                                LOG.debug("执行替换: 位置 " + replacement.startOffset + " 到 " + replacement.endOffset);
-                                document.replaceString(
-                                    replacement.startOffset,
-                                    replacement.endOffset,
-                                    replacement.newText
-                                );
-                            }
-                            FileDocumentManager.getInstance().saveDocument(document);
-                            LOG.info("成功完成文件替换和保存: " + file.getPath());
-                        } else {
-                            LOG.error("无法获取文档对象进行替换: " + file.getPath());
+        if (result == null) {
+            return;
+        }
+        if (result.reused) {
+            run.report.contentReused();
+        } else {
+            run.report.contentAnalyzed();
+        }
+
+        if (result.edits.isEmpty()) {
+            getScanCache().record(file, ScanCache.Verdict.CLEAN, 0);
+            LOG.info("文件中未找到需要替换的敏感信息: " + file.getPath());
+            return;
+        }
+
+        LOG.info("找到需要替换的敏感信息数量: " + result.edits.size() + ", 文件: " + file.getPath());
+
+        // 可恢复模式下原值在后台线程中加密并写入保险库，写命令中只登记记录；原值保存失败时不脱敏
+        MaskVault vault = null;
+        MaskVault.Recording recording = null;
+        if (RedactionSettings.getInstance(project).isReversibleMaskingEnabled()) {
+            try {
+                vault = getMaskVault();
+                recording = vault.prepare(file.getPath(), result.text, result.edits);
+            } catch (IOException e) {
+                LOG.error("保存原值到保险库失败，跳过替换: " + file.getPath(), e);
+                return;
+            }
+        }
+        MaskVault preparedVault = vault;
+        MaskVault.Recording preparedRecording = recording;
+
+        run.report.fileMasked(result.edits.size());
+        ApplicationManager.getApplication().invokeLater(() -> {
+            WriteCommandAction.runWriteCommandAction(project, () -> {
+                try {
+                    // 收集之后文档又被修改时，替换位置已经失效
+                    if (result.document.getModificationStamp() != result.modificationStamp) {
+                        LOG.warn("文档在分析后被修改，跳过替换: " + file.getPath());
+                        return;
+                    }
+                    if (preparedVault != null) {
+                        try {
+                            preparedVault.commit(preparedRecording);
+                        } catch (IOException e) {
+                            LOG.error("保存原值到保险库失败，跳过替换: " + file.getPath(), e);
+                            return;
                         }
-                    } catch (Exception e) {
-                        LOG.error("执行替换操作失败: " + file.getPath(), e);
                     }
-                });
+                    result.edits.applyTo(result.document);
+                    FileDocumentManager.getInstance().saveDocument(result.document);
+                    getScanCache().record(file, ScanCache.Verdict.MASKED, result.edits.size());
+                    LOG.info("成功完成文件替换和保存: " + file.getPath());
+                } catch (Exception e) {
+                    LOG.error("执行替换操作失败: " + file.getPath(), e);
+                }
             });
-        } else {
-            LOG.info("文件中未找到需要替换的敏感字段: " + file.getPath());
-        }
+        });
     }
 
     /**
-     * 处理配置文件
+     * 分块处理超过大小上限的文件
+     *
+     * 大文件不载入文档：从磁盘流式读取，按固定窗口脱敏后写入同目录下的临时文件，
+     * 有替换时用临时文件替换原文件并刷新 VFS，内存占用与文件大小无关。
      */
-    private void processConfigFile(VirtualFile file) {
-        ReadAction.run(() -> {
-            try {
-                Document document = FileDocumentManager.getInstance().getDocument(file);
-                if (document == null) {
-                    LOG.error("无法获取文档对象: " + file.getPath());
-                    return;
-                }
-
-                String content = document.getText();
-                String fileName = file.getName().toLowerCase();
-                String processedContent;
-
-                if (fileName.endsWith(".properties")) {
-                    processedContent = processConfigContent(content, "properties");
-                } else if (fileName.endsWith(".yml") || fileName.endsWith(".yaml")) {
-                    processedContent = processConfigContent(content, "yml");
-                } else if (fileName.endsWith(".xml")) {
-                    processedContent = maskXmlContent(content);
-                } else if (fileName.endsWith(".json")) {
-                    processedContent = maskJsonContent(content);
-                } else {
-                    LOG.warn("不支持的配置文件类型: " + file.getPath());
-                    return;
-                }
+    private void processLargeFile(VirtualFile file, FormatHandler handler, MaskingRun run) {
+        if (!file.isInLocalFileSystem()) {
+            LOG.info("跳过非本地文件系统中的大文件: " + file.getPath());
+            return;
+        }
+        if (FileDocumentManager.getInstance().isFileModified(file)) {
+            LOG.info("大文件在编辑器中有未保存的修改，跳过: " + file.getPath());
+            return;
+        }
 
-                if (!content.equals(processedContent)) {
-                    ApplicationManager.getApplication().invokeLater(() -> {
-                        WriteCommandAction.runWriteCommandAction(project, () -> {
-                            try {
-                                document.setText(processedContent);
-                                FileDocumentManager.getInstance().saveDocument(document);
-                                LOG.info("成功完成配置文件替换和保存: " + file.getPath());
-                            } catch (Exception e) {
-                                LOG.error("保存配置文件失败: " + file.getPath(), e);
-                            }
-                        });
-                    });
-                } else {
-                    LOG.info("配置文件无需修改: " + file.getPath());
+        Path source = file.toNioPath();
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(source.getParent(), source.getFileName().toString(), ".masking");
+            long started = System.nanoTime();
+            int replaced;
+            try (Reader reader = new CancellableReader(
+                         new InputStreamReader(Files.newInputStream(source), file.getCharset()));
+                 Writer writer = new OutputStreamWriter(Files.newOutputStream(temp), file.getCharset())) {
+                replaced = maskStream(run.engine, handler, file.getName().toLowerCase(), reader, writer);
+            }
+            run.report.handlerFinished(handler instanceof RecordFormatHandler
+                    ? handler.getClass().getSimpleName() : ChunkedMasker.class.getSimpleName(),
+                    System.nanoTime() - started);
+            run.report.fileChunked();
+
+            if (replaced == 0) {
+                getScanCache().record(file, ScanCache.Verdict.CLEAN, 0);
+                LOG.info("大文件中未找到需要替换的敏感信息: " + file.getPath());
+                return;
+            }
+            Files.move(temp, source, StandardCopyOption.REPLACE_EXISTING);
+            temp = null;
+            run.report.fileMasked(replaced);
+            // 同步刷新，记录缓存时使用替换后的时间戳和长度
+            file.refresh(false, false);
+            getScanCache().record(file, ScanCache.Verdict.MASKED, replaced);
+            LOG.info("分块处理完成，替换数量: " + replaced + ", 文件: " + file.getPath());
+        } catch (IOException e) {
+            LOG.error("分块处理大文件失败: " + file.getPath(), e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    LOG.warn("删除临时文件失败: " + temp, e);
                 }
-            } catch (Exception e) {
-                LOG.error("处理配置文件失败: " + file.getPath(), e);
             }
-        });
+        }
     }
 
-    private void processPsiClass(PsiClass psiClass, List<FieldReplacement> replacements) {
-        LOG.info("开始处理类: " + psiClass.getQualifiedName());
-        
-        // 处理字段
-        Collection<PsiField> fields = PsiTreeUtil.findChildrenOfType(psiClass, PsiField.class);
-        LOG.info("找到字段数量: " + fields.size() + ", 类: " + psiClass.getQualifiedName());
-
-        for (PsiField field : fields) {
-            if (isSensitiveField(field)) {
-                LOG.info("发现敏感字段: " + field.getName() + ", 类: " + psiClass.getQualifiedName());
-                PsiExpression initializer = field.getInitializer();
-                if (initializer instanceof PsiLiteralExpression) {
-                    PsiLiteralExpression literalExpression = (PsiLiteralExpression) initializer;
-                    Object value = literalExpression.getValue();
-                    if (value instanceof String) {
-                        String stringValue = (String) value;
-                        TextRange textRange = literalExpression.getTextRange();
-                        String maskedValue = getMaskedValueForField(field, stringValue);
-                        LOG.debug("添加替换: 字段 " + field.getName() + 
-                                ", 范围 " + textRange.getStartOffset() + "-" + textRange.getEndOffset() +
-                                ", 掩码值: " + maskedValue);
-                        replacements.add(new FieldReplacement(
-                            textRange.getStartOffset(),
-                            textRange.getEndOffset(),
-                            "\"" + maskedValue + "\""
-                        ));
-                    }
+    /**
+     * 按条目处理归档文件
+     *
+     * 不解压到磁盘：配置类条目交给对应的格式处理器，只重写有替换的条目，其他条目原样复制；
+     * 结果写入同目录下的临时文件，有替换时替换原文件并刷新 VFS。
+     */
+    private void processArchive(VirtualFile file, MaskingRun run) {
+        if (!file.isInLocalFileSystem()) {
+            LOG.info("跳过非本地文件系统中的归档: " + file.getPath());
+            return;
+        }
+
+        Path source = file.toNioPath();
+        Path temp = null;
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("RedactionArchive", parallelism);
+        try {
+            temp = Files.createTempFile(source.getParent(), source.getFileName().toString(), ".masking");
+            long started = System.nanoTime();
+            ArchiveMasker.Result result = new ArchiveMasker(run.engine, executor, parallelism)
+                    .mask(source, temp, file.getName().toLowerCase());
+            run.report.handlerFinished(ArchiveMasker.class.getSimpleName(), System.nanoTime() - started);
+            run.report.archiveProcessed(result.getRewrittenEntries());
+            LOG.info("归档条目: " + result.getEntries() + ", 分析: " + result.getCandidates()
+                    + ", 重写: " + result.getRewrittenEntries() + ", 文件: " + file.getPath());
+
+            if (result.getReplacements() == 0) {
+                getScanCache().record(file, ScanCache.Verdict.CLEAN, 0);
+                LOG.info("归档中未找到需要替换的敏感信息: " + file.getPath());
+                return;
+            }
+            Files.move(temp, source, StandardCopyOption.REPLACE_EXISTING);
+            temp = null;
+            run.report.fileMasked(result.getReplacements());
+            file.refresh(false, false);
+            getScanCache().record(file, ScanCache.Verdict.MASKED, result.getReplacements());
+            if (result.isSigned()) {
+                LOG.warn("归档带有 jar 签名，重写后签名失效: " + file.getPath());
+            }
+            LOG.info("归档处理完成，替换数量: " + result.getReplacements() + ", 文件: " + file.getPath());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException(e);
+        } catch (IOException e) {
+            LOG.error("处理归档文件失败: " + file.getPath(), e);
+        } finally {
+            executor.shutdownNow();
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    LOG.warn("删除临时文件失败: " + temp, e);
                 }
             }
         }
     }
 
     /**
-     * 根据字段类型和值获取对应的掩码值
+     * 流式处理大文件：SQL 导出、CSV 等数据文件在记录边界分批并行处理，其他格式按固定窗口分块处理
      */
-    private String getMaskedValueForField(PsiField field, String originalValue) {
-        String fieldText = field.getText();
-        
-        // MongoDB URI
-        if (originalValue.startsWith("mongodb://")) {
-            return "mongodb://###MASKED_USER###:###MASKED_PASSWORD###@###MASKED_HOST###:###MASKED_PORT###/###MASKED_DB###";
+    private int maskStream(DetectionEngine engine, @Nullable FormatHandler handler, String fileName,
+                           Reader reader, Writer writer) throws IOException {
+        if (!(handler instanceof RecordFormatHandler)) {
+            return new ChunkedMasker(engine, handler, fileName, MAX_CONTENT_LENGTH).mask(reader, writer);
         }
-        
-        // JDBC URL
-        if (originalValue.startsWith("jdbc:")) {
-            return "jdbc:mysql://###MASKED_HOST###:###MASKED_PORT###/###MASKED_DB###";
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("RedactionRecordStream", parallelism);
+        try {
+            return new RecordStreamMasker(engine, (RecordFormatHandler) handler, fileName,
+                    executor, parallelism).mask(reader, writer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException(e);
+        } finally {
+            executor.shutdownNow();
         }
-        
-        // 其他URL模式
-        for (Map.Entry<String, Pattern> entry : JAVA_SENSITIVE_PATTERNS.entrySet()) {
-            if (entry.getValue().matcher(fieldText).matches()) {
-                switch (entry.getKey()) {
-                    case "JAVA_URL_PATTERN":
-                        if (originalValue.startsWith("http://") || originalValue.startsWith("https://")) {
-                            return "http://###MASKED###";
-                        } else if (originalValue.startsWith("redis://")) {
-                            return "redis://###MASKED_HOST###:###MASKED_PORT###";
-                        } else if (originalValue.startsWith("zookeeper://")) {
-                            return "zookeeper://###MASKED_HOST###:###MASKED_PORT###";
-                        } else if (originalValue.startsWith("dubbo://")) {
-                            return "dubbo://###MASKED_HOST###:###MASKED_PORT###";
-                        }
-                        break;
-                    case "JAVA_IP_PORT":
-                        return "###.###.###.###:####";
-                    case "JAVA_DOMAIN_PORT":
-                        return "###MASKED_DOMAIN###:####";
+    }
+
+    /**
+     * 每次读取前检查取消状态，分块处理大文件时可以及时中止
+     */
+    private static final class CancellableReader extends FilterReader {
+        CancellableReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            ProgressManager.checkCanceled();
+            return super.read(buffer, offset, length);
+        }
+    }
+
+    /**
+     * 获取增量扫描缓存，首次使用时从磁盘加载；检测规则或设置变化后丢弃已有结论
+     */
+    private ScanCache getScanCache() {
+        String fingerprint = getDetectionEngine().fingerprint();
+        ScanCache cache = scanCache;
+        if (cache == null || !cache.getFingerprint().equals(fingerprint)) {
+            synchronized (this) {
+                cache = scanCache;
+                if (cache == null || !cache.getFingerprint().equals(fingerprint)) {
+                    cache = ScanCache.load(project, fingerprint);
+                    scanCache = cache;
                 }
             }
         }
-        
-        // 默认掩码
-        return "###MASKED###";
+        return cache;
     }
 
-    private boolean isSensitiveField(PsiField field) {
-        // 检查字段类型是否为String
-        PsiType type = field.getType();
-        if (!type.equalsToText("java.lang.String") && !type.equalsToText("String")) {
-            LOG.debug("字段类型不是String: " + field.getName() + ", 类型: " + type.getPresentableText());
-            return false;
+    /**
+     * 在已排队的写操作完成后保存扫描缓存、假名映射表和保险库索引
+     */
+    private void saveScanCacheLater() {
+        ApplicationManager.getApplication().invokeLater(
+            () -> ApplicationManager.getApplication().executeOnPooledThread(() -> {
+                getScanCache().save();
+                savePseudonyms();
+                saveMaskVault();
+            }),
+            project.getDisposed());
+    }
+
+    @Override
+    public void dispose() {
+        ScanCache cache = scanCache;
+        if (cache != null) {
+            cache.save();
         }
+        savePseudonyms();
+        saveMaskVault();
+    }
 
-        String fieldName = field.getName().toLowerCase();
-        PsiExpression initializer = field.getInitializer();
-        
-        // 检查字段值是否包含敏感信息
-        if (initializer instanceof PsiLiteralExpression) {
-            PsiLiteralExpression literalExpression = (PsiLiteralExpression) initializer;
-            Object value = literalExpression.getValue();
-            if (value instanceof String) {
-                String stringValue = (String) value;
-                
-                // 检查是否包含敏感URL模式
-                for (Map.Entry<String, Pattern> entry : JAVA_SENSITIVE_PATTERNS.entrySet()) {
-                    if (entry.getValue().matcher(field.getText()).matches()) {
-                        LOG.info("发现敏感URL模式: " + entry.getKey() + ", 字段: " + field.getName());
-                        return true;
+    /**
+     * 获取脱敏使用的检测引擎，启用一致化假名时附带项目的假名映射表
+     */
+    private DetectionEngine getMaskingEngine() {
+        DetectionEngine engine = getDetectionEngine();
+        if (!RedactionSettings.getInstance(project).isPseudonymizeEnabled()) {
+            return engine;
+        }
+        return engine.withPseudonymizer(getPseudonymizer());
+    }
+
+    /**
+     * 获取项目的假名映射表，首次使用时从密码库读取密钥并从磁盘加载
+     */
+    private Pseudonymizer getPseudonymizer() {
+        Pseudonymizer table = pseudonymizer;
+        if (table == null) {
+            synchronized (this) {
+                table = pseudonymizer;
+                if (table == null) {
+                    table = new Pseudonymizer(loadKey("pseudonym-key"));
+                    try {
+                        table.load(getPseudonymFile());
+                    } catch (IOException e) {
+                        LOG.warn("加载假名映射表失败，编号重新开始: " + getPseudonymFile(), e);
                     }
-                }
-                
-                // 检查是否包含IP地址
-                if (stringValue.matches(".*\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}.*")) {
-                    LOG.info("发现IP地址: " + field.getName());
-                    return true;
-                }
-                
-                // 检查是否包含域名和端口
-                if (stringValue.matches(".*[a-zA-Z0-9-]+\\.[a-zA-Z0-9-.]+(?::\\d+)?.*")) {
-                    LOG.info("发现域名或端口: " + field.getName());
-                    return true;
+                    pseudonymizer = table;
                 }
             }
         }
-        
-        // 检查字段名是否包含敏感关键词
-        for (String keyword : SENSITIVE_FIELD_KEYWORDS) {
-            if (fieldName.contains(keyword)) {
-                LOG.info("发现敏感关键词: " + keyword + ", 字段: " + field.getName());
-                return true;
+        return table;
+    }
+
+    /**
+     * 读取密码库中的 256 位密钥（假名的 HMAC 密钥、保险库的 AES 密钥），不存在时生成随机密钥并保存
+     */
+    private static byte[] loadKey(String name) {
+        CredentialAttributes attributes = new CredentialAttributes(
+            CredentialAttributesKt.generateServiceName("Sensitive Data Redaction", name));
+        String stored = PasswordSafe.getInstance().getPassword(attributes);
+        if (stored == null) {
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            stored = Base64.getEncoder().encodeToString(key);
+            PasswordSafe.getInstance().setPassword(attributes, stored);
+        }
+        return Base64.getDecoder().decode(stored);
+    }
+
+    private Path getPseudonymFile() {
+        return ScanCache.getCacheDir(project).resolve("pseudonyms.tsv");
+    }
+
+    private void savePseudonyms() {
+        Pseudonymizer table = pseudonymizer;
+        if (table == null) {
+            return;
+        }
+        try {
+            table.save(getPseudonymFile());
+        } catch (IOException e) {
+            LOG.warn("保存假名映射表失败: " + getPseudonymFile(), e);
+        }
+    }
+
+    /**
+     * 获取项目的原值保险库，首次使用时从密码库读取密钥并映射索引文件
+     */
+    private MaskVault getMaskVault() throws IOException {
+        MaskVault vault = maskVault;
+        if (vault == null) {
+            synchronized (this) {
+                vault = maskVault;
+                if (vault == null) {
+                    vault = MaskVault.open(ScanCache.getCacheDir(project).resolve("vault"), loadKey("vault-key"));
+                    maskVault = vault;
+                }
             }
         }
+        return vault;
+    }
+
+    private void saveMaskVault() {
+        MaskVault vault = maskVault;
+        if (vault == null) {
+            return;
+        }
+        try {
+            vault.save();
+        } catch (IOException e) {
+            LOG.warn("保存保险库索引失败", e);
+        }
+    }
 
-        // 检查字段注解
-        for (PsiAnnotation annotation : field.getAnnotations()) {
-            String annotationName = annotation.getQualifiedName();
-            if (annotationName != null && (
-                annotationName.contains("Sensitive") ||
-                annotationName.contains("Password") ||
-                annotationName.contains("Secret")
-            )) {
-                LOG.info("发现敏感注解: " + annotationName + ", 字段: " + field.getName());
-                return true;
-            }
-        }
+    /**
+     * 获取当前线程的进度指示器，没有时返回一个空指示器
+     */
+    @NotNull
+    private static ProgressIndicator currentIndicator() {
+        ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+        return indicator != null ? indicator : new EmptyProgressIndicator();
+    }
 
-        // 检查字段注释
-        PsiComment[] comments = PsiTreeUtil.getChildrenOfType(field.getParent(), PsiComment.class);
-        if (comments != null) {
-            for (PsiComment comment : comments) {
-                String commentText = comment.getText().toLowerCase();
-                if (commentText.contains("sensitive") ||
-                    commentText.contains("password") ||
-                    commentText.contains("secret")) {
-                    LOG.info("发现敏感注释: " + commentText + ", 字段: " + field.getName());
-                    return true;
-                }
-            }
+    /**
+     * 一个文档的分析结果：收集时的文本、修改时间戳和替换集合
+     */
+    private static class DocumentEdits {
+        final Document document;
+        final CharSequence text;
+        final long modificationStamp;
+        final TextEdits edits;
+        final boolean reused;
+
+        DocumentEdits(Document document, CharSequence text, long modificationStamp, TextEdits edits, boolean reused) {
+            this.document = document;
+            this.text = text;
+            this.modificationStamp = modificationStamp;
+            this.edits = edits;
+            this.reused = reused;
         }
-
-        LOG.debug("字段不敏感: " + field.getName());
-        return false;
     }
 
-    private static class FieldReplacement {
-        final int startOffset;
-        final int endOffset;
-        final String newText;
+    /**
+     * 单次批量脱敏运行的上下文：检测引擎、运行报告和按内容哈希缓存的替换集合
+     *
+     * 检测引擎在运行开始时解析一次（启用一致化假名时需要从密码库读取密钥），不在读操作中解析。
+     */
+    private static class MaskingRun {
+        final DetectionEngine engine;
+        final MaskingReport report = new MaskingReport();
+        final Map<String, TextEdits> editsByContent = new ConcurrentHashMap<>();
 
-        FieldReplacement(int startOffset, int endOffset, String newText) {
-            this.startOffset = startOffset;
-            this.endOffset = endOffset;
-            this.newText = newText;
+        MaskingRun(DetectionEngine engine) {
+            this.engine = engine;
         }
     }
 
@@ -727,285 +1363,165 @@ private String maskSensitiveDataOptimized(String content) {
     }
     
     /**
-     * 专门处理XML格式内容的脱敏
+     * 收集目录下需要处理的文件
+     *
+     * 目录位于项目内容根下时通过文件索引查找，否则退化为逐级遍历。
      */
-    private String maskXmlContent(String xmlContent) {
-        LOG.info("开始处理 XML 内容");
-        
-        // 首先检查是否是 .idea 目录下的配置文件
-        if (xmlContent.contains("<?xml") && xmlContent.contains("version=") && xmlContent.contains(".idea")) {
-            LOG.info("检测到 .idea 目录下的 XML 配置文件，跳过处理");
-            return xmlContent;
+    private List<VirtualFile> collectConfigFiles(VirtualFile root, ProgressIndicator indicator) {
+        boolean inContent = ReadActionSteps.compute(project, indicator,
+                () -> root.isValid() && ProjectFileIndex.getInstance(project).isInContent(root));
+        if (!inContent) {
+            return walkConfigFiles(root, indicator);
         }
-        
-        try {
-            // 处理XML中的IP地址 - 修改正则表达式以匹配更多情况
-            Pattern ipPattern = Pattern.compile("(value\\s*=\\s*\"Http[s]?://)(\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})(:\\d+|/|\")", Pattern.CASE_INSENSITIVE);
-            Matcher ipMatcher = ipPattern.matcher(xmlContent);
-            StringBuffer sb = new StringBuffer();
-            
-            while (ipMatcher.find()) {
-                LOG.debug("找到IP地址匹配: " + ipMatcher.group());
-                String prefix = ipMatcher.group(1);
-                String suffix = ipMatcher.group(3);
-                String replacement = prefix + "***.***.***.***" + suffix;
-                ipMatcher.appendReplacement(sb, Matcher.quoteReplacement(replacement));
+        GlobalSearchScope scope = GlobalSearchScopesCore.directoryScope(project, root, true)
+                .intersectWith(GlobalSearchScope.projectScope(project));
+        return collectConfigFiles(scope, indicator);
+    }
+
+    /**
+     * 判断敏感键索引是否覆盖当前设置下候选词检测器的所有命中
+     *
+     * 索引按默认参数记录候选词命中；熵检测的最小长度或阈值比默认值宽松时，
+     * 设置下能命中的文件可能没有被索引记录。
+     */
+    private boolean isCoveredByKeyIndex() {
+        RedactionSettings settings = RedactionSettings.getInstance(project);
+        return !settings.isEntropyDetectionEnabled()
+                || (settings.getEntropyMinLength() >= EntropyDetector.DEFAULT_MIN_LENGTH
+                    && settings.getBase64EntropyThreshold() >= EntropyDetector.DEFAULT_BASE64_THRESHOLD
+                    && settings.getHexEntropyThreshold() >= EntropyDetector.DEFAULT_HEX_THRESHOLD);
+    }
+
+    /**
+     * 基于项目文件索引收集需要处理的文件
+     *
+     * 按扩展名查询 FilenameIndex，排除目录、库文件和被忽略的文件由索引的作用域直接过滤，
+     * 无需遍历目录树。配置文件再通过 {@link SensitiveKeyIndex} 过滤，只保留含有敏感键的文件。
+     * 查询和过滤都拆分为短小的读操作步骤，剩余的扩展名和候选文件即为检查点。
+     */
+    private List<VirtualFile> collectConfigFiles(GlobalSearchScope scope, ProgressIndicator indicator) {
+        return collectConfigFiles(scope, indicator, true);
+    }
+
+    /**
+     * @param useKeyIndex 为 true 时跳过敏感键索引中没有任何命中的配置文件
+     */
+    private List<VirtualFile> collectConfigFiles(GlobalSearchScope scope, ProgressIndicator indicator, boolean useKeyIndex) {
+        boolean filterByIndex = useKeyIndex && isCoveredByKeyIndex();
+        if (useKeyIndex && !filterByIndex) {
+            LOG.info("熵检测阈值比默认值宽松，不使用敏感键索引过滤文件");
+        }
+        // 每次扫描重新编译排除规则，使 .gitignore / .redactionignore 的修改立即生效
+        exclusionMatcher = ReadActionSteps.compute(project, indicator, () -> ExclusionMatcher.create(project));
+        Deque<String> pendingExtensions = new ArrayDeque<>(CONFIG_FILE_EXTENSIONS);
+        Set<VirtualFile> candidates = new LinkedHashSet<>();
+        Set<VirtualFile> indexHits = new HashSet<>();
+        boolean[] namesCollected = {false};
+
+        ReadActionSteps.runUntilDoneInSmartMode(project, indicator, () -> {
+            if (!pendingExtensions.isEmpty()) {
+                Collection<VirtualFile> files = FilenameIndex.getAllFilesByExt(project, pendingExtensions.peekFirst(), scope);
+                pendingExtensions.pollFirst();
+                candidates.addAll(files);
+                return false;
             }
-            ipMatcher.appendTail(sb);
-            String result = sb.toString();
-            
-            // 处理XML中的域名
-            Pattern domainPattern = Pattern.compile("(value\\s*=\\s*\"Http[s]?://)([-a-zA-Z0-9.]+\\.[a-zA-Z]{2,}(?:\\.[a-zA-Z]{2,})*)([:/]|\")", Pattern.CASE_INSENSITIVE);
-            Matcher domainMatcher = domainPattern.matcher(result);
-            StringBuffer domainSb = new StringBuffer();
-            
-            while (domainMatcher.find()) {
-                LOG.debug("找到域名匹配: " + domainMatcher.group());
-                String prefix = domainMatcher.group(1);
-                String domain = domainMatcher.group(2);
-                String suffix = domainMatcher.group(3);
-                
-                if (!domain.contains("***.***.***.***")) {
-                    String replacement = prefix + "***.***.***" + suffix;
-                    domainMatcher.appendReplacement(domainSb, Matcher.quoteReplacement(replacement));
-                } else {
-                    domainMatcher.appendReplacement(domainSb, Matcher.quoteReplacement(prefix + domain + suffix));
+            if (!namesCollected[0]) {
+                // application.* / config.* / settings.* 等按文件名识别的配置文件，以及第三方格式处理器接受的文件
+                Set<String> names = new HashSet<>();
+                FilenameIndex.processAllFileNames(name -> {
+                    ProgressManager.checkCanceled();
+                    if (isConfigFileName(name) || isExtensionFormat(name)) {
+                        names.add(name);
+                    }
+                    return true;
+                }, scope, null);
+                List<VirtualFile> files = new ArrayList<>();
+                for (String name : names) {
+                    files.addAll(FilenameIndex.getVirtualFilesByName(name, scope));
                 }
+                namesCollected[0] = true;
+                candidates.addAll(files);
+                return false;
             }
-            domainMatcher.appendTail(domainSb);
-            result = domainSb.toString();
-            
-            // 处理XML中的其他敏感信息
-            for (Map.Entry<String, Pattern> entry : SENSITIVE_PATTERNS.entrySet()) {
-                String type = entry.getKey();
-                if (type.equals("IP_ADDRESS")) {
+            // 查询敏感键索引，配置文件中没有任何命中的无需打开
+            if (filterByIndex) {
+                indexHits.addAll(SensitiveKeyIndex.getFilesWithHits(scope));
+            }
+            return true;
+        });
+
+        List<VirtualFile> pending = new ArrayList<>(candidates);
+        List<VirtualFile> configFiles = new ArrayList<>();
+        int[] checked = {0};
+        ReadActionSteps.runUntilDone(project, indicator, () -> {
+            int end = Math.min(pending.size(), checked[0] + MAX_ENTRIES_PER_READ_STEP);
+            List<VirtualFile> matched = new ArrayList<>();
+            for (int i = checked[0]; i < end; i++) {
+                ProgressManager.checkCanceled();
+                VirtualFile file = pending.get(i);
+                if (filterByIndex && SensitiveKeyIndex.isIndexed(file) && !indexHits.contains(file)) {
                     continue;
                 }
-                
-                Pattern pattern = entry.getValue();
-                Matcher matcher = pattern.matcher(result);
-                StringBuffer xmlSb = new StringBuffer();
-                
-                while (matcher.find()) {
-                    LOG.debug("找到敏感信息匹配: " + type + " - " + matcher.group());
-                    String match = matcher.group();
-                    if (!isInXmlTag(result, matcher.start())) {
-                        String replacement = getMaskReplacement(type, match);
-                        try {
-                            matcher.appendReplacement(xmlSb, Matcher.quoteReplacement(replacement));
-                        } catch (Exception e) {
-                            LOG.error("替换XML中的敏感数据失败: " + e.getMessage());
-                        }
-                    } else {
-                        try {
-                            matcher.appendReplacement(xmlSb, Matcher.quoteReplacement(match));
-                        } catch (Exception e) {
-                            LOG.error("保持XML标签不变失败: " + e.getMessage());
-                        }
-                    }
+                if (file.isValid() && isSensitiveFile(file)) {
+                    matched.add(file);
                 }
-                matcher.appendTail(xmlSb);
-                result = xmlSb.toString();
             }
-            
-            LOG.info("XML 内容处理完成");
-            return result;
-        } catch (Exception e) {
-            LOG.error("处理 XML 内容时发生错误: " + e.getMessage(), e);
-            return xmlContent;
-        }
+            checked[0] = end;
+            configFiles.addAll(matched);
+            return checked[0] >= pending.size();
+        });
+
+        LOG.info("通过文件索引找到待处理文件: " + configFiles.size() + " / 候选 " + pending.size());
+        return configFiles;
     }
-    
+
     /**
-     * 检查位置是否在XML标签内
+     * 逐级遍历不在项目内容根下的目录，收集需要处理的文件
+     *
+     * 遍历被拆分为多个短小的读操作步骤，待访问目录队列即为检查点：
+     * 读操作被写操作打断后，从队列中尚未完成的目录继续扫描。
      */
-    private boolean isInXmlTag(String content, int position) {
-        try {
-            int lastLt = content.lastIndexOf('<', position);
-            int lastGt = content.lastIndexOf('>', position);
-            boolean inTag = lastLt > lastGt;
-            LOG.debug("检查位置 " + position + " 是否在XML标签内: " + inTag);
-            return inTag;
-        } catch (Exception e) {
-            LOG.error("检查XML标签位置时发生错误: " + e.getMessage());
-            return false;
-        }
-    }
-
-    private String getMaskReplacement(String type, String match) {
-        // 根据不同类型返回相应的掩码
-        switch (type) {
-            case "IP_ADDRESS":
-                return "###.###.###.###";
-            case "DB_URL":
-                return "jdbc:mysql://###MASKED###:3306/###MASKED###";
-            case "MYSQL_CONFIG":
-            case "TIDB_CONFIG":
-                if (match.toLowerCase().contains("password") || match.toLowerCase().contains("passwd")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else if (match.toLowerCase().contains("username") || match.toLowerCase().contains("user")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else if (match.toLowerCase().contains("host")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###.###.###.###");
-                } else if (match.toLowerCase().contains("port")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 jdbc:mysql://###MASKED###:3306/###MASKED###");
-                }
-            case "REDIS_CONFIG":
-                if (match.toLowerCase().contains("password") || match.toLowerCase().contains("auth")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else if (match.toLowerCase().contains("host")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###.###.###.###");
-                } else if (match.toLowerCase().contains("port")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 redis://###MASKED###:6379");
-                }
-            case "RABBITMQ_CONFIG":
-                if (match.toLowerCase().contains("password") || match.toLowerCase().contains("passwd")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else if (match.toLowerCase().contains("username") || match.toLowerCase().contains("user")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else if (match.toLowerCase().contains("host")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###.###.###.###");
-                } else if (match.toLowerCase().contains("port")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 amqp://###MASKED###:5672");
-                }
-            case "MONGODB_CONFIG":
-                if (match.toLowerCase().contains("password") || match.toLowerCase().contains("passwd")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else if (match.toLowerCase().contains("username") || match.toLowerCase().contains("user")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else if (match.toLowerCase().contains("connection")) {
-                    // 对整个连接字符串进行脱敏
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\"']*[\"']?", "$1 mongodb://###MASKED###:27017/###MASKED###?readPreference=secondaryPreferred");
-                } else if (match.toLowerCase().contains("host")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###.###.###.###");
-                } else if (match.toLowerCase().contains("port")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 mongodb://###MASKED###:27017");
-                }
-            case "HIKV_CONFIG":
-            case "HBASE_CONFIG":
-            case "HIVE_CONFIG":
-            case "COUCHBASE_CONFIG":
-                if (match.toLowerCase().contains("password") || match.toLowerCase().contains("passwd")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else if (match.toLowerCase().contains("username") || match.toLowerCase().contains("user")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else if (match.toLowerCase().contains("principal") || match.toLowerCase().contains("keytab")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else if (match.toLowerCase().contains("host") || match.toLowerCase().contains("quorum")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###.###.###.###");
-                } else if (match.toLowerCase().contains("port")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###:2181");
-                }
-            case "ELASTICSEARCH_CONFIG":
-                if (match.toLowerCase().contains("password") || match.toLowerCase().contains("passwd")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else if (match.toLowerCase().contains("username") || match.toLowerCase().contains("user")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else if (match.toLowerCase().contains("host")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###.###.###.###");
-                } else if (match.toLowerCase().contains("port")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 http://###MASKED###:9200");
-                }
-            case "PASSWORD":
-                return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-            case "USERNAME":
-                return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-            case "URL":
-                return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-            case "PORT":
-                return match.replaceFirst("([=:])\\s*[\"']?\\d+[\"']?", "$1 ###MASKED###");
-            case "ROCKETMQ_CONFIG":
-                if (match.toLowerCase().contains("namesrvaddr") || match.toLowerCase().contains("addr") || 
-                    match.toLowerCase().contains("host")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###.###.###.###:9876");
-                } else if (match.toLowerCase().contains("accesskey") || match.toLowerCase().contains("secretkey")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else if (match.toLowerCase().contains("producergroup") || match.toLowerCase().contains("consumergroup")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else if (match.toLowerCase().contains("topic")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                }
-            case "DUBBO_CONFIG":
-                if (match.toLowerCase().contains("address") || match.toLowerCase().contains("url") || 
-                    match.toLowerCase().contains("host")) {
-                    if (match.toLowerCase().contains("nacos")) {
-                        return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 nacos://###MASKED###");
-                    } else if (match.toLowerCase().contains("zookeeper")) {
-                        return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 zookeeper://###MASKED###:2181");
-                    } else {
-                        return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
+    private List<VirtualFile> walkConfigFiles(VirtualFile root, ProgressIndicator indicator) {
+        ExclusionMatcher matcher = ExclusionMatcher.create(root);
+        exclusionMatcher = matcher;
+        List<VirtualFile> configFiles = new ArrayList<>();
+        Deque<VirtualFile> pendingDirs = new ArrayDeque<>();
+        pendingDirs.add(root);
+
+        ReadActionSteps.runUntilDone(project, indicator, () -> {
+            int visitedEntries = 0;
+            while (!pendingDirs.isEmpty() && visitedEntries < MAX_ENTRIES_PER_READ_STEP) {
+                VirtualFile dir = pendingDirs.peekFirst();
+                List<VirtualFile> subDirs = new ArrayList<>();
+                List<VirtualFile> matchedFiles = new ArrayList<>();
+
+                if (dir.isValid()) {
+                    VirtualFile[] children = dir.getChildren();
+                    for (VirtualFile child : children) {
+                        ProgressManager.checkCanceled();
+                        if (child.isDirectory()) {
+                            // 被排除的目录整棵子树都不会被列举
+                            if (!matcher.isExcludedDirectory(child)) {
+                                subDirs.add(child);
+                            }
+                        } else if (isSensitiveFile(child)) {
+                            matchedFiles.add(child);
+                        }
                     }
-                } else if (match.toLowerCase().contains("password") || match.toLowerCase().contains("passwd")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else if (match.toLowerCase().contains("username") || match.toLowerCase().contains("user")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else if (match.toLowerCase().contains("group") || match.toLowerCase().contains("version")) {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
-                } else if (match.toLowerCase().contains("port")) {
-                    // 保持端口号原样
-                    return match;
-                } else {
-                    return match.replaceFirst("([=:])\\s*[\"']?[^\\s,;\"']+[\"']?", "$1 ###MASKED###");
+                    visitedEntries += children.length;
                 }
-            default:
-                return "###MASKED###";
-        }
-    }
 
-    private void collectConfigFiles(VirtualFile dir, List<VirtualFile> configFiles, ProgressIndicator indicator) {
-        if (indicator.isCanceled()) {
-            return;
-        }
-
-        VirtualFile[] children = dir.getChildren();
-        if (children == null) return;
-
-        for (VirtualFile child : children) {
-            if (indicator.isCanceled()) {
-                break;
-            }
-
-            if (child.isDirectory()) {
-                String path = child.getPath().toLowerCase();
-                if (!isExcludedDirectory(path)) {
-                    collectConfigFiles(child, configFiles, indicator);
+                // 整个目录检查完成后再提交，保证被打断时不会重复或遗漏
+                pendingDirs.pollFirst();
+                for (int i = subDirs.size() - 1; i >= 0; i--) {
+                    pendingDirs.addFirst(subDirs.get(i));
                 }
-            } else if (isSensitiveFile(child)) {
-                configFiles.add(child);
+                configFiles.addAll(matchedFiles);
             }
-        }
-    }
+            return pendingDirs.isEmpty();
+        });
 
-    private boolean isExcludedDirectory(String path) {
-        if (path == null) {
-            return false;
-        }
-        
-        // 排除常见的不需要处理的目录
-        return path.contains("/target/") ||
-               path.contains("/build/") ||
-               path.contains("/.git/") ||
-               path.contains("/.idea/") ||
-               path.contains("/node_modules/") ||
-               path.contains("/dist/") ||
-               path.contains("/out/") ||
-               path.contains("/bin/") ||
-               path.contains("/webapp/assets/plugins/") || // 排除webapp/assets/plugins目录
-               path.contains("/vendor/");
+        return configFiles;
     }
 
     /**
@@ -1014,56 +1530,77 @@ private boolean isExcludedDirectory(String path) {
      * 判断依据：
      * 1. 文件扩展名（.properties, .yml, .yaml, .xml等）
      * 2. 文件名特征（application.*, config.*等）
-     * 3. 文件路径（排除特定目录如 target, build等）
+     * 3. 文件路径（排除特定目录如 target, build 以及 .gitignore / .redactionignore 中的规则）
      * 
      * @param file 要检查的文件
      * @return 如果文件需要处理返回true，否则返回false
      */
     public boolean isSensitiveFile(VirtualFile file) {
-        if (file == null || !file.exists() || file.isDirectory() || file.getLength() > MAX_FILE_SIZE) {
+        if (file == null || !file.exists() || file.isDirectory()) {
             return false;
         }
         
         String fileName = file.getName().toLowerCase();
-        String path = file.getPath().toLowerCase();
+        String path = file.getPath();
         
-        // 排除 .idea 目录下的配置文件
-        if (path.contains("/.idea/")) {
-            LOG.info("跳过 .idea 目录下的文件: " + path);
+        // 排除 .idea、构建输出等目录以及 .gitignore / .redactionignore 中声明的文件
+        if (getExclusionMatcher().isExcluded(file)) {
+            LOG.debug("跳过被排除的文件: " + path);
             return false;
         }
         
-        // 添加对Java文件的支持
-        if (fileName.endsWith(".java")) {
-            return !isExcludedPath(path);
+        // JVM 源文件（Java、Kotlin、Groovy、Scala）
+        if (SensitiveRules.isSourceFileName(fileName)) {
+            return true;
         }
         
-        // 如果是 XML 文件，检查内容是否包含敏感信息（排除纯 schema 定义文件）
+        // 如果是 XML 文件，检查内容开头是否包含敏感信息（排除纯 schema 定义文件）
         if (fileName.endsWith(".xml")) {
-            LOG.info("检查 XML 文件: " + path);
-            // 在读操作中检查文件内容
-            Boolean result = ApplicationManager.getApplication().runReadAction((com.intellij.openapi.util.Computable<Boolean>) () -> {
-                try {
-                    Document document = FileDocumentManager.getInstance().getDocument(file);
-                    if (document != null) {
-                        String content = document.getText();
-                        // 如果文件内容主要是 schema 定义，则跳过
-                        if (content.contains("<?xml") && content.contains("xmlns:") 
-                            && !content.contains("password") && !content.contains("username")
-                            && !content.contains("host") && !content.contains("url")) {
-                            LOG.info("跳过 schema 定义文件: " + path);
-                            return false;
-                        }
-                    }
-                } catch (Exception e) {
-                    LOG.warn("检查 XML 文件时发生错误: " + file.getPath(), e);
-                }
-                return isConfigFile(fileName) && !isExcludedPath(path);
-            });
-            return result;
+            if (!isConfigFile(fileName)) {
+                return false;
+            }
+            // 只嗅探文件开头的有限字节，如果内容主要是 schema 定义，则跳过
+            if (XmlCandidateSniffer.isSchemaOnly(file)) {
+                LOG.info("跳过 schema 定义文件: " + path);
+                return false;
+            }
+            return true;
         }
         
-        return isConfigFile(fileName) && !isExcludedPath(path);
+        return isConfigFile(fileName) || isExtensionFormat(fileName);
+    }
+
+    /**
+     * 判断文件是否由内置扩展名以外的格式处理器（第三方扩展）处理
+     */
+    private static boolean isExtensionFormat(String name) {
+        String fileName = name.toLowerCase();
+        return !CONFIG_FILE_EXTENSIONS.contains(FileUtilRt.getExtension(fileName)) && FormatHandlers.find(fileName) != null;
+    }
+
+    /**
+     * 获取当前使用的排除规则匹配器，尚未扫描过时按项目内容根创建
+     */
+    private ExclusionMatcher getExclusionMatcher() {
+        ExclusionMatcher matcher = exclusionMatcher;
+        if (matcher == null) {
+            matcher = ExclusionMatcher.create(project);
+            exclusionMatcher = matcher;
+        }
+        return matcher;
+    }
+
+    /**
+     * 判断文件名是否带有配置文件特征（不区分扩展名）
+     */
+    private boolean isConfigFileName(String name) {
+        String fileName = name.toLowerCase();
+        for (String marker : CONFIG_FILE_NAME_MARKERS) {
+            if (fileName.contains(marker)) {
+                return isConfigFile(fileName) && !CONFIG_FILE_EXTENSIONS.contains(FileUtilRt.getExtension(fileName));
+            }
+        }
+        return false;
     }
 
     private boolean isConfigFile(String fileName) {
@@ -1078,374 +1615,21 @@ private boolean isConfigFile(String fileName) {
                 fileName.endsWith(".conf") ||
                 fileName.endsWith(".cfg") ||
                 fileName.endsWith(".env") ||
-                fileName.endsWith(".ini")) &&
+                fileName.endsWith(".ini") ||
+                fileName.endsWith(".sql") ||
+                fileName.endsWith(".csv") ||
+                fileName.endsWith(".tsv")) &&
                 !fileName.equals("pom.xml") &&
                 !fileName.equals("package.json") &&
                 !fileName.equals("tsconfig.json") &&
                 !fileName.equals("composer.json");
     }
 
-    private boolean isExcludedPath(String path) {
-        if (path == null) {
-            return false;
-        }
-        
-        // 排除特定文件类型
-        if (path.endsWith(".class") ||
-            path.endsWith(".jar") ||
-            path.endsWith(".war") ||
-            path.endsWith(".zip") ||
-            path.endsWith(".tar") ||
-            path.endsWith(".gz") ||
-            path.endsWith(".jpg") ||
-            path.endsWith(".jpeg") ||
-            path.endsWith(".png") ||
-            path.endsWith(".gif") ||
-            path.endsWith(".ico") ||
-            path.endsWith(".svg") ||
-            path.endsWith(".ttf") ||
-            path.endsWith(".woff") ||
-            path.endsWith(".woff2") ||
-            path.endsWith(".eot")) {
-            return true;
-        }
-        
-        // 排除webapp/assets/plugins目录下的JS和JSON文件
-        if (path.contains("/webapp/assets/plugins/") && 
-            (path.endsWith(".js") || path.endsWith(".json"))) {
-            return true;
-        }
-        
-        // 排除特定文件名
-        String fileName = path.substring(path.lastIndexOf('/') + 1);
-        return fileName.equals("package-lock.json") ||
-               fileName.equals("yarn.lock") ||
-               fileName.equals("composer.lock") ||
-               fileName.equals("Gemfile.lock");
-    }
-
-    /**
-     * 专门处理JSON格式内容的脱敏
-     * 使用JSON解析器确保不破坏JSON结构
-     */
-    private String maskJsonContent(String jsonContent) {
-        try {
-            // 使用Gson解析JSON
-            JsonElement jsonElement;
-            if (jsonContent.trim().startsWith("[")) {
-                // 处理JSON数组
-                jsonElement = JsonParser.parseString(jsonContent);
-                if (jsonElement.isJsonArray()) {
-                    JsonArray jsonArray = jsonElement.getAsJsonArray();
-                    for (int i = 0; i < jsonArray.size(); i++) {
-                        if (jsonArray.get(i).isJsonObject()) {
-                            JsonObject obj = jsonArray.get(i).getAsJsonObject();
-                            maskJsonObject(obj);
-                        }
-                    }
-                }
-            } else {
-                // 处理JSON对象
-                jsonElement = JsonParser.parseString(jsonContent);
-                if (jsonElement.isJsonObject()) {
-                    maskJsonObject(jsonElement.getAsJsonObject());
-                }
-            }
-            
-            // 将处理后的JSON转回字符串，禁用HTML转义和Unicode转义
-            Gson gson = new GsonBuilder()
-                .setPrettyPrinting()
-                .disableHtmlEscaping()  // 禁用HTML转义
-                .create();
-            return gson.toJson(jsonElement);
-            
-        } catch (Exception e) {
-            // 如果JSON解析失败，回退到普通文本处理
-            LOG.warn("Error parsing JSON, falling back to regular masking: " + e.getMessage());
-            return maskJsonContentAsText(jsonContent);
-        }
-    }
-    
-    /**
-     * 递归处理JSON对象中的敏感字段
-     */
-    private void maskJsonObject(JsonObject jsonObject) {
-        // 敏感字段名列表
-        Set<String> sensitiveKeys = new HashSet<>(Arrays.asList(
-            "password", "pwd", "secret", "key", "token", "accessKey", "secretKey", 
-            "appId", "appKey", "appSecret", "nameSpace", "env", "cluster", "refreshPath",
-            "host", "ip", "url", "uri", "endpoint", "address", "addr", "username", "user"
-        ));
-        
-        // 处理所有字段
-        for (Map.Entry<String, JsonElement> entry : new HashSet<>(jsonObject.entrySet())) {
-            String key = entry.getKey();
-            JsonElement value = entry.getValue();
-            
-            // 递归处理嵌套的JSON对象
-            if (value.isJsonObject()) {
-                // 特殊处理 dependencies 对象
-                if (key.equals("dependencies")) {
-                    maskDependenciesObject(value.getAsJsonObject());
-                } else {
-                    maskJsonObject(value.getAsJsonObject());
-                }
-            }
-            // 递归处理JSON数组
-            else if (value.isJsonArray()) {
-                JsonArray array = value.getAsJsonArray();
-                for (int i = 0; i < array.size(); i++) {
-                    if (array.get(i).isJsonObject()) {
-                        maskJsonObject(array.get(i).getAsJsonObject());
-                    }
-                }
-            }
-            // 处理字符串值
-            else if (value.isJsonPrimitive() && value.getAsJsonPrimitive().isString()) {
-                String strValue = value.getAsString();
-                
-                // 检查是否为敏感字段
-                boolean isSensitive = false;
-                
-                // 1. 检查字段名是否为敏感字段
-                for (String sensitiveKey : sensitiveKeys) {
-                    if (key.toLowerCase().contains(sensitiveKey.toLowerCase())) {
-                        isSensitive = true;
-                        break;
-                    }
-                }
-                
-                // 2. 检查字段值是否匹配敏感模式
-                if (!isSensitive) {
-                    for (Map.Entry<String, Pattern> patternEntry : SENSITIVE_PATTERNS.entrySet()) {
-                        if (patternEntry.getValue().matcher(strValue).matches()) {
-                            isSensitive = true;
-                            break;
-                        }
-                    }
-                }
-                
-                // 如果是敏感字段，进行脱敏
-                if (isSensitive) {
-                    // 根据字段类型选择不同的掩码
-                    String maskedValue;
-                    if (key.toLowerCase().contains("password") || key.toLowerCase().contains("secret") || 
-                        key.toLowerCase().contains("key") || key.toLowerCase().contains("token")) {
-                        maskedValue = "###MASKED###";
-                    } else if (key.toLowerCase().contains("ip") || key.toLowerCase().contains("host")) {
-                        maskedValue = "###.###.###.###";
-                    } else if (key.toLowerCase().contains("url") || key.toLowerCase().contains("uri") || 
-                               key.toLowerCase().contains("endpoint")) {
-                        maskedValue = "http://###MASKED###";
-                    } else {
-                        maskedValue = "###MASKED###";
-                    }
-                    
-                    jsonObject.addProperty(key, maskedValue);
-                }
-            }
-        }
-    }
-    
-    /**
-     * 特殊处理依赖对象，脱敏版本号但保留特殊字符
-     */
-    private void maskDependenciesObject(JsonObject dependenciesObject) {
-        for (Map.Entry<String, JsonElement> entry : new HashSet<>(dependenciesObject.entrySet())) {
-            String key = entry.getKey();
-            JsonElement value = entry.getValue();
-            
-            if (value.isJsonPrimitive() && value.getAsJsonPrimitive().isString()) {
-                // 保留依赖名称，脱敏版本号
-                dependenciesObject.addProperty(key, "###MASKED###");
-            } else if (value.isJsonObject()) {
-                // 递归处理嵌套对象
-                maskJsonObject(value.getAsJsonObject());
-            }
-        }
-    }
-    
-    /**
-     * 当JSON解析失败时的备用方法，使用正则表达式处理
-     */
-    private String maskJsonContentAsText(String jsonContent) {
-        // 匹配JSON中的键值对
-        Pattern jsonPattern = Pattern.compile("\"([^\"]+)\"\\s*:\\s*\"([^\"]+)\"");
-        Matcher matcher = jsonPattern.matcher(jsonContent);
-        StringBuffer sb = new StringBuffer();
-        
-        while (matcher.find()) {
-            String key = matcher.group(1);
-            String value = matcher.group(2);
-            
-            // 检查是否为敏感字段
-            boolean isSensitive = false;
-            Set<String> sensitiveKeys = new HashSet<>(Arrays.asList(
-                "password", "pwd", "secret", "key", "token", "accessKey", "secretKey", 
-                "appId", "appKey", "appSecret", "nameSpace", "env", "cluster", "refreshPath",
-                "host", "ip", "url", "uri", "endpoint", "address", "addr", "username", "user"
-            ));
-            
-            for (String sensitiveKey : sensitiveKeys) {
-                if (key.toLowerCase().contains(sensitiveKey.toLowerCase())) {
-                    isSensitive = true;
-                    break;
-                }
-            }
-            
-            // 如果是敏感字段，进行脱敏
-            if (isSensitive) {
-                String maskedValue;
-                if (key.toLowerCase().contains("password") || key.toLowerCase().contains("secret") || 
-                    key.toLowerCase().contains("key") || key.toLowerCase().contains("token")) {
-                    maskedValue = "###MASKED###";
-                } else if (key.toLowerCase().contains("ip") || key.toLowerCase().contains("host")) {
-                    maskedValue = "###.###.###.###";
-                } else if (key.toLowerCase().contains("url") || key.toLowerCase().contains("uri") || 
-                           key.toLowerCase().contains("endpoint")) {
-                    maskedValue = "http://###MASKED###";
-                } else {
-                    maskedValue = "###MASKED###";
-                }
-                
-                matcher.appendReplacement(sb, "\"" + key + "\":\"" + maskedValue + "\"");
-            } else {
-                matcher.appendReplacement(sb, matcher.group());
-            }
-        }
-        
-        matcher.appendTail(sb);
-        return sb.toString();
-    }
-
-    /**
-     * 处理配置文件内容
-     * @param content 原始内容
-     * @param fileType 文件类型
-     * @return 脱敏后的内容
-     */
-    private String processConfigContent(String content, String fileType) {
-        if (content == null || content.trim().isEmpty()) {
-            return content;
-        }
-
-        StringBuilder result = new StringBuilder();
-        String[] lines = content.split("\n");
-        int indentation = 0;  // 用于YAML缩进级别跟踪
-
-        for (String line : lines) {
-            String processedLine = line;
-            
-            // 跳过注释行和空行
-            if (line.trim().startsWith("#") || line.trim().startsWith("//") || line.trim().isEmpty()) {
-                result.append(line).append("\n");
-                continue;
-            }
-
-            if (fileType.equals("properties")) {
-                // 处理 properties 文件
-                int equalIndex = line.indexOf('=');
-                if (equalIndex > 0) {
-                    String key = line.substring(0, equalIndex).trim();
-                    String value = line.substring(equalIndex + 1).trim();
-                    
-                    // 检查是否为敏感配置
-                    if (isSensitiveConfigKey(key)) {
-                        String maskedValue = getMaskedConfigValue(key, value);
-                        processedLine = key + "=" + maskedValue;
-                    }
-                }
-            } else if (fileType.equals("yml") || fileType.equals("yaml")) {
-                // 处理 YAML 文件
-                int colonIndex = line.indexOf(':');
-                if (colonIndex > 0) {
-                    String currentIndent = line.substring(0, line.indexOf(line.trim()));
-                    String key = line.substring(currentIndent.length(), colonIndex).trim();
-                    String value = line.substring(colonIndex + 1).trim();
-                    
-                    // 检查是否为敏感配置
-                    if (isSensitiveConfigKey(key)) {
-                        String maskedValue = getMaskedConfigValue(key, value);
-                        processedLine = currentIndent + key + ": " + maskedValue;
-                    }
-                }
-            }
-
-            result.append(processedLine).append("\n");
-        }
-
-        return result.toString();
-    }
-
-    /**
-     * 检查配置键是否为敏感信息
-     */
-    private boolean isSensitiveConfigKey(String key) {
-        key = key.toLowerCase();
-        
-        // 检查是否包含敏感关键词
-        for (String keyword : SENSITIVE_FIELD_KEYWORDS) {
-            if (key.contains(keyword.toLowerCase())) {
-                return true;
-            }
-        }
-
-        // 检查是否匹配敏感模式
-        for (Pattern pattern : SENSITIVE_PATTERNS.values()) {
-            if (pattern.matcher(key).find()) {
-                return true;
-            }
-        }
-
-        return false;
-    }
-
     /**
-     * 根据配置键类型返回掩码后的值
+     * 按项目设置创建检测引擎（共享已编译的正则规则，候选词检测器使用设置中的阈值）
      */
-    private String getMaskedConfigValue(String key, String value) {
-        key = key.toLowerCase();
-        
-        // URL相关
-        if (key.contains("url") || key.contains("uri") || key.contains("endpoint")) {
-            if (value.toLowerCase().contains("jdbc:")) {
-                return "jdbc:mysql://###MASKED###:3306/###MASKED###";
-            } else if (value.toLowerCase().contains("mongodb://")) {
-                return "mongodb://###MASKED###:27017/###MASKED###";
-            } else if (value.toLowerCase().contains("redis://")) {
-                return "redis://###MASKED###:6379";
-            } else {
-                return "http://###MASKED###";
-            }
-        }
-        
-        // 主机地址相关
-        if (key.contains("host") || key.contains("address") || key.contains("ip")) {
-            return "###.###.###.###";
-        }
-        
-        // 端口相关
-        if (key.contains("port")) {
-            return "###MASKED###";
-        }
-        
-        // 集群相关
-        if (key.contains("cluster") || key.contains("zookeeper") || key.contains("namesrv")) {
-            return "###MASKED_CLUSTER###";
-        }
-        
-        // 密码相关
-        if (key.contains("password") || key.contains("secret") || key.contains("key")) {
-            return "###MASKED###";
-        }
-        
-        // 用户名相关
-        if (key.contains("username") || key.contains("user")) {
-            return "###MASKED###";
-        }
-        
-        // 默认掩码
-        return "###MASKED###";
+    public DetectionEngine getDetectionEngine() {
+        return DetectionEngine.CONFIG.withDetectors(RedactionSettings.getInstance(project).createTokenDetectors());
     }
 
     /**
@@ -1457,14 +1641,17 @@ public String processFile(String filePath) {
         try {
             String content = new String(Files.readAllBytes(Paths.get(filePath)));
             
-            if (filePath.endsWith(".java")) {
-                return maskJavaContent(content);
-            } else if (filePath.endsWith(".properties")) {
-                return processConfigContent(content, "properties");
-            } else if (filePath.endsWith(".yml") || filePath.endsWith(".yaml")) {
-                return processConfigContent(content, "yml");
+            // 与 IDE 中使用同一组格式处理器
+            String fileName = Paths.get(filePath).getFileName().toString().toLowerCase();
+            FormatHandler handler = FormatHandlers.find(fileName);
+            if (handler != null) {
+                TextEdits edits = new TextEdits();
+                DetectionEngine engine = getMaskingEngine();
+                handler.collectEdits(FormatRequest.headless(content, fileName, engine),
+                        PseudonymSink.wrap(engine, content, edits));
+                return edits.apply(content);
             }
-            
+
             return content;
         } catch (IOException e) {
             LOG.error("处理文件失败: " + filePath, e);
@@ -1478,13 +1665,22 @@ public String processFile(String filePath) {
      * @param targetDir 目标文件目录
      */
     public void batchProcessFiles(String sourceDir, String targetDir) {
+        DetectionEngine engine = getMaskingEngine();
         try {
             Files.walk(Paths.get(sourceDir))
                 .filter(Files::isRegularFile)
                 .forEach(sourcePath -> {
                     try {
                         String fileName = sourcePath.getFileName().toString();
-                        if (isConfigFile(fileName)) {
+                        if (isConfigFile(fileName) && Files.size(sourcePath) > MAX_FILE_SIZE) {
+                            // 大文件分块流式写出，不整个读入内存
+                            Path targetPath = Paths.get(targetDir, fileName.replace(".", "_target."));
+                            Files.createDirectories(targetPath.getParent());
+                            try (Reader reader = Files.newBufferedReader(sourcePath, StandardCharsets.UTF_8);
+                                 Writer writer = Files.newBufferedWriter(targetPath, StandardCharsets.UTF_8)) {
+                                maskStream(engine, FormatHandlers.find(fileName), fileName.toLowerCase(), reader, writer);
+                            }
+                        } else if (isConfigFile(fileName)) {
                             String processedContent = processFile(sourcePath.toString());
                             if (processedContent != null) {
                                 Path targetPath = Paths.get(targetDir, fileName.replace(".", "_target."));
@@ -1500,57 +1696,4 @@ public void batchProcessFiles(String sourceDir, String targetDir) {
             LOG.error("批量处理文件失败", e);
         }
     }
-
-    /**
-     * 处理Java类文件中的敏感信息
-     */
-    private String maskJavaContent(String content) {
-        if (content == null || content.trim().isEmpty()) {
-            return content;
-        }
-
-        // 匹配类的成员变量声明，包含敏感信息的字段
-        Pattern pattern = Pattern.compile(
-            "(?:private|public|protected)\\s+(?:static\\s+)?(?:final\\s+)?String\\s+\\w+(?:" +
-            // 密码和认证相关
-            "password|pwd|passwd|secret|key|token|username|user|private|privacy|" +
-            // URL和地址相关
-            "url|uri|endpoint|address|addr|" +
-            // 集群和服务器相关
-            "cluster|host|server|gateway|proxy|nameserver|namesrv|broker|registry|" +
-            // 中间件相关
-            "zookeeper|redis|mysql|mongodb|elasticsearch|kafka|rabbitmq|dubbo|nacos" +
-            ")\\w*\\s*=\\s*\"[^\"]*\"",
-            Pattern.CASE_INSENSITIVE
-        );
-        
-        Matcher matcher = pattern.matcher(content);
-        StringBuffer sb = new StringBuffer();
-        while (matcher.find()) {
-            String match = matcher.group();
-            String replacement;
-            
-            // 根据不同类型的字段使用不同的掩码
-            if (match.toLowerCase().contains("url") || 
-                match.toLowerCase().contains("uri") || 
-                match.toLowerCase().contains("endpoint")) {
-                replacement = match.replaceFirst("\"[^\"]*\"", "\"http://###MASKED###\"");
-            } else if (match.toLowerCase().contains("host") || 
-                      match.toLowerCase().contains("address") || 
-                      match.toLowerCase().contains("server")) {
-                replacement = match.replaceFirst("\"[^\"]*\"", "\"###.###.###.###\"");
-            } else if (match.toLowerCase().contains("cluster") || 
-                      match.toLowerCase().contains("zookeeper") || 
-                      match.toLowerCase().contains("namesrv")) {
-                replacement = match.replaceFirst("\"[^\"]*\"", "\"###MASKED_CLUSTER###\"");
-            } else {
-                replacement = match.replaceFirst("\"[^\"]*\"", "\"###MASKED###\"");
-            }
-            
-            matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement));
-        }
-        matcher.appendTail(sb);
-        
-        return sb.toString();
-    }
 } 
\ No newline at end of file
@@ -0,0 +1,353 @@
+package com.redaction.service;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.redaction.detect.DetectionEngine;
+import com.redaction.format.ArchiveMasker;
+import com.redaction.format.ChunkedMasker;
+import com.redaction.format.FormatHandler;
+import com.redaction.format.FormatHandlers;
+import com.redaction.format.FormatRequest;
+import com.redaction.format.PseudonymSink;
+import com.redaction.format.RecordFormatHandler;
+import com.redaction.format.RecordStreamMasker;
+import com.redaction.format.TextEdits;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 导出项目的脱敏副本，工作区中的文件保持不变
+ *
+ * 每个文件在线程池中独立处理：
+ * - 需要脱敏的文件解码后交给格式处理器，有替换时写出脱敏后的内容
+ * - 没有发现敏感信息的文件和其他文件不解码，导出到目录时用 {@link FileChannel#transferTo} 在内核中复制
+ * - 超过大小上限的文件流式处理，归档文件按条目处理
+ *
+ * 导出到 zip 时各文件仍并行分析，按文件顺序依次写入压缩流，在途文件数量受并行度限制。
+ * 不使用硬链接：之后对工作区文件的原地修改会同时出现在副本中。
+ *
+ * @version 1.0.0
+ */
+final class SnapshotExporter {
+    private static final Logger LOG = Logger.getInstance(SnapshotExporter.class);
+
+    /**
+     * 文件在副本中的处理方式
+     */
+    enum Kind {
+        COPY,
+        MASK,
+        ARCHIVE
+    }
+
+    /**
+     * 待导出的文件
+     */
+    static final class Source {
+        final Path path;
+        // 相对于项目目录、以 / 分隔的路径
+        final String relativePath;
+        final Kind kind;
+        final Charset charset;
+
+        Source(@NotNull Path path, @NotNull String relativePath, @NotNull Kind kind, @NotNull Charset charset) {
+            this.path = path;
+            this.relativePath = relativePath;
+            this.kind = kind;
+            this.charset = charset;
+        }
+    }
+
+    /**
+     * 单个文件的处理结果：content 为内存中的脱敏内容，written 表示脱敏内容已写入输出文件，
+     * 两者都不存在时原样复制源文件
+     */
+    private static final class Output {
+        final Source file;
+        @Nullable final byte[] content;
+        @Nullable final Path written;
+
+        Output(Source file, @Nullable byte[] content, @Nullable Path written) {
+            this.file = file;
+            this.content = content;
+            this.written = written;
+        }
+    }
+
+    private final DetectionEngine engine;
+    private final ExecutorService executor;
+    private final ExecutorService innerExecutor;
+    private final int parallelism;
+    private final long maxFileSize;
+    private final int windowSize;
+
+    private final AtomicInteger exportedFiles = new AtomicInteger();
+    private final AtomicInteger maskedFiles = new AtomicInteger();
+    private final AtomicInteger findings = new AtomicInteger();
+
+    /**
+     * @param executor      处理单个文件的线程池
+     * @param innerExecutor 大数据文件分批和归档条目使用的线程池，其中的任务不会再等待 executor
+     * @param parallelism   线程池的并行度，用于限制在途文件数量
+     * @param maxFileSize   超过该大小的文件流式处理
+     * @param windowSize    流式处理非数据文件时每个窗口的字符数
+     */
+    SnapshotExporter(@NotNull DetectionEngine engine, @NotNull ExecutorService executor,
+                     @NotNull ExecutorService innerExecutor, int parallelism, long maxFileSize, int windowSize) {
+        this.engine = engine;
+        this.executor = executor;
+        this.innerExecutor = innerExecutor;
+        this.parallelism = Math.max(1, parallelism);
+        this.maxFileSize = maxFileSize;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * 导出到目录，目录不存在时创建
+     */
+    void exportToDirectory(@NotNull List<Source> files, @NotNull Path targetDir, @NotNull ProgressIndicator indicator)
+            throws IOException {
+        Files.createDirectories(targetDir);
+        run(files, indicator, file -> {
+            Path target = targetDir.resolve(file.relativePath);
+            Files.createDirectories(target.getParent());
+            Output output = process(file, target);
+            if (output.content != null) {
+                Files.write(target, output.content);
+            } else if (output.written == null) {
+                copy(file.path, target);
+            }
+            copyAttributes(file.path, target);
+            return null;
+        }, output -> {
+        });
+    }
+
+    /**
+     * 导出到 zip 文件，流式处理的文件先写入临时目录
+     */
+    void exportToZip(@NotNull List<Source> files, @NotNull Path zipFile, @NotNull ProgressIndicator indicator)
+            throws IOException {
+        Path tempDir = Files.createTempDirectory(zipFile.toAbsolutePath().getParent(), "snapshot");
+        AtomicInteger tempFiles = new AtomicInteger();
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            run(files, indicator, file -> {
+                String name = file.path.getFileName().toString();
+                return process(file, tempDir.resolve(tempFiles.incrementAndGet() + "-" + name));
+            }, output -> {
+                ZipEntry entry = new ZipEntry(output.file.relativePath);
+                entry.setTime(Files.getLastModifiedTime(output.file.path).toMillis());
+                zip.putNextEntry(entry);
+                if (output.content != null) {
+                    zip.write(output.content);
+                } else if (output.written != null) {
+                    Files.copy(output.written, zip);
+                    Files.delete(output.written);
+                } else {
+                    Files.copy(output.file.path, zip);
+                }
+                zip.closeEntry();
+            });
+        } finally {
+            try (Stream<Path> temps = Files.walk(tempDir)) {
+                temps.sorted(Comparator.reverseOrder()).forEach(path -> {
+                    try {
+                        Files.deleteIfExists(path);
+                    } catch (IOException e) {
+                        LOG.warn("删除临时文件失败: " + path, e);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * 生成用于展示的摘要
+     */
+    @NotNull
+    String toSummary(@NotNull Path target) {
+        return "导出文件: " + exportedFiles.get() + "\n" +
+               "脱敏文件: " + maskedFiles.get() + "（敏感项 " + findings.get() + " 处）\n" +
+               "原样复制: " + (exportedFiles.get() - maskedFiles.get()) + "\n" +
+               "导出位置: " + target;
+    }
+
+    private interface FileTask {
+        @Nullable
+        Output run(Source file) throws IOException, InterruptedException;
+    }
+
+    private interface OutputConsumer {
+        void accept(Output output) throws IOException;
+    }
+
+    /**
+     * 并行处理全部文件，结果按文件顺序交给 consumer
+     */
+    private void run(List<Source> files, ProgressIndicator indicator, FileTask task, OutputConsumer consumer)
+            throws IOException {
+        Deque<Future<Output>> pending = new ArrayDeque<>();
+        int total = files.size();
+        AtomicInteger done = new AtomicInteger();
+        try {
+            for (Source file : files) {
+                indicator.checkCanceled();
+                pending.addLast(executor.submit(() -> {
+                    if (indicator.isCanceled()) {
+                        throw new ProcessCanceledException();
+                    }
+                    Output output = task.run(file);
+                    exportedFiles.incrementAndGet();
+                    indicator.setFraction((double) done.incrementAndGet() / total);
+                    indicator.setText2(file.relativePath);
+                    return output;
+                }));
+                while (pending.size() > parallelism * 2) {
+                    accept(pending.removeFirst(), consumer);
+                }
+            }
+            while (!pending.isEmpty()) {
+                accept(pending.removeFirst(), consumer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException(e);
+        } finally {
+            for (Future<Output> future : pending) {
+                future.cancel(true);
+            }
+        }
+        indicator.checkCanceled();
+    }
+
+    private static void accept(Future<Output> future, OutputConsumer consumer) throws IOException, InterruptedException {
+        Output output;
+        try {
+            output = future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+        if (output != null) {
+            consumer.accept(output);
+        }
+    }
+
+    /**
+     * 分析单个文件
+     *
+     * @param output 流式处理和归档的脱敏结果写入的位置
+     */
+    private Output process(Source file, Path output) throws IOException, InterruptedException {
+        String fileName = file.path.getFileName().toString().toLowerCase();
+        int replaced;
+        if (file.kind == Kind.ARCHIVE) {
+            replaced = new ArchiveMasker(engine, innerExecutor, parallelism).mask(file.path, output, fileName)
+                    .getReplacements();
+            return masked(file, null, replaced > 0 ? output : null, replaced);
+        }
+        FormatHandler handler = file.kind == Kind.MASK ? FormatHandlers.find(fileName) : null;
+        if (handler == null) {
+            return new Output(file, null, null);
+        }
+
+        if (Files.size(file.path) > maxFileSize) {
+            try (Reader reader = new InputStreamReader(Files.newInputStream(file.path), file.charset);
+                 Writer writer = new OutputStreamWriter(Files.newOutputStream(output), file.charset)) {
+                replaced = handler instanceof RecordFormatHandler
+                        ? new RecordStreamMasker(engine, (RecordFormatHandler) handler, fileName, innerExecutor,
+                                parallelism).mask(reader, writer)
+                        : new ChunkedMasker(engine, handler, fileName, windowSize).mask(reader, writer);
+            }
+            if (replaced == 0) {
+                // 没有替换时复制原始字节，不保留解码再编码的结果
+                Files.delete(output);
+            }
+            return masked(file, null, replaced > 0 ? output : null, replaced);
+        }
+
+        String text = new String(Files.readAllBytes(file.path), file.charset);
+        TextEdits edits = new TextEdits();
+        handler.collectEdits(FormatRequest.headless(text, fileName, engine), PseudonymSink.wrap(engine, text, edits));
+        if (edits.isEmpty()) {
+            return new Output(file, null, null);
+        }
+        return masked(file, edits.apply(text).getBytes(file.charset), null, edits.size());
+    }
+
+    private Output masked(Source file, @Nullable byte[] content, @Nullable Path written, int replaced) {
+        if (replaced > 0) {
+            maskedFiles.incrementAndGet();
+            findings.addAndGet(replaced);
+        }
+        return new Output(file, content, written);
+    }
+
+    /**
+     * 在内核中复制文件内容，不经过用户态缓冲区
+     */
+    private static void copy(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = in.transferTo(position, size - position, out);
+                if (transferred <= 0) {
+                    throw new IOException("复制时文件被截断: " + source);
+                }
+                position += transferred;
+            }
+        } catch (FileAlreadyExistsException e) {
+            throw new IOException("导出目标中已存在文件: " + target, e);
+        }
+    }
+
+    /**
+     * 保留修改时间和可执行权限（例如 gradlew）
+     */
+    private static void copyAttributes(Path source, Path target) throws IOException {
+        try {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(source);
+            Files.setPosixFilePermissions(target, permissions);
+        } catch (UnsupportedOperationException e) {
+            // 非 POSIX 文件系统
+        }
+        Files.setLastModifiedTime(target, Files.getLastModifiedTime(source));
+    }
+}
@@ -0,0 +1,132 @@
+package com.redaction.service;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * XML 候选文件嗅探器
+ *
+ * 在文件发现阶段判断 XML 文件是否只是 schema 定义：只嗅探不超过 {@link #MAX_SNIFF_BYTES} 字节的文件，
+ * 在字节层面对全部内容做关键字预过滤，不创建 Document；更大的文件无法只凭前缀排除，始终作为候选。
+ * 判断结果按文件修改戳缓存在 VirtualFile 上，文件未变化时不会重复读取。
+ *
+ * @version 1.0.0
+ */
+final class XmlCandidateSniffer {
+    private static final Logger LOG = Logger.getInstance(XmlCandidateSniffer.class);
+
+    static final int MAX_SNIFF_BYTES = 16 * 1024; // 可以嗅探的最大文件字节数
+
+    private static final Key<Verdict> VERDICT_KEY = Key.create("redaction.xml.sniff.verdict");
+
+    private static final byte[] XML_DECLARATION = bytes("<?xml");
+    private static final byte[] XML_NAMESPACE = bytes("xmlns:");
+    private static final byte[][] SENSITIVE_KEYWORDS = {
+        bytes("password"), bytes("username"), bytes("host"), bytes("url")
+    };
+
+    private XmlCandidateSniffer() {
+    }
+
+    /**
+     * 判断 XML 文件是否只是 schema 定义（包含 XML 声明和命名空间，但不包含任何敏感关键字）
+     *
+     * 超过 {@link #MAX_SNIFF_BYTES} 的文件总是返回 false，关键字可能出现在前缀之后。
+     *
+     * @param file 要检查的 XML 文件
+     * @return 是纯 schema 定义文件时返回 true
+     */
+    static boolean isSchemaOnly(@NotNull VirtualFile file) {
+        // 编辑器中有未保存的修改时以内存中的内容为准，且不缓存
+        FileDocumentManager documentManager = FileDocumentManager.getInstance();
+        Document cached = documentManager.getCachedDocument(file);
+        if (cached != null && documentManager.isDocumentUnsaved(cached)) {
+            CharSequence text = cached.getImmutableCharSequence();
+            if (text.length() > MAX_SNIFF_BYTES) {
+                return false;
+            }
+            byte[] content = text.toString().getBytes(StandardCharsets.UTF_8);
+            return content.length <= MAX_SNIFF_BYTES && isSchemaOnly(content, content.length);
+        }
+
+        long stamp = file.getModificationStamp();
+        Verdict verdict = file.getUserData(VERDICT_KEY);
+        if (verdict != null && verdict.stamp == stamp) {
+            return verdict.schemaOnly;
+        }
+
+        boolean schemaOnly = false;
+        if (file.getLength() > MAX_SNIFF_BYTES) {
+            file.putUserData(VERDICT_KEY, new Verdict(stamp, false));
+            return false;
+        }
+        try (InputStream in = file.getInputStream()) {
+            // 多读一个字节：长度信息过期、实际内容超过上限时同样不能排除
+            byte[] buffer = new byte[MAX_SNIFF_BYTES + 1];
+            int length = 0;
+            int read;
+            while (length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) > 0) {
+                length += read;
+            }
+            schemaOnly = length <= MAX_SNIFF_BYTES && isSchemaOnly(buffer, length);
+        } catch (IOException e) {
+            LOG.warn("读取 XML 文件前缀失败: " + file.getPath(), e);
+            return false;
+        }
+
+        file.putUserData(VERDICT_KEY, new Verdict(stamp, schemaOnly));
+        return schemaOnly;
+    }
+
+    private static boolean isSchemaOnly(byte[] buffer, int length) {
+        if (indexOf(buffer, length, XML_DECLARATION) < 0 || indexOf(buffer, length, XML_NAMESPACE) < 0) {
+            return false;
+        }
+        for (byte[] keyword : SENSITIVE_KEYWORDS) {
+            if (indexOf(buffer, length, keyword) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] buffer, int length, byte[] needle) {
+        int last = length - needle.length;
+        byte first = needle[0];
+        for (int i = 0; i <= last; i++) {
+            if (buffer[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < needle.length && buffer[i + j] == needle[j]) {
+                j++;
+            }
+            if (j == needle.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static final class Verdict {
+        final long stamp;
+        final boolean schemaOnly;
+
+        Verdict(long stamp, boolean schemaOnly) {
+            this.stamp = stamp;
+            this.schemaOnly = schemaOnly;
+        }
+    }
+}
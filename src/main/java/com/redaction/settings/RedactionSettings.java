@@ -2,20 +2,34 @@
 
 import com.intellij.openapi.components.*;
 import com.intellij.openapi.project.Project;
+import com.redaction.detect.CredentialFormatDetector;
+import com.redaction.detect.EntropyDetector;
+import com.redaction.detect.PiiDetector;
+import com.redaction.detect.TokenDetector;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @State(
     name = "RedactionSettings",
     storages = {@Storage("redactionSettings.xml")}
 )
-@Service
+@Service(Service.Level.PROJECT)
 public final class RedactionSettings implements PersistentStateComponent<RedactionSettings.State> {
     public static class State {
         public boolean maskIpAddress = true;
         public boolean maskDbUrl = true;
         public boolean maskPassword = true;
         public boolean maskApiKey = true;
+        public boolean piiDetectionEnabled = true;
+        public boolean entropyDetectionEnabled = true;
+        public int entropyMinLength = EntropyDetector.DEFAULT_MIN_LENGTH;
+        public double base64EntropyThreshold = EntropyDetector.DEFAULT_BASE64_THRESHOLD;
+        public double hexEntropyThreshold = EntropyDetector.DEFAULT_HEX_THRESHOLD;
+        public boolean pseudonymizeEnabled = false;
+        public boolean reversibleMaskingEnabled = false;
     }
 
     private State state = new State();
@@ -66,4 +80,82 @@ public boolean isMaskApiKey() {
     public void setMaskApiKey(boolean maskApiKey) {
         state.maskApiKey = maskApiKey;
     }
-} 
\ No newline at end of file
+
+    public boolean isPiiDetectionEnabled() {
+        return state.piiDetectionEnabled;
+    }
+
+    public void setPiiDetectionEnabled(boolean piiDetectionEnabled) {
+        state.piiDetectionEnabled = piiDetectionEnabled;
+    }
+
+    public boolean isEntropyDetectionEnabled() {
+        return state.entropyDetectionEnabled;
+    }
+
+    public void setEntropyDetectionEnabled(boolean entropyDetectionEnabled) {
+        state.entropyDetectionEnabled = entropyDetectionEnabled;
+    }
+
+    public int getEntropyMinLength() {
+        return state.entropyMinLength;
+    }
+
+    public void setEntropyMinLength(int entropyMinLength) {
+        state.entropyMinLength = entropyMinLength;
+    }
+
+    public double getBase64EntropyThreshold() {
+        return state.base64EntropyThreshold;
+    }
+
+    public void setBase64EntropyThreshold(double base64EntropyThreshold) {
+        state.base64EntropyThreshold = base64EntropyThreshold;
+    }
+
+    public double getHexEntropyThreshold() {
+        return state.hexEntropyThreshold;
+    }
+
+    public void setHexEntropyThreshold(double hexEntropyThreshold) {
+        state.hexEntropyThreshold = hexEntropyThreshold;
+    }
+
+    /**
+     * 脱敏时是否把每个不同的值映射为稳定的编号令牌（例如 ###HOST_7###），而不是统一的掩码
+     */
+    public boolean isPseudonymizeEnabled() {
+        return state.pseudonymizeEnabled;
+    }
+
+    public void setPseudonymizeEnabled(boolean pseudonymizeEnabled) {
+        state.pseudonymizeEnabled = pseudonymizeEnabled;
+    }
+
+    /**
+     * 原地脱敏时是否把原值保存到本地加密保险库，以便之后恢复
+     */
+    public boolean isReversibleMaskingEnabled() {
+        return state.reversibleMaskingEnabled;
+    }
+
+    public void setReversibleMaskingEnabled(boolean reversibleMaskingEnabled) {
+        state.reversibleMaskingEnabled = reversibleMaskingEnabled;
+    }
+
+    /**
+     * 按当前设置创建检测引擎使用的候选词检测器
+     */
+    @NotNull
+    public List<TokenDetector> createTokenDetectors() {
+        List<TokenDetector> detectors = new ArrayList<>();
+        detectors.add(new CredentialFormatDetector());
+        if (state.piiDetectionEnabled) {
+            detectors.add(new PiiDetector());
+        }
+        if (state.entropyDetectionEnabled) {
+            detectors.add(new EntropyDetector(state.entropyMinLength, state.base64EntropyThreshold, state.hexEntropyThreshold));
+        }
+        return detectors;
+    }
+}
@@ -3,7 +3,11 @@
 import com.intellij.openapi.options.Configurable;
 import com.intellij.openapi.options.ConfigurationException;
 import com.intellij.openapi.project.Project;
+import com.intellij.ui.JBIntSpinner;
 import com.intellij.ui.components.JBCheckBox;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBTextField;
+import com.redaction.detect.EntropyDetector;
 import com.intellij.util.ui.FormBuilder;
 import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.Nullable;
@@ -16,6 +20,9 @@
  * 该类负责创建和管理插件的设置界面，允许用户自定义：
  * - 需要脱敏的数据类型
  * - 脱敏规则的启用/禁用
+ * - 个人信息检测的启用/禁用
+ * - 高熵字符串检测的长度和阈值
+ * - 一致化假名的启用/禁用
  * 
  * 设置界面集成在 IntelliJ IDEA 的设置面板中，
  * 可通过 Settings/Preferences -> Tools -> Sensitive Data Masking Settings 访问
@@ -45,6 +52,29 @@ public class RedactionSettingsConfigurable implements Configurable {
      */
     private JBCheckBox maskApiKeyCheckBox;
 
+    /**
+     * 界面组件：个人信息检测
+     */
+    private JBCheckBox piiDetectionCheckBox;
+
+    /**
+     * 界面组件：高熵字符串检测
+     */
+    private JBCheckBox entropyDetectionCheckBox;
+    private JBIntSpinner entropyMinLengthSpinner;
+    private JBTextField base64ThresholdField;
+    private JBTextField hexThresholdField;
+
+    /**
+     * 界面组件：一致化假名
+     */
+    private JBCheckBox pseudonymizeCheckBox;
+
+    /**
+     * 界面组件：可恢复脱敏
+     */
+    private JBCheckBox reversibleMaskingCheckBox;
+
     /**
      * 构造函数
      * @param project 当前项目实例
@@ -71,6 +101,9 @@ public String getDisplayName() {
      * - 数据库URL脱敏选项
      * - 密码脱敏选项
      * - API密钥脱敏选项
+     * - 个人信息检测选项
+     * - 高熵字符串检测选项
+     * - 一致化假名选项
      * 
      * @return 设置界面面板
      */
@@ -80,6 +113,13 @@ public String getDisplayName() {
         maskDbUrlCheckBox = new JBCheckBox("Mask Database URLs");
         maskPasswordCheckBox = new JBCheckBox("Mask Passwords");
         maskApiKeyCheckBox = new JBCheckBox("Mask API Keys");
+        piiDetectionCheckBox = new JBCheckBox("Detect personal data (ID card, bank card, mobile, email)");
+        entropyDetectionCheckBox = new JBCheckBox("Detect high-entropy tokens under non-sensitive keys");
+        entropyMinLengthSpinner = new JBIntSpinner(EntropyDetector.DEFAULT_MIN_LENGTH, 8, 256);
+        base64ThresholdField = new JBTextField(6);
+        hexThresholdField = new JBTextField(6);
+        pseudonymizeCheckBox = new JBCheckBox("Replace each distinct value with a stable token (e.g. ###HOST_7###)");
+        reversibleMaskingCheckBox = new JBCheckBox("Keep original values in a local encrypted vault so masking can be restored");
 
         JPanel panel = FormBuilder.createFormBuilder()
                 .addComponent(new JLabel("Select which types of sensitive data to mask:"))
@@ -87,6 +127,15 @@ public String getDisplayName() {
                 .addComponent(maskDbUrlCheckBox)
                 .addComponent(maskPasswordCheckBox)
                 .addComponent(maskApiKeyCheckBox)
+                .addSeparator()
+                .addComponent(piiDetectionCheckBox)
+                .addComponent(entropyDetectionCheckBox)
+                .addLabeledComponent(new JBLabel("Minimum token length:"), entropyMinLengthSpinner)
+                .addLabeledComponent(new JBLabel("Base64 entropy threshold (bits/char):"), base64ThresholdField)
+                .addLabeledComponent(new JBLabel("Hex entropy threshold (bits/char):"), hexThresholdField)
+                .addSeparator()
+                .addComponent(pseudonymizeCheckBox)
+                .addComponent(reversibleMaskingCheckBox)
                 .addComponentFillVertically(new JPanel(), 0)
                 .getPanel();
 
@@ -103,6 +152,28 @@ private void loadSettings() {
         maskDbUrlCheckBox.setSelected(settings.isMaskDbUrl());
         maskPasswordCheckBox.setSelected(settings.isMaskPassword());
         maskApiKeyCheckBox.setSelected(settings.isMaskApiKey());
+        piiDetectionCheckBox.setSelected(settings.isPiiDetectionEnabled());
+        entropyDetectionCheckBox.setSelected(settings.isEntropyDetectionEnabled());
+        entropyMinLengthSpinner.setNumber(settings.getEntropyMinLength());
+        base64ThresholdField.setText(String.valueOf(settings.getBase64EntropyThreshold()));
+        hexThresholdField.setText(String.valueOf(settings.getHexEntropyThreshold()));
+        pseudonymizeCheckBox.setSelected(settings.isPseudonymizeEnabled());
+        reversibleMaskingCheckBox.setSelected(settings.isReversibleMaskingEnabled());
+    }
+
+    /**
+     * 解析熵阈值输入
+     */
+    private static double parseThreshold(JBTextField field, String name) throws ConfigurationException {
+        try {
+            double value = Double.parseDouble(field.getText().trim());
+            if (value <= 0 || value > 8) {
+                throw new ConfigurationException(name + " must be between 0 and 8");
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new ConfigurationException(name + " is not a number: " + field.getText());
+        }
     }
 
     /**
@@ -115,7 +186,14 @@ public boolean isModified() {
         return maskIpAddressCheckBox.isSelected() != settings.isMaskIpAddress() ||
                maskDbUrlCheckBox.isSelected() != settings.isMaskDbUrl() ||
                maskPasswordCheckBox.isSelected() != settings.isMaskPassword() ||
-               maskApiKeyCheckBox.isSelected() != settings.isMaskApiKey();
+               maskApiKeyCheckBox.isSelected() != settings.isMaskApiKey() ||
+               piiDetectionCheckBox.isSelected() != settings.isPiiDetectionEnabled() ||
+               entropyDetectionCheckBox.isSelected() != settings.isEntropyDetectionEnabled() ||
+               entropyMinLengthSpinner.getNumber() != settings.getEntropyMinLength() ||
+               !base64ThresholdField.getText().trim().equals(String.valueOf(settings.getBase64EntropyThreshold())) ||
+               !hexThresholdField.getText().trim().equals(String.valueOf(settings.getHexEntropyThreshold())) ||
+               pseudonymizeCheckBox.isSelected() != settings.isPseudonymizeEnabled() ||
+               reversibleMaskingCheckBox.isSelected() != settings.isReversibleMaskingEnabled();
     }
 
     /**
@@ -124,11 +202,20 @@ public boolean isModified() {
      */
     @Override
     public void apply() throws ConfigurationException {
+        double base64Threshold = parseThreshold(base64ThresholdField, "Base64 entropy threshold");
+        double hexThreshold = parseThreshold(hexThresholdField, "Hex entropy threshold");
         RedactionSettings settings = RedactionSettings.getInstance(project);
         settings.setMaskIpAddress(maskIpAddressCheckBox.isSelected());
         settings.setMaskDbUrl(maskDbUrlCheckBox.isSelected());
         settings.setMaskPassword(maskPasswordCheckBox.isSelected());
         settings.setMaskApiKey(maskApiKeyCheckBox.isSelected());
+        settings.setPiiDetectionEnabled(piiDetectionCheckBox.isSelected());
+        settings.setEntropyDetectionEnabled(entropyDetectionCheckBox.isSelected());
+        settings.setEntropyMinLength(entropyMinLengthSpinner.getNumber());
+        settings.setBase64EntropyThreshold(base64Threshold);
+        settings.setHexEntropyThreshold(hexThreshold);
+        settings.setPseudonymizeEnabled(pseudonymizeCheckBox.isSelected());
+        settings.setReversibleMaskingEnabled(reversibleMaskingCheckBox.isSelected());
     }
 
     /**
@@ -0,0 +1,124 @@
+package com.redaction.vcs;
+
+import com.intellij.diff.comparison.ComparisonManager;
+import com.intellij.diff.comparison.ComparisonPolicy;
+import com.intellij.diff.fragments.LineFragment;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vcs.CheckinProjectPanel;
+import com.intellij.openapi.vcs.VcsException;
+import com.intellij.openapi.vcs.changes.Change;
+import com.intellij.openapi.vcs.changes.ContentRevision;
+import com.intellij.openapi.vcs.checkin.CheckinHandler;
+import com.redaction.detect.CommitGate;
+import com.redaction.detect.DetectionEngine;
+import com.redaction.service.SensitiveDataService;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 提交前敏感信息检查
+ *
+ * 只读取即将提交的配置文件和源文件版本，并且只检查相对于上一版本新增或修改的行，
+ * 发现未脱敏的敏感信息时阻止提交（用户可以选择仍然提交）。
+ * 检测规则由 {@link com.redaction.detect.DetectionEngine} 预先编译，提交时不再重复编译。
+ *
+ * @version 1.0.0
+ */
+public class SensitiveDataCheckinHandler extends CheckinHandler {
+    private static final Logger LOG = Logger.getInstance(SensitiveDataCheckinHandler.class);
+
+    private static final int MAX_REPORTED_FINDINGS = 20;
+
+    private final CheckinProjectPanel panel;
+
+    public SensitiveDataCheckinHandler(@NotNull CheckinProjectPanel panel) {
+        this.panel = panel;
+    }
+
+    @Override
+    public ReturnResult beforeCheckin() {
+        Project project = panel.getProject();
+        Collection<Change> changes = panel.getSelectedChanges();
+        List<CommitGate.Finding> findings = new ArrayList<>();
+        DetectionEngine engine = project.getService(SensitiveDataService.class).getDetectionEngine();
+
+        boolean completed = ProgressManager.getInstance().runProcessWithProgressSynchronously(() -> {
+            ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+            long start = System.currentTimeMillis();
+            for (Change change : changes) {
+                ProgressManager.checkCanceled();
+                scanChange(engine, change, indicator, findings);
+            }
+            LOG.info("提交前敏感信息检查完成，文件数: " + changes.size() +
+                     ", 发现: " + findings.size() + ", 耗时: " + (System.currentTimeMillis() - start) + "ms");
+        }, "正在检查敏感信息...", true, project);
+
+        if (!completed) {
+            return ReturnResult.CANCEL;
+        }
+        if (findings.isEmpty()) {
+            return ReturnResult.COMMIT;
+        }
+
+        StringBuilder message = new StringBuilder("以下新增内容包含未脱敏的敏感信息：\n");
+        for (int i = 0; i < findings.size() && i < MAX_REPORTED_FINDINGS; i++) {
+            message.append(findings.get(i)).append('\n');
+        }
+        if (findings.size() > MAX_REPORTED_FINDINGS) {
+            message.append("... 共 ").append(findings.size()).append(" 处\n");
+        }
+        message.append("\n建议先执行脱敏再提交。");
+
+        int answer = Messages.showOkCancelDialog(project, message.toString(), "发现敏感信息",
+            "返回修改", "仍然提交", Messages.getWarningIcon());
+        return answer == Messages.OK ? ReturnResult.CANCEL : ReturnResult.COMMIT;
+    }
+
+    /**
+     * 检查单个变更中新增或修改的行
+     */
+    private void scanChange(DetectionEngine engine, Change change, ProgressIndicator indicator,
+                            List<CommitGate.Finding> findings) {
+        ContentRevision after = change.getAfterRevision();
+        if (after == null) {
+            return;
+        }
+        String path = after.getFile().getPath();
+        if (!CommitGate.isGatedFile(path)) {
+            return;
+        }
+        try {
+            String afterContent = after.getContent();
+            if (afterContent == null) {
+                return;
+            }
+            int[] lineStarts = CommitGate.lineStarts(afterContent);
+            ContentRevision before = change.getBeforeRevision();
+            String beforeContent = before != null ? before.getContent() : null;
+
+            if (beforeContent == null) {
+                // 新增文件，全部行都需要检查
+                CommitGate.scanLines(engine, path, afterContent, lineStarts, 0, lineStarts.length - 1, findings);
+                return;
+            }
+            List<LineFragment> fragments = ComparisonManager.getInstance()
+                .compareLines(beforeContent, afterContent, ComparisonPolicy.DEFAULT, indicator);
+            for (LineFragment fragment : fragments) {
+                CommitGate.scanLines(engine, path, afterContent, lineStarts,
+                    fragment.getStartLine2(), fragment.getEndLine2(), findings);
+            }
+        } catch (ProcessCanceledException e) {
+            throw e;
+        } catch (VcsException e) {
+            LOG.warn("读取提交内容失败: " + path, e);
+        }
+    }
+}
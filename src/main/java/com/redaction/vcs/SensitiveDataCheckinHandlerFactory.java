@@ -0,0 +1,21 @@
+package com.redaction.vcs;
+
+import com.intellij.openapi.vcs.CheckinProjectPanel;
+import com.intellij.openapi.vcs.changes.CommitContext;
+import com.intellij.openapi.vcs.checkin.CheckinHandler;
+import com.intellij.openapi.vcs.checkin.CheckinHandlerFactory;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 注册提交前敏感信息检查
+ *
+ * @version 1.0.0
+ */
+public class SensitiveDataCheckinHandlerFactory extends CheckinHandlerFactory {
+
+    @NotNull
+    @Override
+    public CheckinHandler createHandler(@NotNull CheckinProjectPanel panel, @NotNull CommitContext commitContext) {
+        return new SensitiveDataCheckinHandler(panel);
+    }
+}
@@ -0,0 +1,75 @@
+package com.redaction.detect;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * {@link EntropyDetector} 的字符集判断、滑动窗口和阈值
+ *
+ * 每行：{输入, 期望的命中（"规则:值"），没有命中时为 null}
+ *
+ * @version 1.0.0
+ */
+public class EntropyDetectorTest {
+
+    private static final String[][] DEFAULT_THRESHOLDS = {
+        // 随机 base64 令牌，末尾的 = 填充一并计入
+        {"token=Zm9vYmFyQmF6UXV4MTIzNDU2Nzg5MEFiQ2RFZkdo", "HIGH_ENTROPY_BASE64:Zm9vYmFyQmF6UXV4MTIzNDU2Nzg5MEFiQ2RFZkdo"},
+        {"k=dGhpc0lzQVJhbmRvbVNlY3JldDEyMzQ1Ng==", "HIGH_ENTROPY_BASE64:dGhpc0lzQVJhbmRvbVNlY3JldDEyMzQ1Ng=="},
+        {"aws_secret=wJalrXUtnFEMI/K7MDENG/bPxRfiCYEXAMPLEKEY", "HIGH_ENTROPY_BASE64:wJalrXUtnFEMI/K7MDENG/bPxRfiCYEXAMPLEKEY"},
+        // 十六进制摘要
+        {"sha=2fd4e1c67a2d28fced849ee1bb76e7391b93eb12", "HIGH_ENTROPY_HEX:2fd4e1c67a2d28fced849ee1bb76e7391b93eb12"},
+        // 长随机串之前的普通文本不影响窗口
+        {"prefix_aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa", null},
+        // 重复字符、纯字母、纯数字、单一大小写的字母数字
+        {"value=aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa", null},
+        {"name=ApplicationConfigurationLoader", null},
+        {"id=12345678901234567890123", null},
+        {"slug=release-2024-candidate-build-17", null},
+        // 包名和路径按 . 分段，每段都不够长
+        {"com.example.application.service.impl.UserServiceImpl", null},
+        // 低于最小长度
+        {"t=Zm9vYmFyQmF6", null},
+    };
+
+    @Test
+    public void defaultThresholds() {
+        EntropyDetector detector = new EntropyDetector();
+        for (String[] row : DEFAULT_THRESHOLDS) {
+            List<String> expected = row[1] == null ? Collections.emptyList() : Collections.singletonList(row[1]);
+            assertEquals(row[0], expected, scan(detector, row[0]));
+        }
+    }
+
+    @Test
+    public void thresholdsAreConfigurable() {
+        String text = "token=Zm9vYmFyQmF6UXV4MTIzNDU2Nzg5MEFiQ2RFZkdo";
+        assertEquals(Collections.emptyList(), scan(new EntropyDetector(20, 6.0, 6.0), text));
+        assertEquals(Collections.emptyList(), scan(new EntropyDetector(64, 4.2, 3.0), text));
+    }
+
+    @Test
+    public void configurationReflectsParameters() {
+        assertEquals(new EntropyDetector().configuration(),
+            new EntropyDetector(EntropyDetector.DEFAULT_MIN_LENGTH, EntropyDetector.DEFAULT_BASE64_THRESHOLD,
+                EntropyDetector.DEFAULT_HEX_THRESHOLD).configuration());
+        assertNotEquals(new EntropyDetector().configuration(), new EntropyDetector(24, 4.2, 3.0).configuration());
+        assertNotEquals(new EntropyDetector().configuration(), new EntropyDetector(20, 4.5, 3.0).configuration());
+    }
+
+    private static List<String> scan(EntropyDetector detector, String text) {
+        List<String> findings = new ArrayList<>();
+        DetectionEngine.CONFIG.withDetectors(Collections.singletonList(detector))
+            .scanTokens(text, 0, text.length(), (rule, start, end) -> {
+                findings.add(rule + ":" + text.substring(start, end));
+                return true;
+            });
+        return findings;
+    }
+}
@@ -0,0 +1,121 @@
+package com.redaction.detect;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link PiiDetector} 的校验规则：身份证校验码、银行卡号段与 Luhn 校验、手机号段和邮箱
+ *
+ * 每行：{输入, 期望的命中（"规则:值"），没有命中时为 null}
+ *
+ * @version 1.0.0
+ */
+public class PiiDetectorTest {
+
+    private static final DetectionEngine ENGINE =
+        DetectionEngine.CONFIG.withDetectors(Collections.singletonList(new PiiDetector()));
+
+    private static final String[][] ID_CARDS = {
+        {"id=11010519491231002X", "ID_CARD:11010519491231002X"},
+        {"id=11010519491231002x", "ID_CARD:11010519491231002x"},
+        {"id=320106198511204561", "ID_CARD:320106198511204561"},
+        // 校验码错误
+        {"id=110105194912310021", null},
+        {"id=320106198511204562", null},
+        // 出生日期无效
+        {"id=320106198513204561", null},
+        // 行政区划首位不能为 0 或 9
+        {"id=020106198511204561", null},
+    };
+
+    private static final String[][] BANK_CARDS = {
+        // 银联 18 位，键名给出卡号上下文
+        {"card_no=622848001234567894", "BANK_CARD:622848001234567894"},
+        {"银行卡号：6225880212345673", "BANK_CARD:6225880212345673"},
+        // 没有上下文的连续数字串可能是订单号
+        {"order_id=622848001234567894", null},
+        // 按 4 位一组分隔的卡号本身就是上下文
+        {"pan: 4563 5100 1234 5673", "BANK_CARD:4563 5100 1234 5673"},
+        {"pan: 4563-5100-1234-5673", "BANK_CARD:4563-5100-1234-5673"},
+        {"mc=5425 2334 3010 9903", "BANK_CARD:5425 2334 3010 9903"},
+        // 分隔符不一致
+        {"pan: 4563 5100-1234 5673", null},
+        // Luhn 校验失败
+        {"card_no=4563510012345674", null},
+        // 通过 Luhn 校验但不在任何卡组织的号段中
+        {"card_no=1234567812345670", null},
+        {"card_no=9400123412341239", null},
+        // 号段正确但长度不符（Visa 没有 15 位卡号）
+        {"card_no=456351001234562", null},
+        // 公开的测试卡号
+        {"card_no=4111111111111111", null},
+        {"pan: 4242 4242 4242 4242", null},
+    };
+
+    private static final String[][] MOBILES = {
+        {"phone=13812345678", "MOBILE:13812345678"},
+        {"phone=19912345678", "MOBILE:19912345678"},
+        {"phone=17012345678", "MOBILE:17012345678"},
+        // 带 86 国家码时只报告号码部分
+        {"phone=8613812345678", "MOBILE:13812345678"},
+        // 未分配的号段
+        {"phone=12012345678", null},
+        {"phone=14012345678", null},
+        {"phone=15412345678", null},
+        // 位数不对
+        {"phone=1381234567", null},
+        {"phone=138123456789", null},
+    };
+
+    private static final String[][] EMAILS = {
+        {"mail=ops@example.com", "EMAIL:ops@example.com"},
+        {"owner: first.last+tag@mail.example.org", "EMAIL:first.last+tag@mail.example.org"},
+        // 域名至少两段，顶级域名至少两个字母
+        {"user@localhost", null},
+        {"user@example.c", null},
+        // SSH 远程地址中的用户名不是邮箱
+        {"url=git@github.com:org/repo.git", null},
+        {"url=ssh://git@git.example.com/org/repo.git", null},
+    };
+
+    @Test
+    public void idCardCheckDigit() {
+        assertTable(ID_CARDS);
+    }
+
+    @Test
+    public void bankCardIssuerRangesAndLuhn() {
+        assertTable(BANK_CARDS);
+    }
+
+    @Test
+    public void mobilePrefixes() {
+        assertTable(MOBILES);
+    }
+
+    @Test
+    public void emails() {
+        assertTable(EMAILS);
+    }
+
+    private static void assertTable(String[][] table) {
+        for (String[] row : table) {
+            List<String> findings = scan(row[0]);
+            assertEquals(row[0], row[1] == null ? Collections.emptyList() : Collections.singletonList(row[1]), findings);
+        }
+    }
+
+    private static List<String> scan(String text) {
+        List<String> findings = new ArrayList<>();
+        ENGINE.scanTokens(text, 0, text.length(), (rule, start, end) -> {
+            findings.add(rule + ":" + text.substring(start, end));
+            return true;
+        });
+        return findings;
+    }
+}
@@ -0,0 +1,438 @@
+package com.redaction.format;
+
+import com.redaction.detect.DetectionEngine;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link ArchiveMasker} 的往返测试：构造归档、脱敏，再用 {@link ZipFile} / {@link ZipInputStream}
+ * 或按 ustar 格式重新读取，检查修改过的条目已脱敏、未修改的条目按字节保持不变
+ *
+ * @version 1.0.0
+ */
+public class ArchiveMaskerTest {
+
+    private static final String SECRET = "s3cr3t-Value";
+    private static final byte[] PROPERTIES =
+        utf8("spring.datasource.password=" + SECRET + "\nlogging.level.root=INFO\n");
+    private static final byte[] YAML = utf8("db:\n  password: " + SECRET + "\n  pool: 8\n");
+    private static final byte[] PLAIN_XML = utf8("<configuration><root level=\"info\"/></configuration>\n");
+    private static final byte[] MANIFEST = utf8("Manifest-Version: 1.0\nMain-Class: com.example.Main\n");
+    private static final byte[] BINARY = randomBytes(3000);
+
+    @Test
+    public void zipRoundTrip() throws Exception {
+        byte[] nested = zip(Collections.singletonMap("application.properties", PROPERTIES), false);
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("META-INF/MANIFEST.MF", MANIFEST);
+        entries.put("BOOT-INF/classes/application.properties", PROPERTIES);
+        entries.put("BOOT-INF/classes/logback.xml", PLAIN_XML);
+        entries.put("BOOT-INF/lib/dependency.jar", nested);
+        entries.put("BOOT-INF/classes/data.bin", BINARY);
+        entries.put("config/application.yml", YAML);
+
+        Path dir = Files.createTempDirectory("archive-test");
+        try {
+            // 前半条目压缩（带数据描述符），后半条目不压缩
+            Path source = write(dir.resolve("app.jar"), zip(entries, true));
+            Path target = dir.resolve("app.masked.jar");
+            ArchiveMasker.Result result = mask(source, target, "app.jar");
+
+            assertEquals(6, result.getEntries());
+            assertEquals(2, result.getRewrittenEntries());
+            assertTrue(result.getReplacements() >= 2);
+            assertFalse(result.isSigned());
+            assertMaskedZip(source, target, 0, entries,
+                Arrays.asList("BOOT-INF/classes/application.properties", "config/application.yml"));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /**
+     * 带启动脚本的可执行 jar：脚本原样保留，偏移量仍相对于 ZIP 数据的起点
+     */
+    @Test
+    public void zipWithLauncherScript() throws Exception {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("application.properties", PROPERTIES);
+        entries.put("data.bin", BINARY);
+        byte[] script = utf8("#!/bin/sh\nexec java -jar \"$0\" \"$@\"\n");
+
+        Path dir = Files.createTempDirectory("archive-test");
+        try {
+            Path source = write(dir.resolve("app.jar"), concat(script, zip(entries, true)));
+            Path target = dir.resolve("app.masked.jar");
+            mask(source, target, "app.jar");
+
+            byte[] masked = Files.readAllBytes(target);
+            assertArrayEquals(script, Arrays.copyOf(masked, script.length));
+            assertMaskedZip(source, target, script.length, entries,
+                Collections.singletonList("application.properties"));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void zipWithoutSecretsIsNotWritten() throws Exception {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("logback.xml", PLAIN_XML);
+        entries.put("data.bin", BINARY);
+
+        Path dir = Files.createTempDirectory("archive-test");
+        try {
+            Path source = write(dir.resolve("plain.zip"), zip(entries, true));
+            Path target = dir.resolve("plain.masked.zip");
+            ArchiveMasker.Result result = mask(source, target, "plain.zip");
+
+            assertEquals(1, result.getCandidates());
+            assertEquals(0, result.getReplacements());
+            assertFalse(Files.exists(target));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void tarRoundTrip() throws Exception {
+        assertTarRoundTrip(false);
+    }
+
+    @Test
+    public void tarGzRoundTrip() throws Exception {
+        assertTarRoundTrip(true);
+    }
+
+    private static void assertTarRoundTrip(boolean gzip) throws Exception {
+        String longName = "app/" + repeat("very-long-directory-name/", 6) + "application.properties";
+        byte[] tar = concat(
+            tarEntry("app/README", utf8("read me\n"), '0'),
+            tarEntry("app/config/application.properties", PROPERTIES, '0'),
+            // GNU 长文件名：路径放在 'L' 条目的数据中，下一个条目头中的名称被截断
+            tarEntry("././@LongLink", concat(utf8(longName), new byte[1]), 'L'),
+            tarEntry(longName.substring(0, 99), YAML, '0'),
+            tarEntry("app/logback.xml", PLAIN_XML, '0'),
+            tarEntry("app/lib/", new byte[0], '5'),
+            tarEntry("app/data.bin", BINARY, '0'),
+            new byte[2 * 512]);
+        String fileName = gzip ? "app.tar.gz" : "app.tar";
+
+        Path dir = Files.createTempDirectory("archive-test");
+        try {
+            Path source = write(dir.resolve(fileName), gzip ? gzip(tar) : tar);
+            Path target = dir.resolve("masked-" + fileName);
+            ArchiveMasker.Result result = mask(source, target, fileName);
+
+            assertEquals(6, result.getEntries());
+            assertEquals(3, result.getCandidates());
+            assertEquals(2, result.getRewrittenEntries());
+
+            byte[] maskedTar = Files.readAllBytes(target);
+            if (gzip) {
+                maskedTar = gunzip(maskedTar);
+            }
+            List<TarRecord> before = readTar(tar);
+            List<TarRecord> after = readTar(maskedTar);
+            assertEquals(before.size(), after.size());
+            for (int i = 0; i < before.size(); i++) {
+                TarRecord original = before.get(i);
+                TarRecord masked = after.get(i);
+                assertEquals(original.name, masked.name);
+                if (original.name.endsWith("application.properties") && original.type == '0') {
+                    String text = new String(masked.content, StandardCharsets.UTF_8);
+                    assertFalse(text, text.contains(SECRET));
+                    assertTrue(text, text.contains("logging.level.root=INFO"));
+                } else if (original.name.equals(longName.substring(0, 99))) {
+                    assertFalse(new String(masked.content, StandardCharsets.UTF_8).contains(SECRET));
+                } else {
+                    assertArrayEquals(original.name, original.header, masked.header);
+                    assertArrayEquals(original.name, original.raw, masked.raw);
+                }
+            }
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /**
+     * 重新打开脱敏后的 ZIP：条目顺序不变，ZipInputStream 从 ZIP 数据起点按本地文件头读取时校验 CRC 和大小，
+     * 未修改的条目内容、压缩方式、CRC 和本地记录的原始字节都与原归档相同
+     *
+     * @param zipStart ZIP 数据在文件中的起点（启动脚本的长度）
+     */
+    private static void assertMaskedZip(Path source, Path target, int zipStart, Map<String, byte[]> entries,
+                                        List<String> rewritten) throws IOException {
+        byte[] original = Files.readAllBytes(source);
+        byte[] masked = Files.readAllBytes(target);
+        try (ZipFile before = new ZipFile(source.toFile()); ZipFile after = new ZipFile(target.toFile())) {
+            assertEquals(new ArrayList<>(entries.keySet()), names(after));
+            for (String name : entries.keySet()) {
+                ZipEntry originalEntry = before.getEntry(name);
+                ZipEntry maskedEntry = after.getEntry(name);
+                byte[] content = readAll(after.getInputStream(maskedEntry));
+                assertEquals(name, originalEntry.getMethod(), maskedEntry.getMethod());
+                if (rewritten.contains(name)) {
+                    String text = new String(content, StandardCharsets.UTF_8);
+                    assertFalse(text, text.contains(SECRET));
+                    assertEquals(name, crc(content), maskedEntry.getCrc());
+                } else {
+                    assertArrayEquals(name, entries.get(name), content);
+                    assertEquals(name, originalEntry.getCrc(), maskedEntry.getCrc());
+                    assertEquals(name, originalEntry.getCompressedSize(), maskedEntry.getCompressedSize());
+                    assertArrayEquals(name, localRecord(original, name), localRecord(masked, name));
+                }
+            }
+        }
+        try (ZipInputStream in = new ZipInputStream(
+                new ByteArrayInputStream(masked, zipStart, masked.length - zipStart))) {
+            List<String> names = new ArrayList<>();
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                names.add(entry.getName());
+                readAll(in);
+            }
+            assertEquals(new ArrayList<>(entries.keySet()), names);
+        }
+    }
+
+    private static ArchiveMasker.Result mask(Path source, Path target, String fileName) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            return new ArchiveMasker(DetectionEngine.CONFIG, executor, 2).mask(source, target, fileName);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 构造 ZIP：deflateFirstHalf 为 true 时前一半条目压缩（ZipOutputStream 写数据描述符），其余不压缩
+     */
+    private static byte[] zip(Map<String, byte[]> entries, boolean deflateFirstHalf) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            int index = 0;
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                if (!deflateFirstHalf || index++ >= entries.size() / 2) {
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(entry.getValue().length);
+                    zipEntry.setCrc(crc(entry.getValue()));
+                }
+                out.putNextEntry(zipEntry);
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 条目的本地记录（本地文件头、数据和数据描述符），到下一个本地文件头或中央目录为止
+     */
+    private static byte[] localRecord(byte[] zip, String name) {
+        byte[] nameBytes = utf8(name);
+        int start = -1;
+        for (int i = 0; i + 30 + nameBytes.length <= zip.length; i++) {
+            if (isSignature(zip, i, 3, 4) && (zip[i + 26] & 0xff | (zip[i + 27] & 0xff) << 8) == nameBytes.length
+                    && Arrays.equals(Arrays.copyOfRange(zip, i + 30, i + 30 + nameBytes.length), nameBytes)) {
+                start = i;
+                break;
+            }
+        }
+        assertTrue(name, start >= 0);
+        int end = start + 30;
+        while (!isSignature(zip, end, 3, 4) && !isSignature(zip, end, 1, 2)) {
+            end++;
+        }
+        return Arrays.copyOfRange(zip, start, end);
+    }
+
+    private static boolean isSignature(byte[] data, int offset, int third, int fourth) {
+        return offset + 4 <= data.length && data[offset] == 'P' && data[offset + 1] == 'K'
+            && data[offset + 2] == third && data[offset + 3] == fourth;
+    }
+
+    private static List<String> names(ZipFile zip) {
+        List<String> names = new ArrayList<>();
+        for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements(); ) {
+            names.add(e.nextElement().getName());
+        }
+        return names;
+    }
+
+    /**
+     * ustar 条目：头块和按 512 字节补齐的数据
+     */
+    private static byte[] tarEntry(String name, byte[] content, char type) {
+        byte[] header = new byte[512];
+        putString(header, 0, name);
+        putString(header, 100, "0000644");
+        putString(header, 108, "0001750");
+        putString(header, 116, "0001750");
+        putString(header, 124, String.format("%011o", content.length));
+        putString(header, 136, String.format("%011o", 1700000000L));
+        header[156] = (byte) type;
+        putString(header, 257, "ustar");
+        putString(header, 263, "00");
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        long sum = 0;
+        for (byte b : header) {
+            sum += b & 0xff;
+        }
+        putString(header, 148, String.format("%06o", sum));
+        header[155] = ' ';
+        int padded = (content.length + 511) / 512 * 512;
+        return concat(header, Arrays.copyOf(content, padded));
+    }
+
+    /**
+     * tar 中的一条记录
+     */
+    private static final class TarRecord {
+        final String name;
+        final char type;
+        final byte[] header;
+        final byte[] raw;
+        final byte[] content;
+
+        TarRecord(String name, char type, byte[] header, byte[] raw, byte[] content) {
+            this.name = name;
+            this.type = type;
+            this.header = header;
+            this.raw = raw;
+            this.content = content;
+        }
+    }
+
+    /**
+     * 按 ustar 格式读取所有记录（包括 'L' 条目），同时校验每个头的校验和
+     */
+    private static List<TarRecord> readTar(byte[] tar) {
+        List<TarRecord> records = new ArrayList<>();
+        int position = 0;
+        while (position + 512 <= tar.length) {
+            byte[] header = Arrays.copyOfRange(tar, position, position + 512);
+            if (header[0] == 0) {
+                break;
+            }
+            long sum = 0;
+            for (int i = 0; i < 512; i++) {
+                sum += i >= 148 && i < 156 ? ' ' : header[i] & 0xff;
+            }
+            assertEquals(sum, Long.parseLong(cString(header, 148, 8).trim(), 8));
+            int size = Integer.parseInt(cString(header, 124, 12).trim(), 8);
+            int padded = (size + 511) / 512 * 512;
+            byte[] raw = Arrays.copyOfRange(tar, position + 512, position + 512 + padded);
+            records.add(new TarRecord(cString(header, 0, 100), (char) header[156], header, raw,
+                Arrays.copyOf(raw, size)));
+            position += 512 + padded;
+        }
+        return records;
+    }
+
+    private static String cString(byte[] data, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && data[end] != 0) {
+            end++;
+        }
+        return new String(data, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static void putString(byte[] header, int offset, String value) {
+        byte[] bytes = utf8(value);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        return readAll(new GZIPInputStream(new ByteArrayInputStream(data)));
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String repeat(String s, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    private static Path write(Path path, byte[] data) throws IOException {
+        return Files.write(path, data);
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.redaction.format;
+
+import com.redaction.detect.DetectionEngine;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link ChunkedMasker} 窗口边界处的上下文
+ *
+ * @version 1.0.0
+ */
+public class ChunkedMaskerTest {
+
+    private static final int WINDOW = 1024;
+    private static final int OVERLAP = DetectionEngine.MAX_MATCH_LENGTH;
+
+    /**
+     * 第一个窗口在 WINDOW + OVERLAP 处的行尾截断，下一个窗口的上下文从 WINDOW 处开始，正好落在一行中间；
+     * 半行 "[secret] docs" 不能被当作 section，边界后的敏感键仍要脱敏，普通键保持原样
+     */
+    @Test
+    public void valueRightAfterWindowBoundary() throws IOException {
+        String cutLine = "note = see [secret] docs\n";
+        int cutOffset = cutLine.indexOf('[');
+
+        StringBuilder text = new StringBuilder("[app]\n");
+        fillLines(text, WINDOW - cutOffset);
+        assertEquals(WINDOW - cutOffset, text.length());
+        text.append(cutLine);
+        fillLines(text, WINDOW + OVERLAP);
+        assertEquals(WINDOW + OVERLAP, text.length());
+
+        text.append("password = s3cr3t-value\n");
+        text.append("level = info\n");
+        fillLines(text, WINDOW + 3 * OVERLAP);
+
+        String masked = mask("app.ini", text.toString(), WINDOW);
+
+        assertFalse(masked.contains("s3cr3t-value"));
+        assertTrue(masked.contains("\nlevel = info\n"));
+        assertEquals(mask("app.ini", text.toString(), text.length()), masked);
+    }
+
+    /**
+     * 用 "k = v" 形式的普通行填充到 length 个字符，每行以换行结尾
+     */
+    private static void fillLines(StringBuilder text, int length) {
+        while (text.length() < length) {
+            int remaining = length - text.length();
+            if (remaining < 8) {
+                text.append("#          ", 0, remaining - 1).append('\n');
+            } else {
+                int size = Math.min(remaining, 64);
+                text.append("k = ");
+                for (int i = 5; i < size; i++) {
+                    text.append('v');
+                }
+                text.append('\n');
+            }
+        }
+    }
+
+    private static String mask(String fileName, String text, int window) throws IOException {
+        StringWriter out = new StringWriter();
+        new ChunkedMasker(DetectionEngine.CONFIG, new KeyValueFormatHandler(), fileName, window)
+            .mask(new StringReader(text), out);
+        return out.toString();
+    }
+}
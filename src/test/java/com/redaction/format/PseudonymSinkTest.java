@@ -0,0 +1,81 @@
+package com.redaction.format;
+
+import com.redaction.detect.DetectionEngine;
+import com.redaction.detect.Pseudonymizer;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link PseudonymSink} 只把值本身换成令牌：键名、分隔符、引号和占位符的其余部分保持不变，
+ * 同一个值出现在不同的键下得到同一个令牌
+ *
+ * @version 1.0.0
+ */
+public class PseudonymSinkTest {
+
+    private static final String PASSWORD = "Abc123xyz";
+
+    @Test
+    public void xmlConfigRuleKeepsKey() {
+        String text = String.join("\n",
+            "<beans>",
+            "  <prop>mysql.password=" + PASSWORD + "</prop>",
+            "  <prop>redis.password=\"" + PASSWORD + "\"</prop>",
+            "</beans>",
+            "");
+        String masked = mask(new XmlFormatHandler(), "beans.xml", text);
+        assertTrue(masked, masked.contains("<prop>mysql.password=###SECRET_1###</prop>"));
+        assertTrue(masked, masked.contains("<prop>redis.password=\"###SECRET_1###\"</prop>"));
+    }
+
+    @Test
+    public void placeholderDefaultKeepsKey() {
+        String text = String.join("\n",
+            "class A {",
+            "    @Value(\"${db.password:" + PASSWORD + "}\") String a;",
+            "    @Value(\"${cache.secret:" + PASSWORD + "}\") String b;",
+            "    String password = \"" + PASSWORD + "\";",
+            "}",
+            "");
+        String masked = mask(new SourceFormatHandler(), "A.java", text);
+        assertTrue(masked, masked.contains("@Value(\"${db.password:###SECRET_1###}\") String a;"));
+        assertTrue(masked, masked.contains("@Value(\"${cache.secret:###SECRET_1###}\") String b;"));
+        assertTrue(masked, masked.contains("String password = \"###SECRET_1###\";"));
+    }
+
+    @Test
+    public void keyValueUsesValueOnly() {
+        String text = "db.password=" + PASSWORD + "\nmq.secret=" + PASSWORD + "\nredis.password=other-Value9\n";
+        String masked = mask(new KeyValueFormatHandler(), "application.properties", text);
+        assertEquals("db.password=###SECRET_1###\nmq.secret=###SECRET_1###\nredis.password=###SECRET_2###\n", masked);
+        assertFalse(masked.contains(PASSWORD));
+    }
+
+    /**
+     * 不带 ### 标记的替换（保持类型的替换）原样传递
+     */
+    @Test
+    public void unmarkedReplacementPassesThrough() {
+        TextEdits edits = new TextEdits();
+        String text = "phone=13800138000";
+        PseudonymSink.wrap(engine(), text, edits).replace(6, 17, "00000000000");
+        assertEquals("phone=00000000000", edits.apply(text));
+    }
+
+    private static String mask(FormatHandler handler, String fileName, String text) {
+        DetectionEngine engine = engine();
+        TextEdits edits = new TextEdits();
+        handler.collectEdits(FormatRequest.headless(text, fileName, engine), PseudonymSink.wrap(engine, text, edits));
+        return edits.apply(text);
+    }
+
+    private static DetectionEngine engine() {
+        return DetectionEngine.CONFIG.withPseudonymizer(
+            new Pseudonymizer("test-key".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,202 @@
+package com.redaction.git;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 用 git 命令构建的小仓库核对 {@link GitRepository} 读取的对象：松散对象、OFS_DELTA 和 REF_DELTA 的 pack，
+ * 以及 {@link HistoryAuditor} 对引入提交的判断
+ *
+ * @version 1.0.0
+ */
+public class GitRepositoryTest {
+
+    private static final int VERSIONS = 6;
+
+    @Test
+    public void readsLooseObjects() throws Exception {
+        Path dir = createRepository();
+        try {
+            assertObjectsMatchGit(dir, false);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void resolvesOffsetDeltas() throws Exception {
+        Path dir = createRepository();
+        try {
+            git(dir, "repack", "-a", "-d", "-f", "--window=50", "--depth=50");
+            assertObjectsMatchGit(dir, true);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void resolvesReferenceDeltas() throws Exception {
+        Path dir = createRepository();
+        try {
+            git(dir, "-c", "repack.useDeltaBaseOffset=false", "repack", "-a", "-d", "-f", "--window=50", "--depth=50");
+            assertObjectsMatchGit(dir, true);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void findingsAreCreditedToTheIntroducingCommit() throws Exception {
+        Path dir = createRepository();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (GitRepository repository = GitRepository.open(dir)) {
+            assertNotNull(repository);
+            String first = new String(git(dir, "rev-list", "--max-parents=0", "HEAD"), StandardCharsets.UTF_8).trim();
+            HistoryAuditor.Result result = new HistoryAuditor(repository, executor, 2).audit(new HistoryAuditor.Monitor() {
+                @Override
+                public boolean isCanceled() {
+                    return false;
+                }
+
+                @Override
+                public void progress(String text, double fraction) {
+                }
+            });
+            assertEquals(VERSIONS, result.getCommits());
+            List<HistoryAuditor.Introduction> introductions = result.getIntroductions();
+            assertEquals(1, introductions.size());
+            assertEquals(first, introductions.get(0).getCommitId());
+            assertEquals("app.properties", introductions.get(0).getPath());
+        } finally {
+            executor.shutdownNow();
+            delete(dir);
+        }
+    }
+
+    /**
+     * 逐个核对仓库中的全部对象与 git cat-file 的输出一致
+     *
+     * @param expectDeltas 是否要求仓库中存在增量对象（确认测试确实覆盖了增量解析）
+     */
+    private static void assertObjectsMatchGit(Path dir, boolean expectDeltas) throws Exception {
+        String listing = new String(git(dir, "cat-file", "--batch-all-objects",
+            "--batch-check=%(objectname) %(objecttype) %(deltabase)"), StandardCharsets.UTF_8);
+        int deltas = 0;
+        int objects = 0;
+        try (GitRepository repository = GitRepository.open(dir)) {
+            assertNotNull(repository);
+            for (String line : listing.split("\n")) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] fields = line.split(" ");
+                if (!fields[2].matches("0+")) {
+                    deltas++;
+                }
+                GitRepository.GitObject object = repository.read(GitRepository.fromHex(fields[0]), Long.MAX_VALUE);
+                assertNotNull(fields[0], object);
+                assertEquals(fields[0], typeCode(fields[1]), object.type);
+                assertArrayEquals(fields[0], git(dir, "cat-file", fields[1], fields[0]), object.data);
+                objects++;
+            }
+        }
+        assertTrue(objects > VERSIONS * 3);
+        assertTrue("deltas: " + deltas, expectDeltas ? deltas > 0 : deltas == 0);
+    }
+
+    /**
+     * 创建一个有 {@link #VERSIONS} 个提交的仓库：第一个提交引入一个邮箱地址，之后的提交只修改其他行
+     */
+    private static Path createRepository() throws IOException, InterruptedException {
+        Assume.assumeTrue(isGitAvailable());
+        Path dir = Files.createTempDirectory("redaction-git");
+        git(dir, "init", "-q");
+        git(dir, "config", "user.name", "Test");
+        git(dir, "config", "user.email", "test@localhost");
+        git(dir, "config", "commit.gpgsign", "false");
+        Path file = dir.resolve("app.properties");
+        for (int version = 0; version < VERSIONS; version++) {
+            StringBuilder content = new StringBuilder("admin.contact=ops@example.com\n");
+            for (int line = 0; line < 200; line++) {
+                content.append("feature.").append(line).append(".enabled=").append(line == version * 10).append('\n');
+            }
+            Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+            Files.write(dir.resolve("notes.txt"), ("version " + version + "\n").getBytes(StandardCharsets.UTF_8));
+            git(dir, "add", "-A");
+            git(dir, "commit", "-q", "-m", "version " + version);
+        }
+        return dir;
+    }
+
+    private static int typeCode(String type) {
+        switch (type) {
+            case "commit":
+                return GitRepository.OBJ_COMMIT;
+            case "tree":
+                return GitRepository.OBJ_TREE;
+            case "blob":
+                return GitRepository.OBJ_BLOB;
+            default:
+                return GitRepository.OBJ_TAG;
+        }
+    }
+
+    private static boolean isGitAvailable() {
+        try {
+            return new ProcessBuilder("git", "--version").start().waitFor() == 0;
+        } catch (IOException | InterruptedException e) {
+            return false;
+        }
+    }
+
+    private static byte[] git(Path dir, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(Arrays.asList("git", "-C", dir.toString()));
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(false).start();
+        process.getOutputStream().close();
+        byte[] output = readAll(process.getInputStream());
+        int exit = process.waitFor();
+        if (exit != 0) {
+            throw new IOException("git " + String.join(" ", args) + " 退出码 " + exit + ": "
+                + new String(readAll(process.getErrorStream()), StandardCharsets.UTF_8));
+        }
+        return output;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.redaction.git;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link ObjectIdSet} 的开放寻址、扩容和冲突处理
+ *
+ * @version 1.0.0
+ */
+public class ObjectIdSetTest {
+
+    @Test
+    public void addAndContainsAcrossResizes() {
+        ObjectIdSet set = new ObjectIdSet(4);
+        Random random = new Random(42);
+        Set<String> expected = new HashSet<>();
+        byte[][] ids = new byte[5000][];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = new byte[20];
+            random.nextBytes(ids[i]);
+            assertTrue(set.add(ids[i]));
+            expected.add(GitRepository.toHex(ids[i]));
+        }
+        assertEquals(expected.size(), set.size());
+        for (byte[] id : ids) {
+            assertTrue(set.contains(id));
+            assertFalse(set.add(id.clone()));
+        }
+        assertEquals(ids.length, set.size());
+
+        byte[] absent = new byte[20];
+        random.nextBytes(absent);
+        assertFalse(set.contains(absent));
+    }
+
+    /**
+     * 前 8 字节（决定槽位）相同、只在后面的字节不同的 ID 互不覆盖
+     */
+    @Test
+    public void collidingSlotsAreProbed() {
+        ObjectIdSet set = new ObjectIdSet(16);
+        for (int i = 0; i < 100; i++) {
+            byte[] id = new byte[20];
+            id[19] = (byte) i;
+            id[10] = (byte) (i >> 3);
+            assertTrue(set.add(id));
+        }
+        for (int i = 0; i < 100; i++) {
+            byte[] id = new byte[20];
+            id[19] = (byte) i;
+            id[10] = (byte) (i >> 3);
+            assertTrue(set.contains(id));
+        }
+        byte[] other = new byte[20];
+        other[19] = (byte) 200;
+        assertFalse(set.contains(other));
+        assertEquals(100, set.size());
+    }
+
+    /**
+     * 直接从目录树数据中的偏移量添加，与单独的 ID 数组等价
+     */
+    @Test
+    public void addFromBufferOffset() {
+        ObjectIdSet set = new ObjectIdSet();
+        byte[] buffer = new byte[47];
+        new Random(7).nextBytes(buffer);
+        assertTrue(set.add(buffer, 13));
+        byte[] id = new byte[20];
+        System.arraycopy(buffer, 13, id, 0, 20);
+        assertTrue(set.contains(id));
+        assertFalse(set.add(id));
+    }
+}
@@ -0,0 +1,222 @@
+package com.redaction.service;
+
+import com.redaction.format.TextEdits;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link MaskVault} 的记录位置和数据文件：再次脱敏和部分恢复后其余记录的偏移量随之平移，
+ * 保存时压缩数据文件，数据文件被重写后之前准备的记录和打开的读取器都被拒绝
+ *
+ * @version 1.0.0
+ */
+public class MaskVaultTest {
+
+    private static final String PATH = "/project/config/application.properties";
+    private static final String ORIGINAL =
+        "db.user=admin\ndb.password=Secret-Pass1\nmq.token=tok-9f8e7d6c\ncache.secret=s3cr3t\n";
+
+    /**
+     * 再次脱敏时，位于新替换之后的已有记录按长度变化平移，之前的记录不变
+     */
+    @Test
+    public void remaskShiftsLaterEntries() throws Exception {
+        Path dir = Files.createTempDirectory("mask-vault");
+        try {
+            MaskVault vault = MaskVault.open(dir, key());
+            String first = mask(vault, ORIGINAL, "Secret-Pass1", "***", "s3cr3t", "***");
+            assertEquals("db.user=admin\ndb.password=***\nmq.token=tok-9f8e7d6c\ncache.secret=***\n", first);
+            List<MaskVault.Entry> before = vault.getEntries(PATH);
+
+            // 第一个值之前变长，两个值之间变短
+            String second = mask(vault, first, "admin", "##USER##", "tok-9f8e7d6c", "#");
+            assertEquals("db.user=##USER##\ndb.password=***\nmq.token=#\ncache.secret=***\n", second);
+
+            List<MaskVault.Entry> after = vault.getEntries(PATH);
+            assertEquals(4, after.size());
+            assertEquals(second.indexOf("##USER##"), after.get(0).offset);
+            assertEquals(before.get(0).offset + 3, after.get(1).offset);
+            assertEquals(second.indexOf("=#\n") + 1, after.get(2).offset);
+            assertEquals(before.get(1).offset + 3 - 11, after.get(3).offset);
+            for (MaskVault.Entry entry : after) {
+                assertTrue(MaskVault.matches(entry, second));
+            }
+            assertEquals(ORIGINAL, restore(vault, second, after).apply(second));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /**
+     * 只恢复部分记录时，其余记录按恢复的长度变化平移，之后仍能恢复
+     */
+    @Test
+    public void partialRestoreShiftsRemainingEntries() throws Exception {
+        Path dir = Files.createTempDirectory("mask-vault");
+        try {
+            MaskVault vault = MaskVault.open(dir, key());
+            String masked = mask(vault, ORIGINAL, "admin", "*", "Secret-Pass1", "*", "s3cr3t", "*");
+            List<MaskVault.Entry> entries = vault.getEntries(PATH);
+
+            // 只恢复第一处
+            TextEdits restored = restore(vault, masked, entries.subList(0, 1));
+            String partial = restored.apply(masked);
+            vault.remove(PATH, restored);
+
+            List<MaskVault.Entry> remaining = vault.getEntries(PATH);
+            assertEquals(2, remaining.size());
+            assertEquals(entries.get(1).offset + 4, remaining.get(0).offset);
+            assertEquals(entries.get(2).offset + 4, remaining.get(1).offset);
+            for (MaskVault.Entry entry : remaining) {
+                assertTrue(MaskVault.matches(entry, partial));
+            }
+            assertEquals(ORIGINAL, restore(vault, partial, remaining).apply(partial));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /**
+     * 保存时去掉已恢复的原值，重新打开后剩余记录仍能恢复；全部恢复后删除保险库文件
+     */
+    @Test
+    public void saveCompactsDataFile() throws Exception {
+        Path dir = Files.createTempDirectory("mask-vault");
+        try {
+            Path data = dir.resolve("vault.dat");
+            Path index = dir.resolve("vault.idx");
+            MaskVault vault = MaskVault.open(dir, key());
+            String masked = mask(vault, ORIGINAL, "admin", "*", "Secret-Pass1", "*", "s3cr3t", "*");
+            vault.save();
+            long fullSize = Files.size(data);
+
+            TextEdits restored = restore(vault, masked, vault.getEntries(PATH).subList(0, 2));
+            String partial = restored.apply(masked);
+            vault.remove(PATH, restored);
+            vault.save();
+            assertTrue(Files.size(data) < fullSize);
+
+            MaskVault reopened = MaskVault.open(dir, key());
+            assertEquals(1, reopened.size());
+            List<MaskVault.Entry> remaining = reopened.getEntries(PATH);
+            assertTrue(MaskVault.matches(remaining.get(0), partial));
+            TextEdits rest = restore(reopened, partial, remaining);
+            assertEquals(ORIGINAL, rest.apply(partial));
+
+            reopened.remove(PATH, rest);
+            reopened.save();
+            assertEquals(0, reopened.size());
+            assertFalse(Files.exists(data));
+            assertFalse(Files.exists(index));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /**
+     * 准备之后数据文件被压缩或删除，登记和读取都被拒绝，不会按失效的位置读到其他原值
+     */
+    @Test
+    public void rewrittenDataFileRejectsStaleState() throws Exception {
+        Path dir = Files.createTempDirectory("mask-vault");
+        try {
+            MaskVault vault = MaskVault.open(dir, key());
+            String masked = mask(vault, ORIGINAL, "admin", "*", "s3cr3t", "*");
+            MaskVault.Recording stale = prepare(vault, masked, "Secret-Pass1", "*");
+
+            // 压缩：恢复一处后保存
+            TextEdits restored = restore(vault, masked, vault.getEntries(PATH).subList(0, 1));
+            String partial = restored.apply(masked);
+            MaskVault.Entry entry = vault.getEntries(PATH).get(1);
+            try (MaskVault.OriginalReader originals = vault.openReader()) {
+                vault.remove(PATH, restored);
+                vault.save();
+                assertRejected(() -> originals.read(entry));
+            }
+            assertRejected(() -> vault.commit(stale));
+
+            // 删除：全部恢复后保存
+            MaskVault.Recording deleted = prepare(vault, partial, "Secret-Pass1", "*");
+            vault.remove(PATH, restore(vault, partial, vault.getEntries(PATH)));
+            vault.save();
+            assertRejected(() -> vault.commit(deleted));
+            assertEquals(0, vault.size());
+        } finally {
+            delete(dir);
+        }
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    private static void assertRejected(IoAction action) {
+        try {
+            action.run();
+            fail("数据文件重写后应当拒绝");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("已重写"));
+        }
+    }
+
+    /**
+     * 依次把值替换为掩码（值和掩码交替给出），登记到保险库并返回脱敏后的文本
+     */
+    private static String mask(MaskVault vault, String text, String... valuesAndMasks) throws IOException {
+        vault.commit(prepare(vault, text, valuesAndMasks));
+        return edits(text, valuesAndMasks).apply(text);
+    }
+
+    private static MaskVault.Recording prepare(MaskVault vault, String text, String... valuesAndMasks)
+            throws IOException {
+        return vault.prepare(PATH, text, edits(text, valuesAndMasks));
+    }
+
+    private static TextEdits edits(String text, String... valuesAndMasks) {
+        TextEdits edits = new TextEdits();
+        for (int i = 0; i < valuesAndMasks.length; i += 2) {
+            int start = text.indexOf(valuesAndMasks[i]);
+            assertTrue(valuesAndMasks[i], start >= 0);
+            edits.replace(start, start + valuesAndMasks[i].length(), valuesAndMasks[i + 1]);
+        }
+        return edits;
+    }
+
+    /**
+     * 与恢复流程相同：校验掩码后通过一个读取器读出全部原值
+     */
+    private static TextEdits restore(MaskVault vault, String text, List<MaskVault.Entry> entries) throws IOException {
+        TextEdits edits = new TextEdits();
+        try (MaskVault.OriginalReader originals = vault.openReader()) {
+            for (MaskVault.Entry entry : entries) {
+                assertTrue(MaskVault.matches(entry, text));
+                edits.replace(entry.offset, entry.offset + entry.length, originals.read(entry));
+            }
+        }
+        return edits;
+    }
+
+    private static byte[] key() {
+        byte[] key = new byte[32];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = (byte) (i * 7 + 1);
+        }
+        return key;
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+}